@@ -0,0 +1,111 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Loading the commit history the way the history dialog does, walking it already sorted by
+ * commit time, and sorting a loaded history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommitHistoryBenchmark {
+
+    @Param({"1000", "10000"})
+    public int commits;
+
+    private Git git;
+    private List<RevCommit> loaded;
+
+    @Setup
+    public void setUp() throws IOException, GitAPIException {
+        git = Git.open(Fixtures.repository(200, commits));
+        loaded = new ArrayList<>();
+        for (RevCommit commit : git.log().all().call()) {
+            loaded.add(commit);
+        }
+        // shuffled with a fixed seed, so every run sorts the same input
+        Collections.shuffle(loaded, new Random(Fixtures.SEED));
+    }
+
+    @TearDown
+    public void tearDown() {
+        git.close();
+    }
+
+    @Benchmark
+    public List<String> log() throws IOException, GitAPIException {
+        List<String> logs = new ArrayList<>();
+        for (RevCommit rev : git.log().all().call()) {
+            logs.add(rev.getId().getName() + " - [" + rev.getShortMessage() + "]");
+        }
+        return logs;
+    }
+
+    @Benchmark
+    public int walkByCommitTime() throws IOException {
+        int count = 0;
+        try (RevWalk walk = new RevWalk(git.getRepository())) {
+            walk.sort(RevSort.COMMIT_TIME_DESC);
+            for (Ref ref : git.getRepository().getRefDatabase().getRefs()) {
+                walk.markStart(walk.parseCommit(ref.getObjectId()));
+            }
+            for (RevCommit commit : walk) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public List<RevCommit> sortLoaded() {
+        List<RevCommit> sorted = new ArrayList<>(loaded);
+        Collections.sort(sorted,
+                new Comparator<RevCommit>() {
+                    public int compare(RevCommit c1, RevCommit c2) {
+                        return Integer.compare(c2.getCommitTime(), c1.getCommitTime());
+                    }
+                });
+        return sorted;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import javax.swing.filechooser.FileSystemView;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Listing a flat directory of 10k to 1M entries: {@link DirectoryListing#list}, which the tree
+ * &amp; table use, against the {@link FileSystemView} call they used before, plain
+ * {@link File#listFiles} and an NIO directory stream reading the attributes the table shows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DirectoryListingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int entries;
+
+    private File directory;
+    private FileSystemView fileSystemView;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Fixtures.directory(entries);
+        fileSystemView = FileSystemView.getFileSystemView();
+    }
+
+    @Benchmark
+    public File[] directoryListing() throws IOException {
+        return DirectoryListing.list(directory);
+    }
+
+    @Benchmark
+    public File[] fileSystemView() {
+        return fileSystemView.getFiles(directory, true);
+    }
+
+    @Benchmark
+    public File[] listFiles() {
+        return directory.listFiles();
+    }
+
+    @Benchmark
+    public void directoryStream(Blackhole blackhole) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath())) {
+            for (Path path : stream) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                blackhole.consume(attributes.size());
+                blackhole.consume(attributes.lastModifiedTime());
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Cost of one {@link FileTableModel#getValueAt} call per column, which the table pays for every
+ * visible cell on every repaint. Rows are the files of one directory of a generated repository
+ * plus the directories next to it, so the git status column sees both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class FileTableModelBenchmark {
+
+    @Param({"0", "1", "2", "3", "4", "5", "6"})
+    public int column;
+
+    private FileTableModel model;
+    private StatusMonitor statusMonitor;
+    private int rows;
+    private int row;
+
+    @Setup
+    public void setUp() throws Exception {
+        File repository = Fixtures.repository(10000, 100);
+        List<File> files = new ArrayList<>();
+        files.addAll(Arrays.asList(new File(repository, "src/d000").listFiles()));
+        files.addAll(Arrays.asList(new File(repository, "src").listFiles()));
+        model = new FileTableModel(files.toArray(new File[0]));
+        model.setDirectorySizes(new DirectorySizeCalculator());
+        model.setChecksums(new Checksums(), Checksums.Algorithm.CRC32C);
+        statusMonitor = new StatusMonitor(new JobScheduler(), Files.createTempDirectory("status").toFile());
+        model.setStatusMonitor(statusMonitor);
+        rows = model.getRowCount();
+        if (column == 5 || column == 6) {
+            // measure the cached lookups, not the first status or calculation
+            long deadline = System.currentTimeMillis() + 30000;
+            boolean pending = true;
+            while (pending && System.currentTimeMillis() < deadline) {
+                pending = false;
+                for (int ii = 0; ii < rows; ii++) {
+                    pending |= "...".equals(model.getValueAt(ii, column));
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        statusMonitor.close();
+    }
+
+    @Benchmark
+    public Object getValueAt() {
+        row = (row + 1) % rows;
+        return model.getValueAt(row, column);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+
+/**
+ * Generates the trees &amp; repositories the benchmarks and the {@link LoadTest} run against.
+ *
+ * <p>Everything is derived from a fixed seed &amp; fixed commit dates, so every run and every
+ * machine measures the same data. Fixtures are written once under the directory named by the
+ * {@code filemanager.fixtures} system property (the temp directory by default) and reused;
+ * a marker file records that one was completed, so an interrupted run starts it again.
+ */
+final class Fixtures {
+
+    static final long SEED = 42;
+    /**
+     * Files per directory in generated repositories.
+     */
+    static final int FILES_PER_DIRECTORY = 100;
+
+    private static final File ROOT = new File(System.getProperty("filemanager.fixtures",
+            new File(System.getProperty("java.io.tmpdir"), "filemanager-fixtures").getPath()));
+    private static final long EPOCH = 1600000000000L;
+
+    private Fixtures() {
+    }
+
+    /**
+     * A directory with entries entries directly inside it: every 20th one a directory, the rest
+     * small files.
+     */
+    static synchronized File directory(int entries) throws IOException {
+        File directory = new File(ROOT, "flat-" + entries);
+        File done = new File(ROOT, directory.getName() + ".done");
+        if (done.exists()) {
+            return directory;
+        }
+        FileUtils.deleteDirectory(directory);
+        FileUtils.forceMkdir(directory);
+        Random random = new Random(SEED);
+        byte[] bytes = new byte[512];
+        for (int ii = 0; ii < entries; ii++) {
+            if (ii % 20 == 0) {
+                FileUtils.forceMkdir(new File(directory, String.format("dir-%07d", ii)));
+            } else {
+                random.nextBytes(bytes);
+                FileUtils.writeByteArrayToFile(new File(directory, String.format("file-%07d.txt", ii)),
+                        bytes, 0, random.nextInt(bytes.length));
+            }
+        }
+        FileUtils.touch(done);
+        return directory;
+    }
+
+    /**
+     * A repository with files text files in directories of {@link #FILES_PER_DIRECTORY}, a
+     * history of commits commits touching a few files each, and a work tree with some files
+     * modified &amp; some untracked so that status has something to report.
+     */
+    static synchronized File repository(int files, int commits) throws IOException {
+        File directory = new File(ROOT, "repo-" + files + "-" + commits);
+        File done = new File(ROOT, directory.getName() + ".done");
+        if (done.exists()) {
+            return directory;
+        }
+        FileUtils.deleteDirectory(directory);
+        Random random = new Random(SEED);
+        try (Git git = Git.init().setDirectory(directory).call()) {
+            for (int ii = 0; ii < files; ii++) {
+                write(repositoryFile(directory, ii), random);
+            }
+            git.add().addFilepattern(".").call();
+            commit(git, 0);
+            for (int commit = 1; commit < commits; commit++) {
+                for (int change = 0; change < 3; change++) {
+                    int file = random.nextInt(files);
+                    write(repositoryFile(directory, file), random);
+                    git.add().addFilepattern(repositoryPath(file)).call();
+                }
+                commit(git, commit);
+            }
+        } catch (GitAPIException e) {
+            throw new IOException(e);
+        }
+        for (int ii = 0; ii < Math.max(1, files / 100); ii++) {
+            write(repositoryFile(directory, random.nextInt(files)), random);
+        }
+        for (int ii = 0; ii < 10; ii++) {
+            write(new File(directory, "untracked-" + ii + ".txt"), random);
+        }
+        FileUtils.touch(done);
+        return directory;
+    }
+
+    /**
+     * A chain of depth nested directories below parent; returns the innermost.
+     */
+    static File nested(File parent, int depth) throws IOException {
+        File directory = parent;
+        for (int ii = 0; ii < depth; ii++) {
+            directory = new File(directory, "level-" + ii);
+        }
+        FileUtils.forceMkdir(directory);
+        return directory;
+    }
+
+    static File getRoot() {
+        return ROOT;
+    }
+
+    static String repositoryPath(int file) {
+        return String.format("src/d%03d/file-%05d.txt", file / FILES_PER_DIRECTORY, file);
+    }
+
+    static File repositoryFile(File repository, int file) {
+        return new File(repository, repositoryPath(file));
+    }
+
+    private static void write(File file, Random random) throws IOException {
+        StringBuilder text = new StringBuilder();
+        int lines = 5 + random.nextInt(50);
+        for (int ii = 0; ii < lines; ii++) {
+            text.append("line ").append(ii).append(' ').append(Long.toHexString(random.nextLong())).append('\n');
+        }
+        FileUtils.writeStringToFile(file, text.toString(), StandardCharsets.UTF_8);
+    }
+
+    private static void commit(Git git, int commit) throws GitAPIException {
+        PersonIdent author = new PersonIdent("Benchmark", "benchmark@example.com",
+                new Date(EPOCH + commit * 60000L), TimeZone.getTimeZone("UTC"));
+        git.commit().setMessage("Commit " + commit).setAuthor(author).setCommitter(author).call();
+    }
+
+    /**
+     * Generate the default fixtures ahead of a benchmark run, which can take a while for the
+     * largest ones.
+     */
+    public static void main(String[] args) throws IOException {
+        for (int entries : new int[] {10000, 100000, 1000000}) {
+            System.out.println(directory(entries));
+        }
+        System.out.println(repository(10000, 100));
+        System.out.println(repository(200, 10000));
+    }
+}
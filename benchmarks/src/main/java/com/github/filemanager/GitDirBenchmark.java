@@ -0,0 +1,65 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * {@link GitSupport#findGitDir} from a directory depth levels below a repository's work tree,
+ * and from as deep outside any repository, where it walks all the way to the root.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GitDirBenchmark {
+
+    @Param({"1", "8", "32"})
+    public int depth;
+
+    private File insideRepository;
+    private File outsideRepository;
+
+    @Setup
+    public void setUp() throws IOException {
+        insideRepository = Fixtures.nested(Fixtures.repository(200, 10), depth);
+        outsideRepository = Fixtures.nested(new File(Fixtures.getRoot(), "no-repository"), depth);
+    }
+
+    @Benchmark
+    public File insideRepository() {
+        return GitSupport.findGitDir(insideRepository);
+    }
+
+    @Benchmark
+    public File outsideRepository() {
+        return GitSupport.findGitDir(outsideRepository);
+    }
+}
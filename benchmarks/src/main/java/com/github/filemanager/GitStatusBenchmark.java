@@ -0,0 +1,91 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Status of a 10k file repository: the whole work tree, which {@link StatusMonitor} reads once
+ * per repository, and a single path, which it asks about after a change, through JGit; and a
+ * {@code git status -s} process per file, what the status column started for every cell before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GitStatusBenchmark {
+
+    private File repository;
+    private Git git;
+    private String path;
+
+    @Setup
+    public void setUp() throws IOException {
+        repository = Fixtures.repository(10000, 100);
+        git = Git.open(repository);
+        path = Fixtures.repositoryPath(4242);
+    }
+
+    @TearDown
+    public void tearDown() {
+        git.close();
+    }
+
+    @Benchmark
+    public Status repositoryStatus() throws GitAPIException {
+        return git.status().call();
+    }
+
+    @Benchmark
+    public Status pathStatus() throws GitAPIException {
+        return git.status().addPath(path).call();
+    }
+
+    @Benchmark
+    public String processStatus() throws IOException, InterruptedException {
+        File file = new File(repository, path);
+        Process process = new ProcessBuilder("git", "status", "-s", file.getName())
+                .directory(file.getParentFile())
+                .redirectErrorStream(true)
+                .start();
+        try (BufferedReader reader =
+                     new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            process.waitFor();
+            return line;
+        }
+    }
+}
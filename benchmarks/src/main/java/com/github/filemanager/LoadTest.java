@@ -0,0 +1,442 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Replays a scripted workload against the listing, status &amp; git engines without a display
+ * and reports throughput &amp; latency percentiles per operation.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.github.filemanager.LoadTest [options] [script]
+ *   --threads N      threads replaying the script at the same time (1)
+ *   --iterations N   times each thread replays it (20)
+ *   --warmup N       unmeasured replays first (5)
+ *   --entries N      entries of the generated flat tree (10000)
+ *   --files N        files of the generated repository (2000)
+ *   --commits N      commits of the generated repository (50)
+ * </pre>
+ *
+ * <p>A script has one operation per line, "#" starts a comment. Paths start with "tree" (the
+ * flat directory) or "repo" (a copy of the generated repository, so commits do not change the
+ * fixture), and a "*" segment picks a random entry of the directory before it, e.g.
+ * "status repo/src/&#42;/&#42;". Operations: list, walk, status, status-listing, modify, add,
+ * staged, log, branches, branch, checkout, commit &amp; merge; see {@link #DEFAULT_SCRIPT}.
+ */
+final class LoadTest {
+
+    static final String[] DEFAULT_SCRIPT = {
+            "# browse a large directory, then a repository the way the table does",
+            "list tree",
+            "walk repo/src",
+            "status-listing repo/src/*",
+            "status repo/src/*/*",
+            "# the git actions",
+            "staged",
+            "branches",
+            "log",
+            "modify repo/src/*/*",
+            "add repo/src/*/*",
+            "commit Load test",
+    };
+
+    private static final Set<String> OPERATIONS = new HashSet<>(Arrays.asList(
+            "list", "walk", "status", "status-listing", "modify", "add",
+            "staged", "log", "branches", "branch", "checkout", "commit", "merge"));
+
+    private final List<String[]> script;
+    private final File tree;
+    private final File repository;
+    private final Map<File, File[]> listings = new ConcurrentHashMap<>();
+    private final StatusMonitor statusMonitor;
+
+    LoadTest(List<String[]> script, File tree, File repository) {
+        this.script = script;
+        this.tree = tree;
+        this.repository = repository;
+        File statuses = new File(repository.getParentFile(), "status");
+        statuses.mkdirs();
+        this.statusMonitor = new StatusMonitor(new JobScheduler(), statuses);
+    }
+
+    /**
+     * Stop watching the repository, before it is deleted.
+     */
+    void close() {
+        statusMonitor.close();
+    }
+
+    /**
+     * Latencies of one operation, in nanoseconds.
+     */
+    static class Samples {
+        private long[] nanos = new long[64];
+        private int count;
+        private int failures;
+
+        void add(long value) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = value;
+        }
+
+        void addAll(Samples other) {
+            for (int ii = 0; ii < other.count; ii++) {
+                add(other.nanos[ii]);
+            }
+            failures += other.failures;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        /**
+         * The latency below which the given fraction of samples fall; sorts the samples.
+         */
+        long percentile(double fraction) {
+            if (count == 0) {
+                return 0;
+            }
+            Arrays.sort(nanos, 0, count);
+            int index = (int) Math.ceil(fraction * count) - 1;
+            return nanos[Math.max(0, Math.min(count - 1, index))];
+        }
+
+        long total() {
+            long total = 0;
+            for (int ii = 0; ii < count; ii++) {
+                total += nanos[ii];
+            }
+            return total;
+        }
+    }
+
+    static List<String[]> parse(List<String> lines) {
+        List<String[]> script = new ArrayList<>();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] step = trimmed.split("\\s+", 2);
+            if (!OPERATIONS.contains(step[0])) {
+                throw new IllegalArgumentException("Unknown operation: " + trimmed);
+            }
+            script.add(step.length == 2 ? step : new String[] {step[0], null});
+        }
+        return script;
+    }
+
+    /**
+     * Replay the script without measuring it, so that the JIT &amp; file system caches are warm.
+     */
+    void warmUp(int iterations) throws IOException {
+        replay(new Random(Fixtures.SEED), iterations, new LinkedHashMap<String, Samples>());
+    }
+
+    /**
+     * Replay the script iterations times on each of threads threads and return the latencies by
+     * operation in script order.
+     */
+    Map<String, Samples> run(int threads, final int iterations) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Map<String, Samples>>> futures = new ArrayList<>();
+        try {
+            for (int ii = 0; ii < threads; ii++) {
+                final Random random = new Random(Fixtures.SEED + 1 + ii);
+                futures.add(pool.submit(
+                        new Callable<Map<String, Samples>>() {
+                            public Map<String, Samples> call() throws Exception {
+                                Map<String, Samples> samples = new LinkedHashMap<>();
+                                replay(random, iterations, samples);
+                                return samples;
+                            }
+                        }));
+            }
+            Map<String, Samples> merged = new LinkedHashMap<>();
+            for (Future<Map<String, Samples>> future : futures) {
+                for (Map.Entry<String, Samples> entry : future.get().entrySet()) {
+                    Samples samples = merged.get(entry.getKey());
+                    if (samples == null) {
+                        samples = new Samples();
+                        merged.put(entry.getKey(), samples);
+                    }
+                    samples.addAll(entry.getValue());
+                }
+            }
+            return merged;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void replay(Random random, int iterations, Map<String, Samples> samples) throws IOException {
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (String[] step : script) {
+                Samples operation = samples.get(step[0]);
+                if (operation == null) {
+                    operation = new Samples();
+                    samples.put(step[0], operation);
+                }
+                long start = System.nanoTime();
+                try {
+                    execute(step[0], step[1], random);
+                } catch (Exception e) {
+                    // e.g. two threads committing at once, counted and carried on
+                    operation.failures++;
+                }
+                operation.add(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void execute(String operation, String argument, Random random) throws Exception {
+        switch (operation) {
+            case "list":
+                DirectoryListing.list(resolve(argument, random));
+                break;
+            case "walk":
+                walk(resolve(argument, random));
+                break;
+            case "status":
+                statusMonitor.status(resolve(argument, random));
+                break;
+            case "status-listing":
+                File[] files = DirectoryListing.list(resolve(argument, random));
+                if (files != null) {
+                    for (File file : files) {
+                        statusMonitor.status(file);
+                    }
+                }
+                break;
+            case "modify":
+                FileUtils.writeStringToFile(resolve(argument, random),
+                        "changed " + random.nextLong() + "\n", StandardCharsets.UTF_8, true);
+                break;
+            case "add":
+                BatchOperation.Result result =
+                        new BatchOperation(BatchOperation.Kind.GIT_ADD,
+                                Collections.singletonList(resolve(argument, random))).run(NO_PROGRESS);
+                if (!result.getFailures().isEmpty()) {
+                    throw new IOException(result.getFailures().values().iterator().next());
+                }
+                break;
+            default:
+                try (GitEngine engine = new GitEngine(repository, new File(repository, ".git"))) {
+                    git(engine, operation, argument);
+                }
+        }
+    }
+
+    private void git(GitEngine engine, String operation, String argument) throws Exception {
+        switch (operation) {
+            case "staged":
+                engine.stagedFiles();
+                break;
+            case "log":
+                engine.log();
+                break;
+            case "branches":
+                engine.branches();
+                break;
+            case "branch":
+                if (!engine.branches().contains("refs/heads/" + argument)) {
+                    engine.createBranch(argument);
+                }
+                break;
+            case "checkout":
+                engine.checkout(argument);
+                break;
+            case "commit":
+                engine.commit(argument == null ? "Load test" : argument);
+                break;
+            case "merge":
+                JobScheduler.Job job =
+                        new JobScheduler.Job("git merge " + argument, JobScheduler.Priority.NORMAL, repository) {
+                            @Override
+                            protected void execute() {
+                            }
+                        };
+                engine.merge(argument, job);
+                break;
+            default:
+                throw new IllegalStateException(operation);
+        }
+    }
+
+    private void walk(File directory) throws IOException {
+        File[] files = DirectoryListing.list(directory);
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    walk(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * The file a script path names, picking a random entry for each "*".
+     */
+    File resolve(String path, Random random) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Missing path");
+        }
+        String[] segments = path.split("/");
+        File file;
+        if (segments[0].equals("tree")) {
+            file = tree;
+        } else if (segments[0].equals("repo")) {
+            file = repository;
+        } else {
+            throw new IllegalArgumentException("Paths start with tree or repo: " + path);
+        }
+        for (int ii = 1; ii < segments.length; ii++) {
+            if (segments[ii].equals("*")) {
+                File[] children = listings.get(file);
+                if (children == null) {
+                    children = DirectoryListing.list(file);
+                    if (children == null || children.length == 0) {
+                        throw new IOException("Nothing to pick in " + file);
+                    }
+                    // not .git, nor the directories of a flat tree when a file is wanted
+                    children = pickable(children);
+                    listings.put(file, children);
+                }
+                file = children[random.nextInt(children.length)];
+            } else {
+                file = new File(file, segments[ii]);
+            }
+        }
+        return file;
+    }
+
+    private static File[] pickable(File[] children) {
+        List<File> files = new ArrayList<>();
+        for (File child : children) {
+            if (!child.getName().startsWith(".")) {
+                files.add(child);
+            }
+        }
+        return files.isEmpty() ? children : files.toArray(new File[0]);
+    }
+
+    private static final BatchOperation.Progress NO_PROGRESS =
+            new BatchOperation.Progress() {
+                public void progress(int done, int total) {
+                }
+
+                public boolean isCancelled() {
+                    return false;
+                }
+            };
+
+    static String report(Map<String, Samples> results, long wallNanos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-16s %8s %7s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "failed", "ops/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        long operations = 0;
+        for (Map.Entry<String, Samples> entry : results.entrySet()) {
+            Samples samples = entry.getValue();
+            operations += samples.getCount();
+            double seconds = Math.max(1L, samples.total()) / 1e9;
+            sb.append(String.format("%-16s %8d %7d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+                    entry.getKey(), samples.getCount(), samples.failures, samples.getCount() / seconds,
+                    samples.percentile(0.5) / 1e6, samples.percentile(0.9) / 1e6,
+                    samples.percentile(0.99) / 1e6, samples.percentile(1.0) / 1e6));
+        }
+        double wall = Math.max(1L, wallNanos) / 1e9;
+        sb.append(String.format("%d operations in %.2f s, %.1f ops/s%n", operations, wall, operations / wall));
+        return sb.toString();
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: LoadTest [--threads N] [--iterations N] [--warmup N]"
+                + " [--entries N] [--files N] [--commits N] [script]");
+        System.exit(2);
+    }
+
+    public static void main(String[] args) throws Exception {
+        // nothing here needs a display, make sure nothing tries
+        System.setProperty("java.awt.headless", "true");
+
+        Map<String, Integer> options = new HashMap<>();
+        options.put("--threads", 1);
+        options.put("--iterations", 20);
+        options.put("--warmup", 5);
+        options.put("--entries", 10000);
+        options.put("--files", 2000);
+        options.put("--commits", 50);
+        File scriptFile = null;
+        for (int ii = 0; ii < args.length; ii++) {
+            if (options.containsKey(args[ii]) && ii + 1 < args.length) {
+                try {
+                    options.put(args[ii], Integer.parseInt(args[++ii]));
+                } catch (NumberFormatException e) {
+                    usage("Not a number: " + args[ii]);
+                }
+            } else if (args[ii].startsWith("--") || scriptFile != null) {
+                usage("Unknown argument: " + args[ii]);
+            } else {
+                scriptFile = new File(args[ii]);
+            }
+        }
+        List<String> lines = scriptFile == null
+                ? Arrays.asList(DEFAULT_SCRIPT) : Files.readAllLines(scriptFile.toPath(), StandardCharsets.UTF_8);
+        List<String[]> script = null;
+        try {
+            script = parse(lines);
+        } catch (IllegalArgumentException e) {
+            usage(e.getMessage());
+        }
+
+        System.out.println("Generating fixtures under " + Fixtures.getRoot());
+        File tree = Fixtures.directory(options.get("--entries"));
+        File work = Files.createTempDirectory("filemanager-loadtest").toFile();
+        try {
+            File repository = new File(work, "repo");
+            FileUtils.copyDirectory(Fixtures.repository(options.get("--files"), options.get("--commits")), repository);
+
+            LoadTest test = new LoadTest(script, tree, repository);
+            test.warmUp(options.get("--warmup"));
+            long start = System.nanoTime();
+            Map<String, Samples> results = test.run(options.get("--threads"), options.get("--iterations"));
+            System.out.print(report(results, System.nanoTime() - start));
+            test.close();
+        } finally {
+            FileUtils.deleteQuietly(work);
+        }
+    }
+}
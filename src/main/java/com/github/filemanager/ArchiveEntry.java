@@ -0,0 +1,303 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A file or directory inside a zip/jar archive, browsed without extracting the archive.
+ *
+ * <p>Archives are opened as NIO zip file systems, which only read the central directory. The
+ * entries of a level are listed when that level is shown, and the bytes of an entry are only
+ * inflated, as a stream, when it is previewed or copied out. Being a {@link File}, an entry fits
+ * in the tree &amp; table like any other file; its attributes come from the central directory.
+ * Entries are read-only.
+ */
+class ArchiveEntry extends File {
+
+    private static final Set<String> SUFFIXES = new HashSet<>(Arrays.asList("zip", "jar", "war", "ear"));
+    /**
+     * Archives kept open, so moving around inside one does not re-read its central directory.
+     */
+    private static final int OPEN_LIMIT = 4;
+    private static final Map<String, OpenArchive> OPEN =
+            new LinkedHashMap<String, OpenArchive>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, OpenArchive> eldest) {
+                    if (size() > OPEN_LIMIT) {
+                        eldest.getValue().close();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+    private static class OpenArchive {
+        final FileSystem fileSystem;
+        final long modified;
+
+        OpenArchive(FileSystem fileSystem, long modified) {
+            this.fileSystem = fileSystem;
+            this.modified = modified;
+        }
+
+        void close() {
+            try {
+                fileSystem.close();
+            } catch (IOException e) {
+                // opened read-only, nothing lost
+            }
+        }
+    }
+
+    private final File archive;
+    /**
+     * Path inside the archive, starting with a slash.
+     */
+    private final String entry;
+    private final boolean directory;
+    private final long size;
+    private final long modified;
+
+    private ArchiveEntry(File archive, String entry, boolean directory, long size, long modified) {
+        super(archive, entry.substring(1));
+        this.archive = archive;
+        this.entry = entry;
+        this.directory = directory;
+        this.size = size;
+        this.modified = modified;
+    }
+
+    /**
+     * Whether file is an archive that can be browsed like a directory. Archives inside archives
+     * are not: a zip file system can only be opened on a file of the default file system.
+     */
+    static boolean isArchive(File file) {
+        if (file instanceof ArchiveEntry) {
+            return false;
+        }
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && SUFFIXES.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT)) && file.isFile();
+    }
+
+    /**
+     * Whether file is an archive or an entry that can be listed.
+     */
+    static boolean isBrowsable(File file) {
+        return file instanceof ArchiveEntry ? file.isDirectory() : isArchive(file);
+    }
+
+    private static FileSystem fileSystem(File archive) throws IOException {
+        String key = archive.getAbsolutePath();
+        long lastModified = archive.lastModified();
+        synchronized (OPEN) {
+            OpenArchive open = OPEN.get(key);
+            if (open != null && open.modified == lastModified && open.fileSystem.isOpen()) {
+                return open.fileSystem;
+            }
+            if (open != null) {
+                // the archive was rewritten since it was opened
+                open.close();
+            }
+            open = new OpenArchive(FileSystems.newFileSystem(archive.toPath(), (ClassLoader) null), lastModified);
+            OPEN.put(key, open);
+            return open.fileSystem;
+        }
+    }
+
+    /**
+     * The entries directly inside an archive or an archive directory, sorted by path.
+     */
+    static ArchiveEntry[] list(File directory) throws IOException {
+        File archive = directory;
+        String entry = "/";
+        if (directory instanceof ArchiveEntry) {
+            archive = ((ArchiveEntry) directory).archive;
+            entry = ((ArchiveEntry) directory).entry;
+        }
+        List<ArchiveEntry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(fileSystem(archive).getPath(entry))) {
+            for (Path child : stream) {
+                BasicFileAttributes attributes = Files.readAttributes(child, BasicFileAttributes.class);
+                String name = child.toString();
+                if (name.length() > 1 && name.endsWith("/")) {
+                    name = name.substring(0, name.length() - 1);
+                }
+                entries.add(new ArchiveEntry(archive, name, attributes.isDirectory(), attributes.size(),
+                        attributes.lastModifiedTime().toMillis()));
+            }
+        }
+        Collections.sort(entries);
+        return entries.toArray(new ArchiveEntry[0]);
+    }
+
+    File getArchive() {
+        return archive;
+    }
+
+    /**
+     * The inflated bytes of this entry, read as they are needed.
+     */
+    InputStream openStream() throws IOException {
+        return Files.newInputStream(fileSystem(archive).getPath(entry));
+    }
+
+    /**
+     * At most limit bytes from the start of this entry.
+     */
+    byte[] readHead(int limit) throws IOException {
+        byte[] bytes = new byte[(int) Math.min(limit, size)];
+        try (InputStream in = openStream()) {
+            int length = IOUtils.read(in, bytes);
+            return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+        }
+    }
+
+    /**
+     * Copy this entry, or everything below it, into directory. Returns the number of bytes
+     * written.
+     */
+    long extractTo(File directory) throws IOException {
+        final Path source = fileSystem(archive).getPath(entry);
+        final Path target = directory.toPath().resolve(getName());
+        final long[] bytes = new long[1];
+        Files.walkFileTree(source,
+                new SimpleFileVisitor<Path>() {
+                    private Path targetOf(Path path) {
+                        return target.resolve(source.relativize(path).toString());
+                    }
+
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                        Files.createDirectories(targetOf(dir));
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        Path copy = targetOf(file);
+                        // between file systems this streams the entry, it is never held in memory
+                        Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+                        Files.setLastModifiedTime(copy, attrs.lastModifiedTime());
+                        bytes[0] += attrs.size();
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+        return bytes[0];
+    }
+
+    @Override
+    public File getParentFile() {
+        int slash = entry.lastIndexOf('/');
+        if (slash <= 0) {
+            return archive;
+        }
+        return new ArchiveEntry(archive, entry.substring(0, slash), true, 0, modified);
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    @Override
+    public boolean isFile() {
+        return !directory;
+    }
+
+    @Override
+    public boolean isHidden() {
+        return false;
+    }
+
+    @Override
+    public long length() {
+        return directory ? 0 : size;
+    }
+
+    @Override
+    public long lastModified() {
+        return modified;
+    }
+
+    @Override
+    public boolean canRead() {
+        return true;
+    }
+
+    @Override
+    public boolean canWrite() {
+        return false;
+    }
+
+    @Override
+    public boolean canExecute() {
+        return false;
+    }
+
+    @Override
+    public File[] listFiles() {
+        if (!directory) {
+            return null;
+        }
+        try {
+            return list(this);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean delete() {
+        return false;
+    }
+
+    @Override
+    public boolean renameTo(File dest) {
+        return false;
+    }
+
+    @Override
+    public boolean mkdir() {
+        return false;
+    }
+
+    @Override
+    public boolean setLastModified(long time) {
+        return false;
+    }
+}
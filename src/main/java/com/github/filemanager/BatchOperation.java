@@ -0,0 +1,326 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.AddCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.RmCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+/**
+ * A file or git operation applied to many files as one job.
+ *
+ * <p>The operation itself knows nothing about Swing; the caller runs it off the EDT and applies
+ * the {@link Result} to the tree &amp; table once it is finished. Git operations are grouped per
+ * repository so that the index is read and written once per batch instead of once per file.
+ */
+class BatchOperation {
+
+    enum Kind {
+        DELETE("Delete"),
+        COPY("Copy"),
+        MOVE("Move"),
+        GIT_ADD("git add"),
+        GIT_RM("git rm"),
+        GIT_RM_CACHED("git rm --cached");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Receives progress from a running batch and tells it when to stop.
+     */
+    interface Progress {
+        void progress(int done, int total);
+
+        boolean isCancelled();
+    }
+
+    private final Kind kind;
+    private final List<File> files;
+    private final File destination;
+
+    BatchOperation(Kind kind, List<File> files) {
+        this(kind, files, null);
+    }
+
+    BatchOperation(Kind kind, List<File> files, File destination) {
+        this.kind = kind;
+        this.files = new ArrayList<>(files);
+        this.destination = destination;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    List<File> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    File getDestination() {
+        return destination;
+    }
+
+    /**
+     * Runs the whole batch on the calling thread.
+     */
+    Result run(Progress progress) {
+        Result result = new Result(kind, files.size(), destination);
+        OperationEvents.Span span = startSpan();
+        long start = System.nanoTime();
+        for (File file : files) {
+            if (file.isDirectory()) {
+                result.directories.add(file);
+            }
+        }
+        switch (kind) {
+            case GIT_ADD:
+            case GIT_RM:
+            case GIT_RM_CACHED:
+                runGit(result, progress);
+                break;
+            default:
+                runFiles(result, progress);
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        span.setEntries(result.completed.size())
+                .setBytes(result.bytes)
+                .setFailed(!result.failures.isEmpty())
+                .end();
+        return result;
+    }
+
+    /**
+     * One event for the whole batch, at the destination or else the first file.
+     */
+    private OperationEvents.Span startSpan() {
+        File location = destination != null ? destination : files.isEmpty() ? null : files.get(0);
+        switch (kind) {
+            case GIT_ADD:
+            case GIT_RM:
+            case GIT_RM_CACHED:
+                return OperationEvents.git(kind.getLabel().substring(4), location);
+            default:
+                return OperationEvents.fileOperation(kind.getLabel(), location);
+        }
+    }
+
+    private void runFiles(Result result, Progress progress) {
+        int done = 0;
+        for (File file : files) {
+            if (progress.isCancelled()) {
+                result.cancelled = true;
+                break;
+            }
+            try {
+                if (file instanceof ArchiveEntry) {
+                    runEntry((ArchiveEntry) file, result);
+                } else {
+                    runFile(file, result);
+                }
+                result.completed.add(file);
+            } catch (IOException | RuntimeException e) {
+                result.failures.put(file, e.getMessage());
+            }
+            progress.progress(++done, files.size());
+        }
+    }
+
+    private void runFile(File file, Result result) throws IOException {
+        switch (kind) {
+            case DELETE:
+                if (!FileUtils.deleteQuietly(file)) {
+                    throw new IOException("could not be deleted");
+                }
+                break;
+            case COPY:
+                long bytes = FileUtils.sizeOf(file);
+                if (file.isDirectory()) {
+                    FileUtils.copyDirectoryToDirectory(file, destination);
+                } else {
+                    FileUtils.copyFileToDirectory(file, destination);
+                }
+                result.bytes += bytes;
+                break;
+            case MOVE:
+                FileUtils.moveToDirectory(file, destination, false);
+                break;
+            default:
+                throw new IllegalStateException(kind.toString());
+        }
+    }
+
+    /**
+     * Entries inside an archive can only be copied out, which streams them from the archive.
+     */
+    private void runEntry(ArchiveEntry entry, Result result) throws IOException {
+        if (kind != Kind.COPY) {
+            throw new IOException("entries inside " + entry.getArchive().getName() + " are read-only");
+        }
+        result.bytes += entry.extractTo(destination);
+    }
+
+    private void runGit(Result result, Progress progress) {
+        // one add/rm command per repository, carrying every selected path
+        Map<File, List<File>> byGitDir = new LinkedHashMap<>();
+        for (File file : files) {
+            File gitDir = GitSupport.findGitDir(file.getAbsoluteFile());
+            if (gitDir == null) {
+                result.failures.put(file, "not inside a git repository");
+                continue;
+            }
+            List<File> group = byGitDir.get(gitDir);
+            if (group == null) {
+                group = new ArrayList<>();
+                byGitDir.put(gitDir, group);
+            }
+            group.add(file);
+        }
+
+        int done = result.failures.size();
+        for (Map.Entry<File, List<File>> entry : byGitDir.entrySet()) {
+            if (progress.isCancelled()) {
+                result.cancelled = true;
+                break;
+            }
+            File gitDir = entry.getKey();
+            File workTree = gitDir.getParentFile();
+            List<File> group = entry.getValue();
+            try (Git git = Git.open(gitDir)) {
+                if (kind == Kind.GIT_ADD) {
+                    AddCommand add = git.add();
+                    for (File file : group) {
+                        add.addFilepattern(repositoryPath(workTree, file));
+                    }
+                    add.call();
+                } else {
+                    RmCommand rm = git.rm().setCached(kind == Kind.GIT_RM_CACHED);
+                    for (File file : group) {
+                        rm.addFilepattern(repositoryPath(workTree, file));
+                    }
+                    rm.call();
+                }
+                result.completed.addAll(group);
+            } catch (IOException | GitAPIException | RuntimeException e) {
+                for (File file : group) {
+                    result.failures.put(file, e.getMessage());
+                }
+            }
+            done += group.size();
+            progress.progress(done, files.size());
+        }
+    }
+
+    /**
+     * The path of file relative to the work tree, with '/' separators as git expects.
+     */
+    static String repositoryPath(File workTree, File file) {
+        String relative =
+                workTree.getAbsoluteFile().toPath().relativize(file.getAbsoluteFile().toPath()).toString();
+        relative = relative.replace(File.separatorChar, '/');
+        return relative.isEmpty() ? "." : relative;
+    }
+
+    /**
+     * What a batch did, with enough information to update the views once.
+     */
+    static class Result {
+        private final Kind kind;
+        private final int total;
+        private final File destination;
+        private final List<File> completed = new ArrayList<>();
+        private final Set<File> directories = new HashSet<>();
+        private final Map<File, String> failures = new LinkedHashMap<>();
+        private long bytes;
+        private long elapsedNanos;
+        private boolean cancelled;
+
+        Result(Kind kind, int total, File destination) {
+            this.kind = kind;
+            this.total = total;
+            this.destination = destination;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        File getDestination() {
+            return destination;
+        }
+
+        int getTotal() {
+            return total;
+        }
+
+        List<File> getCompleted() {
+            return completed;
+        }
+
+        boolean wasDirectory(File file) {
+            return directories.contains(file);
+        }
+
+        Map<File, String> getFailures() {
+            return failures;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * e.g. "Copy: 998 of 1000 files in 1.20 s (831.7 files/s, 45.3 MB/s)".
+         */
+        String summary() {
+            double seconds = Math.max(elapsedNanos, 1L) / 1e9;
+            StringBuilder sb = new StringBuilder();
+            sb.append(kind.getLabel()).append(": ")
+                    .append(completed.size()).append(" of ").append(total).append(" files in ")
+                    .append(String.format("%.2f s (%.1f files/s", seconds, completed.size() / seconds));
+            if (bytes > 0) {
+                sb.append(String.format(", %.1f MB/s", bytes / seconds / (1024 * 1024)));
+            }
+            sb.append(')');
+            if (cancelled) {
+                sb.append(" - cancelled");
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.event.*;
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Who last changed each line of the selected file, filled in as {@link GitBlame} attributes
+ * the lines. Double clicking a line shows the changes of its commit.
+ */
+abstract class BlamePanel extends JPanel {
+
+    private final JobScheduler scheduler;
+    private final GitBlame blames;
+    private final BlameTableModel model = new BlameTableModel();
+    private final JTable table = new JTable(model);
+    private final JLabel status = new JLabel(" ");
+
+    private File file;
+    private JobScheduler.Job blameJob;
+
+    /**
+     * Rows attributed since the table was last told, merged so that a file blamed in many small
+     * regions does not flood the EDT.
+     */
+    private final Object dirtyLock = new Object();
+    private JobScheduler.Job dirtyJob;
+    private GitBlame.Blame dirtyBlame;
+    private int dirtyStart = Integer.MAX_VALUE;
+    private int dirtyEnd = -1;
+
+    BlamePanel(JobScheduler scheduler, GitBlame blames) {
+        super(new BorderLayout(3, 3));
+        this.scheduler = scheduler;
+        this.blames = blames;
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEADING, 3, 0));
+        JButton refresh = new JButton("Refresh");
+        refresh.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        refresh();
+                    }
+                });
+        controls.add(refresh);
+        controls.add(status);
+        add(controls, BorderLayout.NORTH);
+
+        table.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_LAST_COLUMN);
+        table.setShowGrid(false);
+        int[] widths = {80, 120, 90, 50};
+        for (int ii = 0; ii < widths.length; ii++) {
+            table.getColumnModel().getColumn(ii).setPreferredWidth(widths[ii]);
+            table.getColumnModel().getColumn(ii).setMaxWidth(widths[ii] * 2);
+        }
+        table.addMouseListener(
+                new MouseAdapter() {
+                    @Override
+                    public void mouseClicked(MouseEvent me) {
+                        int row = table.rowAtPoint(me.getPoint());
+                        if (me.getClickCount() == 2 && row >= 0 && model.blame != null) {
+                            ObjectId commit = model.blame.getCommit(row);
+                            if (commit != null) {
+                                open(file, commit.name());
+                            }
+                        }
+                    }
+                });
+        add(new JScrollPane(table), BorderLayout.CENTER);
+    }
+
+    /**
+     * A line's commit was double clicked.
+     */
+    protected abstract void open(File file, String commit);
+
+    /**
+     * Blame file, or clear the view when it is null or not a regular file.
+     */
+    void setFile(File newFile) {
+        file = newFile;
+        refresh();
+    }
+
+    private void refresh() {
+        if (blameJob != null) {
+            blameJob.cancel();
+            blameJob = null;
+        }
+        model.setBlame(null);
+        if (file == null || !file.isFile() || file instanceof ArchiveEntry) {
+            status.setText(file == null ? " " : "Not a file in a repository");
+            return;
+        }
+        final File blamed = file;
+        status.setText("Blaming " + blamed.getName() + "...");
+        blameJob = new JobScheduler.Job("Blame " + blamed.getName(), JobScheduler.Priority.INTERACTIVE, blamed) {
+            private volatile GitBlame.Blame result;
+
+            @Override
+            protected void execute() throws Exception {
+                final JobScheduler.Job job = this;
+                result = blames.blame(blamed,
+                        new GitBlame.Listener() {
+                            public void blamed(GitBlame.Blame blame, int start, int end) {
+                                changed(job, blame, start, end);
+                            }
+                        },
+                        this);
+            }
+
+            @Override
+            protected void finished() {
+                final JobScheduler.Job job = this;
+                SwingUtilities.invokeLater(
+                        new Runnable() {
+                            public void run() {
+                                if (blameJob != job) {
+                                    return;
+                                }
+                                blameJob = null;
+                                if (getState() == JobScheduler.State.FAILED) {
+                                    status.setText(getError().getMessage());
+                                } else if (result != null) {
+                                    model.setBlame(result);
+                                    status.setText(summary(result));
+                                }
+                            }
+                        });
+            }
+        };
+        scheduler.submit(blameJob);
+    }
+
+    /**
+     * Runs on the blaming thread.
+     */
+    private void changed(JobScheduler.Job job, GitBlame.Blame blame, int start, int end) {
+        synchronized (dirtyLock) {
+            boolean scheduled = dirtyJob != null;
+            if (dirtyJob != job) {
+                // a newer blame replaces what an older one left behind
+                dirtyStart = Integer.MAX_VALUE;
+                dirtyEnd = -1;
+            }
+            dirtyJob = job;
+            dirtyBlame = blame;
+            dirtyStart = Math.min(dirtyStart, start);
+            dirtyEnd = Math.max(dirtyEnd, end);
+            if (scheduled) {
+                return;
+            }
+        }
+        SwingUtilities.invokeLater(
+                new Runnable() {
+                    public void run() {
+                        JobScheduler.Job job;
+                        GitBlame.Blame blame;
+                        int start;
+                        int end;
+                        synchronized (dirtyLock) {
+                            job = dirtyJob;
+                            blame = dirtyBlame;
+                            start = dirtyStart;
+                            end = dirtyEnd;
+                            dirtyJob = null;
+                            dirtyBlame = null;
+                            dirtyStart = Integer.MAX_VALUE;
+                            dirtyEnd = -1;
+                        }
+                        if (blameJob != job) {
+                            return;
+                        }
+                        if (model.blame != blame) {
+                            model.setBlame(blame);
+                        } else if (end > start) {
+                            model.fireTableRowsUpdated(start, end - 1);
+                        }
+                        status.setText("Blaming " + blame.getPath() + ", "
+                                + job.getDone() + " of " + blame.getLineCount() + " lines");
+                    }
+                });
+    }
+
+    private static String summary(GitBlame.Blame blame) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(blame.getLineCount()).append(" lines at ").append(blame.getHead().abbreviate(8).name());
+        if (blame.getReusedFrom() != null) {
+            sb.append(", ").append(blame.getRecomputed()).append(" blamed again since ")
+                    .append(blame.getReusedFrom().abbreviate(8).name());
+        }
+        return sb.toString();
+    }
+
+    private static class BlameTableModel extends AbstractTableModel {
+        private final String[] columns = {"Commit", "Author", "Date", "Line", "Text"};
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        private GitBlame.Blame blame;
+
+        void setBlame(GitBlame.Blame blame) {
+            this.blame = blame;
+            fireTableDataChanged();
+        }
+
+        public int getRowCount() {
+            return blame == null ? 0 : blame.getLineCount();
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        public Object getValueAt(int row, int column) {
+            ObjectId commit = blame.getCommit(row);
+            switch (column) {
+                case 0:
+                    return commit == null ? "" : commit.abbreviate(8).name();
+                case 1:
+                    return commit == null ? "" : blame.getAuthor(row);
+                case 2:
+                    return commit == null ? "" : dateFormat.format(new Date(blame.getTime(row)));
+                case 3:
+                    return row + 1;
+                default:
+                    return blame.getLine(row);
+            }
+        }
+    }
+}
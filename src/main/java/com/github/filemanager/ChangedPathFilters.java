@@ -0,0 +1,253 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * A Bloom filter per commit of the paths it changed against its parent, the idea of git's
+ * commit-graph changed-path filters, kept in a sidecar file of our own so the repository is not
+ * written to. For a merge these are the paths that differ from every parent, as git log skips
+ * a merge that kept one parent's version.
+ *
+ * <p>A filter answers "maybe" or "certainly not" for a path, so a file's history only diffs the
+ * trees of commits that may have touched it. Parent directories are added with each path, so
+ * directories can be asked for too. As in git, filters use 10 bits per path &amp; 7 hashes
+ * (about 1% false positives), and commits changing more than {@link #MAX_PATHS} paths get no
+ * filter and are always diffed.
+ */
+class ChangedPathFilters {
+
+    static final int MAX_PATHS = 512;
+    private static final int BITS_PER_PATH = 10;
+    private static final int HASHES = 7;
+    private static final int MAGIC = 0x43504246;
+    private static final int VERSION = 2;
+    private static final long[] ALWAYS = new long[0];
+
+    private final File file;
+    private final Map<ObjectId, long[]> filters = new HashMap<>();
+    private int added;
+
+    private ChangedPathFilters(File file) {
+        this.file = file;
+    }
+
+    /**
+     * The filters of the repository at gitDir saved in directory, or none yet.
+     */
+    static ChangedPathFilters open(File directory, File gitDir) {
+        ChangedPathFilters filters =
+                new ChangedPathFilters(new File(directory, Hashes.sha1Hex(gitDir.getAbsolutePath()) + ".bloom"));
+        if (filters.file.isFile()) {
+            try {
+                filters.load();
+            } catch (IOException e) {
+                // built again as commits are walked
+                e.printStackTrace();
+                filters.filters.clear();
+            }
+        }
+        return filters;
+    }
+
+    synchronized int size() {
+        return filters.size();
+    }
+
+    /**
+     * Filters added since they were last read or written.
+     */
+    synchronized int getAdded() {
+        return added;
+    }
+
+    /**
+     * Whether commit may have changed path, or null when it has no filter yet.
+     */
+    synchronized Boolean mightChange(AnyObjectId commit, String path) {
+        long[] bits = filters.get(commit);
+        if (bits == null) {
+            return null;
+        }
+        if (bits == ALWAYS) {
+            return Boolean.TRUE;
+        }
+        int[] hashes = hashes(path, bits.length * 64);
+        for (int hash : hashes) {
+            if ((bits[hash >>> 6] & (1L << hash)) == 0) {
+                return Boolean.FALSE;
+            }
+        }
+        return Boolean.TRUE;
+    }
+
+    /**
+     * Record the paths commit changed, with their parent directories added here.
+     */
+    void put(AnyObjectId commit, Collection<String> paths) {
+        Set<String> all = withDirectories(paths);
+        long[] bits = ALWAYS;
+        if (all.size() <= MAX_PATHS) {
+            bits = new long[Math.max(1, (all.size() * BITS_PER_PATH + 63) / 64)];
+            for (String path : all) {
+                for (int hash : hashes(path, bits.length * 64)) {
+                    bits[hash >>> 6] |= 1L << hash;
+                }
+            }
+        }
+        synchronized (this) {
+            if (filters.put(commit.copy(), bits) == null) {
+                added++;
+            }
+        }
+    }
+
+    /**
+     * The paths with their parent directories.
+     */
+    static Set<String> withDirectories(Collection<String> paths) {
+        Set<String> all = new HashSet<>();
+        for (String path : paths) {
+            all.add(path);
+            for (int slash = path.indexOf('/'); slash > 0; slash = path.indexOf('/', slash + 1)) {
+                all.add(path.substring(0, slash));
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Positions of path's bits, from two seeded murmur3 hashes as in git. Git steps through the
+     * filter by the second hash; in filters of a few words those steps often land on the same
+     * bits, so here every position is mixed separately instead, as in SplitMix64.
+     */
+    private static int[] hashes(String path, int bits) {
+        byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+        long seed = (long) murmur3(0x293ae76f, bytes) << 32 | murmur3(0x7e646e2c, bytes) & 0xffffffffL;
+        int[] hashes = new int[HASHES];
+        for (int ii = 0; ii < HASHES; ii++) {
+            seed += 0x9e3779b97f4a7c15L;
+            long mixed = (seed ^ (seed >>> 30)) * 0xbf58476d1ce4e5b9L;
+            mixed = (mixed ^ (mixed >>> 27)) * 0x94d049bb133111ebL;
+            mixed ^= mixed >>> 31;
+            hashes[ii] = (int) ((mixed >>> 1) % bits);
+        }
+        return hashes;
+    }
+
+    static int murmur3(int seed, byte[] data) {
+        int hash = seed;
+        int blocks = data.length / 4;
+        for (int ii = 0; ii < blocks; ii++) {
+            int k = (data[4 * ii] & 0xff)
+                    | (data[4 * ii + 1] & 0xff) << 8
+                    | (data[4 * ii + 2] & 0xff) << 16
+                    | (data[4 * ii + 3] & 0xff) << 24;
+            k *= 0xcc9e2d51;
+            k = Integer.rotateLeft(k, 15);
+            k *= 0x1b873593;
+            hash ^= k;
+            hash = Integer.rotateLeft(hash, 13);
+            hash = hash * 5 + 0xe6546b64;
+        }
+        int remaining = data.length & 3;
+        if (remaining > 0) {
+            // the last 1-3 bytes little-endian, what the reference's fall-through switch does
+            int tail = blocks * 4;
+            int k = 0;
+            for (int ii = remaining - 1; ii >= 0; ii--) {
+                k ^= (data[tail + ii] & 0xff) << (8 * ii);
+            }
+            k *= 0xcc9e2d51;
+            k = Integer.rotateLeft(k, 15);
+            k *= 0x1b873593;
+            hash ^= k;
+        }
+        hash ^= data.length;
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * Write the filters out if any were added since they were read.
+     */
+    synchronized void save() throws IOException {
+        if (added == 0) {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out =
+                     new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(filters.size());
+            byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+            for (Map.Entry<ObjectId, long[]> entry : filters.entrySet()) {
+                entry.getKey().copyRawTo(id, 0);
+                out.write(id);
+                long[] bits = entry.getValue();
+                out.writeInt(bits == ALWAYS ? -1 : bits.length);
+                for (long word : bits) {
+                    out.writeLong(word);
+                }
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        added = 0;
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a changed path filter file: " + file);
+            }
+            int count = in.readInt();
+            byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+            for (int ii = 0; ii < count; ii++) {
+                in.readFully(id);
+                int length = in.readInt();
+                long[] bits = ALWAYS;
+                if (length >= 0) {
+                    bits = new long[length];
+                    for (int jj = 0; jj < length; jj++) {
+                        bits[jj] = in.readLong();
+                    }
+                }
+                filters.put(ObjectId.fromRaw(id), bits);
+            }
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File checksums for the table, computed on demand and remembered while the file's size &amp;
+ * modification time stay the same.
+ *
+ * <p>Requests are served newest first, so the rows that were painted last (the ones on screen
+ * after scrolling) are calculated before rows that have already scrolled away.
+ */
+class Checksums {
+
+    enum Algorithm {
+        SHA_256("SHA-256"),
+        CRC32C("CRC32C");
+
+        private final String label;
+
+        Algorithm(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * Notified on a worker thread once a requested checksum is known.
+     */
+    interface Listener {
+        void checksumComputed(File file);
+    }
+
+    private static final long WINDOW = 64L * 1024 * 1024;
+    private static final int CACHE_SIZE = 20000;
+
+    private static final class Cached {
+        final long size;
+        final long modified;
+        final String value;
+
+        Cached(long size, long modified, String value) {
+            this.size = size;
+            this.modified = modified;
+            this.value = value;
+        }
+    }
+
+    private final Map<String, Cached> cache =
+            new LinkedHashMap<String, Cached>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+    private final Set<String> pending = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final ExecutorService pool;
+    private final ForkJoinPool verifyPool =
+            new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+    Checksums() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        final AtomicInteger count = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingDeque<Runnable>() {
+                    @Override
+                    public boolean offer(Runnable runnable) {
+                        // last in, first out
+                        return super.offerFirst(runnable);
+                    }
+                },
+                new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "checksum-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }
+                });
+    }
+
+    private static String key(File file, Algorithm algorithm) {
+        return algorithm.name() + ':' + file.getAbsolutePath();
+    }
+
+    /**
+     * The checksum of file if it is known for its current size &amp; mtime, otherwise null.
+     */
+    String get(File file, Algorithm algorithm) {
+        Cached entry;
+        synchronized (cache) {
+            entry = cache.get(key(file, algorithm));
+        }
+        if (entry != null && entry.size == file.length() && entry.modified == file.lastModified()) {
+            return entry.value;
+        }
+        return null;
+    }
+
+    private void put(File file, long size, long modified, Algorithm algorithm, String value) {
+        synchronized (cache) {
+            cache.put(key(file, algorithm), new Cached(size, modified, value));
+        }
+    }
+
+    /**
+     * Compute the checksum of file in the background, unless that is already under way.
+     */
+    void request(final File file, final Algorithm algorithm, final Listener listener) {
+        final String key = key(file, algorithm);
+        if (!pending.add(key)) {
+            return;
+        }
+        pool.execute(
+                new Runnable() {
+                    public void run() {
+                        try {
+                            if (get(file, algorithm) == null) {
+                                computeAndCache(file, algorithm);
+                            }
+                        } catch (IOException e) {
+                            put(file, file.length(), file.lastModified(), algorithm, "error: " + e.getMessage());
+                        } finally {
+                            pending.remove(key);
+                        }
+                        listener.checksumComputed(file);
+                    }
+                });
+    }
+
+    private String computeAndCache(File file, Algorithm algorithm) throws IOException {
+        // read the stamp first, a change while reading makes the entry stale instead of wrong
+        long size = file.length();
+        long modified = file.lastModified();
+        String value = compute(file, algorithm, null);
+        put(file, size, modified, algorithm, value);
+        return value;
+    }
+
+    /**
+     * Checksum of the whole file as lower case hex, read through memory mapped windows.
+     */
+    static String compute(File file, Algorithm algorithm, JobScheduler.Job job) throws IOException {
+        MessageDigest digest = null;
+        Crc32c crc = null;
+        if (algorithm == Algorithm.SHA_256) {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        } else {
+            crc = new Crc32c();
+        }
+        if (file instanceof ArchiveEntry) {
+            // inflated as a stream, there is nothing to map
+            try (InputStream in = ((ArchiveEntry) file).openStream()) {
+                byte[] buffer = new byte[64 * 1024];
+                for (int read; (read = in.read(buffer)) > 0; ) {
+                    if (job != null && job.isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    if (digest != null) {
+                        digest.update(buffer, 0, read);
+                    } else {
+                        crc.update(ByteBuffer.wrap(buffer, 0, read));
+                    }
+                }
+            }
+        } else {
+            try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+                long size = channel.size();
+                for (long position = 0; position < size; position += WINDOW) {
+                    if (job != null && job.isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    MappedByteBuffer window =
+                            channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+                    if (digest != null) {
+                        digest.update(window);
+                    } else {
+                        crc.update(window);
+                    }
+                }
+            }
+        }
+        if (digest != null) {
+            return Hashes.toHex(digest.digest());
+        }
+        return String.format("%08x", crc.getValue());
+    }
+
+    /**
+     * The .sha256 manifests to verify for file: file itself if it is one, otherwise those
+     * directly inside it when it is a directory.
+     */
+    static List<File> findManifests(File file) {
+        List<File> manifests = new ArrayList<>();
+        if (file.isFile() && file.getName().toLowerCase(Locale.ROOT).endsWith(".sha256")) {
+            manifests.add(file);
+        } else if (file.isDirectory()) {
+            File[] files = file.listFiles();
+            if (files != null) {
+                for (File child : files) {
+                    if (child.isFile() && child.getName().toLowerCase(Locale.ROOT).endsWith(".sha256")) {
+                        manifests.add(child);
+                    }
+                }
+            }
+        }
+        return manifests;
+    }
+
+    /**
+     * Check every entry of the given manifests (sha256sum format: "hash  name" or "hash *name",
+     * names relative to the manifest) in parallel.
+     */
+    Verification verify(List<File> manifests, final JobScheduler.Job job) throws IOException {
+        final Verification verification = new Verification();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (File manifest : manifests) {
+            for (String line : Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || line.length() < 66) {
+                    continue;
+                }
+                final String expected = line.substring(0, 64).toLowerCase(Locale.ROOT);
+                String name = line.substring(64).trim();
+                if (name.startsWith("*")) {
+                    name = name.substring(1);
+                }
+                final File file = new File(name).isAbsolute() ? new File(name) : new File(manifest.getParentFile(), name);
+                tasks.add(
+                        new Callable<Void>() {
+                            public Void call() {
+                                if (job != null && job.isCancelled()) {
+                                    throw new CancellationException();
+                                }
+                                verification.check(file, expected);
+                                if (job != null) {
+                                    job.setProgress(verification.checked.get(), verification.total);
+                                }
+                                return null;
+                            }
+                        });
+            }
+        }
+        verification.total = tasks.size();
+        verification.startNanos = System.nanoTime();
+        try {
+            verifyPool.invokeAll(tasks);
+        } finally {
+            verification.endNanos = System.nanoTime();
+        }
+        return verification;
+    }
+
+    /**
+     * Outcome of checking manifests against the files on disk.
+     */
+    final class Verification {
+        private final AtomicInteger checked = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final List<String> mismatched = Collections.synchronizedList(new ArrayList<String>());
+        private final List<String> missing = Collections.synchronizedList(new ArrayList<String>());
+        private volatile int total;
+        private volatile long startNanos;
+        private volatile long endNanos;
+
+        private void check(File file, String expected) {
+            try {
+                if (!file.isFile()) {
+                    missing.add(file.getPath());
+                    return;
+                }
+                String actual = computeAndCache(file, Algorithm.SHA_256);
+                bytes.addAndGet(file.length());
+                if (!actual.equals(expected)) {
+                    mismatched.add(file.getPath());
+                }
+            } catch (IOException e) {
+                missing.add(file.getPath() + " (" + e.getMessage() + ")");
+            } finally {
+                checked.incrementAndGet();
+            }
+        }
+
+        List<String> getMismatched() {
+            return mismatched;
+        }
+
+        List<String> getMissing() {
+            return missing;
+        }
+
+        boolean isOk() {
+            return mismatched.isEmpty() && missing.isEmpty() && checked.get() == total;
+        }
+
+        /**
+         * e.g. "118 of 120 OK, 1 mismatched, 1 missing; 2.1 GB in 4.20 s (512.0 MB/s, 28.6 files/s)".
+         */
+        String summary() {
+            double seconds = Math.max(endNanos - startNanos, 1L) / 1e9;
+            double mb = bytes.get() / (1024.0 * 1024);
+            int ok = checked.get() - mismatched.size() - missing.size();
+            return String.format("%d of %d OK, %d mismatched, %d missing; %.1f MB in %.2f s (%.1f MB/s, %.1f files/s)",
+                    ok, total, mismatched.size(), missing.size(), mb, seconds, mb / seconds, checked.get() / seconds);
+        }
+    }
+}
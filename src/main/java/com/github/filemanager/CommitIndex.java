@@ -0,0 +1,493 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Search index over the commits of one repository: the words of their messages, their
+ * authors' names &amp; addresses, and the paths they touched.
+ *
+ * <p>Every commit gets an integer ordinal, and every token the sorted list of ordinals of the
+ * commits that have it. A query intersects the lists of its terms instead of reading the
+ * commits, then scans the ordinals newest first for the matches to list, so it is linear in the
+ * number of commits but cheap per commit. {@link #update} only walks the commits that are new
+ * since the ref tips it saw last time, publishing them in growing batches while it walks, and the
+ * index is saved, so history is walked once per commit, ever.
+ *
+ * <p>Query terms are ANDed: "author:name" matches authors, "path:dir/file" commits touching a
+ * path (or any below a directory), and other words the message or author. Each term matches
+ * tokens it is a prefix of, so results follow typing.
+ */
+class CommitIndex {
+
+    private static final int MAGIC = 0x43494458;
+    private static final int VERSION = 2;
+    /**
+     * Commits added before the newest are searchable the first time; the batches double after.
+     */
+    private static final int FIRST_BATCH = 1000;
+
+    /**
+     * An indexed commit as listed in the history.
+     */
+    static final class Commit {
+        final String id;
+        final int time;
+        final String author;
+        final String message;
+
+        Commit(String id, int time, String author, String message) {
+            this.id = id;
+            this.time = time;
+            this.author = author;
+            this.message = message;
+        }
+
+        /**
+         * As the history lists commits, "id - [short message]".
+         */
+        @Override
+        public String toString() {
+            return id + " - [" + message + "]";
+        }
+    }
+
+    /**
+     * The newest matching commits, and how many matched in all.
+     */
+    static final class Result {
+        final List<Commit> commits;
+        final int count;
+
+        Result(List<Commit> commits, int count) {
+            this.commits = commits;
+            this.count = count;
+        }
+    }
+
+    private final File gitDir;
+    private final File file;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Commit> commits = new ArrayList<>();
+    private final Set<ObjectId> ids = new HashSet<>();
+    /**
+     * The ref tips of the last complete update; older commits are all indexed.
+     */
+    private final Set<ObjectId> tips = new HashSet<>();
+    private final TreeMap<String, IntList> postings = new TreeMap<>();
+    /**
+     * Ordinals newest first, rebuilt after each batch of an update.
+     */
+    private int[] byTime = new int[0];
+
+    private CommitIndex(File gitDir, File file) {
+        this.gitDir = gitDir;
+        this.file = file;
+    }
+
+    /**
+     * The index of the repository at gitDir saved in directory, or an empty one.
+     */
+    static CommitIndex open(File directory, File gitDir) {
+        File file = new File(directory, Hashes.sha1Hex(gitDir.getAbsolutePath()) + ".idx");
+        if (file.isFile()) {
+            try {
+                return load(file, gitDir);
+            } catch (IOException e) {
+                // built again from scratch
+                e.printStackTrace();
+            }
+        }
+        return new CommitIndex(gitDir, file);
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return commits.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Index the commits reachable from any ref that are not indexed yet. Returns how many there
+     * were.
+     */
+    synchronized int update(JobScheduler.Job job) throws IOException {
+        Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).build();
+        OperationEvents.Span span = OperationEvents.git("log --all --name-only", gitDir.getParentFile());
+        int added = 0;
+        int nextBatch = FIRST_BATCH;
+        try (RevWalk walk = new RevWalk(repository);
+             TreeWalk paths = new TreeWalk(repository)) {
+            Set<ObjectId> newTips = new HashSet<>();
+            for (Ref ref : repository.getRefDatabase().getRefs()) {
+                ObjectId id = ref.getPeeledObjectId() != null ? ref.getPeeledObjectId() : ref.getObjectId();
+                if (id != null) {
+                    newTips.add(id);
+                }
+            }
+            for (ObjectId tip : newTips) {
+                try {
+                    walk.markStart(walk.parseCommit(tip));
+                } catch (IOException e) {
+                    // a ref to a tree or blob
+                }
+            }
+            for (ObjectId tip : snapshotTips()) {
+                try {
+                    walk.markUninteresting(walk.parseCommit(tip));
+                } catch (IOException e) {
+                    // gone since, e.g. a deleted branch that was pruned
+                }
+            }
+            walk.sort(RevSort.COMMIT_TIME_DESC);
+            paths.setRecursive(true);
+            paths.setFilter(TreeFilter.ANY_DIFF);
+            for (RevCommit commit : walk) {
+                if (job != null && job.isCancelled()) {
+                    throw new CancellationException();
+                }
+                if (contains(commit)) {
+                    continue;
+                }
+                add(commit, touchedPaths(paths, walk, commit));
+                added++;
+                if (job != null && added % 100 == 0) {
+                    job.setProgress(added, 0);
+                }
+                if (added == nextBatch) {
+                    // a first index lists history as it goes, without sorting on every commit
+                    sortByTime();
+                    nextBatch *= 2;
+                }
+            }
+            lock.writeLock().lock();
+            try {
+                tips.clear();
+                tips.addAll(newTips);
+                sortByTime();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            span.setEntries(added);
+            return added;
+        } catch (IOException | RuntimeException e) {
+            span.setFailed(true);
+            if (added > 0) {
+                sortByTime();
+            }
+            throw e;
+        } finally {
+            span.end();
+            repository.close();
+        }
+    }
+
+    private Set<ObjectId> snapshotTips() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(tips);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean contains(ObjectId id) {
+        lock.readLock().lock();
+        try {
+            return ids.contains(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Paths that differ from the first parent, or all paths of a root commit.
+     */
+    private static Set<String> touchedPaths(TreeWalk paths, RevWalk walk, RevCommit commit) throws IOException {
+        paths.reset();
+        if (commit.getParentCount() > 0) {
+            paths.addTree(walk.parseCommit(commit.getParent(0)).getTree());
+        } else {
+            paths.addTree(new EmptyTreeIterator());
+        }
+        paths.addTree(commit.getTree());
+        Set<String> touched = new HashSet<>();
+        while (paths.next()) {
+            touched.add(paths.getPathString());
+        }
+        return touched;
+    }
+
+    private void add(RevCommit commit, Set<String> paths) {
+        PersonIdent author = commit.getAuthorIdent();
+        Set<String> tokens = new HashSet<>();
+        tokenize("m:", commit.getFullMessage(), tokens);
+        tokenize("a:", author.getName(), tokens);
+        tokenize("a:", author.getEmailAddress(), tokens);
+        for (String path : paths) {
+            String lower = path.toLowerCase(Locale.ROOT);
+            tokens.add("p:" + lower);
+            for (int slash = lower.indexOf('/'); slash > 0; slash = lower.indexOf('/', slash + 1)) {
+                tokens.add("p:" + lower.substring(0, slash));
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            int ordinal = commits.size();
+            commits.add(new Commit(commit.getName(), commit.getCommitTime(), author.getName(),
+                    commit.getShortMessage()));
+            ids.add(commit.copy());
+            for (String token : tokens) {
+                IntList list = postings.get(token);
+                if (list == null) {
+                    list = new IntList(1);
+                    postings.put(token, list);
+                }
+                list.add(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static void tokenize(String field, String text, Set<String> tokens) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int ii = 0; ii <= text.length(); ii++) {
+            boolean word = ii < text.length() && Character.isLetterOrDigit(text.charAt(ii));
+            if (word && start < 0) {
+                start = ii;
+            } else if (!word && start >= 0) {
+                tokens.add(field + text.substring(start, ii).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+    }
+
+    private void sortByTime() {
+        lock.writeLock().lock();
+        try {
+            Integer[] order = new Integer[commits.size()];
+            for (int ii = 0; ii < order.length; ii++) {
+                order[ii] = ii;
+            }
+            Arrays.sort(order,
+                    new Comparator<Integer>() {
+                        public int compare(Integer a, Integer b) {
+                            int byTime = Integer.compare(commits.get(b).time, commits.get(a).time);
+                            return byTime != 0 ? byTime : Integer.compare(b, a);
+                        }
+                    });
+            byTime = new int[order.length];
+            for (int ii = 0; ii < order.length; ii++) {
+                byTime[ii] = order[ii];
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The newest limit commits matching query, every commit for a blank query.
+     */
+    Result search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = null;
+            for (String term : query.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+                if (term.isEmpty()) {
+                    continue;
+                }
+                BitSet found = match(term);
+                if (matches == null) {
+                    matches = found;
+                } else {
+                    matches.and(found);
+                }
+            }
+            List<Commit> result = new ArrayList<>();
+            for (int ordinal : byTime) {
+                if (result.size() == limit) {
+                    break;
+                }
+                if (matches == null || matches.get(ordinal)) {
+                    result.add(commits.get(ordinal));
+                }
+            }
+            return new Result(result, matches == null ? byTime.length : matches.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet match(String term) {
+        BitSet found = new BitSet();
+        if (term.startsWith("author:")) {
+            addPrefix("a:", term.substring(7), found);
+        } else if (term.startsWith("path:")) {
+            String path = term.substring(5);
+            while (path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            IntList exact = postings.get("p:" + path);
+            if (exact != null) {
+                exact.addTo(found);
+            } else {
+                addPrefix("p:", path, found);
+            }
+        } else {
+            // the same words as were indexed, e.g. "fix-up" is "fix" and "up"
+            Set<String> words = new HashSet<>();
+            tokenize("", term, words);
+            BitSet all = null;
+            for (String word : words) {
+                BitSet either = new BitSet();
+                addPrefix("m:", word, either);
+                addPrefix("a:", word, either);
+                if (all == null) {
+                    all = either;
+                } else {
+                    all.and(either);
+                }
+            }
+            return all == null ? found : all;
+        }
+        return found;
+    }
+
+    private void addPrefix(String field, String prefix, BitSet found) {
+        if (prefix.isEmpty()) {
+            return;
+        }
+        for (IntList list : postings.subMap(field + prefix, field + prefix + Character.MAX_VALUE).values()) {
+            list.addTo(found);
+        }
+    }
+
+    void save() throws IOException {
+        lock.readLock().lock();
+        try {
+            File temp = new File(file.getPath() + ".tmp");
+            try (DataOutputStream out =
+                         new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(tips.size());
+                for (ObjectId tip : tips) {
+                    writeString(out, tip.name());
+                }
+                out.writeInt(commits.size());
+                for (Commit commit : commits) {
+                    writeString(out, commit.id);
+                    out.writeInt(commit.time);
+                    writeString(out, commit.author);
+                    writeString(out, commit.message.length() > 1000 ? commit.message.substring(0, 1000) : commit.message);
+                }
+                out.writeInt(postings.size());
+                for (Map.Entry<String, IntList> entry : postings.entrySet()) {
+                    IntList list = entry.getValue();
+                    writeString(out, entry.getKey());
+                    out.writeInt(list.size);
+                    for (int ii = 0; ii < list.size; ii++) {
+                        out.writeInt(list.values[ii]);
+                    }
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static CommitIndex load(File file, File gitDir) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a commit index: " + file);
+            }
+            CommitIndex index = new CommitIndex(gitDir, file);
+            int count = in.readInt();
+            for (int ii = 0; ii < count; ii++) {
+                index.tips.add(ObjectId.fromString(readString(in)));
+            }
+            count = in.readInt();
+            for (int ii = 0; ii < count; ii++) {
+                Commit commit = new Commit(readString(in), in.readInt(), readString(in), readString(in));
+                index.commits.add(commit);
+                index.ids.add(ObjectId.fromString(commit.id));
+            }
+            count = in.readInt();
+            for (int ii = 0; ii < count; ii++) {
+                String token = readString(in);
+                int size = in.readInt();
+                IntList list = new IntList(size);
+                for (int jj = 0; jj < size; jj++) {
+                    list.add(in.readInt());
+                }
+                index.postings.put(token, list);
+            }
+            index.sortByTime();
+            return index;
+        }
+    }
+
+    /**
+     * Unlike writeUTF, not limited to 64KB, which a long word or name could exceed.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupt commit index");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.*;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * The history as a list of commits with a search box over a {@link CommitIndex}. Every key
+ * stroke queries the index; while the index is being updated, the list is refreshed as commits
+ * come in.
+ */
+class CommitSearchPanel extends JPanel {
+
+    /**
+     * Commits listed at most, newest first.
+     */
+    static final int LIMIT = 1000;
+
+    private final CommitIndex index;
+    private final JTextField query = new JTextField(30);
+    private final JLabel status = new JLabel(" ");
+    private final DefaultListModel<String> model = new DefaultListModel<>();
+    private final JList<String> list = new JList<>(model);
+    private final javax.swing.Timer indexingTimer;
+    private boolean indexing;
+    private String failure;
+
+    CommitSearchPanel(CommitIndex index) {
+        super(new BorderLayout(3, 3));
+        this.index = index;
+
+        JPanel search = new JPanel(new BorderLayout(3, 3));
+        search.add(new JLabel("Search"), BorderLayout.WEST);
+        query.setToolTipText("Words of the message or author, author:name, path:dir/file");
+        query.getDocument().addDocumentListener(
+                new DocumentListener() {
+                    public void insertUpdate(DocumentEvent de) {
+                        refresh();
+                    }
+
+                    public void removeUpdate(DocumentEvent de) {
+                        refresh();
+                    }
+
+                    public void changedUpdate(DocumentEvent de) {
+                        refresh();
+                    }
+                });
+        search.add(query, BorderLayout.CENTER);
+        add(search, BorderLayout.NORTH);
+
+        JScrollPane scroll = new JScrollPane(list);
+        scroll.setPreferredSize(new Dimension(600, 400));
+        add(scroll, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+
+        indexingTimer = new javax.swing.Timer(500,
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        refresh();
+                    }
+                });
+        refresh();
+    }
+
+    /**
+     * Selected entries read "id - [short message]".
+     */
+    JList<String> getList() {
+        return list;
+    }
+
+    /**
+     * While the index is updated, refresh the list every half second.
+     */
+    void setIndexing(boolean indexing) {
+        this.indexing = indexing;
+        if (indexing) {
+            indexingTimer.start();
+        } else {
+            indexingTimer.stop();
+        }
+        refresh();
+    }
+
+    /**
+     * Say that updating the index failed, the list shows what was indexed before.
+     */
+    void setFailure(String message) {
+        failure = message;
+        refresh();
+    }
+
+    private void refresh() {
+        CommitIndex.Result result = index.search(query.getText(), LIMIT);
+        List<String> selected = list.getSelectedValuesList();
+        model.clear();
+        for (CommitIndex.Commit commit : result.commits) {
+            model.addElement(commit.toString());
+        }
+        List<Integer> reselected = new ArrayList<>();
+        for (String value : selected) {
+            int row = model.indexOf(value);
+            if (row >= 0) {
+                reselected.add(row);
+            }
+        }
+        int[] rows = new int[reselected.size()];
+        for (int ii = 0; ii < rows.length; ii++) {
+            rows[ii] = reselected.get(ii);
+        }
+        list.setSelectedIndices(rows);
+
+        int total = index.size();
+        StringBuilder text = new StringBuilder();
+        if (query.getText().trim().isEmpty()) {
+            text.append(total).append(" commits");
+        } else {
+            text.append(result.count).append(" of ").append(total).append(" commits");
+        }
+        if (result.count > result.commits.size()) {
+            text.append(", newest ").append(result.commits.size()).append(" shown");
+        }
+        if (indexing) {
+            text.append(", indexing...");
+        }
+        if (failure != null) {
+            text.append(", indexing failed: ").append(failure);
+        }
+        status.setText(text.toString());
+    }
+}
@@ -0,0 +1,388 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.*;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.jgit.lib.Constants;
+
+/**
+ * Searches the contents of the files below a directory for a literal string or a regex.
+ *
+ * <p>Directories are listed by one fork/join task each, and the files in them are scanned by the
+ * same task. Files up to {@link #MAP_LIMIT} are memory mapped and decoded a chunk of whole lines
+ * at a time; bigger ones are read line by line. Files that look binary (a NUL byte near the start, as git decides) and
+ * paths excluded by .gitignore files are skipped. Hits are handed to the listener as they are
+ * found, on the worker threads.
+ */
+class ContentSearch {
+
+    /**
+     * Bigger files are streamed rather than mapped.
+     */
+    static final long MAP_LIMIT = 64L * 1024 * 1024;
+    /**
+     * Mapped files are decoded this many bytes at a time, cut after a line end where there is one.
+     */
+    static final int CHUNK = 1024 * 1024;
+    /**
+     * Stop reporting a file after this many hits.
+     */
+    static final int MAX_HITS_PER_FILE = 100;
+    private static final int BINARY_CHECK = 8000;
+    private static final int MAX_LINE_SHOWN = 300;
+
+    interface Listener {
+        void hit(Hit hit);
+    }
+
+    static final class Hit {
+        private final File file;
+        private final int line;
+        private final String text;
+
+        Hit(File file, int line, String text) {
+            this.file = file;
+            this.line = line;
+            this.text = text;
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        String getText() {
+            return text;
+        }
+    }
+
+    private static final ForkJoinPool POOL =
+            new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+    private final File root;
+    private final Pattern pattern;
+    private final AtomicLong filesScanned = new AtomicLong();
+    private final AtomicLong bytesScanned = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    /**
+     * @param regex treat query as a regular expression rather than a literal string
+     */
+    ContentSearch(File root, String query, boolean regex, boolean ignoreCase) {
+        this.root = root.getAbsoluteFile();
+        int flags = Pattern.MULTILINE | (ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+        this.pattern = Pattern.compile(regex ? query : Pattern.quote(query), flags);
+    }
+
+    File getRoot() {
+        return root;
+    }
+
+    /**
+     * Search the whole tree on the calling thread's behalf, returning when done or cancelled.
+     */
+    void run(JobScheduler.Job job, Listener listener) {
+        startNanos = System.nanoTime();
+        try {
+            POOL.invoke(new DirectoryTask(root.toPath(), parentRules(root), job, listener));
+        } finally {
+            endNanos = System.nanoTime();
+        }
+    }
+
+    long getFilesScanned() {
+        return filesScanned.get();
+    }
+
+    long getBytesScanned() {
+        return bytesScanned.get();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * e.g. "12 hits in 3456 files, 120.5 MB in 0.84 s (4114 files/s, 143.4 MB/s)".
+     */
+    String summary() {
+        if (startNanos == 0) {
+            return "waiting";
+        }
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        double seconds = Math.max(end - startNanos, 1L) / 1e9;
+        double mb = bytesScanned.get() / (1024.0 * 1024);
+        return String.format("%d hits in %d files, %.1f MB in %.2f s (%.0f files/s, %.1f MB/s)",
+                hits.get(), filesScanned.get(), mb, seconds, filesScanned.get() / seconds, mb / seconds);
+    }
+
+    /**
+     * Rules from the .gitignore files between the work tree (if any) and the parent of root.
+     */
+    private static IgnoreRules parentRules(File root) {
+        File gitDir = GitSupport.findGitDir(root);
+        if (gitDir == null) {
+            return null;
+        }
+        Deque<Path> directories = new ArrayDeque<>();
+        Path workTree = gitDir.getParentFile().toPath();
+        for (Path dir = root.toPath().getParent(); dir != null && dir.startsWith(workTree); dir = dir.getParent()) {
+            directories.push(dir);
+        }
+        IgnoreRules rules = null;
+        for (Path dir : directories) {
+            rules = IgnoreRules.withRulesOf(dir, rules);
+        }
+        return rules;
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+        private final Path directory;
+        private final IgnoreRules inherited;
+        private final JobScheduler.Job job;
+        private final Listener listener;
+
+        DirectoryTask(Path directory, IgnoreRules inherited, JobScheduler.Job job, Listener listener) {
+            this.directory = directory;
+            this.inherited = inherited;
+            this.job = job;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void compute() {
+            final IgnoreRules rules = IgnoreRules.withRulesOf(directory, inherited);
+            final List<Path> files = new ArrayList<>();
+            final List<DirectoryTask> subtasks = new ArrayList<>();
+            try {
+                Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), 1,
+                        new SimpleFileVisitor<Path>() {
+                            @Override
+                            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                                boolean isDirectory = attrs.isDirectory();
+                                if (isDirectory && Constants.DOT_GIT.equals(file.getFileName().toString())) {
+                                    return FileVisitResult.CONTINUE;
+                                }
+                                if (rules != null && rules.isIgnored(file, isDirectory)) {
+                                    return FileVisitResult.CONTINUE;
+                                }
+                                if (isDirectory) {
+                                    subtasks.add(new DirectoryTask(file, rules, job, listener));
+                                } else if (attrs.isRegularFile() && attrs.size() > 0) {
+                                    files.add(file);
+                                }
+                                return FileVisitResult.CONTINUE;
+                            }
+
+                            @Override
+                            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                                return FileVisitResult.CONTINUE;
+                            }
+                        });
+            } catch (IOException e) {
+                return;
+            }
+            for (DirectoryTask subtask : subtasks) {
+                subtask.fork();
+            }
+            for (Path file : files) {
+                if (job != null && job.isCancelled()) {
+                    throw new CancellationException();
+                }
+                try {
+                    scan(file.toFile(), job, listener);
+                } catch (IOException e) {
+                    // unreadable files are skipped
+                }
+            }
+            for (DirectoryTask subtask : subtasks) {
+                subtask.join();
+            }
+        }
+    }
+
+    private void scan(File file, JobScheduler.Job job, Listener listener) throws IOException {
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            long size = channel.size();
+            if (size <= MAP_LIMIT) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (isBinary(buffer)) {
+                    return;
+                }
+                filesScanned.incrementAndGet();
+                bytesScanned.addAndGet(size);
+                scanMapped(file, buffer, job, listener);
+                return;
+            }
+        }
+        scanStream(file, job, listener);
+    }
+
+    private static boolean isBinary(ByteBuffer buffer) {
+        int end = Math.min(buffer.limit(), BINARY_CHECK);
+        for (int ii = 0; ii < end; ii++) {
+            if (buffer.get(ii) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CharsetDecoder decoder() {
+        return StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    private void scanMapped(File file, ByteBuffer buffer, JobScheduler.Job job, Listener listener)
+            throws IOException {
+        CharsetDecoder decoder = decoder();
+        Matcher matcher = pattern.matcher("");
+        int line = 1;
+        int found = 0;
+        for (int chunkStart = 0; chunkStart < buffer.limit(); ) {
+            if (job != null && job.isCancelled()) {
+                throw new CancellationException();
+            }
+            int chunkEnd = chunkEnd(buffer, chunkStart);
+            ByteBuffer bytes = buffer.duplicate();
+            ((Buffer) bytes).limit(chunkEnd).position(chunkStart);
+            CharBuffer chars = decoder.decode(bytes);
+            matcher.reset(chars);
+            int counted = 0;
+            int from = 0;
+            while (from <= chars.length() && matcher.find(from)) {
+                int start = matcher.start();
+                for (; counted < start; counted++) {
+                    if (chars.get(counted) == '\n') {
+                        line++;
+                    }
+                }
+                int lineStart = start;
+                while (lineStart > 0 && chars.get(lineStart - 1) != '\n') {
+                    lineStart--;
+                }
+                int lineEnd = Math.max(matcher.end(), start);
+                while (lineEnd < chars.length() && chars.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                report(file, line, chars.subSequence(lineStart, lineEnd).toString(), listener);
+                if (++found >= MAX_HITS_PER_FILE) {
+                    return;
+                }
+                // one hit per line
+                from = lineEnd + 1;
+            }
+            for (; counted < chars.length(); counted++) {
+                if (chars.get(counted) == '\n') {
+                    line++;
+                }
+            }
+            chunkStart = chunkEnd;
+        }
+    }
+
+    /**
+     * The end of the chunk starting at start: after the last line end within {@link #CHUNK}
+     * bytes, else, in a longer line, at a character boundary, where a match can be missed.
+     */
+    private static int chunkEnd(ByteBuffer buffer, int start) {
+        if (buffer.limit() - start <= CHUNK) {
+            return buffer.limit();
+        }
+        int end = start + CHUNK;
+        for (int ii = end - 1; ii > start; ii--) {
+            if (buffer.get(ii) == '\n') {
+                return ii + 1;
+            }
+        }
+        // not inside a UTF-8 sequence
+        while (end > start + 1 && (buffer.get(end) & 0xC0) == 0x80) {
+            end--;
+        }
+        return end;
+    }
+
+    private void scanStream(File file, JobScheduler.Job job, Listener listener) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 64 * 1024)) {
+            in.mark(BINARY_CHECK);
+            byte[] head = new byte[BINARY_CHECK];
+            int read = in.read(head);
+            if (read > 0 && isBinary((ByteBuffer) ((Buffer) ByteBuffer.wrap(head)).limit(read))) {
+                return;
+            }
+            in.reset();
+            filesScanned.incrementAndGet();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, decoder()));
+            Matcher matcher = pattern.matcher("");
+            int found = 0;
+            int line = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                if (++line % 10000 == 0 && job != null && job.isCancelled()) {
+                    throw new CancellationException();
+                }
+                bytesScanned.addAndGet(text.length() + 1);
+                if (matcher.reset(text).find()) {
+                    report(file, line, text, listener);
+                    if (++found >= MAX_HITS_PER_FILE) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private void report(File file, int line, String text, Listener listener) {
+        hits.incrementAndGet();
+        text = text.trim();
+        if (text.length() > MAX_LINE_SHOWN) {
+            text = text.substring(0, MAX_LINE_SHOWN) + "...";
+        }
+        listener.hit(new Hit(file, line, text));
+    }
+}
@@ -0,0 +1,247 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.*;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.PatternSyntaxException;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Searches file contents below the current directory with {@link ContentSearch}, showing hits
+ * while the search runs.
+ */
+abstract class ContentSearchPanel extends JPanel {
+
+    private final JobScheduler scheduler;
+    private final JTextField query = new JTextField(30);
+    private final JCheckBox regex = new JCheckBox("regex");
+    private final JCheckBox ignoreCase = new JCheckBox("ignore case");
+    private final JButton stop = new JButton("Stop");
+    private final HitTableModel hitTableModel = new HitTableModel();
+    private final JTable table = new JTable(hitTableModel);
+    private final JLabel status = new JLabel(" ");
+    private final Timer refreshTimer;
+
+    /**
+     * Hits found by the workers and not yet shown.
+     */
+    private final Queue<ContentSearch.Hit> pending = new ConcurrentLinkedQueue<>();
+    private volatile ContentSearch search;
+    private JobScheduler.Job job;
+
+    ContentSearchPanel(JobScheduler scheduler) {
+        super(new BorderLayout(3, 3));
+        this.scheduler = scheduler;
+
+        JPanel queryView = new JPanel(new FlowLayout(FlowLayout.LEADING, 3, 0));
+        queryView.add(new JLabel("Containing "));
+        queryView.add(query);
+        queryView.add(regex);
+        queryView.add(ignoreCase);
+        JButton find = new JButton("Find");
+        find.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        startSearch();
+                    }
+                });
+        query.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        startSearch();
+                    }
+                });
+        queryView.add(find);
+        stop.setEnabled(false);
+        stop.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        if (job != null) {
+                            job.cancel();
+                        }
+                    }
+                });
+        queryView.add(stop);
+        add(queryView, BorderLayout.NORTH);
+
+        table.setAutoCreateRowSorter(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(300);
+        table.getColumnModel().getColumn(1).setPreferredWidth(50);
+        table.getColumnModel().getColumn(2).setPreferredWidth(400);
+        table.addMouseListener(
+                new MouseAdapter() {
+                    @Override
+                    public void mouseClicked(MouseEvent me) {
+                        int row = table.getSelectedRow();
+                        if (me.getClickCount() == 2 && row >= 0) {
+                            open(hitTableModel.getHit(table.convertRowIndexToModel(row)).getFile());
+                        }
+                    }
+                });
+        JScrollPane tableScroll = new JScrollPane(table);
+        tableScroll.setPreferredSize(new Dimension(760, 360));
+        add(tableScroll, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+
+        // hits arrive from many threads; move them to the table in batches
+        refreshTimer = new Timer(200,
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        refresh();
+                    }
+                });
+    }
+
+    /**
+     * The directory to search, or null.
+     */
+    protected abstract File getCurrentDirectory();
+
+    /**
+     * Show a file that was double clicked in the results.
+     */
+    protected abstract void open(File file);
+
+    private void startSearch() {
+        File directory = getCurrentDirectory();
+        if (directory == null || query.getText().isEmpty()) {
+            return;
+        }
+        if (job != null) {
+            job.cancel();
+        }
+        final ContentSearch newSearch;
+        try {
+            newSearch = new ContentSearch(directory, query.getText(), regex.isSelected(), ignoreCase.isSelected());
+        } catch (PatternSyntaxException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Invalid regex", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        search = newSearch;
+        pending.clear();
+        hitTableModel.clear();
+        job = new JobScheduler.Job("Find '" + query.getText() + "' in " + directory,
+                JobScheduler.Priority.NORMAL, directory) {
+            @Override
+            protected void execute() {
+                newSearch.run(this,
+                        new ContentSearch.Listener() {
+                            public void hit(ContentSearch.Hit hit) {
+                                if (search == newSearch) {
+                                    pending.add(hit);
+                                }
+                            }
+                        });
+            }
+        };
+        scheduler.submit(job);
+        stop.setEnabled(true);
+        refreshTimer.start();
+    }
+
+    private void refresh() {
+        List<ContentSearch.Hit> hits = new ArrayList<>();
+        for (ContentSearch.Hit hit; (hit = pending.poll()) != null; ) {
+            hits.add(hit);
+        }
+        hitTableModel.addHits(hits);
+
+        JobScheduler.State state = job.getState();
+        boolean running = state == JobScheduler.State.QUEUED || state == JobScheduler.State.RUNNING;
+        String text = search.summary();
+        if (!running) {
+            refreshTimer.stop();
+            stop.setEnabled(false);
+            if (state != JobScheduler.State.DONE) {
+                text += " - " + state.toString().toLowerCase();
+            }
+        }
+        status.setText(text);
+    }
+
+    private static class HitTableModel extends AbstractTableModel {
+
+        private final List<ContentSearch.Hit> hits = new ArrayList<>();
+        private String[] columns = {
+                "File", "Line", "Text",
+        };
+
+        void clear() {
+            hits.clear();
+            fireTableDataChanged();
+        }
+
+        void addHits(List<ContentSearch.Hit> added) {
+            if (added.isEmpty()) {
+                return;
+            }
+            int first = hits.size();
+            hits.addAll(added);
+            fireTableRowsInserted(first, hits.size() - 1);
+        }
+
+        ContentSearch.Hit getHit(int row) {
+            return hits.get(row);
+        }
+
+        public int getRowCount() {
+            return hits.size();
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        public Class<?> getColumnClass(int column) {
+            return column == 1 ? Integer.class : String.class;
+        }
+
+        public Object getValueAt(int row, int column) {
+            ContentSearch.Hit hit = hits.get(row);
+            switch (column) {
+                case 0:
+                    return hit.getFile().getPath();
+                case 1:
+                    return hit.getLine();
+                case 2:
+                    return hit.getText();
+                default:
+                    return "";
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.Checksum;
+
+/**
+ * CRC-32C (Castagnoli), as used by iSCSI, ext4 &amp; cloud storage. java.util.zip only has it from
+ * Java 9 on, so this is a table driven version that consumes eight bytes per step
+ * ("slicing-by-8").
+ */
+class Crc32c implements Checksum {
+
+    private static final int POLYNOMIAL = 0x82F63B78;
+    private static final int[][] TABLES = new int[8][256];
+
+    static {
+        for (int n = 0; n < 256; n++) {
+            int crc = n;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+            }
+            TABLES[0][n] = crc;
+        }
+        for (int n = 0; n < 256; n++) {
+            for (int k = 1; k < 8; k++) {
+                int previous = TABLES[k - 1][n];
+                TABLES[k][n] = (previous >>> 8) ^ TABLES[0][previous & 0xff];
+            }
+        }
+    }
+
+    private int crc = 0xffffffff;
+
+    public void update(int b) {
+        crc = (crc >>> 8) ^ TABLES[0][(crc ^ b) & 0xff];
+    }
+
+    public void update(byte[] b, int off, int len) {
+        int end = off + len;
+        for (; off < end; off++) {
+            crc = (crc >>> 8) ^ TABLES[0][(crc ^ b[off]) & 0xff];
+        }
+    }
+
+    /**
+     * Consume the remaining bytes of buffer, leaving its position at the limit.
+     */
+    public void update(ByteBuffer buffer) {
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int c = crc;
+        int[] t0 = TABLES[0];
+        int[] t1 = TABLES[1];
+        int[] t2 = TABLES[2];
+        int[] t3 = TABLES[3];
+        int[] t4 = TABLES[4];
+        int[] t5 = TABLES[5];
+        int[] t6 = TABLES[6];
+        int[] t7 = TABLES[7];
+        while (in.remaining() >= 8) {
+            long word = in.getLong();
+            int low = c ^ (int) word;
+            int high = (int) (word >>> 32);
+            c = t7[low & 0xff] ^ t6[(low >>> 8) & 0xff] ^ t5[(low >>> 16) & 0xff] ^ t4[low >>> 24]
+                    ^ t3[high & 0xff] ^ t2[(high >>> 8) & 0xff] ^ t1[(high >>> 16) & 0xff] ^ t0[high >>> 24];
+        }
+        while (in.hasRemaining()) {
+            c = (c >>> 8) ^ t0[(c ^ in.get()) & 0xff];
+        }
+        crc = c;
+        ((java.nio.Buffer) buffer).position(buffer.limit());
+    }
+
+    public long getValue() {
+        return ~crc & 0xffffffffL;
+    }
+
+    public void reset() {
+        crc = 0xffffffff;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.*;
+import java.io.File;
+import java.util.*;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * The repositories of a {@link RepositoryDashboard}, one row each, updated as they are found
+ * &amp; read again. Double clicking a row shows the repository.
+ */
+abstract class DashboardPanel extends JPanel {
+
+    private final RepositoryDashboard dashboard;
+    private final DashboardTableModel model = new DashboardTableModel();
+    private final JTable table = new JTable(model);
+    private final JLabel status = new JLabel(" ");
+    private boolean finding = true;
+    private String failure;
+
+    /**
+     * Summaries not shown yet by work tree, the latest of each.
+     */
+    private final Map<File, RepositoryDashboard.Summary> arrived = new LinkedHashMap<>();
+
+    DashboardPanel(File root) {
+        super(new BorderLayout(3, 3));
+        dashboard = new RepositoryDashboard(root,
+                new RepositoryDashboard.Listener() {
+                    public void repositoryChanged(RepositoryDashboard.Summary summary) {
+                        arrived(summary);
+                    }
+                });
+
+        table.setAutoCreateRowSorter(true);
+        table.setShowGrid(false);
+        table.getColumnModel().getColumn(0).setPreferredWidth(240);
+        table.addMouseListener(
+                new MouseAdapter() {
+                    @Override
+                    public void mouseClicked(MouseEvent me) {
+                        int row = table.rowAtPoint(me.getPoint());
+                        if (me.getClickCount() == 2 && row >= 0) {
+                            open(model.summaries.get(table.convertRowIndexToModel(row)).workTree);
+                        }
+                    }
+                });
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setPreferredSize(new Dimension(800, 400));
+        add(scroll, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+        updateStatus();
+    }
+
+    /**
+     * A repository was double clicked.
+     */
+    protected abstract void open(File workTree);
+
+    RepositoryDashboard getDashboard() {
+        return dashboard;
+    }
+
+    /**
+     * Looking for repositories has ended, with failure saying why if it did not finish, or null.
+     * Those found may still be being read.
+     */
+    void setFound(String failure) {
+        finding = false;
+        if (failure != null) {
+            this.failure = failure;
+        }
+        updateStatus();
+    }
+
+    /**
+     * Runs on a reading thread.
+     */
+    private void arrived(RepositoryDashboard.Summary summary) {
+        synchronized (arrived) {
+            boolean scheduled = !arrived.isEmpty();
+            arrived.put(summary.workTree, summary);
+            if (scheduled) {
+                return;
+            }
+        }
+        SwingUtilities.invokeLater(
+                new Runnable() {
+                    public void run() {
+                        List<RepositoryDashboard.Summary> summaries;
+                        synchronized (arrived) {
+                            summaries = new ArrayList<>(arrived.values());
+                            arrived.clear();
+                        }
+                        model.update(summaries);
+                        updateStatus();
+                    }
+                });
+    }
+
+    private void updateStatus() {
+        int reading = 0;
+        for (RepositoryDashboard.Summary summary : model.summaries) {
+            if (!summary.isRead()) {
+                reading++;
+            }
+        }
+        StringBuilder text = new StringBuilder();
+        text.append(model.summaries.size()).append(" repositories in ").append(dashboard.getRoot().getPath());
+        if (finding) {
+            text.append(", looking for more...");
+        }
+        if (reading > 0) {
+            text.append(", ").append(reading).append(" being read");
+        }
+        if (failure != null) {
+            text.append(", ").append(failure);
+        }
+        status.setText(text.toString());
+    }
+
+    private class DashboardTableModel extends AbstractTableModel {
+        private final String[] columns = {"Repository", "Branch", "Upstream", "Ahead", "Behind",
+                "Modified", "Untracked", "Staged"};
+        private final List<RepositoryDashboard.Summary> summaries = new ArrayList<>();
+        private final Map<File, Integer> rows = new HashMap<>();
+
+        void update(List<RepositoryDashboard.Summary> updated) {
+            boolean structure = false;
+            for (RepositoryDashboard.Summary summary : updated) {
+                Integer row = rows.get(summary.workTree);
+                if (summary.removed) {
+                    if (row != null) {
+                        summaries.remove((int) row);
+                        structure = true;
+                        reindex();
+                    }
+                } else if (row == null) {
+                    rows.put(summary.workTree, summaries.size());
+                    summaries.add(summary);
+                    structure = true;
+                } else {
+                    summaries.set(row, summary);
+                    if (!structure) {
+                        fireTableRowsUpdated(row, row);
+                    }
+                }
+            }
+            if (structure) {
+                fireTableDataChanged();
+            }
+        }
+
+        private void reindex() {
+            rows.clear();
+            for (int ii = 0; ii < summaries.size(); ii++) {
+                rows.put(summaries.get(ii).workTree, ii);
+            }
+        }
+
+        public int getRowCount() {
+            return summaries.size();
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column >= 3 ? Integer.class : String.class;
+        }
+
+        public Object getValueAt(int row, int column) {
+            RepositoryDashboard.Summary summary = summaries.get(row);
+            if (column == 0) {
+                String path = BatchOperation.repositoryPath(dashboard.getRoot(), summary.workTree);
+                return path.equals(".") ? summary.workTree.getName() : path;
+            }
+            if (!summary.isRead()) {
+                return column == 1 ? "..." : null;
+            }
+            if (summary.error != null) {
+                return column == 1 ? summary.error : null;
+            }
+            switch (column) {
+                case 1:
+                    return summary.branch;
+                case 2:
+                    return summary.upstream == null ? "" : summary.upstream;
+                case 3:
+                    return summary.upstream == null ? null : summary.ahead;
+                case 4:
+                    return summary.upstream == null ? null : summary.behind;
+                case 5:
+                    return summary.counts.modified;
+                case 6:
+                    return summary.counts.untracked;
+                default:
+                    return summary.counts.staged;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.List;
+import java.util.Map;
+import javax.swing.*;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+
+/**
+ * The latency histograms &amp; recent stalls recorded by {@link EdtMonitor}, with the sampled EDT
+ * stacks of the selected stall.
+ */
+class DiagnosticsPanel extends JPanel {
+
+    private final EdtMonitor monitor;
+    private final JTextArea histograms = new JTextArea(18, 40);
+    private final DefaultListModel<EdtMonitor.Stall> stallsModel = new DefaultListModel<>();
+    private final JList<EdtMonitor.Stall> stalls = new JList<>(stallsModel);
+    private final JTextArea samples = new JTextArea(12, 60);
+
+    DiagnosticsPanel(EdtMonitor edtMonitor) {
+        super(new BorderLayout(3, 3));
+        this.monitor = edtMonitor;
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEADING, 3, 0));
+        controls.add(new JLabel("Stalls are dispatches over " + monitor.getThresholdMillis()
+                + " ms, logged to " + monitor.getLog()));
+        JButton clear = new JButton("Clear");
+        clear.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        monitor.clear();
+                        refresh();
+                    }
+                });
+        controls.add(clear);
+        add(controls, BorderLayout.NORTH);
+
+        Font font = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+        histograms.setFont(font);
+        histograms.setEditable(false);
+        samples.setFont(font);
+        samples.setEditable(false);
+        stalls.addListSelectionListener(
+                new ListSelectionListener() {
+                    public void valueChanged(ListSelectionEvent lse) {
+                        if (!lse.getValueIsAdjusting()) {
+                            showSamples(stalls.getSelectedValue());
+                        }
+                    }
+                });
+        JScrollPane stallsScroll = new JScrollPane(stalls);
+        stallsScroll.setPreferredSize(new Dimension(400, 200));
+        JSplitPane top = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, new JScrollPane(histograms), stallsScroll);
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, top, new JScrollPane(samples));
+        add(split, BorderLayout.CENTER);
+
+        new Timer(1000,
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        if (isShowing()) {
+                            refresh();
+                        }
+                    }
+                }).start();
+        refresh();
+    }
+
+    private void refresh() {
+        StringBuilder sb = new StringBuilder();
+        describe(sb, "Dispatch time", monitor.getDispatched());
+        sb.append('\n');
+        describe(sb, "Time queued", monitor.getWaited());
+        histograms.setText(sb.toString());
+        histograms.setCaretPosition(0);
+
+        EdtMonitor.Stall selected = stalls.getSelectedValue();
+        List<EdtMonitor.Stall> recent = monitor.getStalls();
+        stallsModel.clear();
+        for (EdtMonitor.Stall stall : recent) {
+            stallsModel.addElement(stall);
+        }
+        if (selected != null && recent.contains(selected)) {
+            stalls.setSelectedValue(selected, false);
+        }
+    }
+
+    private static void describe(StringBuilder sb, String title, EdtMonitor.Histogram histogram) {
+        long total = histogram.getTotal();
+        sb.append(title).append(": ").append(total).append(" events, p50 <")
+                .append(bound(histogram.percentile(0.5))).append(" p99 <")
+                .append(bound(histogram.percentile(0.99))).append(" p99.9 <")
+                .append(bound(histogram.percentile(0.999))).append('\n');
+        long lower = 0;
+        for (int ii = 0; ii < EdtMonitor.Histogram.BUCKETS; ii++) {
+            long count = histogram.getCount(ii);
+            long upper = EdtMonitor.Histogram.upperBound(ii);
+            if (count > 0) {
+                int bar = (int) Math.ceil(40.0 * count / Math.max(1, total));
+                sb.append(String.format("%6d - %-7s %9d %s%n", lower, bound(upper), count,
+                        new String(new char[bar]).replace('\0', '#')));
+            }
+            lower = upper;
+        }
+    }
+
+    private static String bound(long millis) {
+        return millis == Long.MAX_VALUE ? "inf" : millis + "ms";
+    }
+
+    private void showSamples(EdtMonitor.Stall stall) {
+        if (stall == null) {
+            samples.setText("");
+            return;
+        }
+        StringBuilder sb = new StringBuilder(stall.toString()).append('\n');
+        int count = stall.getSamples().size();
+        for (Map.Entry<String, Integer> sample : EdtMonitor.groupSamples(stall).entrySet()) {
+            sb.append("  ").append(sample.getValue()).append(" of ").append(count).append(" samples:\n");
+            sb.append(sample.getKey());
+        }
+        samples.setText(sb.toString());
+        samples.setCaretPosition(0);
+    }
+}
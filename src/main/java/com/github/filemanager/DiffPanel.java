@@ -0,0 +1,202 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.*;
+import java.io.File;
+import javax.swing.*;
+
+/**
+ * The changes of the selected file or directory between HEAD, the index &amp; the working tree,
+ * or of a commit, paged through by a {@link PreviewPanel}.
+ */
+class DiffPanel extends JPanel {
+
+    /**
+     * A pair of sides to compare, old first.
+     */
+    private static class Comparison {
+        final GitDiff.Side oldSide;
+        final GitDiff.Side newSide;
+
+        Comparison(GitDiff.Side oldSide, GitDiff.Side newSide) {
+            this.oldSide = oldSide;
+            this.newSide = newSide;
+        }
+
+        @Override
+        public String toString() {
+            return newSide.getLabel() + " vs " + oldSide.getLabel();
+        }
+    }
+
+    private final JobScheduler scheduler;
+    private final GitDiff diffs;
+    private final PreviewPanel preview;
+    private final JComboBox<Comparison> comparisons = new JComboBox<>(new Comparison[] {
+            new Comparison(GitDiff.Side.INDEX, GitDiff.Side.WORKING_TREE),
+            new Comparison(GitDiff.Side.HEAD, GitDiff.Side.INDEX),
+            new Comparison(GitDiff.Side.HEAD, GitDiff.Side.WORKING_TREE),
+    });
+    private final JLabel status = new JLabel(" ");
+
+    private File file;
+    private JobScheduler.Job diffJob;
+
+    DiffPanel(JobScheduler scheduler, GitDiff diffs) {
+        super(new BorderLayout(3, 3));
+        this.scheduler = scheduler;
+        this.diffs = diffs;
+        preview = new PreviewPanel(scheduler);
+        preview.setDiff(true);
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEADING, 3, 0));
+        comparisons.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        refresh();
+                    }
+                });
+        controls.add(comparisons);
+        JButton refresh = new JButton("Refresh");
+        refresh.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        refresh();
+                    }
+                });
+        controls.add(refresh);
+        controls.add(status);
+        add(controls, BorderLayout.NORTH);
+        add(preview, BorderLayout.CENTER);
+    }
+
+    /**
+     * Show the changes of file with the chosen comparison.
+     */
+    void setFile(File newFile) {
+        file = newFile;
+        comparisons.setVisible(true);
+        refresh();
+    }
+
+    /**
+     * Show the changes from oldCommit (the first parent when null) to newCommit in the repository
+     * containing location.
+     */
+    void showCommits(final File location, final String oldCommit, final String newCommit) {
+        file = null;
+        comparisons.setVisible(false);
+        String name = (oldCommit == null ? "" : abbreviate(oldCommit) + "..") + abbreviate(newCommit);
+        submit(
+                new DiffJob("Diff " + name, location, "No changes") {
+                    @Override
+                    protected File compute() throws Exception {
+                        return diffs.diffCommits(location, oldCommit, newCommit, this);
+                    }
+                });
+    }
+
+    private void refresh() {
+        if (file == null) {
+            return;
+        }
+        final File diffed = file;
+        final Comparison comparison = (Comparison) comparisons.getSelectedItem();
+        String none = "No changes between " + comparison.oldSide.getLabel() + " and " + comparison.newSide.getLabel();
+        submit(
+                new DiffJob("Diff " + diffed.getName(), diffed, none) {
+                    @Override
+                    protected File compute() throws Exception {
+                        return diffs.diff(diffed, comparison.oldSide, comparison.newSide, this);
+                    }
+                });
+    }
+
+    private void submit(JobScheduler.Job job) {
+        if (diffJob != null) {
+            diffJob.cancel();
+        }
+        diffJob = job;
+        preview.setFile(null);
+        status.setText("Comparing...");
+        scheduler.submit(job);
+    }
+
+    /**
+     * Computes a patch, then shows it unless another diff was asked for in the meantime.
+     */
+    private abstract class DiffJob extends JobScheduler.Job {
+        private final String none;
+        private volatile File patch;
+
+        DiffJob(String name, File location, String none) {
+            super(name, JobScheduler.Priority.INTERACTIVE, location);
+            this.none = none;
+        }
+
+        protected abstract File compute() throws Exception;
+
+        @Override
+        protected void execute() throws Exception {
+            patch = compute();
+        }
+
+        @Override
+        protected void finished() {
+            SwingUtilities.invokeLater(
+                    new Runnable() {
+                        public void run() {
+                            if (diffJob != DiffJob.this) {
+                                return;
+                            }
+                            diffJob = null;
+                            if (getState() == JobScheduler.State.FAILED) {
+                                status.setText(getError().getMessage());
+                            } else if (getState() == JobScheduler.State.DONE) {
+                                status.setText(patch == null ? none : " ");
+                                preview.setFile(patch);
+                            } else {
+                                status.setText(" ");
+                            }
+                        }
+                    });
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        if (diffJob != null) {
+            diffJob.cancel();
+            diffJob = null;
+        }
+    }
+
+    private static String abbreviate(String commit) {
+        return commit.length() > 10 ? commit.substring(0, 10) : commit;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+
+/**
+ * Lists directories &amp; archives for the tree and the table, without Swing.
+ */
+final class DirectoryListing {
+
+    private static final FileFilter VISIBLE =
+            new FileFilter() {
+                public boolean accept(File file) {
+                    return !file.isHidden();
+                }
+            };
+
+    private DirectoryListing() {
+    }
+
+    /**
+     * The visible files in directory, or null if it cannot be listed.
+     */
+    static File[] list(File directory) throws IOException {
+        OperationEvents.Span span = OperationEvents.listing(directory);
+        try {
+            File[] files = null;
+            if (ArchiveEntry.isBrowsable(directory)) {
+                // the central directory only, nothing is extracted
+                files = ArchiveEntry.list(directory);
+            } else if (directory.isDirectory()) {
+                files = directory.listFiles(VISIBLE);
+            }
+            span.setEntries(files == null ? 0 : files.length).setFailed(files == null);
+            return files;
+        } catch (IOException | RuntimeException e) {
+            span.setFailed(true);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
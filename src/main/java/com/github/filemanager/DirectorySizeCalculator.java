@@ -0,0 +1,182 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Recursive directory sizes, computed with one fork/join task per directory.
+ *
+ * <p>Each directory's own files are cached together with the directory's modification time. A
+ * directory whose mtime is unchanged is not listed again; only its subdirectories are visited,
+ * so a re-visit only reads the subtrees where entries were added, removed or renamed. Files that
+ * grow in place do not touch the directory mtime, so {@link #compute} can be told to ignore the
+ * cache when exact numbers are needed.
+ */
+class DirectorySizeCalculator {
+
+    /**
+     * Notified on a worker thread as sizes become known.
+     */
+    interface Listener {
+        void sizeComputed(File directory, long size);
+    }
+
+    private final ForkJoinPool pool =
+            new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Listing of one directory: total size of the files directly inside it and its subdirectories.
+     */
+    private static final class Listing {
+        final long modified;
+        final long bytes;
+        final Path[] directories;
+
+        Listing(long modified, long bytes, Path[] directories) {
+            this.modified = modified;
+            this.bytes = bytes;
+            this.directories = directories;
+        }
+    }
+
+    private final Map<Path, Listing> listings = new ConcurrentHashMap<>();
+    private final Map<Path, Long> totals = new ConcurrentHashMap<>();
+
+    /**
+     * The last computed recursive size of directory, or null if it was never computed.
+     */
+    Long getSize(File directory) {
+        return totals.get(directory.getAbsoluteFile().toPath());
+    }
+
+    /**
+     * Compute the recursive size of directory. The listener hears about directory and each of its
+     * immediate subdirectories as soon as their totals are known.
+     */
+    long compute(File directory, boolean useCache, JobScheduler.Job job, Listener listener) {
+        Path root = directory.getAbsoluteFile().toPath();
+        return pool.invoke(new SizeTask(root, 0, useCache, job, listener));
+    }
+
+    /**
+     * Forget everything below (and including) directory, e.g. after it was deleted.
+     */
+    void invalidate(File directory) {
+        Path root = directory.getAbsoluteFile().toPath();
+        for (Iterator<Path> it = listings.keySet().iterator(); it.hasNext(); ) {
+            if (it.next().startsWith(root)) {
+                it.remove();
+            }
+        }
+        for (Iterator<Path> it = totals.keySet().iterator(); it.hasNext(); ) {
+            if (it.next().startsWith(root)) {
+                it.remove();
+            }
+        }
+    }
+
+    private Listing list(Path directory, long modified) throws IOException {
+        final long[] bytes = new long[1];
+        final List<Path> directories = new ArrayList<>();
+        Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), 1,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        // at max depth 1 the subdirectories are reported as files
+                        if (attrs.isDirectory()) {
+                            directories.add(file);
+                        } else {
+                            bytes[0] += attrs.size();
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+        return new Listing(modified, bytes[0], directories.toArray(new Path[0]));
+    }
+
+    private class SizeTask extends RecursiveTask<Long> {
+        private final Path directory;
+        private final int depth;
+        private final boolean useCache;
+        private final JobScheduler.Job job;
+        private final Listener listener;
+
+        SizeTask(Path directory, int depth, boolean useCache, JobScheduler.Job job, Listener listener) {
+            this.directory = directory;
+            this.depth = depth;
+            this.useCache = useCache;
+            this.job = job;
+            this.listener = listener;
+        }
+
+        @Override
+        protected Long compute() {
+            if (job != null && job.isCancelled()) {
+                throw new CancellationException();
+            }
+            Listing listing;
+            try {
+                long modified = Files.getLastModifiedTime(directory, LinkOption.NOFOLLOW_LINKS).toMillis();
+                listing = listings.get(directory);
+                if (!useCache || listing == null || listing.modified != modified) {
+                    listing = list(directory, modified);
+                    listings.put(directory, listing);
+                }
+            } catch (IOException e) {
+                // unreadable directories count as empty
+                listings.remove(directory);
+                return 0L;
+            }
+
+            List<SizeTask> subtasks = new ArrayList<>(listing.directories.length);
+            for (Path child : listing.directories) {
+                subtasks.add(new SizeTask(child, depth + 1, useCache, job, listener));
+            }
+            long total = listing.bytes;
+            for (SizeTask subtask : invokeAll(subtasks)) {
+                total += subtask.join();
+            }
+
+            totals.put(directory, total);
+            if (listener != null && depth <= 1) {
+                listener.sizeComputed(directory.toFile(), total);
+            }
+            return total;
+        }
+    }
+}
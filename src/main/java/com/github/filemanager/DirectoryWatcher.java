@@ -0,0 +1,197 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * Watches a directory tree with a {@link WatchService}, registering every subdirectory (and
+ * directories created later) so events from anywhere below the root are reported.
+ *
+ * <p>Events are delivered on the watcher's own daemon thread. When the platform drops events
+ * (OVERFLOW), or a directory could not be registered, listeners are told to rescan.
+ */
+class DirectoryWatcher {
+
+    interface Listener {
+        void created(Path path);
+
+        void deleted(Path path);
+
+        void modified(Path path);
+
+        /**
+         * Events under directory were lost; anything cached for it should be re-read.
+         */
+        void overflow(Path directory);
+    }
+
+    private final Path root;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile boolean complete = true;
+
+    DirectoryWatcher(Path root, Listener listener) throws IOException {
+        this.root = root;
+        this.listener = listener;
+        this.watchService = root.getFileSystem().newWatchService();
+        thread = new Thread(
+                new Runnable() {
+                    public void run() {
+                        processEvents();
+                    }
+                },
+                "watch " + root);
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Register the whole tree and start delivering events.
+     */
+    void start() throws IOException {
+        registerAll(root);
+        thread.start();
+    }
+
+    Path getRoot() {
+        return root;
+    }
+
+    /**
+     * False if some directory could not be watched (e.g. the OS watch limit was reached), so
+     * changes below it will go unnoticed.
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Whether to watch directory &amp; the tree below it; every directory unless overridden.
+     */
+    protected boolean isWatched(Path directory) {
+        return true;
+    }
+
+    void close() {
+        closed = true;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // nothing more to watch anyway
+        }
+    }
+
+    private void registerAll(Path start) throws IOException {
+        Files.walkFileTree(start,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        if (!isWatched(dir)) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        register(dir);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+    }
+
+    private void register(Path dir) {
+        try {
+            WatchKey key = dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            synchronized (keys) {
+                keys.put(key, dir);
+            }
+        } catch (IOException | RuntimeException e) {
+            complete = false;
+        }
+    }
+
+    private void processEvents() {
+        while (!closed) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir;
+            synchronized (keys) {
+                dir = keys.get(key);
+            }
+            if (dir == null) {
+                key.cancel();
+                continue;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                try {
+                    dispatch(dir, event);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            if (!key.reset()) {
+                synchronized (keys) {
+                    keys.remove(key);
+                }
+            }
+        }
+    }
+
+    private void dispatch(Path dir, WatchEvent<?> event) {
+        WatchEvent.Kind<?> kind = event.kind();
+        if (kind == StandardWatchEventKinds.OVERFLOW) {
+            listener.overflow(dir);
+            return;
+        }
+        Path child = dir.resolve((Path) event.context());
+        if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+            if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    registerAll(child);
+                } catch (IOException e) {
+                    complete = false;
+                }
+            }
+            listener.created(child);
+        } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+            listener.deleted(child);
+        } else {
+            listener.modified(child);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sizes of a directory tree for the treemap, gathered with one fork/join task per directory.
+ *
+ * <p>The tree can be read while it is being built: a directory's children are published as soon
+ * as it has been listed, and the bytes of its files are added to it and all its ancestors at
+ * the same time, so sizes only grow until the scan is complete. To bound memory on volumes with
+ * millions of files only the {@link #MAX_FILES} largest files of each directory get a node; the
+ * rest are summed into one node.
+ */
+class DiskUsage {
+
+    static final int MAX_FILES = 32;
+
+    private static final ForkJoinPool POOL =
+            new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+    static class Node {
+        private final Node parent;
+        private final String name;
+        private final File file;
+        private final boolean directory;
+        private final AtomicLong size = new AtomicLong();
+        private volatile Node[] children = new Node[0];
+
+        Node(Node parent, String name, File file, boolean directory) {
+            this.parent = parent;
+            this.name = name;
+            this.file = file;
+            this.directory = directory;
+        }
+
+        Node getParent() {
+            return parent;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * The file or directory, or null for the files of a directory summed together.
+         */
+        File getFile() {
+            return file;
+        }
+
+        boolean isDirectory() {
+            return directory;
+        }
+
+        long getSize() {
+            return size.get();
+        }
+
+        Node[] getChildren() {
+            return children;
+        }
+
+        private void add(long bytes) {
+            for (Node node = this; node != null; node = node.parent) {
+                node.size.addAndGet(bytes);
+            }
+        }
+    }
+
+    /**
+     * Largest first.
+     */
+    static final Comparator<Node> BY_SIZE =
+            new Comparator<Node>() {
+                public int compare(Node n1, Node n2) {
+                    return Long.compare(n2.getSize(), n1.getSize());
+                }
+            };
+
+    private final Node root;
+    private final AtomicInteger version = new AtomicInteger();
+    private final AtomicInteger directories = new AtomicInteger();
+    private volatile boolean complete;
+
+    DiskUsage(File directory) {
+        File absolute = directory.getAbsoluteFile();
+        root = new Node(null, absolute.getPath(), absolute, true);
+    }
+
+    Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Increases whenever the tree or its sizes change, so a view can tell when to lay out again.
+     */
+    int getVersion() {
+        return version.get();
+    }
+
+    int getDirectoryCount() {
+        return directories.get();
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Walk the whole tree on the calling thread &amp; the shared pool.
+     */
+    void scan(JobScheduler.Job job) {
+        POOL.invoke(new ScanTask(root, job));
+        complete = true;
+        version.incrementAndGet();
+    }
+
+    private class ScanTask extends RecursiveAction {
+        private final Node node;
+        private final JobScheduler.Job job;
+
+        ScanTask(Node node, JobScheduler.Job job) {
+            this.node = node;
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            if (job != null && job.isCancelled()) {
+                throw new CancellationException();
+            }
+            List<Node> subdirectories = new ArrayList<>();
+            List<Node> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(node.file.toPath())) {
+                for (Path child : stream) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (attributes.isDirectory()) {
+                        subdirectories.add(new Node(node, child.getFileName().toString(), child.toFile(), true));
+                    } else if (attributes.isRegularFile()) {
+                        Node file = new Node(node, child.getFileName().toString(), child.toFile(), false);
+                        file.size.set(attributes.size());
+                        files.add(file);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // unreadable directories count as empty
+            }
+
+            Collections.sort(files, BY_SIZE);
+            List<Node> children = new ArrayList<>(subdirectories);
+            long bytes = 0;
+            long others = 0;
+            for (int ii = 0; ii < files.size(); ii++) {
+                long size = files.get(ii).getSize();
+                bytes += size;
+                if (ii < MAX_FILES) {
+                    children.add(files.get(ii));
+                } else {
+                    others += size;
+                }
+            }
+            if (others > 0) {
+                Node rest = new Node(node, (files.size() - MAX_FILES) + " smaller files", null, false);
+                rest.size.set(others);
+                children.add(rest);
+            }
+            node.children = children.toArray(new Node[0]);
+            node.add(bytes);
+            directories.incrementAndGet();
+            version.incrementAndGet();
+
+            List<ScanTask> subtasks = new ArrayList<>(subdirectories.size());
+            for (Node subdirectory : subdirectories) {
+                subtasks.add(new ScanTask(subdirectory, job));
+            }
+            invokeAll(subtasks);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds files with identical contents below a directory.
+ *
+ * <p>Work is done in stages, each only looking at what the previous one could not tell apart:
+ * files are grouped by size, then by a hash of their first &amp; last {@link #EDGE} bytes, and
+ * only the files still sharing both are hashed in full. Files no bigger than two edges are
+ * completely covered by the partial hash and skip the last stage. Hashing is spread over a
+ * fork/join pool and reads through memory mapped windows.
+ */
+class DuplicateFinder {
+
+    static final int EDGE = 64 * 1024;
+    /**
+     * Largest region mapped at once while hashing a whole file.
+     */
+    private static final long WINDOW = 64L * 1024 * 1024;
+
+    private static final ForkJoinPool POOL =
+            new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Files with the same size &amp; contents.
+     */
+    static final class Group {
+        private final long size;
+        private final List<File> files;
+
+        Group(long size, List<File> files) {
+            this.size = size;
+            this.files = files;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        List<File> getFiles() {
+            return files;
+        }
+
+        /**
+         * Bytes freed by keeping one copy.
+         */
+        long getReclaimable() {
+            return size * (files.size() - 1);
+        }
+    }
+
+    private final File root;
+    private int scanned;
+    private int partiallyHashed;
+    private int fullyHashed;
+
+    DuplicateFinder(File root) {
+        this.root = root.getAbsoluteFile();
+    }
+
+    /**
+     * Search the tree below root, most reclaimable groups first.
+     */
+    List<Group> run(JobScheduler.Job job) throws IOException, InterruptedException {
+        Map<Long, List<File>> bySize = collect(job);
+        List<List<File>> candidates = new ArrayList<>();
+        for (List<File> files : bySize.values()) {
+            if (files.size() > 1) {
+                candidates.add(files);
+            }
+        }
+
+        candidates = split(candidates, false, job);
+        List<List<File>> partial = new ArrayList<>();
+        List<List<File>> complete = new ArrayList<>();
+        for (List<File> files : candidates) {
+            // the edges already covered the whole file
+            (files.get(0).length() <= 2L * EDGE ? complete : partial).add(files);
+        }
+        complete.addAll(split(partial, true, job));
+
+        List<Group> groups = new ArrayList<>();
+        for (List<File> files : complete) {
+            groups.add(new Group(files.get(0).length(), files));
+        }
+        Collections.sort(groups,
+                new Comparator<Group>() {
+                    public int compare(Group g1, Group g2) {
+                        return Long.compare(g2.getReclaimable(), g1.getReclaimable());
+                    }
+                });
+        return groups;
+    }
+
+    /**
+     * e.g. "3456 files, 120 hashed partially, 14 in full".
+     */
+    String summary() {
+        return scanned + " files, " + partiallyHashed + " hashed partially, " + fullyHashed + " in full";
+    }
+
+    private Map<Long, List<File>> collect(final JobScheduler.Job job) throws IOException {
+        final Map<Long, List<File>> bySize = new HashMap<>();
+        Files.walkFileTree(root.toPath(),
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        if (job != null && job.isCancelled()) {
+                            throw new CancellationException();
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        // links would show up as copies of their targets
+                        if (attrs.isRegularFile() && attrs.size() > 0) {
+                            List<File> files = bySize.get(attrs.size());
+                            if (files == null) {
+                                files = new ArrayList<>(2);
+                                bySize.put(attrs.size(), files);
+                            }
+                            files.add(file.toFile());
+                            scanned++;
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+        return bySize;
+    }
+
+    /**
+     * Hash every file of every group in parallel and split the groups by hash, dropping files
+     * left without a twin.
+     */
+    private List<List<File>> split(List<List<File>> groups, final boolean full, final JobScheduler.Job job)
+            throws InterruptedException {
+        List<File> files = new ArrayList<>();
+        for (List<File> group : groups) {
+            files.addAll(group);
+        }
+        final int total = files.size();
+        final AtomicInteger done = new AtomicInteger();
+        List<Callable<String>> tasks = new ArrayList<>(total);
+        for (final File file : files) {
+            tasks.add(
+                    new Callable<String>() {
+                        public String call() throws IOException {
+                            if (job != null) {
+                                if (job.isCancelled()) {
+                                    throw new CancellationException();
+                                }
+                                job.setProgress(done.incrementAndGet(), total);
+                            }
+                            return full ? hashFull(file, job) : hashEdges(file);
+                        }
+                    });
+        }
+        List<Future<String>> hashes = POOL.invokeAll(tasks);
+
+        List<List<File>> result = new ArrayList<>();
+        int index = 0;
+        for (List<File> group : groups) {
+            Map<String, List<File>> byHash = new LinkedHashMap<>();
+            for (File file : group) {
+                String hash;
+                try {
+                    hash = hashes.get(index++).get();
+                } catch (ExecutionException e) {
+                    if (job != null && job.isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    // unreadable, so it cannot be compared
+                    continue;
+                }
+                List<File> same = byHash.get(hash);
+                if (same == null) {
+                    same = new ArrayList<>(2);
+                    byHash.put(hash, same);
+                }
+                same.add(file);
+            }
+            for (List<File> same : byHash.values()) {
+                if (same.size() > 1) {
+                    result.add(same);
+                }
+            }
+        }
+        if (full) {
+            fullyHashed += total;
+        } else {
+            partiallyHashed += total;
+        }
+        return result;
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hashEdges(File file) throws IOException {
+        MessageDigest digest = digest();
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            long size = channel.size();
+            if (size <= 2L * EDGE) {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            } else {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, EDGE));
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, size - EDGE, EDGE));
+            }
+        }
+        return Hashes.toHex(digest.digest());
+    }
+
+    private static String hashFull(File file, JobScheduler.Job job) throws IOException {
+        MessageDigest digest = digest();
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += WINDOW) {
+                if (job != null && job.isCancelled()) {
+                    throw new CancellationException();
+                }
+                MappedByteBuffer window =
+                        channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+                digest.update(window);
+            }
+        }
+        return Hashes.toHex(digest.digest());
+    }
+}
@@ -0,0 +1,241 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.*;
+import java.io.File;
+import java.util.*;
+import java.util.List;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Lists the groups found by a {@link DuplicateFinder}, one row per file, and hands the files
+ * chosen for removal to the regular delete.
+ */
+abstract class DuplicatesPanel extends JPanel {
+
+    private final DuplicateTableModel duplicateTableModel = new DuplicateTableModel();
+    private final JTable table = new JTable(duplicateTableModel);
+    private final JLabel status = new JLabel(" ");
+
+    DuplicatesPanel() {
+        super(new BorderLayout(3, 3));
+
+        table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        table.getColumnModel().getColumn(0).setPreferredWidth(50);
+        table.getColumnModel().getColumn(1).setPreferredWidth(90);
+        table.getColumnModel().getColumn(2).setPreferredWidth(90);
+        table.getColumnModel().getColumn(3).setPreferredWidth(500);
+        JScrollPane tableScroll = new JScrollPane(table);
+        tableScroll.setPreferredSize(new Dimension(760, 360));
+        add(tableScroll, BorderLayout.CENTER);
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEADING, 3, 0));
+        JButton selectCopies = new JButton("Select all but first");
+        selectCopies.setToolTipText("Select every file except the first of each group");
+        selectCopies.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        selectCopies();
+                    }
+                });
+        buttons.add(selectCopies);
+        JButton delete = new JButton("Delete selected");
+        delete.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        List<File> selected = new ArrayList<>();
+                        for (int row : table.getSelectedRows()) {
+                            selected.add(duplicateTableModel.getFile(row));
+                        }
+                        if (selected.isEmpty()) {
+                            return;
+                        }
+                        int lost = duplicateTableModel.countWhollyContained(new HashSet<>(selected));
+                        if (lost > 0) {
+                            int result = JOptionPane.showConfirmDialog(
+                                    DuplicatesPanel.this,
+                                    "The selection includes every copy of " + lost + " group(s). Delete anyway?",
+                                    "Delete All Copies",
+                                    JOptionPane.OK_CANCEL_OPTION,
+                                    JOptionPane.WARNING_MESSAGE);
+                            if (result != JOptionPane.OK_OPTION) {
+                                return;
+                            }
+                        }
+                        deleteFiles(selected);
+                    }
+                });
+        buttons.add(delete);
+        buttons.add(status);
+        add(buttons, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Delete the files the user chose, e.g. through the batch delete.
+     */
+    protected abstract void deleteFiles(List<File> files);
+
+    void setGroups(List<DuplicateFinder.Group> groups, String summary) {
+        duplicateTableModel.setGroups(groups);
+        showStatus(summary);
+    }
+
+    /**
+     * Drop files that are gone from their groups, and groups left with a single file.
+     */
+    void removeFiles(Collection<File> removed) {
+        duplicateTableModel.removeFiles(new HashSet<>(removed));
+        showStatus(null);
+    }
+
+    private void showStatus(String summary) {
+        String text = duplicateTableModel.getGroupCount() + " groups, "
+                + FileUtils.byteCountToDisplaySize(duplicateTableModel.getReclaimable()) + " reclaimable";
+        status.setText(summary == null ? text : text + " (" + summary + ")");
+    }
+
+    private void selectCopies() {
+        table.clearSelection();
+        for (int row = 0; row < duplicateTableModel.getRowCount(); row++) {
+            if (!duplicateTableModel.isFirstOfGroup(row)) {
+                table.addRowSelectionInterval(row, row);
+            }
+        }
+    }
+
+    private static class DuplicateTableModel extends AbstractTableModel {
+
+        private List<DuplicateFinder.Group> groups = new ArrayList<>();
+        /**
+         * Row to group index, and row to position within the group.
+         */
+        private int[] rowGroup = new int[0];
+        private int[] rowIndex = new int[0];
+        private String[] columns = {
+                "Group", "Size", "Reclaimable", "File",
+        };
+
+        void setGroups(List<DuplicateFinder.Group> groups) {
+            this.groups = new ArrayList<>(groups);
+            index();
+        }
+
+        void removeFiles(Set<File> removed) {
+            List<DuplicateFinder.Group> kept = new ArrayList<>();
+            for (DuplicateFinder.Group group : groups) {
+                List<File> files = new ArrayList<>(group.getFiles());
+                files.removeAll(removed);
+                if (files.size() > 1) {
+                    kept.add(new DuplicateFinder.Group(group.getSize(), files));
+                }
+            }
+            setGroups(kept);
+        }
+
+        private void index() {
+            int rows = 0;
+            for (DuplicateFinder.Group group : groups) {
+                rows += group.getFiles().size();
+            }
+            rowGroup = new int[rows];
+            rowIndex = new int[rows];
+            int row = 0;
+            for (int gg = 0; gg < groups.size(); gg++) {
+                for (int ii = 0; ii < groups.get(gg).getFiles().size(); ii++) {
+                    rowGroup[row] = gg;
+                    rowIndex[row++] = ii;
+                }
+            }
+            fireTableDataChanged();
+        }
+
+        int getGroupCount() {
+            return groups.size();
+        }
+
+        long getReclaimable() {
+            long total = 0;
+            for (DuplicateFinder.Group group : groups) {
+                total += group.getReclaimable();
+            }
+            return total;
+        }
+
+        /**
+         * Number of groups that would lose all their files.
+         */
+        int countWhollyContained(Set<File> files) {
+            int count = 0;
+            for (DuplicateFinder.Group group : groups) {
+                if (files.containsAll(group.getFiles())) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        boolean isFirstOfGroup(int row) {
+            return rowIndex[row] == 0;
+        }
+
+        File getFile(int row) {
+            return groups.get(rowGroup[row]).getFiles().get(rowIndex[row]);
+        }
+
+        public int getRowCount() {
+            return rowGroup.length;
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        public Object getValueAt(int row, int column) {
+            DuplicateFinder.Group group = groups.get(rowGroup[row]);
+            switch (column) {
+                case 0:
+                    return rowGroup[row] + 1;
+                case 1:
+                    return rowIndex[row] == 0 ? FileUtils.byteCountToDisplaySize(group.getSize()) : "";
+                case 2:
+                    return rowIndex[row] == 0 ? FileUtils.byteCountToDisplaySize(group.getReclaimable()) : "";
+                case 3:
+                    return group.getFiles().get(rowIndex[row]).getPath();
+                default:
+                    return "";
+            }
+        }
+    }
+}
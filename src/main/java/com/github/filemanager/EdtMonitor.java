@@ -0,0 +1,401 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.InputEvent;
+import java.awt.event.InvocationEvent;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Watches the Event Dispatch Thread for freezes.
+ *
+ * <p>A replacement event queue times every event: how long it waited in the queue (for events
+ * that carry a timestamp) and how long dispatching it took, both kept in power-of-two
+ * histograms. A watchdog thread looks at the event being dispatched every
+ * {@link #SAMPLE_MILLIS}; once it has run longer than the stall threshold, the EDT's stack is
+ * sampled until the event completes, and the stall is kept for the diagnostics panel and
+ * appended to a log file by a background thread, never the EDT.
+ *
+ * <p>Modal dialogs dispatch events from inside the event that opened them. An event that is
+ * only waiting in such a nested loop is not a stall, and is left out of the histogram.
+ */
+class EdtMonitor {
+
+    static final long SAMPLE_MILLIS = 50;
+    static final int MAX_SAMPLES = 20;
+    static final int MAX_STALLS = 100;
+
+    private static EdtMonitor instance;
+
+    /**
+     * Counts per power-of-two bucket of milliseconds: [0, 1), [1, 2), [2, 4) ... [8192, &infin;).
+     */
+    static class Histogram {
+        static final int BUCKETS = 15;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        void record(long millis) {
+            int bucket = millis <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+            counts.incrementAndGet(bucket);
+        }
+
+        long getCount(int bucket) {
+            return counts.get(bucket);
+        }
+
+        long getTotal() {
+            long total = 0;
+            for (int ii = 0; ii < BUCKETS; ii++) {
+                total += counts.get(ii);
+            }
+            return total;
+        }
+
+        /**
+         * Upper bound in milliseconds of the bucket holding the given fraction of all counts.
+         */
+        long percentile(double fraction) {
+            long total = getTotal();
+            long seen = 0;
+            for (int ii = 0; ii < BUCKETS; ii++) {
+                seen += counts.get(ii);
+                if (total > 0 && seen >= fraction * total) {
+                    return upperBound(ii);
+                }
+            }
+            return 0;
+        }
+
+        static long upperBound(int bucket) {
+            return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+        }
+
+        void clear() {
+            for (int ii = 0; ii < BUCKETS; ii++) {
+                counts.set(ii, 0);
+            }
+        }
+    }
+
+    /**
+     * One event that kept the EDT busy for longer than the threshold.
+     */
+    static class Stall {
+        private final long started;
+        private final String event;
+        private final List<StackTraceElement[]> samples = new ArrayList<>();
+        private volatile long millis = -1;
+
+        Stall(long started, String event) {
+            this.started = started;
+            this.event = event;
+        }
+
+        long getStarted() {
+            return started;
+        }
+
+        String getEvent() {
+            return event;
+        }
+
+        /**
+         * How long the event took, or -1 while it is still running.
+         */
+        long getMillis() {
+            return millis;
+        }
+
+        synchronized List<StackTraceElement[]> getSamples() {
+            return new ArrayList<>(samples);
+        }
+
+        private synchronized void addSample(StackTraceElement[] stack) {
+            if (samples.size() < MAX_SAMPLES) {
+                samples.add(stack);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return new SimpleDateFormat("HH:mm:ss").format(new Date(started)) + "  "
+                    + (millis < 0 ? "running" : millis + " ms") + "  " + event;
+        }
+    }
+
+    private final long thresholdMillis;
+    private final File log;
+    private final Histogram waited = new Histogram();
+    private final Histogram dispatched = new Histogram();
+    private final LinkedList<Stall> stalls = new LinkedList<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+            new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "edt-stall-log");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    // written on the EDT, read by the watchdog
+    private volatile Thread edt;
+    private volatile long busySince;
+    /**
+     * Changes whenever busySince does, so the watchdog can tell the dispatch it sampled ended.
+     */
+    private volatile long sequence;
+    private volatile AWTEvent dispatching;
+    /**
+     * The stall of the dispatch running now; whoever takes it out finishes it.
+     */
+    private final AtomicReference<Stall> stall = new AtomicReference<>();
+    // only touched on the EDT
+    private int depth;
+    private boolean nested;
+
+    private EdtMonitor(long thresholdMillis, File log) {
+        this.thresholdMillis = thresholdMillis;
+        this.log = log;
+    }
+
+    /**
+     * Start monitoring, once; later calls return the same monitor. The stall threshold is the
+     * {@code filemanager.edt.stall} system property in milliseconds, 250 by default.
+     */
+    static synchronized EdtMonitor install(File log) {
+        if (instance == null) {
+            instance = new EdtMonitor(Long.getLong("filemanager.edt.stall", 250), log);
+            Toolkit.getDefaultToolkit().getSystemEventQueue().push(instance.new MonitoredQueue());
+            Thread watchdog = new Thread(
+                    new Runnable() {
+                        public void run() {
+                            instance.watch();
+                        }
+                    }, "edt-watchdog");
+            watchdog.setDaemon(true);
+            watchdog.start();
+        }
+        return instance;
+    }
+
+    long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    File getLog() {
+        return log;
+    }
+
+    /**
+     * Time events spent queued before being dispatched.
+     */
+    Histogram getWaited() {
+        return waited;
+    }
+
+    /**
+     * Time spent dispatching events.
+     */
+    Histogram getDispatched() {
+        return dispatched;
+    }
+
+    /**
+     * Recent stalls, newest first.
+     */
+    List<Stall> getStalls() {
+        synchronized (stalls) {
+            return new ArrayList<>(stalls);
+        }
+    }
+
+    void clear() {
+        waited.clear();
+        dispatched.clear();
+        synchronized (stalls) {
+            stalls.clear();
+        }
+    }
+
+    private class MonitoredQueue extends EventQueue {
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            long start = System.currentTimeMillis();
+            long when = event instanceof InvocationEvent ? ((InvocationEvent) event).getWhen()
+                    : event instanceof InputEvent ? ((InputEvent) event).getWhen() : 0;
+            if (when > 0) {
+                waited.record(start - when);
+            }
+            edt = Thread.currentThread();
+            if (depth++ > 0) {
+                nested = true;
+            }
+            AWTEvent outer = dispatching;
+            dispatching = event;
+            busySince = start;
+            sequence++;
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                long end = System.currentTimeMillis();
+                // before looking for a stall, so the watchdog cannot publish one unseen
+                sequence++;
+                Stall finished = stall.get();
+                if (finished != null && finished.started == start && stall.compareAndSet(finished, null)) {
+                    finished.millis = end - start;
+                    write(finished);
+                }
+                if (--depth == 0) {
+                    if (!nested) {
+                        dispatched.record(end - start);
+                    }
+                    nested = false;
+                    busySince = 0;
+                } else {
+                    // the outer event carries on from here
+                    busySince = end;
+                }
+                dispatching = outer;
+            }
+        }
+    }
+
+    private void watch() {
+        while (true) {
+            try {
+                Thread.sleep(SAMPLE_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long seen = sequence;
+            long since = busySince;
+            AWTEvent event = dispatching;
+            Thread thread = edt;
+            if (since == 0 || thread == null || System.currentTimeMillis() - since < thresholdMillis) {
+                continue;
+            }
+            StackTraceElement[] stack = thread.getStackTrace();
+            if (isWaitingForEvents(stack) || seen != sequence) {
+                continue;
+            }
+            Stall current = stall.get();
+            if (current == null || current.started != since) {
+                current = new Stall(since, String.valueOf(event));
+                stall.set(current);
+                if (seen != sequence && stall.compareAndSet(current, null)) {
+                    // the dispatch ended meanwhile without seeing the stall, which would stay
+                    // "running" for good
+                    continue;
+                }
+                synchronized (stalls) {
+                    stalls.addFirst(current);
+                    if (stalls.size() > MAX_STALLS) {
+                        stalls.removeLast();
+                    }
+                }
+            }
+            current.addSample(stack);
+        }
+    }
+
+    /**
+     * Whether the EDT is idle inside a nested event loop, e.g. of a modal dialog.
+     */
+    private static boolean isWaitingForEvents(StackTraceElement[] stack) {
+        for (int ii = 0; ii < Math.min(stack.length, 12); ii++) {
+            if (stack[ii].getClassName().equals("java.awt.EventQueue")
+                    && stack[ii].getMethodName().equals("getNextEvent")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void write(final Stall finished) {
+        if (log == null) {
+            return;
+        }
+        writer.execute(
+                new Runnable() {
+                    public void run() {
+                        append(finished);
+                    }
+                });
+    }
+
+    private void append(Stall finished) {
+        try (PrintWriter out = new PrintWriter(new FileWriter(log, true))) {
+            out.println(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(finished.started))
+                    + " EDT stalled " + finished.millis + " ms dispatching " + finished.event);
+            for (Map.Entry<String, Integer> sample : groupSamples(finished).entrySet()) {
+                out.println("  " + sample.getValue() + " of " + finished.getSamples().size() + " samples:");
+                out.print(sample.getKey());
+            }
+        } catch (IOException e) {
+            // diagnostics must not add problems of their own
+        }
+    }
+
+    /**
+     * Distinct stacks of a stall with how many samples had each, most frequent first.
+     */
+    static Map<String, Integer> groupSamples(Stall stall) {
+        final Map<String, Integer> counts = new HashMap<>();
+        for (StackTraceElement[] stack : stall.getSamples()) {
+            StringBuilder sb = new StringBuilder();
+            for (StackTraceElement element : stack) {
+                sb.append("    at ").append(element).append('\n');
+            }
+            String key = sb.toString();
+            Integer count = counts.get(key);
+            counts.put(key, count == null ? 1 : count + 1);
+        }
+        List<String> keys = new ArrayList<>(counts.keySet());
+        Collections.sort(keys,
+                new Comparator<String>() {
+                    public int compare(String s1, String s2) {
+                        return counts.get(s2) - counts.get(s1);
+                    }
+                });
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        for (String key : keys) {
+            sorted.put(key, counts.get(key));
+        }
+        return sorted;
+    }
+}
@@ -23,21 +23,26 @@ SOFTWARE.
  */
 package com.github.filemanager;
 
+import java.awt.AWTEvent;
 import java.awt.BorderLayout;
+import java.awt.CardLayout;
 import java.awt.Component;
 import java.awt.Container;
 import java.awt.Desktop;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
+import java.awt.Font;
 import java.awt.GridLayout;
 import java.awt.Image;
+import java.awt.Point;
+import java.awt.Toolkit;
 import java.awt.event.*;
 import java.awt.image.*;
 import java.io.*;
 import java.net.URL;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.border.*;
@@ -49,16 +54,12 @@ import javax.swing.tree.*;
 
 import org.apache.commons.io.FileUtils;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.Status;
-import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.TransportException;
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
-import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 
 /**
  * A basic File Manager. Requires 1.6+ for the Desktop &amp; SwingWorker classes, amongst other
@@ -75,16 +76,11 @@ import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
  *   <li>Needs more testing in general.
  *       <p>TODO Functionality
  *   <li>Implement Read/Write/Execute checkboxes
- *   <li>Implement Copy
  *   <li>Extra prompt for directory delete (camickr suggestion)
  *   <li>Add File/Directory fields to FileTableModel
  *   <li>Double clicking a directory in the table, should update the tree
  *   <li>Move progress bar?
- *   <li>Add other file display modes (besides table) in CardLayout?
  *   <li>Menus + other cruft?
- *   <li>Implement history/back
- *   <li>Allow multiple selection
- *   <li>Add file search
  * </ul>
  */
 public class FileManager {
@@ -93,6 +89,11 @@ public class FileManager {
      * Title of the application
      */
     public static final String APP_TITLE = "FileManager";
+    /**
+     * How long without input before idle maintenance may start.
+     */
+    static final long IDLE_MILLIS = 5 * 60 * 1000L;
+    static final long MAINTENANCE_INTERVAL_MILLIS = 24 * 60 * 60 * 1000L;
     /**
      * Used to open/edit/print files.
      */
@@ -124,13 +125,104 @@ public class FileManager {
      */
     private JTable table;
 
+    private JTabbedPane detailTabs;
+    /**
+     * The table or the thumbnails, in a CardLayout.
+     */
+    private JPanel filesView;
+    private ThumbnailPanel thumbnailPanel;
+    private JToggleButton thumbnailsButton;
+    /**
+     * Shows the selected file's text, only while its tab is showing.
+     */
+    private PreviewPanel previewPanel;
+    private File previewedFile;
+    private HexPanel hexPanel;
+    private File hexFile;
+    private DiffPanel diffPanel;
+    private File diffedFile;
+    private final GitDiff gitDiff = new GitDiff(getDataDirectory("diffs"));
+    private BlamePanel blamePanel;
+    private File blamedFile;
+    private final GitBlame gitBlame = new GitBlame();
+    private HistoryPanel historyPanel;
+    private File historyFile;
+    private final GitHistory gitHistory = new GitHistory(getDataDirectory("history"));
+    /**
+     * Commit search indexes by git directory.
+     */
+    private final Map<File, CommitIndex> commitIndexes = new HashMap<>();
+    private TreemapPanel treemapPanel;
+
     private JProgressBar progressBar;
+    private JLabel jobStatus;
+    private JDialog jobsDialog;
+    private JDialog diagnosticsDialog;
+
+    /**
+     * Runs all file &amp; git work off the EDT.
+     */
+    private final JobScheduler jobScheduler = new JobScheduler();
+    /**
+     * Git statuses for the table's status column &amp; the counts next to tree directories.
+     */
+    private final StatusMonitor statusMonitor = new StatusMonitor(jobScheduler, getDataDirectory("status"));
+
+    /**
+     * Recursive directory sizes for the Size column &amp; details.
+     */
+    private final DirectorySizeCalculator directorySizes = new DirectorySizeCalculator();
+    private JCheckBox autoSizes;
+
+    /**
+     * Run gc on repositories that need it once nothing has happened for a while.
+     */
+    private JCheckBox idleMaintenance;
+    private long lastInput = System.currentTimeMillis();
+    /**
+     * When each repository was last looked at by the idle maintenance, so it is not every minute.
+     */
+    private final Map<File, Long> maintained = new HashMap<>();
+
+    /**
+     * Checksums for the optional table column &amp; manifest verification.
+     */
+    private final Checksums checksums = new Checksums();
+    private Checksums.Algorithm checksumAlgorithm;
+
+    /**
+     * Indexed file name search, loaded when first shown.
+     */
+    private final FileSearch fileSearch = new FileSearch(jobScheduler, getDataDirectory("index"));
+    private JDialog searchDialog;
+    private JDialog contentSearchDialog;
+    private JDialog duplicatesDialog;
+    private DuplicatesPanel duplicatesPanel;
     /**
      * Table model for File[].
      */
     private FileTableModel fileTableModel;
 
     private ListSelectionListener listSelectionListener;
+    /**
+     * Whether the tree (rather than the table) was the last place files were selected.
+     */
+    private boolean selectionFromTree = true;
+    /**
+     * Node whose children are currently listed in the table.
+     */
+    private DefaultMutableTreeNode listedNode;
+    /**
+     * Directories listed so far, for back &amp; forward.
+     */
+    private final NavigationHistory history = new NavigationHistory();
+    /**
+     * Set while the tree selection is moved to a history entry, which is shown from its snapshot
+     * rather than listed again.
+     */
+    private boolean restoringHistory;
+    private JButton backButton;
+    private JButton forwardButton;
     private boolean cellSizesSet = false;
     private int rowIconPadding = 6;
 
@@ -138,6 +230,8 @@ public class FileManager {
     private JButton openFile;
     private JButton editFile;
     private JButton deleteFile;
+    private JButton copyFile;
+    private JButton moveFile;
     private JButton newFile;
 
     // git Buttons
@@ -184,7 +278,7 @@ public class FileManager {
             // fileTableModel = new FileTableModel();
 
             table = new JTable();
-            table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+            table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
             table.setAutoCreateRowSorter(true);
             table.setShowVerticalLines(false);
 
@@ -193,6 +287,11 @@ public class FileManager {
                         @Override
                         public void valueChanged(ListSelectionEvent lse) {
                             int row = table.getSelectionModel().getLeadSelectionIndex();
+                            if (row < 0 || row >= table.getRowCount()) {
+                                return;
+                            }
+                            selectionFromTree = false;
+                            row = table.convertRowIndexToModel(row);
                             setFileDetails(((FileTableModel) table.getModel()).getFile(row));
                         }
                     };
@@ -201,7 +300,63 @@ public class FileManager {
             Dimension d = tableScroll.getPreferredSize();
             tableScroll.setPreferredSize(
                     new Dimension((int) d.getWidth(), (int) d.getHeight() / 2));
-            detailView.add(tableScroll, BorderLayout.CENTER);
+            previewPanel = new PreviewPanel(jobScheduler);
+            detailTabs = new JTabbedPane();
+            thumbnailPanel =
+                    new ThumbnailPanel(new ThumbnailCache(getDataDirectory("thumbnails"))) {
+                        @Override
+                        protected void select(File file) {
+                            selectionFromTree = false;
+                            setFileDetails(file);
+                        }
+
+                        @Override
+                        protected void open(File file) {
+                            if (file.isDirectory() || ArchiveEntry.isArchive(file)) {
+                                showFile(file);
+                            } else {
+                                try {
+                                    desktop.open(file);
+                                } catch (Throwable t) {
+                                    showThrowable(t);
+                                }
+                            }
+                        }
+                    };
+            filesView = new JPanel(new CardLayout());
+            filesView.add(tableScroll, "table");
+            filesView.add(thumbnailPanel, "thumbnails");
+            detailTabs.addTab("Files", filesView);
+            detailTabs.addTab("Preview", previewPanel);
+            hexPanel = new HexPanel(jobScheduler);
+            detailTabs.addTab("Hex", hexPanel);
+            diffPanel = new DiffPanel(jobScheduler, gitDiff);
+            detailTabs.addTab("Diff", diffPanel);
+            blamePanel =
+                    new BlamePanel(jobScheduler, gitBlame) {
+                        @Override
+                        protected void open(File file, String commit) {
+                            showCommitDiff(file, null, commit);
+                        }
+                    };
+            detailTabs.addTab("Blame", blamePanel);
+            historyPanel =
+                    new HistoryPanel(jobScheduler, gitHistory) {
+                        @Override
+                        protected void open(File file, String commit) {
+                            showCommitDiff(file, null, commit);
+                        }
+                    };
+            detailTabs.addTab("History", historyPanel);
+            treemapPanel = new TreemapPanel(jobScheduler);
+            detailTabs.addTab("Treemap", treemapPanel);
+            detailTabs.addChangeListener(
+                    new ChangeListener() {
+                        public void stateChanged(ChangeEvent ce) {
+                            updatePreview();
+                        }
+                    });
+            detailView.add(detailTabs, BorderLayout.CENTER);
 
             // the File tree
             DefaultMutableTreeNode root = new DefaultMutableTreeNode();
@@ -210,9 +365,17 @@ public class FileManager {
             TreeSelectionListener treeSelectionListener =
                     new TreeSelectionListener() {
                         public void valueChanged(TreeSelectionEvent tse) {
+                            TreePath lead = tree.getLeadSelectionPath();
+                            if (lead == null) {
+                                return;
+                            }
+                            selectionFromTree = true;
                             DefaultMutableTreeNode node =
-                                    (DefaultMutableTreeNode) tse.getPath().getLastPathComponent();
-                            showChildren(node);
+                                    (DefaultMutableTreeNode) lead.getLastPathComponent();
+                            if (!restoringHistory) {
+                                rememberView();
+                                showChildren(node);
+                            }
                             setFileDetails((File) node.getUserObject());
                         }
                     };
@@ -226,7 +389,7 @@ public class FileManager {
                 //
                 File[] files = fileSystemView.getFiles(fileSystemRoot, true);
                 for (File file : files) {
-                    if (file.isDirectory()) {
+                    if (file.isDirectory() || ArchiveEntry.isArchive(file)) {
                         node.add(new DefaultMutableTreeNode(file));
                     }
                 }
@@ -235,8 +398,21 @@ public class FileManager {
 
             tree = new JTree(treeModel);
             tree.setRootVisible(false);
+            tree.getSelectionModel()
+                    .setSelectionMode(TreeSelectionModel.DISCONTIGUOUS_TREE_SELECTION);
             tree.addTreeSelectionListener(treeSelectionListener);
-            tree.setCellRenderer(new FileTreeCellRenderer());
+            statusMonitor.addListener(
+                    new StatusMonitor.Listener() {
+                        public void statusChanged(File workTree) {
+                            SwingUtilities.invokeLater(
+                                    new Runnable() {
+                                        public void run() {
+                                            statusesChanged();
+                                        }
+                                    });
+                        }
+                    });
+            tree.setCellRenderer(new FileTreeCellRenderer(statusMonitor));
             tree.expandRow(0);
             JScrollPane treeScroll = new JScrollPane(tree);
 
@@ -285,6 +461,43 @@ public class FileManager {
             // mnemonics stop working in a floated toolbar
             toolBar.setFloatable(false);
 
+            backButton = new JButton("Back");
+            backButton.setToolTipText("Alt+Left");
+            backButton.setEnabled(false);
+            backButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            goBack();
+                        }
+                    });
+            toolBar.add(backButton);
+            forwardButton = new JButton("Forward");
+            forwardButton.setToolTipText("Alt+Right");
+            forwardButton.setEnabled(false);
+            forwardButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            goForward();
+                        }
+                    });
+            toolBar.add(forwardButton);
+            InputMap keys = gui.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+            keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_LEFT, InputEvent.ALT_DOWN_MASK), "back");
+            keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_RIGHT, InputEvent.ALT_DOWN_MASK), "forward");
+            gui.getActionMap().put("back",
+                    new AbstractAction() {
+                        public void actionPerformed(ActionEvent ae) {
+                            goBack();
+                        }
+                    });
+            gui.getActionMap().put("forward",
+                    new AbstractAction() {
+                        public void actionPerformed(ActionEvent ae) {
+                            goForward();
+                        }
+                    });
+            toolBar.addSeparator();
+
             openFile = new JButton("Open");
             openFile.setMnemonic('o');
 
@@ -352,6 +565,112 @@ public class FileManager {
                     });
             toolBar.add(deleteFile);
 
+            copyFile = new JButton("Copy");
+            copyFile.setMnemonic('c');
+            copyFile.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            copyFiles();
+                        }
+                    });
+            toolBar.add(copyFile);
+
+            moveFile = new JButton("Move");
+            moveFile.setMnemonic('m');
+            moveFile.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            moveFiles();
+                        }
+                    });
+            toolBar.add(moveFile);
+
+            JButton sizeButton = new JButton("Size");
+            sizeButton.setToolTipText("Calculate directory sizes (Shift: ignore cached listings)");
+            sizeButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            boolean useCache = (ae.getModifiers() & ActionEvent.SHIFT_MASK) == 0;
+                            sizeButton(useCache);
+                        }
+                    });
+            toolBar.add(sizeButton);
+            autoSizes = new JCheckBox("auto");
+            autoSizes.setToolTipText("Calculate directory sizes in the background when listing");
+            toolBar.add(autoSizes);
+
+            thumbnailsButton = new JToggleButton("Thumbnails");
+            thumbnailsButton.setToolTipText("Show the files as a grid of thumbnails instead of the table");
+            thumbnailsButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            showThumbnails(thumbnailsButton.isSelected());
+                        }
+                    });
+            toolBar.add(thumbnailsButton);
+
+            JButton treemapButton = new JButton("Treemap");
+            treemapButton.setToolTipText("Show the disk usage of the directory as a treemap");
+            treemapButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            showTreemap();
+                        }
+                    });
+            toolBar.add(treemapButton);
+
+            final JComboBox<Object> checksumChoice =
+                    new JComboBox<Object>(new Object[]{"No checksum", Checksums.Algorithm.SHA_256, Checksums.Algorithm.CRC32C});
+            checksumChoice.setToolTipText("Show a checksum column, calculated for the visible rows");
+            checksumChoice.setMaximumSize(checksumChoice.getPreferredSize());
+            checksumChoice.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            Object selected = checksumChoice.getSelectedItem();
+                            showChecksums(selected instanceof Checksums.Algorithm ? (Checksums.Algorithm) selected : null);
+                        }
+                    });
+            toolBar.add(checksumChoice);
+            JButton verifyButton = new JButton("Verify");
+            verifyButton.setToolTipText("Verify files against the selected .sha256 manifest (or those in the directory)");
+            verifyButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            verifyManifests();
+                        }
+                    });
+            toolBar.add(verifyButton);
+
+            JButton searchButton = new JButton("Search");
+            searchButton.setMnemonic('s');
+            searchButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            showSearch();
+                        }
+                    });
+            toolBar.add(searchButton);
+
+            JButton findButton = new JButton("Find");
+            findButton.setToolTipText("Find files containing a string or regex below the current directory");
+            findButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            showContentSearch();
+                        }
+                    });
+            toolBar.add(findButton);
+
+            JButton duplicatesButton = new JButton("Duplicates");
+            duplicatesButton.setToolTipText("Find files with the same contents below the current directory");
+            duplicatesButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            findDuplicates();
+                        }
+                    });
+            toolBar.add(duplicatesButton);
+
             toolBar.addSeparator();
 
             // git Buttons
@@ -448,6 +767,29 @@ public class FileManager {
             );
             toolBar.add(commitHistoryButton);
 
+            JButton maintenanceButton = new JButton("gc");
+            maintenanceButton.setToolTipText("Pack loose objects & refs and prune unreachable objects");
+            maintenanceButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            maintenanceButton();
+                        }
+                    });
+            toolBar.add(maintenanceButton);
+            idleMaintenance = new JCheckBox("idle");
+            idleMaintenance.setToolTipText("Run gc in the background on repositories that need it while idle");
+            toolBar.add(idleMaintenance);
+
+            JButton dashboardButton = new JButton("dashboard");
+            dashboardButton.setToolTipText("Branches & changes of every repository below the selected folder");
+            dashboardButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            dashboardButton();
+                        }
+                    });
+            toolBar.add(dashboardButton);
+
             // git branch Buttons
             toolBar.addSeparator();
 
@@ -526,6 +868,53 @@ public class FileManager {
             simpleOutput.add(progressBar, BorderLayout.EAST);
             progressBar.setVisible(false);
 
+            JPanel jobsView = new JPanel(new FlowLayout(FlowLayout.LEADING, 3, 0));
+            JButton jobsButton = new JButton("Jobs");
+            jobsButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            showJobs();
+                        }
+                    });
+            jobsView.add(jobsButton);
+            JButton diagnosticsButton = new JButton("Diagnostics");
+            diagnosticsButton.setToolTipText("Event dispatch latency and UI freezes");
+            diagnosticsButton.addActionListener(
+                    new ActionListener() {
+                        public void actionPerformed(ActionEvent ae) {
+                            showDiagnostics();
+                        }
+                    });
+            jobsView.add(diagnosticsButton);
+            jobStatus = new JLabel(" ");
+            jobsView.add(jobStatus);
+            simpleOutput.add(jobsView, BorderLayout.WEST);
+
+            javax.swing.Timer jobStatusTimer =
+                    new javax.swing.Timer(250,
+                            new ActionListener() {
+                                public void actionPerformed(ActionEvent ae) {
+                                    updateJobStatus();
+                                }
+                            });
+            jobStatusTimer.start();
+
+            Toolkit.getDefaultToolkit().addAWTEventListener(
+                    new AWTEventListener() {
+                        public void eventDispatched(AWTEvent event) {
+                            lastInput = System.currentTimeMillis();
+                        }
+                    },
+                    AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_WHEEL_EVENT_MASK);
+            javax.swing.Timer maintenanceTimer =
+                    new javax.swing.Timer(60 * 1000,
+                            new ActionListener() {
+                                public void actionPerformed(ActionEvent ae) {
+                                    idleMaintenance();
+                                }
+                            });
+            maintenanceTimer.start();
+
             gui.add(simpleOutput, BorderLayout.SOUTH);
         }
         return gui;
@@ -552,7 +941,7 @@ public class FileManager {
     }
 
     private String getCurrentBranch(File currentFile) {
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir == null) {
             return "";
         }
@@ -579,8 +968,10 @@ public class FileManager {
                 DefaultMutableTreeNode parentNode =
                         (DefaultMutableTreeNode) parentPath.getLastPathComponent();
 
+                OperationEvents.Span span = OperationEvents.fileOperation("Rename", currentFile);
                 boolean renamed =
                         currentFile.renameTo(new File(currentFile.getParentFile(), renameTo));
+                span.setEntries(1).setFailed(!renamed).end();
                 if (renamed) {
                     if (directory) {
                         // rename the node..
@@ -614,6 +1005,20 @@ public class FileManager {
             return;
         }
 
+        List<File> selected = getSelectedFiles();
+        if (selected.size() > 1) {
+            int result =
+                    JOptionPane.showConfirmDialog(
+                            gui,
+                            "Are you sure you want to delete these " + selected.size() + " files?",
+                            "Delete Files",
+                            JOptionPane.ERROR_MESSAGE);
+            if (result == JOptionPane.OK_OPTION) {
+                runBatch(new BatchOperation(BatchOperation.Kind.DELETE, selected));
+            }
+            return;
+        }
+
         int result =
                 JOptionPane.showConfirmDialog(
                         gui,
@@ -621,38 +1026,222 @@ public class FileManager {
                         "Delete File",
                         JOptionPane.ERROR_MESSAGE);
         if (result == JOptionPane.OK_OPTION) {
-            try {
-                System.out.println("currentFile: " + currentFile);
-                TreePath parentPath = findTreePath(currentFile.getParentFile());
-                System.out.println("parentPath: " + parentPath);
-                DefaultMutableTreeNode parentNode =
-                        (DefaultMutableTreeNode) parentPath.getLastPathComponent();
-                System.out.println("parentNode: " + parentNode);
+            // even a single directory may take a long time to delete
+            runBatch(new BatchOperation(BatchOperation.Kind.DELETE, Collections.singletonList(currentFile)));
+        }
+    }
 
-                boolean directory = currentFile.isDirectory();
-                if (FileUtils.deleteQuietly(currentFile)) {
-                    if (directory) {
-                        // delete the node..
-                        TreePath currentPath = findTreePath(currentFile);
-                        System.out.println(currentPath);
-                        DefaultMutableTreeNode currentNode =
-                                (DefaultMutableTreeNode) currentPath.getLastPathComponent();
+    private void sizeButton(boolean useCache) {
+        List<File> directories = new ArrayList<>();
+        for (File file : getSelectedFiles()) {
+            if (file.isDirectory()) {
+                directories.add(file);
+            }
+        }
+        if (directories.isEmpty() && listedNode != null) {
+            directories.add((File) listedNode.getUserObject());
+        }
+        if (directories.isEmpty()) {
+            showErrorMessage("No directory selected to calculate the size of.", "Select Directory");
+            return;
+        }
+        for (File directory : directories) {
+            calculateSize(directory, JobScheduler.Priority.NORMAL, useCache);
+        }
+    }
 
-                        treeModel.removeNodeFromParent(currentNode);
+    /**
+     * Calculate the recursive size of directory, showing sizes in the table &amp; details as they
+     * come in.
+     */
+    private void calculateSize(final File directory, JobScheduler.Priority priority, final boolean useCache) {
+        jobScheduler.submit(
+                new UiJob("Size of " + directory.getPath(), priority, directory) {
+                    @Override
+                    protected void execute() {
+                        directorySizes.compute(directory, useCache, this,
+                                new DirectorySizeCalculator.Listener() {
+                                    public void sizeComputed(final File directory, final long bytes) {
+                                        SwingUtilities.invokeLater(
+                                                new Runnable() {
+                                                    public void run() {
+                                                        showDirectorySize(directory, bytes);
+                                                    }
+                                                });
+                                    }
+                                });
                     }
+                });
+    }
 
-                    showChildren(parentNode);
-                } else {
-                    String msg = "The file '" + currentFile + "' could not be deleted.";
-                    showErrorMessage(msg, "Delete Failed");
+    private void showDirectorySize(File directory, long bytes) {
+        if (fileTableModel != null) {
+            fileTableModel.fireFileUpdated(directory);
+        }
+        if (currentFile != null && currentFile.getAbsoluteFile().equals(directory)) {
+            size.setText(bytes + " bytes");
+        }
+    }
+
+    private void copyFiles() {
+        transferFiles(BatchOperation.Kind.COPY);
+    }
+
+    private void moveFiles() {
+        transferFiles(BatchOperation.Kind.MOVE);
+    }
+
+    private void transferFiles(BatchOperation.Kind kind) {
+        List<File> selected = getSelectedFiles();
+        if (selected.isEmpty()) {
+            showErrorMessage("No file selected to " + kind.getLabel().toLowerCase() + ".", "Select File");
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser(selected.get(0).getParentFile());
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        chooser.setDialogTitle(kind.getLabel() + " " + selected.size() + " file(s) to");
+        if (chooser.showDialog(gui, kind.getLabel()) == JFileChooser.APPROVE_OPTION) {
+            runBatch(new BatchOperation(kind, selected, chooser.getSelectedFile()));
+        }
+    }
+
+    /**
+     * Files currently selected in whichever of the tree or table was used last, or the current
+     * file if nothing is selected.
+     */
+    private List<File> getSelectedFiles() {
+        List<File> files = new ArrayList<>();
+        if (selectionFromTree) {
+            TreePath[] paths = tree.getSelectionPaths();
+            if (paths != null) {
+                for (TreePath treePath : paths) {
+                    DefaultMutableTreeNode node = (DefaultMutableTreeNode) treePath.getLastPathComponent();
+                    files.add((File) node.getUserObject());
                 }
-            } catch (Throwable t) {
-                showThrowable(t);
             }
+        } else if (fileTableModel != null) {
+            for (int row : table.getSelectedRows()) {
+                files.add(fileTableModel.getFile(table.convertRowIndexToModel(row)));
+            }
+        }
+        if (files.isEmpty() && currentFile != null) {
+            files.add(currentFile);
+        }
+        return files;
+    }
+
+    /**
+     * Run a batch off the EDT, then update the tree &amp; table once it has finished.
+     */
+    private void runBatch(final BatchOperation operation) {
+        File location = operation.getDestination() != null
+                ? operation.getDestination() : operation.getFiles().get(0);
+        jobScheduler.submit(
+                new UiJob(operation.getKind().getLabel() + " " + operation.getFiles().size() + " file(s)",
+                        JobScheduler.Priority.NORMAL, location) {
+                    private BatchOperation.Result result;
+
+                    @Override
+                    protected void execute() {
+                        final JobScheduler.Job job = this;
+                        result = operation.run(
+                                new BatchOperation.Progress() {
+                                    public void progress(int done, int total) {
+                                        job.setProgress(done, total);
+                                    }
+
+                                    public boolean isCancelled() {
+                                        return job.isCancelled();
+                                    }
+                                });
+                    }
+
+                    @Override
+                    protected void succeeded() {
+                        showBatchResult(result);
+                    }
+                });
+    }
+
+    private void showBatchResult(BatchOperation.Result result) {
+        updateTreeAfterBatch(result);
+        if (result.getKind() == BatchOperation.Kind.DELETE && duplicatesPanel != null) {
+            duplicatesPanel.removeFiles(result.getCompleted());
+        }
+        if (listedNode != null) {
+            showChildren(listedNode);
+        }
+
+        if (result.getTotal() == 1 && result.getFailures().isEmpty()) {
+            gui.repaint();
+            return;
+        }
+        StringBuilder message = new StringBuilder(result.summary());
+        int shown = 0;
+        for (Map.Entry<File, String> failure : result.getFailures().entrySet()) {
+            if (shown++ == 20) {
+                message.append("\n...");
+                break;
+            }
+            message.append("\n").append(failure.getKey()).append(": ").append(failure.getValue());
         }
+        int type = result.getFailures().isEmpty()
+                ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE;
+        JOptionPane.showMessageDialog(gui, message.toString(), result.getKind().getLabel(), type);
         gui.repaint();
     }
 
+    /**
+     * Apply directory removals &amp; additions to the tree, firing one structure change per parent
+     * node instead of one event per file.
+     */
+    private void updateTreeAfterBatch(BatchOperation.Result result) {
+        BatchOperation.Kind kind = result.getKind();
+        if (kind != BatchOperation.Kind.DELETE && kind != BatchOperation.Kind.MOVE
+                && kind != BatchOperation.Kind.COPY) {
+            return;
+        }
+        Set<DefaultMutableTreeNode> changed = new LinkedHashSet<>();
+        List<File> addedDirectories = new ArrayList<>();
+        for (File file : result.getCompleted()) {
+            if (!result.wasDirectory(file)) {
+                continue;
+            }
+            if (kind != BatchOperation.Kind.COPY) {
+                TreePath treePath = findTreePath(file);
+                if (treePath != null) {
+                    DefaultMutableTreeNode node = (DefaultMutableTreeNode) treePath.getLastPathComponent();
+                    DefaultMutableTreeNode parent = (DefaultMutableTreeNode) node.getParent();
+                    if (parent != null) {
+                        parent.remove(node);
+                        changed.add(parent);
+                    }
+                }
+            }
+            if (kind != BatchOperation.Kind.DELETE) {
+                addedDirectories.add(new File(result.getDestination(), file.getName()));
+            }
+        }
+        if (!addedDirectories.isEmpty()) {
+            TreePath destinationPath = findTreePath(result.getDestination());
+            if (destinationPath != null) {
+                DefaultMutableTreeNode destination =
+                        (DefaultMutableTreeNode) destinationPath.getLastPathComponent();
+                // children of a leaf are loaded lazily the next time it is shown
+                if (!destination.isLeaf()) {
+                    for (File directory : addedDirectories) {
+                        destination.add(new DefaultMutableTreeNode(directory));
+                    }
+                    changed.add(destination);
+                }
+            }
+        }
+        for (DefaultMutableTreeNode node : changed) {
+            treeModel.nodeStructureChanged(node);
+        }
+    }
+
     private void newFile() {
         if (currentFile == null) {
             showErrorMessage("No location selected for new file.", "Select Location");
@@ -689,10 +1278,19 @@ public class FileManager {
                     parentFile = parentFile.getParentFile();
                 }
                 File file = new File(parentFile, name.getText());
-                if (newTypeFile.isSelected()) {
-                    created = file.createNewFile();
-                } else {
-                    created = file.mkdir();
+                OperationEvents.Span span = OperationEvents.fileOperation("Create", file);
+                try {
+                    if (newTypeFile.isSelected()) {
+                        created = file.createNewFile();
+                    } else {
+                        created = file.mkdir();
+                    }
+                    span.setEntries(1).setFailed(!created);
+                } catch (IOException e) {
+                    span.setFailed(true);
+                    throw e;
+                } finally {
+                    span.end();
                 }
                 if (created) {
 
@@ -736,7 +1334,7 @@ public class FileManager {
             return;
         }
 
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir != null) {
             showErrorMessage("This directory already use git.", "Already Use Git Directory");
             return; // Exit the method without creating the init panel
@@ -751,10 +1349,8 @@ public class FileManager {
         if (result == JOptionPane.OK_OPTION) {
             try {
                 //디렉토리 아닐 시 에러
-                Process p;
                 String cmd = "cd " + currentFile.getPath() + " && git init";
-                String[] command = {"/bin/sh", "-c", cmd};
-                p = Runtime.getRuntime().exec(command);
+                runCommandJob(currentFile, cmd);
             } catch (Throwable t) {
                 showThrowable(t);
             }
@@ -783,68 +1379,91 @@ public class FileManager {
 
         // if user clicked ok. do clone.
         if (result == JOptionPane.OK_OPTION) {
-            try {
-                JTextField repositoryAddressField = (JTextField) clonePanel.getClientProperty("repositoryAddressField");
-                String repositoryAddress = repositoryAddressField.getText();
-                if (repositoryAddress.trim().isEmpty()) {
-                    showErrorMessage("Repository address can't be empty.", "Empty Repository Address");
-                    return;
-                }
-
-                String path = currentFile.getPath();
-
-                try {
-                    Git.cloneRepository().setURI(repositoryAddress).setDirectory(currentFile).call();
-                } catch (TransportException e) {
-                    // TransportException => repository is private because last clone had no user information
-                    String ID, token;
-                    File userInformation = new File("user_information.txt");
-                    if (userInformation.exists()) {
-                        // user_information.txt already exists => user information is stored in it
-                        // get user information from .txt file
-                        BufferedReader reader = new BufferedReader(new FileReader(userInformation));
-                        ID = reader.readLine();
-                        token = reader.readLine();
-
-                        Git.cloneRepository().setURI(repositoryAddress).setDirectory(currentFile).
-                                setCredentialsProvider((new UsernamePasswordCredentialsProvider(ID, token))).call();
-                    } else {
-                        // use new panel to get userID and token
-                        JPanel insertIDPanel = createInsertIDPanel();
-                        int res = JOptionPane.showConfirmDialog(
-                                gui, insertIDPanel, "GitHub User Information", JOptionPane.OK_CANCEL_OPTION);
-                        if (res == JOptionPane.OK_OPTION) {
-                            // get ID and token from user
-                            JTextField IDTextField = (JTextField) insertIDPanel.getClientProperty("ID");
-                            ID = IDTextField.getText();
-                            JTextField tokenTextField = (JTextField) insertIDPanel.getClientProperty("token");
-                            token = tokenTextField.getText();
-
-                            // create .txt file and store user information in it
-                            userInformation.createNewFile();
-                            BufferedWriter writer = new BufferedWriter(new FileWriter(userInformation));
-                            writer.write(ID);
-                            writer.newLine();
-                            writer.write(token);
-                            writer.flush();
-
-                            Git.cloneRepository().setURI(repositoryAddress).setDirectory(currentFile).
-                                    setCredentialsProvider((new UsernamePasswordCredentialsProvider(ID, token))).call();
-                        } else
-                            return;
-                    }
-                }
-
-                JOptionPane.showMessageDialog(gui, "Successfully Cloned", "Clone Success",
-                        JOptionPane.INFORMATION_MESSAGE);
-            } catch (IOException | GitAPIException e) {
-                showErrorMessage("An error occurred during cloning process.", "Clone Error");
+            JTextField repositoryAddressField = (JTextField) clonePanel.getClientProperty("repositoryAddressField");
+            String repositoryAddress = repositoryAddressField.getText();
+            if (repositoryAddress.trim().isEmpty()) {
+                showErrorMessage("Repository address can't be empty.", "Empty Repository Address");
+                return;
             }
+
+            cloneRepository(repositoryAddress, currentFile, null, null);
         }
 
         gui.repaint();
     }
 
+    /**
+     * Clone in the background. Without user information a private repository fails with a
+     * TransportException, then the clone is retried with the stored or newly entered information.
+     */
+    private void cloneRepository(
+            final String repositoryAddress, final File directory, final String ID, final String token) {
+        jobScheduler.submit(
+                new UiJob("git clone " + repositoryAddress, JobScheduler.Priority.NORMAL, directory) {
+                    @Override
+                    protected void execute() throws Exception {
+                        GitEngine.cloneRepository(repositoryAddress, directory, ID, token);
+                    }
+
+                    @Override
+                    protected void succeeded() {
+                        JOptionPane.showMessageDialog(gui, "Successfully Cloned", "Clone Success",
+                                JOptionPane.INFORMATION_MESSAGE);
+                    }
+
+                    @Override
+                    protected void failed(Throwable t) {
+                        if (t instanceof TransportException && ID == null) {
+                            cloneWithUserInformation(repositoryAddress, directory);
+                        } else {
+                            showErrorMessage("An error occurred during cloning process.", "Clone Error");
+                        }
+                    }
+                });
+    }
+
+    private void cloneWithUserInformation(String repositoryAddress, File directory) {
+        // TransportException => repository is private because last clone had no user information
+        String ID, token;
+        File userInformation = new File("user_information.txt");
+        try {
+            if (userInformation.exists()) {
+                // user_information.txt already exists => user information is stored in it
+                // get user information from .txt file
+                BufferedReader reader = new BufferedReader(new FileReader(userInformation));
+                ID = reader.readLine();
+                token = reader.readLine();
+                reader.close();
+            } else {
+                // use new panel to get userID and token
+                JPanel insertIDPanel = createInsertIDPanel();
+                int res = JOptionPane.showConfirmDialog(
+                        gui, insertIDPanel, "GitHub User Information", JOptionPane.OK_CANCEL_OPTION);
+                if (res == JOptionPane.OK_OPTION) {
+                    // get ID and token from user
+                    JTextField IDTextField = (JTextField) insertIDPanel.getClientProperty("ID");
+                    ID = IDTextField.getText();
+                    JTextField tokenTextField = (JTextField) insertIDPanel.getClientProperty("token");
+                    token = tokenTextField.getText();
+
+                    // create .txt file and store user information in it
+                    userInformation.createNewFile();
+                    BufferedWriter writer = new BufferedWriter(new FileWriter(userInformation));
+                    writer.write(ID);
+                    writer.newLine();
+                    writer.write(token);
+                    writer.close();
+                } else
+                    return;
+            }
+        } catch (IOException e) {
+            showErrorMessage("An error occurred during cloning process.", "Clone Error");
+            return;
+        }
+
+        cloneRepository(repositoryAddress, directory, ID, token);
+    }
+
     private JPanel createClonePanel() {
         JPanel clonePanel = new JPanel(new BorderLayout(3, 3));
 
@@ -891,12 +1510,26 @@ public class FileManager {
         }
 
         // if the directory doesn't use git, can't use git command.
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir == null) {
             showErrorMessage("This directory doesn't use git. Press init Button first.", "No Git Directory");
             return; // Exit the method without creating the add Panel.
         }
 
+        List<File> selected = getSelectedFiles();
+        if (selected.size() > 1) {
+            int result =
+                    JOptionPane.showConfirmDialog(
+                            gui,
+                            "Are you sure you want to git add these " + selected.size() + " files?",
+                            "Git Add Files",
+                            JOptionPane.ERROR_MESSAGE);
+            if (result == JOptionPane.OK_OPTION) {
+                runBatch(new BatchOperation(BatchOperation.Kind.GIT_ADD, selected));
+            }
+            return;
+        }
+
         int result =
                 JOptionPane.showConfirmDialog(
                         gui,
@@ -911,9 +1544,7 @@ public class FileManager {
 
                 String addCommand = "git add ";
                 String cmd = "cd " + path + " && " + addCommand + file;
-                Process p;
-                String[] command = {"/bin/sh", "-c", cmd};
-                p = Runtime.getRuntime().exec(command);
+                runCommandJob(currentFile, cmd);
             } catch (Throwable t) {
                 showThrowable(t);
             }
@@ -929,7 +1560,7 @@ public class FileManager {
         }
 
         // if the directory doesn't use git, can't use git command.
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir == null) {
             showErrorMessage("This directory doesn't use git. Press init Button first.", "No Git Directory");
             return; // Exit the method without creating the restore Panel.
@@ -948,85 +1579,31 @@ public class FileManager {
                 options[0]
         );
 
-        if (result == 2) {
-            try {
-                String file = currentFile.getName();
-                String path = currentFile.getPath().replace(file, "");
-
-                String checkCmd = "cd " + path + " && " + "git status -s " + file;
-                Process check_p;
-                String[] c_command = {"/bin/sh", "-c", checkCmd};
-                check_p = Runtime.getRuntime().exec(c_command);
-
-                BufferedReader reader = new BufferedReader(new InputStreamReader(check_p.getInputStream()));
-
-                // 출력 결과를 저장할 문자열 버퍼 생성
-                StringBuilder output = new StringBuilder();
-
-                // 현재 파일의 status
-                String status;
-
-                // 한 줄씩 출력 결과를 읽어와 버퍼에 추가
-                String line;
-                if ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-
-                    status = output.toString().substring(0, 2);
-                    if (status.equals("??")) {
-                        showErrorMessage("Git doesn't trace that file. Press add first.", "Untracked File");
-                        return;
-                    } else if (status.equals("A ")) {
-                        showErrorMessage("If you want restore, click restore --staged", "Added File ?");
-                        return;
-                    }
-
-                    String gitReCommand = "git restore ";
-                    String cmd = "cd " + path + " && " + gitReCommand + file;
-                    Process p;
-                    String[] command = {"/bin/sh", "-c", cmd};
-                    p = Runtime.getRuntime().exec(command);
-                }
-            } catch (Throwable t) {
-                showThrowable(t);
-            }
-        } else if (result == 1) {
-            try {
-                String file = currentFile.getName();
-                String path = currentFile.getPath().replace(file, "");
-
-                String checkCmd = "cd " + path + " && " + "git status -s " + file;
-                Process check_p;
-                String[] c_command = {"/bin/sh", "-c", checkCmd};
-                check_p = Runtime.getRuntime().exec(c_command);
-
-                BufferedReader reader = new BufferedReader(new InputStreamReader(check_p.getInputStream()));
-
-                // 출력 결과를 저장할 문자열 버퍼 생성
-                StringBuilder output = new StringBuilder();
-
-                // 현재 파일의 status
-                String status;
-
-                // 한 줄씩 출력 결과를 읽어와 버퍼에 추가
-                String line;
-                if ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-
-                    status = output.toString().substring(0, 2);
-                    if (status.equals("??")) {
-                        showErrorMessage("Git doesn't trace that file. Press add first.", "Untracked File");
-                        return;
-                    }
+        if (result == 2 || result == 1) {
+            final File restored = currentFile;
+            final boolean staged = result == 1;
+            jobScheduler.submit(
+                    new StatusJob("Status " + restored.getPath(), restored) {
+                        @Override
+                        protected void withStatus(String status) {
+                            if (status.equals(GitStatus.UNTRACKED)) {
+                                showErrorMessage("Git doesn't trace that file. Press add first.", "Untracked File");
+                                return;
+                            } else if (!staged && status.equals("A ")) {
+                                showErrorMessage("If you want restore, click restore --staged", "Added File ?");
+                                return;
+                            } else if (status.equals(GitStatus.CLEAN)) {
+                                // nothing to restore
+                                return;
+                            }
+                            String file = restored.getName();
+                            String path = restored.getPath().replace(file, "");
 
-                    String gitReCommand = "git restore --staged ";
-                    String cmd = "cd " + path + " && " + gitReCommand + file;
-                    Process p;
-                    String[] command = {"/bin/sh", "-c", cmd};
-                    p = Runtime.getRuntime().exec(command);
-                }
-            } catch (Throwable t) {
-                showThrowable(t);
-            }
+                            String gitReCommand = staged ? "git restore --staged " : "git restore ";
+                            String cmd = "cd " + path + " && " + gitReCommand + file;
+                            runCommandJob(restored, cmd);
+                        }
+                    });
         }
 
         gui.repaint();
@@ -1039,47 +1616,47 @@ public class FileManager {
         }
 
         // if the directory doesn't use git, can't use git command.
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir == null) {
             showErrorMessage("This directory doesn't use git. Press init Button first.", "No Git Directory");
             return; // Exit the method without creating the rm Panel.
         }
 
-        try {
-
-            String path = currentFile.getParent();
-            String name = currentFile.getName();
-
-            String cmd = "cd " + path + " && " + "git status -s " + name;
-            Process p;
-
-            String[] command = {"/bin/sh", "-c", cmd};
-            p = Runtime.getRuntime().exec(command);
-
-            BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()));
-
-            // 출력 결과를 저장할 문자열 버퍼 생성
-            StringBuilder output = new StringBuilder();
-
-            // 현재 파일의 status
-            String status;
-
-            // 한 줄씩 출력 결과를 읽어와 버퍼에 추가
-            String line;
-            if ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-
-                status = output.toString().substring(0, 2);
-                if (status.equals("??")) {
-                    showErrorMessage("Git doesn't trace that file. Press add first.", "Untracked File");
-                    return;
-                }
+        List<File> selected = getSelectedFiles();
+        if (selected.size() > 1) {
+            Object[] options = {"Cancel", "rm -cached", "rm"};
+            int result = JOptionPane.showOptionDialog(
+                    gui,
+                    "Are you sure you want to git rm these " + selected.size() + " files?",
+                    "Git Rm Files",
+                    JOptionPane.DEFAULT_OPTION,
+                    JOptionPane.QUESTION_MESSAGE,
+                    null,
+                    options,
+                    options[0]
+            );
+            if (result == 2) {
+                runBatch(new BatchOperation(BatchOperation.Kind.GIT_RM, selected));
+            } else if (result == 1) {
+                runBatch(new BatchOperation(BatchOperation.Kind.GIT_RM_CACHED, selected));
             }
-
-        } catch (Throwable t) {
-            showThrowable(t);
+            return;
         }
 
+        jobScheduler.submit(
+                new StatusJob("Status " + currentFile.getPath(), currentFile) {
+                    @Override
+                    protected void withStatus(String status) {
+                        if (status.equals(GitStatus.UNTRACKED)) {
+                            showErrorMessage("Git doesn't trace that file. Press add first.", "Untracked File");
+                            return;
+                        }
+                        rmFile(getLocation());
+                    }
+                });
+    }
+
+    private void rmFile(File removed) {
         Object[] options = {"Cancel", "rm -cached", "rm"};
 
         int result = JOptionPane.showOptionDialog(
@@ -1095,27 +1672,23 @@ public class FileManager {
 
         if (result == 2) {
             try {
-                String file = currentFile.getName();
-                String path = currentFile.getPath().replace(file, "");
+                String file = removed.getName();
+                String path = removed.getPath().replace(file, "");
 
                 String gitRmCommand = "git rm ";
                 String cmd = "cd " + path + " && " + gitRmCommand + file;
-                Process p;
-                String[] command = {"/bin/sh", "-c", cmd};
-                p = Runtime.getRuntime().exec(command);
+                runCommandJob(removed, cmd);
             } catch (Throwable t) {
                 showThrowable(t);
             }
         } else if (result == 1) {
             try {
-                String file = currentFile.getName();
-                String path = currentFile.getPath().replace(file, "");
+                String file = removed.getName();
+                String path = removed.getPath().replace(file, "");
 
                 String gitRmCommand = "git rm --cached ";
                 String cmd = "cd " + path + " && " + gitRmCommand + file;
-                Process p;
-                String[] command = {"/bin/sh", "-c", cmd};
-                p = Runtime.getRuntime().exec(command);
+                runCommandJob(removed, cmd);
             } catch (Throwable t) {
                 showThrowable(t);
             }
@@ -1131,55 +1704,35 @@ public class FileManager {
         }
 
         // if the directory doesn't use git, can't use git command.
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir == null) {
             showErrorMessage("This directory doesn't use git. Press init Button first.", "No Git Directory");
             return; // Exit the method without creating the mv Panel.
         }
 
-        try {
-            String path = currentFile.getParent();
-            String name = currentFile.getName();
-
-            String cmd = "cd " + path + " && " + "git status -s " + name;
-            Process p;
-
-            String[] command = {"/bin/sh", "-c", cmd};
-            p = Runtime.getRuntime().exec(command);
-
-            BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()));
-
-            // 출력 결과를 저장할 문자열 버퍼 생성
-            StringBuilder output = new StringBuilder();
-
-            // 현재 파일의 status
-            String status;
-
-            // 한 줄씩 출력 결과를 읽어와 버퍼에 추가
-            String line;
-            if ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-
-                status = output.toString().substring(0, 2);
-                if (status.equals("??")) {
-                    showErrorMessage("Git doesn't trace that file. Press add first.", "Untracked File");
-                    return;
-                }
-            }
-
-        } catch (Throwable t) {
-            showThrowable(t);
-        }
+        jobScheduler.submit(
+                new StatusJob("Status " + currentFile.getPath(), currentFile) {
+                    @Override
+                    protected void withStatus(String status) {
+                        if (status.equals(GitStatus.UNTRACKED)) {
+                            showErrorMessage("Git doesn't trace that file. Press add first.", "Untracked File");
+                            return;
+                        }
+                        mvFile(getLocation());
+                    }
+                });
+    }
 
+    private void mvFile(File moved) {
         String moveTo =
                 JOptionPane.showInputDialog(gui,
                         "Text new file name or new path you want to git mv this file.");
 
         // moveTo가 이동할 path이고, repository 밖의 경로일 경우 error
         if (moveTo.contains("/")) {
-            gitDir = findGitDir(currentFile.getAbsoluteFile());
+            File gitDir = GitSupport.findGitDir(moved.getAbsoluteFile());
             File newFile = new File(moveTo);
-            File newGitDir = findGitDir(newFile.getAbsoluteFile());
+            File newGitDir = GitSupport.findGitDir(newFile.getAbsoluteFile());
             if (!gitDir.equals(newGitDir)) {
                 showErrorMessage("This path is outside repository.", "Outside Repository");
                 return; // Exit the method without creating the mv Panel.
@@ -1189,12 +1742,10 @@ public class FileManager {
         if (moveTo != null) {
             try {
 
-                String file = currentFile.getName();
-                String path = currentFile.getParent();
-                Process p;
+                String file = moved.getName();
+                String path = moved.getParent();
                 String cmd = "cd " + path + " && git mv " + file + " " + moveTo;
-                String[] command = {"/bin/sh", "-c", cmd};
-                p = Runtime.getRuntime().exec(command);
+                runCommandJob(moved, cmd);
 
             } catch (Throwable t) {
                 showThrowable(t);
@@ -1211,14 +1762,41 @@ public class FileManager {
         }
 
         // Handle the case where there is no .git directory found
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir == null) {
             showErrorMessage("This directory doesn't use git", "No Git Directory");
             return; // Exit the method without creating the commit panel
         }
 
+        // loading the status walks the whole work tree, so do it in the background.
+        final File workTree = currentFile.getAbsoluteFile();
+        final File commitGitDir = gitDir;
+        jobScheduler.submit(
+                new UiJob("git status " + workTree.getName(), JobScheduler.Priority.INTERACTIVE, workTree) {
+                    private Set<String> stagedFiles;
+
+                    @Override
+                    protected void execute() throws Exception {
+                        try (GitEngine engine = new GitEngine(workTree, commitGitDir)) {
+                            stagedFiles = engine.stagedFiles();
+                        }
+                    }
+
+                    @Override
+                    protected void succeeded() {
+                        showCommitDialog(workTree, commitGitDir, stagedFiles);
+                    }
+
+                    @Override
+                    protected void failed(Throwable t) {
+                        showErrorMessage("An error occurred while trying to load staged files.", "Staged Files Error");
+                    }
+                });
+    }
+
+    private void showCommitDialog(File workTree, File gitDir, Set<String> stagedFiles) {
         // to separate ui and model to reopen the commit button.
-        JPanel commitPanel = createCommitPanel();
+        JPanel commitPanel = createCommitPanel(stagedFiles);
 
         int result =
                 JOptionPane.showConfirmDialog(
@@ -1226,85 +1804,58 @@ public class FileManager {
 
         // if user clicked ok. do commit.
         if (result == JOptionPane.OK_OPTION) {
-            try {
-                JTextArea commitMessageArea = (JTextArea) commitPanel.getClientProperty("commitMessageArea");
-                String commitMsg = commitMessageArea.getText();
-                if (commitMsg.trim().isEmpty()) {
-                    showErrorMessage("Commit message cannot be empty.", "Empty Commit Message");
-                    return;
-                }
-
-                JTable stagedFilesTable = (JTable) commitPanel.getClientProperty("stagedFilesTable");
-                if (stagedFilesTable.getRowCount() == 0) {
-                    showErrorMessage("There's nothing to commit.", "Empty Commit Objects");
-                    return;
-                }
-
-                // get the repository to git command.
-                Repository repository =
-                        new FileRepositoryBuilder().setWorkTree(currentFile.getAbsoluteFile()).setGitDir(gitDir).build();
-
-                Git git = new Git(repository);
-                git.commit().setMessage(commitMsg).call();
-                git.close();
+            JTextArea commitMessageArea = (JTextArea) commitPanel.getClientProperty("commitMessageArea");
+            String commitMsg = commitMessageArea.getText();
+            if (commitMsg.trim().isEmpty()) {
+                showErrorMessage("Commit message cannot be empty.", "Empty Commit Message");
+                return;
+            }
 
-                JOptionPane.showMessageDialog(gui, "Successfully Committed", "Commit Success", JOptionPane.INFORMATION_MESSAGE);
-            } catch (IOException | GitAPIException e) {
-                showErrorMessage("An error occurred during the commit process.", "Commit Error");
+            JTable stagedFilesTable = (JTable) commitPanel.getClientProperty("stagedFilesTable");
+            if (stagedFilesTable.getRowCount() == 0) {
+                showErrorMessage("There's nothing to commit.", "Empty Commit Objects");
+                return;
             }
+
+            final String message = commitMsg;
+            callInBackground("git commit", workTree, gitDir,
+                    new GitEngine.Operation() {
+                        public void run(GitEngine engine) throws Exception {
+                            engine.commit(message);
+                        }
+                    },
+                    "Successfully Committed", "Commit Success",
+                    "An error occurred during the commit process.", "Commit Error");
         }
 
         gui.repaint();
     }
 
-    private JPanel createCommitPanel() {
+    private JPanel createCommitPanel(Set<String> stagedFiles) {
         // main Panel on commit button.
         JPanel commitPanel = new JPanel(new BorderLayout(3, 3));
 
-        try {
-            // find .git from currentFile.
-            File gitDir = findGitDir(currentFile.getAbsoluteFile());
-            if (gitDir == null) {
-                // Handle the case where there is no .git directory found
-                showErrorMessage("This directory doesn't use git", "No Git Directory");
-            }
-
-            // get the repository to use git command.
-            Repository repository =
-                    new FileRepositoryBuilder().setWorkTree(currentFile.getAbsoluteFile()).setGitDir(gitDir).build();
-            Git git = new Git(repository);
-            Status status = git.status().call();
-
-            // get the staged files.
-            Set<String> stagedFiles = new HashSet<>();
-            stagedFiles.addAll(status.getAdded());
-            stagedFiles.addAll(status.getChanged());
-            stagedFiles.addAll(status.getRemoved());
-
-            // set the staged files table.
-            DefaultTableModel tableModel = new DefaultTableModel(new String[]{"Staged Files"}, 0);
-            for (String filePath : stagedFiles) {
-                tableModel.addRow(new Object[]{filePath});
-            }
-            JTable stagedFilesTable = new JTable(tableModel);
-            stagedFilesTable.setModel(tableModel);
+        // set the staged files table.
+        DefaultTableModel tableModel = new DefaultTableModel(new String[]{"Staged Files"}, 0);
+        for (String filePath : stagedFiles) {
+            tableModel.addRow(new Object[]{filePath});
+        }
+        JTable stagedFilesTable = new JTable(tableModel);
+        stagedFilesTable.setModel(tableModel);
 
-            // set the commit message panel.
-            JPanel commitMessagePanel = new JPanel(new BorderLayout());
-            JTextArea commitMessageArea = new JTextArea(5, 30);
-            commitMessagePanel.add(new JLabel("Commit Message"), BorderLayout.NORTH);
-            commitMessagePanel.add(commitMessageArea, BorderLayout.CENTER);
+        // set the commit message panel.
+        JPanel commitMessagePanel = new JPanel(new BorderLayout());
+        JTextArea commitMessageArea = new JTextArea(5, 30);
+        commitMessagePanel.add(new JLabel("Commit Message"), BorderLayout.NORTH);
+        commitMessagePanel.add(commitMessageArea, BorderLayout.CENTER);
 
-            // set the main panel for commitButton.
-            commitPanel.add(new JLabel("Staged Files:"), BorderLayout.NORTH);
-            commitPanel.add(new JScrollPane(stagedFilesTable), BorderLayout.CENTER);
-            commitPanel.add(commitMessagePanel, BorderLayout.SOUTH);
+        // set the main panel for commitButton.
+        commitPanel.add(new JLabel("Staged Files:"), BorderLayout.NORTH);
+        commitPanel.add(new JScrollPane(stagedFilesTable), BorderLayout.CENTER);
+        commitPanel.add(commitMessagePanel, BorderLayout.SOUTH);
 
-            commitPanel.putClientProperty("commitMessageArea", commitMessageArea);
-            commitPanel.putClientProperty("stagedFilesTable", stagedFilesTable);
-        } catch (IOException | GitAPIException ee) {
-            showErrorMessage("An error occurred while trying to load staged files.", "Staged Files Error");
-        }
+        commitPanel.putClientProperty("commitMessageArea", commitMessageArea);
+        commitPanel.putClientProperty("stagedFilesTable", stagedFilesTable);
 
         return commitPanel;
     }
@@ -1316,58 +1867,178 @@ public class FileManager {
         }
 
         // if the directory doesn't use git, can't use git command.
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir == null) {
             showErrorMessage("This directory doesn't use git. Press init Button first.", "No Git Directory");
             return; // Exit the method without creating the restore Panel.
         }
 
 
-        JPanel graphPanel = createGraphPanel();
+        String path = currentFile.getPath();
+        if (path.contains(" ")) {
+            path = path.replace(" ", "\\ ");
+        }
+        final String cmd = "cd " + path + " && git log --pretty=format:\"\" --graph";
+        jobScheduler.submit(
+                new UiJob("git log --graph", JobScheduler.Priority.INTERACTIVE, currentFile) {
+                    private String output;
 
-        int result =
-                JOptionPane.showConfirmDialog(
-                        gui, graphPanel, "Graph Log", JOptionPane.DEFAULT_OPTION);
+                    @Override
+                    protected void execute() throws Exception {
+                        output = GitSupport.runCommand(this, cmd);
+                    }
 
+                    @Override
+                    protected void succeeded() {
+                        JPanel graphPanel = createGraphPanel(output);
+                        JOptionPane.showConfirmDialog(
+                                gui, graphPanel, "Graph Log", JOptionPane.DEFAULT_OPTION);
+                        gui.repaint();
+                    }
 
-        gui.repaint();
+                    @Override
+                    protected void failed(Throwable t) {
+                        showErrorMessage("Failed to load.", "Load Error");
+                    }
+                });
     }
 
-    private JPanel createGraphPanel() {
+    private JPanel createGraphPanel(String output) {
         JPanel branchPanel = new JPanel(new BorderLayout(3, 3));
 
-        try {
-            String path = currentFile.getPath();
-            if (path.contains(" ")) {
-                path = path.replace(" ", "\\ ");
-            }
+        DefaultListModel<String> graph = new DefaultListModel<>();
+        for (String node : output.split("\n")) {
+            graph.addElement(node);
+        }
 
-            String cmd = "cd " + path + " && git log --pretty=format:\"\" --graph";
-            String[] command = {"/bin/sh", "-c", cmd};
-            Process p = Runtime.getRuntime().exec(command);
+        JList<String> commitGraph = new JList<>(graph);
 
-            BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()));
-            String line;
-            List<String> outputList = new ArrayList<>();
+        branchPanel.add(new JScrollPane(commitGraph), BorderLayout.CENTER);
 
-            while ((line = reader.readLine()) != null) {
-                outputList.add(line);
-            }
+        return branchPanel;
+    }
 
-            DefaultListModel<String> graph = new DefaultListModel<>();
-            for (String node : outputList) {
-                graph.addElement(node);
-            }
-            p.destroy();
+    private void maintenanceButton() {
+        final File gitDir = currentFile == null ? null : GitSupport.findGitDir(currentFile.getAbsoluteFile());
+        if (gitDir == null) {
+            showErrorMessage("Select a file or directory in a git repository.", "Not a Repository");
+            return;
+        }
+        final RepositoryMaintenance.Report[] report = new RepositoryMaintenance.Report[1];
+        jobScheduler.submit(
+                new UiJob("git gc " + gitDir.getParentFile(), JobScheduler.Priority.NORMAL, gitDir) {
+                    @Override
+                    protected void execute() throws Exception {
+                        report[0] = RepositoryMaintenance.run(gitDir.getParentFile(), this);
+                    }
 
-            JList<String> commitGraph = new JList<>(graph);
+                    @Override
+                    protected void succeeded() {
+                        maintained.put(gitDir.getParentFile(), System.currentTimeMillis());
+                        JTextArea text = new JTextArea(report[0].toString());
+                        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+                        text.setEditable(false);
+                        JOptionPane.showMessageDialog(gui, text, "git gc", JOptionPane.INFORMATION_MESSAGE);
+                    }
+                });
+    }
 
-            branchPanel.add(new JScrollPane(commitGraph), BorderLayout.CENTER);
-        } catch (IOException e) {
-            showErrorMessage("Failed to load.", "Load Error");
+    /**
+     * Show every repository below the selected folder in a window that follows their changes
+     * until it is closed.
+     */
+    private void dashboardButton() {
+        final File root = getCurrentDirectory();
+        if (root == null) {
+            showErrorMessage("No directory selected to show the repositories of.", "Select Directory");
+            return;
         }
+        final DashboardPanel dashboardPanel =
+                new DashboardPanel(root) {
+                    @Override
+                    protected void open(File workTree) {
+                        showFile(workTree);
+                    }
+                };
+        final JobScheduler.Job find =
+                new UiJob("Find repositories in " + root.getName(), JobScheduler.Priority.NORMAL, root) {
+                    @Override
+                    protected void execute() throws Exception {
+                        dashboardPanel.getDashboard().start(this);
+                    }
 
-        return branchPanel;
+                    @Override
+                    protected void failed(Throwable t) {
+                        dashboardPanel.setFound(t.toString());
+                    }
+
+                    @Override
+                    protected void cleanup() {
+                        dashboardPanel.setFound(null);
+                    }
+                };
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(gui), "Repositories in " + root.getName());
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dialog.setContentPane(dashboardPanel);
+        dialog.addWindowListener(
+                new WindowAdapter() {
+                    @Override
+                    public void windowClosed(WindowEvent we) {
+                        find.cancel();
+                        jobScheduler.submit(
+                                new JobScheduler.Job("Close dashboard of " + root.getName(),
+                                        JobScheduler.Priority.BACKGROUND, root) {
+                                    @Override
+                                    protected void execute() {
+                                        dashboardPanel.getDashboard().close();
+                                    }
+                                });
+                    }
+                });
+        dialog.pack();
+        dialog.setLocationRelativeTo(gui);
+        dialog.setVisible(true);
+        jobScheduler.submit(find);
+    }
+
+    /**
+     * With the idle box ticked, no input for 5 minutes &amp; no jobs, check one repository seen
+     * in this session that was not checked for a day, and gc it if it needs it. Results are
+     * appended to ~/.filemanager/maintenance/gc.log.
+     */
+    private void idleMaintenance() {
+        long now = System.currentTimeMillis();
+        if (!idleMaintenance.isSelected() || now - lastInput < IDLE_MILLIS
+                || jobScheduler.getRunningCount() + jobScheduler.getQueuedCount() > 0) {
+            return;
+        }
+        for (final File workTree : statusMonitor.getWorkTrees()) {
+            Long last = maintained.get(workTree);
+            if (last != null && now - last < MAINTENANCE_INTERVAL_MILLIS) {
+                continue;
+            }
+            maintained.put(workTree, now);
+            jobScheduler.submit(
+                    new UiJob("git gc --auto " + workTree, JobScheduler.Priority.BACKGROUND, workTree) {
+                        @Override
+                        protected void execute() throws Exception {
+                            if (!RepositoryMaintenance.isNeeded(RepositoryMaintenance.statistics(workTree))) {
+                                return;
+                            }
+                            RepositoryMaintenance.Report report = RepositoryMaintenance.run(workTree, this);
+                            File log = new File(getDataDirectory("maintenance"), "gc.log");
+                            FileUtils.writeStringToFile(log, new Date() + "\n" + report + "\n\n",
+                                    StandardCharsets.UTF_8, true);
+                        }
+
+                        @Override
+                        protected void failed(Throwable t) {
+                            // nobody asked for it, so no dialog
+                            t.printStackTrace();
+                        }
+                    });
+            return;
+        }
     }
 
     private void commitHistoryButton() {
@@ -1376,51 +2047,120 @@ public class FileManager {
             return;
         }
 
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir == null) {
             showErrorMessage("This directory doesn't use git.", "No Git Directory");
             return;
         }
 
+        final File workTree = currentFile.getAbsoluteFile();
+        final File historyGitDir = gitDir;
+        jobScheduler.submit(
+                new UiJob("Open commit index " + workTree.getName(), JobScheduler.Priority.INTERACTIVE, workTree) {
+                    private CommitIndex index;
+
+                    @Override
+                    protected void execute() {
+                        index = commitIndex(historyGitDir);
+                    }
+
+                    @Override
+                    protected void succeeded() {
+                        showCommitHistory(workTree, historyGitDir, index);
+                    }
+                });
+    }
+
+    /**
+     * The commit index of the repository at gitDir, loaded when first asked for.
+     */
+    private CommitIndex commitIndex(File gitDir) {
+        synchronized (commitIndexes) {
+            CommitIndex index = commitIndexes.get(gitDir);
+            if (index == null) {
+                index = CommitIndex.open(getDataDirectory("commits"), gitDir);
+                commitIndexes.put(gitDir, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Show the history with its search box while commits new since the last time are indexed.
+     */
+    private void showCommitHistory(File workTree, File gitDir, final CommitIndex index) {
         try {
-            Repository repository = new FileRepositoryBuilder().setWorkTree(currentFile.getAbsoluteFile()).setGitDir(gitDir).build();
-            Git git = new Git(repository);
-            Iterable<RevCommit> logs = git.log().all().call();
+            final CommitSearchPanel commitHistoryPanel = new CommitSearchPanel(index);
+            commitHistoryPanel.setIndexing(true);
+            jobScheduler.submit(
+                    new UiJob("Index commits of " + workTree.getName(), JobScheduler.Priority.NORMAL, gitDir) {
+                        @Override
+                        protected void execute() throws Exception {
+                            if (index.update(this) > 0) {
+                                index.save();
+                            }
+                        }
+
+                        @Override
+                        protected void failed(Throwable t) {
+                            t.printStackTrace();
+                            commitHistoryPanel.setFailure(t.toString());
+                        }
 
-            JPanel commitHistoryPanel = createCommitHistoryPanel(logs);
+                        @Override
+                        protected void cleanup() {
+                            commitHistoryPanel.setIndexing(false);
+                        }
+                    });
 
             int result =
                     JOptionPane.showConfirmDialog(
                             gui, commitHistoryPanel, "History", JOptionPane.OK_CANCEL_OPTION);
 
-            if (result == JOptionPane.OK_OPTION) {
-                JList<String> commitList = (JList<String>) commitHistoryPanel.getClientProperty("commitList");
+            if (result == JOptionPane.OK_OPTION && !commitHistoryPanel.getList().isSelectionEmpty()) {
+                JList<String> commitList = commitHistoryPanel.getList();
+                List<String> selected = commitList.getSelectedValuesList();
+                if (selected.size() == 2) {
+                    // newest first, so the second is the older commit
+                    showCommitDiff(workTree, selected.get(1).split(" -")[0], selected.get(0).split(" -")[0]);
+                    return;
+                }
                 String commitId = commitList.getSelectedValue().split(" -")[0];
 
+                Repository repository = new FileRepositoryBuilder().setWorkTree(workTree).setGitDir(gitDir).build();
+                Git git = new Git(repository);
                 RevCommit selectedCommit = getCommitById(git, commitId);
+                git.close();
 
                 JPanel commitDetailsPanel = createCommitDetailsPanel(selectedCommit);
-                JOptionPane.showMessageDialog(gui, commitDetailsPanel, commitId.substring(0, 10), JOptionPane.PLAIN_MESSAGE);
+                Object[] options = {"Close", "Show changes"};
+                int choice = JOptionPane.showOptionDialog(gui, commitDetailsPanel, commitId.substring(0, 10),
+                        JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
+                if (choice == 1) {
+                    showCommitDiff(workTree, null, commitId);
+                }
             }
-            git.close();
-        } catch (IOException | GitAPIException e) {
+        } catch (IOException e) {
             showErrorMessage("An error occurred during loading the commit history.", "Commit History Error");
         }
 
         gui.repaint();
     }
 
-    private JPanel createCommitHistoryPanel(Iterable<RevCommit> logs) {
-        JPanel commitHistoryPanel = new JPanel(new BorderLayout(3, 3));
-        DefaultListModel<String> commitListModel = new DefaultListModel<>();
-        for (RevCommit rev : logs) {
-            commitListModel.addElement(rev.getId().getName() + " - [" + rev.getShortMessage() + "]");
-        }
-        JList<String> commitList = new JList<>(commitListModel);
-        commitHistoryPanel.add(new JScrollPane(commitList), BorderLayout.CENTER);
-
-        commitHistoryPanel.putClientProperty("commitList", commitList);
-        return commitHistoryPanel;
+    /**
+     * Show the changes from oldCommit, or the parent of newCommit when it is null, in a window of
+     * its own.
+     */
+    private void showCommitDiff(File workTree, String oldCommit, String newCommit) {
+        DiffPanel commitDiff = new DiffPanel(jobScheduler, gitDiff);
+        String title = (oldCommit == null ? "" : oldCommit.substring(0, 10) + "..") + newCommit.substring(0, 10);
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(gui), title);
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dialog.setContentPane(commitDiff);
+        dialog.setSize(800, 600);
+        dialog.setLocationRelativeTo(gui);
+        dialog.setVisible(true);
+        commitDiff.showCommits(workTree, oldCommit, newCommit);
     }
 
     private RevCommit getCommitById(Git git, String commitId) throws IOException {
@@ -1472,7 +2212,7 @@ public class FileManager {
         }
 
         // if the directory doesn't use git, can't use git command.
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir == null) {
             showErrorMessage("This directory doesn't use git. Press init Button first.", "No Git Directory");
             return; // Exit the method without creating branchCreatePanel.
@@ -1487,26 +2227,22 @@ public class FileManager {
 
         // if user click ok. do branch creation.
         if (result == JOptionPane.OK_OPTION) {
-            try {
-                JTextField branchNameField = (JTextField) branchCreatePanel.getClientProperty("branchNameField");
-                String branchName = branchNameField.getText();
-                if (branchName.trim().isEmpty()) {
-                    showErrorMessage("Branch name cannot be empty.", "Empty Branch Name");
-                    return;
-                }
-
-                // get the repository to use git command.
-                Repository repository =
-                        new FileRepositoryBuilder().setWorkTree(currentFile.getAbsoluteFile()).setGitDir(gitDir).build();
-
-                Git git = new Git(repository);
-                git.branchCreate().setName(branchName).call();
-                git.close();
-
-                JOptionPane.showMessageDialog(gui, "Successfully Created Branch", "Branch Creation Success", JOptionPane.INFORMATION_MESSAGE);
-            } catch (IOException | GitAPIException e) {
-                showErrorMessage("An error occurred during the branch creation process.", "Branch Creation Error");
+            JTextField branchNameField = (JTextField) branchCreatePanel.getClientProperty("branchNameField");
+            String branchName = branchNameField.getText();
+            if (branchName.trim().isEmpty()) {
+                showErrorMessage("Branch name cannot be empty.", "Empty Branch Name");
+                return;
             }
+
+            final String name = branchName;
+            callInBackground("git branch " + branchName, currentFile.getAbsoluteFile(), gitDir,
+                    new GitEngine.Operation() {
+                        public void run(GitEngine engine) throws Exception {
+                            engine.createBranch(name);
+                        }
+                    },
+                    "Successfully Created Branch", "Branch Creation Success",
+                    "An error occurred during the branch creation process.", "Branch Creation Error");
         }
 
         gui.repaint();
@@ -1532,68 +2268,67 @@ public class FileManager {
         }
 
         // if the directory doesn't use git, can't use git command.
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir == null) {
             showErrorMessage("This directory doesn't use git. Press init Button first.", "No Git Directory");
             return; // Exit the method without creating branchDeletePanel.
         }
 
-        try {
-            // get the repository to use git command.
-            Repository repository =
-                    new FileRepositoryBuilder().setWorkTree(currentFile.getAbsoluteFile()).setGitDir(gitDir).build();
-
-            Git git = new Git(repository);
-
-            // separate ui and model
-            JPanel branchDeletePanel = createBranchDeletePanel(git);
-
-            int result =
-                    JOptionPane.showConfirmDialog(
-                            gui, branchDeletePanel, "Delete Branch", JOptionPane.OK_CANCEL_OPTION);
+        jobScheduler.submit(
+                new BranchesJob(currentFile.getAbsoluteFile(), gitDir) {
+                    @Override
+                    protected void showDialog(File workTree, File gitDir, List<String> branches) {
+                        showBranchDeleteDialog(workTree, gitDir, branches);
+                    }
+                });
+    }
 
-            // if user click ok. do branch deletion.
-            if (result == JOptionPane.OK_OPTION) {
-                // get the chosen branch
-                JList<String> branchList = (JList<String>) branchDeletePanel.getClientProperty("branchList");
-                String branchName = branchList.getSelectedValue();
+    private void showBranchDeleteDialog(File workTree, File gitDir, List<String> branches) {
+        // separate ui and model
+        JPanel branchDeletePanel = createBranchDeletePanel(branches);
 
+        int result =
+                JOptionPane.showConfirmDialog(
+                        gui, branchDeletePanel, "Delete Branch", JOptionPane.OK_CANCEL_OPTION);
 
-                if (branchName == null || branchName.trim().isEmpty()) {
-                    showErrorMessage("No branch selected.", "No Branch Selected");
-                    return;
-                }
+        // if user click ok. do branch deletion.
+        if (result == JOptionPane.OK_OPTION) {
+            // get the chosen branch
+            JList<String> branchList = (JList<String>) branchDeletePanel.getClientProperty("branchList");
+            String branchName = branchList.getSelectedValue();
 
-                git.branchDelete().setBranchNames(branchName).call();
-                git.close();
 
-                JOptionPane.showMessageDialog(gui, "Successfully Deleted Branch", "Branch Deletion Success", JOptionPane.INFORMATION_MESSAGE);
+            if (branchName == null || branchName.trim().isEmpty()) {
+                showErrorMessage("No branch selected.", "No Branch Selected");
+                return;
             }
 
-            gui.repaint();
-        } catch (IOException | GitAPIException e) {
-            showErrorMessage("An error occurred during the branch deletion process.", "Branch Deletion Error");
+            final String name = branchName;
+            callInBackground("git branch -d " + branchName, workTree, gitDir,
+                    new GitEngine.Operation() {
+                        public void run(GitEngine engine) throws Exception {
+                            engine.deleteBranch(name);
+                        }
+                    },
+                    "Successfully Deleted Branch", "Branch Deletion Success",
+                    "An error occurred during the branch deletion process.", "Branch Deletion Error");
         }
+
+        gui.repaint();
     }
 
-    private JPanel createBranchDeletePanel(Git git) {
+    private JPanel createBranchDeletePanel(List<String> branches) {
         JPanel branchDeletePanel = new JPanel(new BorderLayout(3, 3));
 
-        try {
-            List<String> branches = git.branchList().call().stream().map(Ref::getName).collect(Collectors.toList());
-
-            DefaultListModel<String> branchListModel = new DefaultListModel<>();
-            for (String branch : branches) {
-                branchListModel.addElement(branch);
-            }
-            JList<String> branchList = new JList<>(branchListModel);
-
-            branchDeletePanel.add(new JLabel("Branch List"), BorderLayout.NORTH);
-            branchDeletePanel.add(new JScrollPane(branchList), BorderLayout.CENTER);
-            branchDeletePanel.putClientProperty("branchList", branchList);
-        } catch (GitAPIException e) {
-            showErrorMessage("Failed to load branches.", "Branch Load Error");
+        DefaultListModel<String> branchListModel = new DefaultListModel<>();
+        for (String branch : branches) {
+            branchListModel.addElement(branch);
         }
+        JList<String> branchList = new JList<>(branchListModel);
+
+        branchDeletePanel.add(new JLabel("Branch List"), BorderLayout.NORTH);
+        branchDeletePanel.add(new JScrollPane(branchList), BorderLayout.CENTER);
+        branchDeletePanel.putClientProperty("branchList", branchList);
 
         return branchDeletePanel;
     }
@@ -1606,80 +2341,81 @@ public class FileManager {
         }
 
         // if the directory doesn't use git, can't use git command.
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir == null) {
             showErrorMessage("This directory doesn't use git. Press init Button first.", "No Git Directory");
             return; // Exit the method without creating branchRenamePanel.
         }
 
-        try {
-            Repository repository =
-                    new FileRepositoryBuilder().setWorkTree(currentFile.getAbsoluteFile()).setGitDir(gitDir).build();
-
-            Git git = new Git(repository);
-
-            // separate ui and model
-            JPanel branchRenamePanel = createBranchRenamePanel(git);
-
-            int result =
-                    JOptionPane.showConfirmDialog(
-                            gui, branchRenamePanel, "Rename Branch", JOptionPane.OK_CANCEL_OPTION);
+        jobScheduler.submit(
+                new BranchesJob(currentFile.getAbsoluteFile(), gitDir) {
+                    @Override
+                    protected void showDialog(File workTree, File gitDir, List<String> branches) {
+                        showBranchRenameDialog(workTree, gitDir, branches);
+                    }
+                });
+    }
 
-            if (result == JOptionPane.OK_OPTION) {
-                JList<String> branchList = (JList<String>) branchRenamePanel.getClientProperty("branchList");
+    private void showBranchRenameDialog(File workTree, File gitDir, List<String> branches) {
+        // separate ui and model
+        JPanel branchRenamePanel = createBranchRenamePanel(branches);
 
-                // get the old branch name
-                String oldBranchName = branchList.getSelectedValue();
+        int result =
+                JOptionPane.showConfirmDialog(
+                        gui, branchRenamePanel, "Rename Branch", JOptionPane.OK_CANCEL_OPTION);
 
-                // get the new branch name
-                JTextField newNameField = (JTextField) branchRenamePanel.getClientProperty("newNameField");
-                String newBranchName = newNameField.getText();
+        if (result == JOptionPane.OK_OPTION) {
+            JList<String> branchList = (JList<String>) branchRenamePanel.getClientProperty("branchList");
 
-                if (oldBranchName == null || oldBranchName.trim().isEmpty() || newBranchName.trim().isEmpty()) {
-                    showErrorMessage("No branch selected or new branch name is empty.", "No Branch Selected / Empty Name");
-                    return;
-                }
+            // get the old branch name
+            String oldBranchName = branchList.getSelectedValue();
 
-                git.branchRename().setOldName(oldBranchName).setNewName(newBranchName).call();
-                git.close();
+            // get the new branch name
+            JTextField newNameField = (JTextField) branchRenamePanel.getClientProperty("newNameField");
+            String newBranchName = newNameField.getText();
 
-                JOptionPane.showMessageDialog(gui, "Successfully Renamed Branch", "Branch Rename Success", JOptionPane.INFORMATION_MESSAGE);
+            if (oldBranchName == null || oldBranchName.trim().isEmpty() || newBranchName.trim().isEmpty()) {
+                showErrorMessage("No branch selected or new branch name is empty.", "No Branch Selected / Empty Name");
+                return;
             }
 
-            gui.repaint();
-        } catch (IOException | GitAPIException e) {
-            showErrorMessage("An error occurred during the branch renaming process.", "Branch Rename Error");
+            final String oldName = oldBranchName;
+            final String newName = newBranchName;
+            callInBackground("git branch -m " + newBranchName, workTree, gitDir,
+                    new GitEngine.Operation() {
+                        public void run(GitEngine engine) throws Exception {
+                            engine.renameBranch(oldName, newName);
+                        }
+                    },
+                    "Successfully Renamed Branch", "Branch Rename Success",
+                    "An error occurred during the branch renaming process.", "Branch Rename Error");
         }
+
+        gui.repaint();
     }
 
-    private JPanel createBranchRenamePanel(Git git) {
+    private JPanel createBranchRenamePanel(List<String> branches) {
         JPanel branchRenamePanel = new JPanel(new BorderLayout(3, 3));
 
-        try {
-            List<String> branches = git.branchList().call().stream().map(Ref::getName).collect(Collectors.toList());
-
-            DefaultListModel<String> branchListModel = new DefaultListModel<>();
-            for (String branch : branches) {
-                branchListModel.addElement(branch);
-            }
-            JList<String> branchList = new JList<>(branchListModel);
+        DefaultListModel<String> branchListModel = new DefaultListModel<>();
+        for (String branch : branches) {
+            branchListModel.addElement(branch);
+        }
+        JList<String> branchList = new JList<>(branchListModel);
 
-            JTextField newNameField = new JTextField();
-            JLabel newNameLabel = new JLabel("New Branch Name");
+        JTextField newNameField = new JTextField();
+        JLabel newNameLabel = new JLabel("New Branch Name");
 
-            JPanel newNamePanel = new JPanel(new BorderLayout());
-            newNamePanel.add(newNameLabel, BorderLayout.NORTH);
-            newNamePanel.add(newNameField, BorderLayout.CENTER);
+        JPanel newNamePanel = new JPanel(new BorderLayout());
+        newNamePanel.add(newNameLabel, BorderLayout.NORTH);
+        newNamePanel.add(newNameField, BorderLayout.CENTER);
 
-            branchRenamePanel.add(new JLabel("Branch List"), BorderLayout.NORTH);
-            branchRenamePanel.add(new JScrollPane(branchList), BorderLayout.CENTER);
-            branchRenamePanel.add(newNamePanel, BorderLayout.SOUTH);
+        branchRenamePanel.add(new JLabel("Branch List"), BorderLayout.NORTH);
+        branchRenamePanel.add(new JScrollPane(branchList), BorderLayout.CENTER);
+        branchRenamePanel.add(newNamePanel, BorderLayout.SOUTH);
 
-            branchRenamePanel.putClientProperty("branchList", branchList);
-            branchRenamePanel.putClientProperty("newNameField", newNameField);
-        } catch (GitAPIException e) {
-            showErrorMessage("Failed to load branches.", "Branch Load Error");
-        }
+        branchRenamePanel.putClientProperty("branchList", branchList);
+        branchRenamePanel.putClientProperty("newNameField", newNameField);
 
         return branchRenamePanel;
     }
@@ -1691,65 +2427,64 @@ public class FileManager {
         }
 
         // if the directory doesn't use git, can't use git command.
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir == null) {
             showErrorMessage("This directory doesn't use git. Press init Button first.", "No Git Directory");
             return; // Exit the method without creating branchCheckoutPanel.
         }
 
-        try {
-            // get the repository to use git command.
-            Repository repository =
-                    new FileRepositoryBuilder().setWorkTree(currentFile.getAbsoluteFile()).setGitDir(gitDir).build();
-
-            Git git = new Git(repository);
-
-            JPanel checkoutPanel = createBranchCheckoutPanel(git);
-
-            int result =
-                    JOptionPane.showConfirmDialog(
-                            gui, checkoutPanel, "Checkout Branch", JOptionPane.OK_CANCEL_OPTION);
+        jobScheduler.submit(
+                new BranchesJob(currentFile.getAbsoluteFile(), gitDir) {
+                    @Override
+                    protected void showDialog(File workTree, File gitDir, List<String> branches) {
+                        showBranchCheckoutDialog(workTree, gitDir, branches);
+                    }
+                });
+    }
 
-            // if user clicked ok. do branch deletion.
-            if (result == JOptionPane.OK_OPTION) {
-                JList<String> branchList = (JList<String>) checkoutPanel.getClientProperty("branchList");
-                String branchName = branchList.getSelectedValue();
+    private void showBranchCheckoutDialog(File workTree, File gitDir, List<String> branches) {
+        JPanel checkoutPanel = createBranchCheckoutPanel(branches);
 
-                if (branchName == null || branchName.trim().isEmpty()) {
-                    showErrorMessage("No branch selected.", "No Branch Selected");
-                    return;
-                }
+        int result =
+                JOptionPane.showConfirmDialog(
+                        gui, checkoutPanel, "Checkout Branch", JOptionPane.OK_CANCEL_OPTION);
 
-                git.checkout().setName(branchName).call();
-                git.close();
+        // if user clicked ok. do branch deletion.
+        if (result == JOptionPane.OK_OPTION) {
+            JList<String> branchList = (JList<String>) checkoutPanel.getClientProperty("branchList");
+            String branchName = branchList.getSelectedValue();
 
-                JOptionPane.showMessageDialog(gui, "Successfully Checked Out Branch", "Checkout Success", JOptionPane.INFORMATION_MESSAGE);
+            if (branchName == null || branchName.trim().isEmpty()) {
+                showErrorMessage("No branch selected.", "No Branch Selected");
+                return;
             }
 
-            gui.repaint();
-        } catch (IOException | GitAPIException e) {
-            showErrorMessage("An error occurred during the checkout process.", "Checkout Error");
+            final String name = branchName;
+            callInBackground("git checkout " + branchName, workTree, gitDir,
+                    new GitEngine.Operation() {
+                        public void run(GitEngine engine) throws Exception {
+                            engine.checkout(name);
+                        }
+                    },
+                    "Successfully Checked Out Branch", "Checkout Success",
+                    "An error occurred during the checkout process.", "Checkout Error");
         }
+
+        gui.repaint();
     }
 
-    private JPanel createBranchCheckoutPanel(Git git) {
+    private JPanel createBranchCheckoutPanel(List<String> branches) {
         JPanel branchCheckoutPanel = new JPanel(new BorderLayout(3, 3));
 
-        try {
-            List<String> branches = git.branchList().call().stream().map(Ref::getName).collect(Collectors.toList());
-
-            DefaultListModel<String> branchListModel = new DefaultListModel<>();
-            for (String branch : branches) {
-                branchListModel.addElement(branch);
-            }
-            JList<String> branchList = new JList<>(branchListModel);
-
-            branchCheckoutPanel.add(new JLabel("Branch List"), BorderLayout.NORTH);
-            branchCheckoutPanel.add(new JScrollPane(branchList), BorderLayout.CENTER);
-            branchCheckoutPanel.putClientProperty("branchList", branchList);
-        } catch (GitAPIException e) {
-            showErrorMessage("Failed to load branches.", "Branch Load Error");
+        DefaultListModel<String> branchListModel = new DefaultListModel<>();
+        for (String branch : branches) {
+            branchListModel.addElement(branch);
         }
+        JList<String> branchList = new JList<>(branchListModel);
+
+        branchCheckoutPanel.add(new JLabel("Branch List"), BorderLayout.NORTH);
+        branchCheckoutPanel.add(new JScrollPane(branchList), BorderLayout.CENTER);
+        branchCheckoutPanel.putClientProperty("branchList", branchList);
 
         return branchCheckoutPanel;
     }
@@ -1761,108 +2496,386 @@ public class FileManager {
         }
 
         // if the directory doesn't use git, can't use git command.
-        File gitDir = findGitDir(currentFile.getAbsoluteFile());
+        File gitDir = GitSupport.findGitDir(currentFile.getAbsoluteFile());
         if (gitDir == null) {
             showErrorMessage("This directory doesn't use git. Press init Button first.", "No Git Directory");
             return; // Exit the method without creating mergePanel.
         }
 
-        try {
-            // get the repository to use git command.
-            Repository repository =
-                    new FileRepositoryBuilder().setWorkTree(currentFile.getAbsoluteFile()).setGitDir(gitDir).build();
+        jobScheduler.submit(
+                new BranchesJob(currentFile.getAbsoluteFile(), gitDir) {
+                    @Override
+                    protected void showDialog(File workTree, File gitDir, List<String> branches) {
+                        showMergeDialog(workTree, gitDir, branches);
+                    }
+                });
+    }
 
-            Git git = new Git(repository);
+    private void showMergeDialog(final File workTree, final File mergeGitDir, List<String> branches) {
+        JPanel mergePanel = createMergePanel(branches);
 
-            JPanel mergePanel = createMergePanel(git);
+        int result =
+                JOptionPane.showConfirmDialog(
+                        gui, mergePanel, "Merge", JOptionPane.OK_CANCEL_OPTION);
 
-            int result =
-                    JOptionPane.showConfirmDialog(
-                            gui, mergePanel, "Merge", JOptionPane.OK_CANCEL_OPTION);
+        // if user clicked ok. do merge.
+        if (result == JOptionPane.OK_OPTION) {
+            JList<String> branchList = (JList<String>) mergePanel.getClientProperty("branchList");
+            String branchName = branchList.getSelectedValue();
 
-            // if user clicked ok. do merge.
-            if (result == JOptionPane.OK_OPTION) {
-                JList<String> branchList = (JList<String>) mergePanel.getClientProperty("branchList");
-                String branchName = branchList.getSelectedValue();
+            if (branchName == null || branchName.trim().isEmpty()) {
+                showErrorMessage("No branch selected.", "No Branch Selected");
+                return;
+            }
 
-                String[] tokens = branchName.split("/");
+            String[] tokens = branchName.split("/");
 
-                String mergeBranch = tokens[2];
-                String currentBranch = getCurrentBranch(currentFile);
+            final String mergeBranch = tokens[2];
+            String currentBranch = getCurrentBranch(workTree);
 
-                if (branchName == null || branchName.trim().isEmpty()) {
-                    showErrorMessage("No branch selected.", "No Branch Selected");
-                    return;
-                } else if (mergeBranch.equals(currentBranch)) {
-                    showErrorMessage("Same branch selected", "Same Branch Selected");
-                    return;
-                }
+            if (mergeBranch.equals(currentBranch)) {
+                showErrorMessage("Same branch selected", "Same Branch Selected");
+                return;
+            }
 
-                String path = currentFile.getPath();
-                if (path.contains(" ")) {
-                    path = path.replace(" ", "\\ ");
-                }
+            jobScheduler.submit(
+                    new UiJob("git merge " + mergeBranch, JobScheduler.Priority.NORMAL, workTree) {
+                        private boolean conflict;
+
+                        @Override
+                        protected void execute() throws Exception {
+                            try (GitEngine engine = new GitEngine(workTree, mergeGitDir)) {
+                                conflict = !engine.merge(mergeBranch, this);
+                            }
+                        }
+
+                        @Override
+                        protected void succeeded() {
+                            if (conflict) {
+                                JOptionPane.showMessageDialog(gui, "Failed Merge, Already merge --abort", "Merge Fail", JOptionPane.INFORMATION_MESSAGE);
+                            } else {
+                                JOptionPane.showMessageDialog(gui, "Successfully Merge", "Merge Success", JOptionPane.INFORMATION_MESSAGE);
+                            }
+                        }
 
-                Process p;
-                String cmd = "cd " + path + " && git merge " + mergeBranch;
-                String[] command = {"/bin/sh", "-c", cmd};
-                p = Runtime.getRuntime().exec(command);
+                        @Override
+                        protected void failed(Throwable t) {
+                            showErrorMessage("An error occurred during the merge process.", "Merge Error");
+                        }
+                    });
+        }
 
+        gui.repaint();
+    }
 
-                // execute merge
-                Thread.sleep(2000);
+    private JPanel createMergePanel(List<String> branches) {
+        JPanel branchPanel = new JPanel(new BorderLayout(3, 3));
 
-                String checkCmd = "cd " + path + "/.git && cat MERGE_HEAD";
-                String[] checkCommand = {"/bin/sh", "-c", checkCmd};
-                p = Runtime.getRuntime().exec(checkCommand);
+        DefaultListModel<String> branchListModel = new DefaultListModel<>();
+        for (String branch : branches) {
+            branchListModel.addElement(branch);
+        }
+        JList<String> branchList = new JList<>(branchListModel);
 
-                InputStream inputStream = p.getInputStream();
-                BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-                String line;
-                StringBuilder output = new StringBuilder();
+        branchPanel.add(new JLabel("Branches"), BorderLayout.NORTH);
+        branchPanel.add(new JScrollPane(branchList), BorderLayout.CENTER);
+        branchPanel.putClientProperty("branchList", branchList);
 
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
+        return branchPanel;
+    }
 
-                if (output.length() != 0 && !output.toString().substring(0, 3).equals("cat")) {
-                    String errorCmd = "cd " + path + " && git merge --abort";
-                    String[] errorCommand = {"/bin/sh", "-c", errorCmd};
-                    p = Runtime.getRuntime().exec(errorCommand);
+    /**
+     * Run a git operation in the background on an engine opened there, and report the outcome
+     * with a dialog. The engine is closed afterwards.
+     */
+    private void callInBackground(
+            String name,
+            final File workTree,
+            final File gitDir,
+            final GitEngine.Operation operation,
+            final String successMessage,
+            final String successTitle,
+            final String errorMessage,
+            final String errorTitle) {
+        jobScheduler.submit(
+                new UiJob(name, JobScheduler.Priority.NORMAL, workTree) {
+                    @Override
+                    protected void execute() throws Exception {
+                        try (GitEngine engine = new GitEngine(workTree, gitDir)) {
+                            operation.run(engine);
+                        }
+                    }
 
-                    JOptionPane.showMessageDialog(gui, "Failed Merge, Already merge --abort", "Merge Fail", JOptionPane.INFORMATION_MESSAGE);
-                    return;
-                }
+                    @Override
+                    protected void succeeded() {
+                        JOptionPane.showMessageDialog(gui, successMessage, successTitle, JOptionPane.INFORMATION_MESSAGE);
+                        gui.repaint();
+                    }
 
-                JOptionPane.showMessageDialog(gui, "Successfully Merge", "Merge Success", JOptionPane.INFORMATION_MESSAGE);
-            }
+                    @Override
+                    protected void failed(Throwable t) {
+                        showErrorMessage(errorMessage, errorTitle);
+                    }
+                });
+    }
 
-            gui.repaint();
-        } catch (IOException | InterruptedException e) {
-            showErrorMessage("An error occurred during the merge process.", "Merge Error");
+    /**
+     * Run a shell command (e.g. "cd dir &amp;&amp; git add file") as a scheduled job, showing its
+     * output if it fails.
+     */
+    private void runCommandJob(File location, final String cmd) {
+        String name = cmd.contains("&& ") ? cmd.substring(cmd.indexOf("&& ") + 3) : cmd;
+        jobScheduler.submit(
+                new UiJob(name, JobScheduler.Priority.NORMAL, location) {
+                    @Override
+                    protected void execute() throws Exception {
+                        GitSupport.runCommand(this, cmd);
+                    }
+
+                    @Override
+                    protected void succeeded() {
+                        table.repaint();
+                    }
+
+                    @Override
+                    protected void failed(Throwable t) {
+                        showErrorMessage(t.getMessage(), getName() + " Failed");
+                    }
+                });
+    }
+
+    private void showSearch() {
+        if (searchDialog == null) {
+            searchDialog = new JDialog(SwingUtilities.getWindowAncestor(gui), "Search");
+            searchDialog.setContentPane(
+                    new SearchPanel(jobScheduler, fileSearch) {
+                        @Override
+                        protected File getCurrentDirectory() {
+                            return FileManager.this.getCurrentDirectory();
+                        }
+
+                        @Override
+                        protected void open(File file) {
+                            showFile(file);
+                        }
+                    });
+            searchDialog.pack();
+            searchDialog.setLocationRelativeTo(gui);
         }
+        searchDialog.setVisible(true);
     }
 
-    private JPanel createMergePanel(Git git) {
-        JPanel branchPanel = new JPanel(new BorderLayout(3, 3));
+    private void showContentSearch() {
+        if (contentSearchDialog == null) {
+            contentSearchDialog = new JDialog(SwingUtilities.getWindowAncestor(gui), "Find in files");
+            contentSearchDialog.setContentPane(
+                    new ContentSearchPanel(jobScheduler) {
+                        @Override
+                        protected File getCurrentDirectory() {
+                            return FileManager.this.getCurrentDirectory();
+                        }
 
-        try {
-            List<String> branches = git.branchList().call().stream().map(Ref::getName).collect(Collectors.toList());
+                        @Override
+                        protected void open(File file) {
+                            showFile(file);
+                        }
+                    });
+            contentSearchDialog.pack();
+            contentSearchDialog.setLocationRelativeTo(gui);
+        }
+        contentSearchDialog.setVisible(true);
+    }
 
-            DefaultListModel<String> branchListModel = new DefaultListModel<>();
-            for (String branch : branches) {
-                branchListModel.addElement(branch);
+    private void showThumbnails(boolean thumbnails) {
+        if (thumbnails && fileTableModel != null) {
+            File[] files = new File[fileTableModel.getRowCount()];
+            for (int ii = 0; ii < files.length; ii++) {
+                files[ii] = fileTableModel.getFile(ii);
             }
-            JList<String> branchList = new JList<>(branchListModel);
+            thumbnailPanel.setFiles(files);
+        }
+        ((CardLayout) filesView.getLayout()).show(filesView, thumbnails ? "thumbnails" : "table");
+    }
 
-            branchPanel.add(new JLabel("Branches"), BorderLayout.NORTH);
-            branchPanel.add(new JScrollPane(branchList), BorderLayout.CENTER);
-            branchPanel.putClientProperty("branchList", branchList);
-        } catch (GitAPIException e) {
-            showErrorMessage("Failed to load branches.", "Branch Load Error");
+    private void showChecksums(Checksums.Algorithm algorithm) {
+        checksumAlgorithm = algorithm;
+        if (fileTableModel != null) {
+            fileTableModel.setChecksums(checksums, algorithm);
+            setColumnWidths();
         }
+    }
 
-        return branchPanel;
+    private void verifyManifests() {
+        if (currentFile == null) {
+            showErrorMessage("No manifest or directory selected to verify.", "Select File");
+            return;
+        }
+        final List<File> manifests = Checksums.findManifests(currentFile);
+        if (manifests.isEmpty()) {
+            showErrorMessage("No .sha256 manifest found in " + currentFile, "Verify");
+            return;
+        }
+        jobScheduler.submit(
+                new UiJob("Verify " + currentFile, JobScheduler.Priority.NORMAL, currentFile) {
+                    private Checksums.Verification verification;
+
+                    @Override
+                    protected void execute() throws Exception {
+                        verification = checksums.verify(manifests, this);
+                    }
+
+                    @Override
+                    protected void succeeded() {
+                        StringBuilder message = new StringBuilder(verification.summary());
+                        List<String> problems = new ArrayList<>();
+                        for (String path : verification.getMismatched()) {
+                            problems.add("mismatch: " + path);
+                        }
+                        for (String path : verification.getMissing()) {
+                            problems.add("missing: " + path);
+                        }
+                        for (int ii = 0; ii < problems.size() && ii < 20; ii++) {
+                            message.append('\n').append(problems.get(ii));
+                        }
+                        if (problems.size() > 20) {
+                            message.append("\n...");
+                        }
+                        JOptionPane.showMessageDialog(gui, message.toString(), "Verify",
+                                verification.isOk() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+                        if (fileTableModel != null) {
+                            fileTableModel.fireTableDataChanged();
+                        }
+                    }
+                });
+    }
+
+    private void showTreemap() {
+        File directory = getCurrentDirectory();
+        if (directory == null || directory instanceof ArchiveEntry) {
+            showErrorMessage("No directory selected to show the disk usage of.", "Select Directory");
+            return;
+        }
+        treemapPanel.setDirectory(directory);
+        detailTabs.setSelectedComponent(treemapPanel);
+    }
+
+    private void findDuplicates() {
+        final File directory = getCurrentDirectory();
+        if (directory == null) {
+            showErrorMessage("No directory selected to search for duplicates.", "Select Directory");
+            return;
+        }
+        jobScheduler.submit(
+                new UiJob("Duplicates in " + directory, JobScheduler.Priority.NORMAL, directory) {
+                    private final DuplicateFinder finder = new DuplicateFinder(directory);
+                    private List<DuplicateFinder.Group> groups;
+
+                    @Override
+                    protected void execute() throws Exception {
+                        groups = finder.run(this);
+                    }
+
+                    @Override
+                    protected void succeeded() {
+                        showDuplicates(groups, finder.summary());
+                    }
+                });
+    }
+
+    private void showDuplicates(List<DuplicateFinder.Group> groups, String summary) {
+        if (duplicatesDialog == null) {
+            duplicatesPanel =
+                    new DuplicatesPanel() {
+                        @Override
+                        protected void deleteFiles(List<File> files) {
+                            int result =
+                                    JOptionPane.showConfirmDialog(
+                                            gui,
+                                            "Are you sure you want to delete these " + files.size() + " files?",
+                                            "Delete Files",
+                                            JOptionPane.ERROR_MESSAGE);
+                            if (result == JOptionPane.OK_OPTION) {
+                                runBatch(new BatchOperation(BatchOperation.Kind.DELETE, files));
+                            }
+                        }
+                    };
+            duplicatesDialog = new JDialog(SwingUtilities.getWindowAncestor(gui), "Duplicates");
+            duplicatesDialog.setContentPane(duplicatesPanel);
+            duplicatesDialog.pack();
+            duplicatesDialog.setLocationRelativeTo(gui);
+        }
+        duplicatesPanel.setGroups(groups, summary);
+        duplicatesDialog.setVisible(true);
+    }
+
+    /**
+     * The selected directory, or the directory of the selected file.
+     */
+    private File getCurrentDirectory() {
+        if (currentFile == null) {
+            return null;
+        }
+        return currentFile.isDirectory() ? currentFile : currentFile.getParentFile();
+    }
+
+    /**
+     * Select file in the tree if it is shown there, otherwise just show its details.
+     */
+    private void showFile(File file) {
+        TreePath treePath = findTreePath(file);
+        if (treePath != null) {
+            tree.setSelectionPath(treePath);
+            tree.scrollPathToVisible(treePath);
+        } else {
+            setFileDetails(file);
+        }
+    }
+
+    private void showJobs() {
+        if (jobsDialog == null) {
+            jobsDialog = new JDialog(SwingUtilities.getWindowAncestor(gui), "Jobs");
+            jobsDialog.setContentPane(new JobsPanel(jobScheduler));
+            jobsDialog.pack();
+            jobsDialog.setLocationRelativeTo(gui);
+        }
+        jobsDialog.setVisible(true);
+    }
+
+    private void showDiagnostics() {
+        if (diagnosticsDialog == null) {
+            diagnosticsDialog = new JDialog(SwingUtilities.getWindowAncestor(gui), "Diagnostics");
+            diagnosticsDialog.setContentPane(new DiagnosticsPanel(installEdtMonitor()));
+            diagnosticsDialog.pack();
+            diagnosticsDialog.setLocationRelativeTo(gui);
+        }
+        diagnosticsDialog.setVisible(true);
+    }
+
+    static EdtMonitor installEdtMonitor() {
+        return EdtMonitor.install(new File(getDataDirectory("diagnostics"), "edt-stalls.log"));
+    }
+
+    /**
+     * Reflect the scheduler's running/queued jobs in the status bar.
+     */
+    private void updateJobStatus() {
+        List<JobScheduler.Job> jobs = jobScheduler.getJobs();
+        int running = jobScheduler.getRunningCount();
+        if (jobs.isEmpty()) {
+            jobStatus.setText(" ");
+            progressBar.setVisible(false);
+            return;
+        }
+        jobStatus.setText(running + " running, " + (jobs.size() - running) + " queued");
+        JobScheduler.Job first = jobs.get(0);
+        if (running == 1 && first.getTotal() > 0) {
+            progressBar.setIndeterminate(false);
+            progressBar.setMaximum(first.getTotal());
+            progressBar.setValue(first.getDone());
+        } else {
+            progressBar.setIndeterminate(true);
+        }
+        progressBar.setVisible(true);
     }
 
     private void showErrorMessage(String errorMessage, String errorTitle) {
@@ -1875,6 +2888,19 @@ public class FileManager {
         gui.repaint();
     }
 
+    /**
+     * Show statuses that have been read again, in the table &amp; the tree's counts.
+     */
+    private void statusesChanged() {
+        if (fileTableModel != null && fileTableModel.getRowCount() > 0) {
+            fileTableModel.fireTableRowsUpdated(0, fileTableModel.getRowCount() - 1);
+        }
+        // labels change width, so let the tree measure the rows again
+        for (int row = 0; row < tree.getRowCount(); row++) {
+            treeModel.nodeChanged((TreeNode) tree.getPathForRow(row).getLastPathComponent());
+        }
+    }
+
     /**
      * Update the table on the EDT
      */
@@ -1884,27 +2910,25 @@ public class FileManager {
                     public void run() {
                         if (fileTableModel == null) {
                             fileTableModel = new FileTableModel();
+                            fileTableModel.setDirectorySizes(directorySizes);
+                            fileTableModel.setChecksums(checksums, checksumAlgorithm);
+                            fileTableModel.setStatusMonitor(statusMonitor);
                             table.setModel(fileTableModel);
                         }
                         table.getSelectionModel()
                                 .removeListSelectionListener(listSelectionListener);
                         fileTableModel.setFiles(files);
                         table.getSelectionModel().addListSelectionListener(listSelectionListener);
+                        if (thumbnailsButton.isSelected()) {
+                            thumbnailPanel.setFiles(files);
+                        }
                         if (!cellSizesSet) {
                             Icon icon = fileSystemView.getSystemIcon(files[0]);
 
                             // size adjustment to better account for icons
                             table.setRowHeight(icon.getIconHeight() + rowIconPadding);
 
-                            setColumnWidth(0, -1);
-                            setColumnWidth(3, 60);
-                            table.getColumnModel().getColumn(3).setMaxWidth(120);
-                            setColumnWidth(4, -1);
-                            setColumnWidth(5, -1);
-                            setColumnWidth(6, -1);
-                            setColumnWidth(7, -1);
-                            setColumnWidth(8, -1);
-                            setColumnWidth(9, -1);
+                            setColumnWidths();
 
                             cellSizesSet = true;
                         }
@@ -1912,6 +2936,20 @@ public class FileManager {
                 });
     }
 
+    /**
+     * Fixed widths for the narrow columns; File, Path/name &amp; checksum share the rest.
+     */
+    private void setColumnWidths() {
+        for (int column = 0; column < table.getColumnCount() && column <= 5; column++) {
+            if (column == 3) {
+                setColumnWidth(3, 60);
+                table.getColumnModel().getColumn(3).setMaxWidth(120);
+            } else if (column != 1 && column != 2) {
+                setColumnWidth(column, -1);
+            }
+        }
+    }
+
     private void setColumnWidth(int column, int width) {
         TableColumn tableColumn = table.getColumnModel().getColumn(column);
         if (width < 0) {
@@ -1928,18 +2966,12 @@ public class FileManager {
 
 
     /**
-     * findGitDir do finding the .git dir from currentFile variance.
-     * if There is .git return .git's file.
-     * else return null
+     * A directory below ~/.filemanager for caches &amp; indexes kept between sessions.
      */
-    private static File findGitDir(File directory) {
-        File gitDir = new File(directory, ".git");
-        if (gitDir.exists() && gitDir.isDirectory()) {
-            return gitDir;
-        } else {
-            File parent = directory.getParentFile();
-            return parent != null ? findGitDir(parent) : null;
-        }
+    static File getDataDirectory(String name) {
+        File directory = new File(new File(System.getProperty("user.home"), ".filemanager"), name);
+        directory.mkdirs();
+        return directory;
     }
 
     /**
@@ -1947,44 +2979,169 @@ public class FileManager {
      * Of Eels.
      */
     private void showChildren(final DefaultMutableTreeNode node) {
+        listedNode = node;
         tree.setEnabled(false);
-        progressBar.setVisible(true);
-        progressBar.setIndeterminate(true);
 
-        SwingWorker<Void, File> worker =
-                new SwingWorker<Void, File>() {
+        final File file = (File) node.getUserObject();
+        statusMonitor.open(file);
+        jobScheduler.submit(
+                new UiJob("List " + file.getPath(), JobScheduler.Priority.INTERACTIVE, file) {
+                    private File[] files;
+                    private long modified;
+
                     @Override
-                    public Void doInBackground() {
-                        File file = (File) node.getUserObject();
-                        if (file.isDirectory()) {
-                            File[] files = fileSystemView.getFiles(file, true); // !!
-                            if (node.isLeaf()) {
-                                for (File child : files) {
-                                    if (child.isDirectory()) {
-                                        publish(child);
-                                    }
+                    protected void execute() throws Exception {
+                        // taken first, so a change made while listing shows as a change later
+                        modified = NavigationHistory.stamp(file);
+                        files = DirectoryListing.list(file);
+                    }
+
+                    @Override
+                    protected void succeeded() {
+                        // another directory was shown (Back, say) while this one was listed
+                        if (files == null || listedNode != node) {
+                            return;
+                        }
+                        if (node.isLeaf()) {
+                            for (File child : files) {
+                                if (child.isDirectory() || ArchiveEntry.isArchive(child)) {
+                                    node.add(new DefaultMutableTreeNode(child));
                                 }
                             }
-                            setTableData(files);
                         }
-                        return null;
+                        setTableData(files);
+                        history.visit(file, files, modified);
+                        updateHistoryButtons();
+                        if (autoSizes.isSelected() && file.isDirectory() && !(file instanceof ArchiveEntry)) {
+                            calculateSize(file, JobScheduler.Priority.BACKGROUND, true);
+                        }
+                    }
+
+                    @Override
+                    protected void cleanup() {
+                        tree.setEnabled(true);
+                    }
+                });
+    }
+
+    /**
+     * Keep the scroll position &amp; selection of the table for when the listed directory is
+     * shown again.
+     */
+    private void rememberView() {
+        if (fileTableModel == null) {
+            return;
+        }
+        List<File> selected = new ArrayList<>();
+        for (int row : table.getSelectedRows()) {
+            selected.add(fileTableModel.getFile(table.convertRowIndexToModel(row)));
+        }
+        history.remember(((JViewport) table.getParent()).getViewPosition(), selected);
+    }
+
+    private void goBack() {
+        if (history.canGoBack()) {
+            rememberView();
+            showHistoryEntry(history.back());
+        }
+    }
+
+    private void goForward() {
+        if (history.canGoForward()) {
+            rememberView();
+            showHistoryEntry(history.forward());
+        }
+    }
+
+    private void updateHistoryButtons() {
+        backButton.setEnabled(history.canGoBack());
+        forwardButton.setEnabled(history.canGoForward());
+    }
+
+    /**
+     * Show a directory from history: straight from its snapshot if it still has one, then list
+     * it again in the background only if it was modified since.
+     */
+    private void showHistoryEntry(NavigationHistory.Entry entry) {
+        updateHistoryButtons();
+        File directory = entry.getDirectory();
+        TreePath treePath = findTreePath(directory);
+        DefaultMutableTreeNode node = treePath != null
+                ? (DefaultMutableTreeNode) treePath.getLastPathComponent()
+                : new DefaultMutableTreeNode(directory);
+        restoringHistory = true;
+        try {
+            if (treePath != null) {
+                tree.setSelectionPath(treePath);
+                tree.scrollPathToVisible(treePath);
+            } else {
+                setFileDetails(directory);
+            }
+        } finally {
+            restoringHistory = false;
+        }
+        if (entry.getListing() == null) {
+            showChildren(node);
+            return;
+        }
+        listedNode = node;
+        statusMonitor.open(directory);
+        setTableData(entry.getListing());
+        restoreView(entry);
+        revalidate(entry, node);
+    }
+
+    private void restoreView(final NavigationHistory.Entry entry) {
+        // after setTableData, which is queued too
+        SwingUtilities.invokeLater(
+                new Runnable() {
+                    public void run() {
+                        table.clearSelection();
+                        for (File file : entry.getSelection()) {
+                            int row = fileTableModel.indexOf(file);
+                            if (row >= 0) {
+                                row = table.convertRowIndexToView(row);
+                                table.addRowSelectionInterval(row, row);
+                            }
+                        }
+                        Point position = entry.getViewPosition();
+                        if (position != null) {
+                            ((JViewport) table.getParent()).setViewPosition(position);
+                        }
                     }
+                });
+    }
+
+    /**
+     * List the directory of a history entry again if its modification time moved on since its
+     * snapshot, keeping the view if it is still the one shown.
+     */
+    private void revalidate(final NavigationHistory.Entry entry, final DefaultMutableTreeNode node) {
+        final File directory = entry.getDirectory();
+        jobScheduler.submit(
+                new UiJob("Check " + directory.getPath(), JobScheduler.Priority.BACKGROUND, directory) {
+                    private File[] files;
+                    private long modified;
 
                     @Override
-                    protected void process(List<File> chunks) {
-                        for (File child : chunks) {
-                            node.add(new DefaultMutableTreeNode(child));
+                    protected void execute() throws Exception {
+                        modified = NavigationHistory.stamp(directory);
+                        if (modified != entry.getModified()) {
+                            files = DirectoryListing.list(directory);
                         }
                     }
 
                     @Override
-                    protected void done() {
-                        progressBar.setIndeterminate(false);
-                        progressBar.setVisible(false);
-                        tree.setEnabled(true);
+                    protected void succeeded() {
+                        if (files == null || history.getCurrent() != entry || listedNode != node) {
+                            return;
+                        }
+                        rememberView();
+                        history.visit(directory, files, modified);
+                        setTableData(files);
+                        restoreView(entry);
                     }
-                };
-        worker.execute();
+                });
     }
 
     /**
@@ -1997,8 +3154,14 @@ public class FileManager {
         fileName.setText(fileSystemView.getSystemDisplayName(file));
         path.setText(file.getPath());
         date.setText(new Date(file.lastModified()).toString());
-        size.setText(file.length() + " bytes");
+        if (file.isDirectory()) {
+            Long bytes = directorySizes.getSize(file);
+            size.setText(bytes == null ? "not calculated" : bytes + " bytes");
+        } else {
+            size.setText(file.length() + " bytes");
+        }
         currentBranch.setText(getCurrentBranch(file));
+        updatePreview();
 
         JFrame f = (JFrame) gui.getTopLevelAncestor();
         if (f != null) {
@@ -2008,7 +3171,147 @@ public class FileManager {
         gui.repaint();
     }
 
+    private void updatePreview() {
+        Component shown = detailTabs.getSelectedComponent();
+        if (currentFile == null) {
+            return;
+        }
+        if (shown == previewPanel && !currentFile.equals(previewedFile)) {
+            previewedFile = currentFile;
+            previewPanel.setFile(currentFile);
+        } else if (shown == hexPanel && !currentFile.equals(hexFile)) {
+            hexFile = currentFile;
+            hexPanel.setFile(currentFile);
+        } else if (shown == diffPanel && !currentFile.equals(diffedFile)) {
+            diffedFile = currentFile;
+            diffPanel.setFile(currentFile);
+        } else if (shown == blamePanel && !currentFile.equals(blamedFile)) {
+            blamedFile = currentFile;
+            blamePanel.setFile(currentFile);
+        } else if (shown == historyPanel && !currentFile.equals(historyFile)) {
+            historyFile = currentFile;
+            historyPanel.setFile(currentFile);
+        }
+    }
+
+    /**
+     * Lists the local branches of a repository in the background, then offers them in a dialog.
+     */
+    private abstract class BranchesJob extends UiJob {
+        private final File workTree;
+        private final File gitDir;
+        private List<String> branches;
+
+        BranchesJob(File workTree, File gitDir) {
+            super("git branch --list", JobScheduler.Priority.INTERACTIVE, workTree);
+            this.workTree = workTree;
+            this.gitDir = gitDir;
+        }
+
+        @Override
+        protected void execute() throws Exception {
+            try (GitEngine engine = new GitEngine(workTree, gitDir)) {
+                branches = engine.branches();
+            }
+        }
+
+        @Override
+        protected void succeeded() {
+            showDialog(workTree, gitDir, branches);
+        }
+
+        @Override
+        protected void failed(Throwable t) {
+            showErrorMessage("Failed to load branches.", "Branch Load Error");
+        }
+
+        /**
+         * Called on the EDT with the branches, e.g. "refs/heads/master".
+         */
+        protected abstract void showDialog(File workTree, File gitDir, List<String> branches);
+    }
+
+    /**
+     * A scheduled job whose outcome is handled on the EDT.
+     */
+    private abstract class UiJob extends JobScheduler.Job {
+
+        UiJob(String name, JobScheduler.Priority priority, File location) {
+            super(name, priority, location);
+        }
+
+        /**
+         * Called on the EDT when {@link #execute()} completed normally.
+         */
+        protected void succeeded() {
+        }
+
+        /**
+         * Called on the EDT when {@link #execute()} threw.
+         */
+        protected void failed(Throwable t) {
+            showThrowable(t);
+        }
+
+        /**
+         * Called on the EDT after the job finished in any way, including cancellation.
+         */
+        protected void cleanup() {
+        }
+
+        @Override
+        protected final void finished() {
+            SwingUtilities.invokeLater(
+                    new Runnable() {
+                        public void run() {
+                            try {
+                                if (getState() == JobScheduler.State.DONE) {
+                                    succeeded();
+                                } else if (getState() == JobScheduler.State.FAILED) {
+                                    failed(getError());
+                                }
+                            } finally {
+                                cleanup();
+                            }
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Reads the git status of a file in the background, then hands it to {@link #withStatus} on
+     * the EDT.
+     */
+    private abstract class StatusJob extends UiJob {
+        private String status;
+
+        StatusJob(String name, File file) {
+            super(name, JobScheduler.Priority.INTERACTIVE, file);
+        }
+
+        @Override
+        protected void execute() throws Exception {
+            status = statusMonitor.status(getLocation());
+        }
+
+        @Override
+        protected void succeeded() {
+            if (status.equals(GitStatus.ERROR)) {
+                showErrorMessage("The git status of " + getLocation() + " could not be read.", "Git Status");
+                return;
+            }
+            withStatus(status);
+        }
+
+        /**
+         * Called on the EDT with the short format status code or a {@link GitStatus} constant.
+         */
+        protected abstract void withStatus(String status);
+    }
+
     public static void main(String[] args) {
+        // before anything is dispatched, to see the start up as well
+        installEdtMonitor();
         SwingUtilities.invokeLater(
                 new Runnable() {
                     public void run() {
@@ -2051,6 +3354,11 @@ public class FileManager {
 class FileTableModel extends AbstractTableModel {
 
     private File[] files;
+    private Map<File, Integer> rows;
+    private DirectorySizeCalculator directorySizes;
+    private Checksums checksums;
+    private Checksums.Algorithm checksumAlgorithm;
+    private StatusMonitor statusMonitor;
     private FileSystemView fileSystemView = FileSystemView.getFileSystemView();
     private String[] columns = {
             "Icon", "File", "Path/name", "Size", "Last Modified", "status",
@@ -2064,17 +3372,6 @@ class FileTableModel extends AbstractTableModel {
         this.files = files;
     }
 
-    private File findGitDir(File directory) {
-        File gitDir = new File(directory, ".git");
-        if (gitDir.exists() && gitDir.isDirectory()) {
-            return gitDir;
-        } else {
-            File parent = directory.getParentFile();
-            return parent != null ? findGitDir(parent) : null;
-        }
-    }
-
-
     public Object getValueAt(int row, int column) {
         File file = files[row];
 
@@ -2086,55 +3383,62 @@ class FileTableModel extends AbstractTableModel {
             case 2:
                 return file.getPath();
             case 3:
+                if (directorySizes != null && file.isDirectory()) {
+                    // null until the recursive size has been calculated
+                    return directorySizes.getSize(file);
+                }
                 return file.length();
             case 4:
                 return file.lastModified();
             case 5:
-                try {
-                    File gitDir = findGitDir(file.getAbsoluteFile());
-                    if (gitDir == null) {
-                        return "none";
-                    } else if (gitDir != null && file.isDirectory()) {
-                        return "gitDir";
-                    }
-
-                    String path = file.getParent();
-                    String name = file.getName();
-
-                    String cmd = "cd " + path + " && " + "git status -s " + name;
-                    Process p;
-
-                    String[] command = {"/bin/sh", "-c", cmd};
-                    p = Runtime.getRuntime().exec(command);
-
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()));
-
-                    // 출력 결과를 저장할 문자열 버퍼 생성
-                    StringBuilder output = new StringBuilder();
-
-                    // 한 줄씩 출력 결과를 읽어와 버퍼에 추가
-                    String line;
-                    if ((line = reader.readLine()) != null) {
-                        output.append(line).append("\n");
-                    } else {
-                        return "C";
-                    }
-
-                    String status = output.toString().substring(0, 2);
-                    return status;
-
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    return "Error";
-                }
+                return getStatus(file);
+            case 6:
+                return getChecksum(file);
             default:
                 System.err.println("Logic Error");
         }
         return "";
     }
 
+    /**
+     * The git status, a placeholder while it is read, or null without a status monitor.
+     */
+    private String getStatus(File file) {
+        if (statusMonitor == null) {
+            return null;
+        }
+        String status = statusMonitor.get(file);
+        return status == null ? "..." : status;
+    }
+
+    /**
+     * The cached checksum, or a placeholder while it is calculated. Only rows being painted ask,
+     * so only visible files are read.
+     */
+    private String getChecksum(File file) {
+        if (file.isDirectory()) {
+            return "";
+        }
+        String checksum = checksums.get(file, checksumAlgorithm);
+        if (checksum == null) {
+            checksums.request(file, checksumAlgorithm,
+                    new Checksums.Listener() {
+                        public void checksumComputed(final File computed) {
+                            SwingUtilities.invokeLater(
+                                    new Runnable() {
+                                        public void run() {
+                                            fireFileUpdated(computed);
+                                        }
+                                    });
+                        }
+                    });
+            return "...";
+        }
+        return checksum;
+    }
+
     public int getColumnCount() {
-        return columns.length;
+        return checksumAlgorithm == null ? columns.length : columns.length + 1;
     }
 
     public Class<?> getColumnClass(int column) {
@@ -2152,7 +3456,7 @@ class FileTableModel extends AbstractTableModel {
     }
 
     public String getColumnName(int column) {
-        return columns[column];
+        return column < columns.length ? columns[column] : checksumAlgorithm.toString();
     }
 
     public int getRowCount() {
@@ -2165,8 +3469,52 @@ class FileTableModel extends AbstractTableModel {
 
     public void setFiles(File[] files) {
         this.files = files;
+        this.rows = null;
         fireTableDataChanged();
     }
+
+    void setDirectorySizes(DirectorySizeCalculator directorySizes) {
+        this.directorySizes = directorySizes;
+    }
+
+    void setStatusMonitor(StatusMonitor statusMonitor) {
+        this.statusMonitor = statusMonitor;
+    }
+
+    /**
+     * Show a checksum column computed with algorithm, or no such column if it is null.
+     */
+    void setChecksums(Checksums checksums, Checksums.Algorithm algorithm) {
+        this.checksums = checksums;
+        if (algorithm != checksumAlgorithm) {
+            this.checksumAlgorithm = algorithm;
+            fireTableStructureChanged();
+        }
+    }
+
+    /**
+     * Repaint the row of file, if it is listed.
+     */
+    void fireFileUpdated(File file) {
+        int row = indexOf(file);
+        if (row >= 0) {
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    /**
+     * Model row of file, or -1.
+     */
+    int indexOf(File file) {
+        if (rows == null) {
+            rows = new HashMap<>();
+            for (int ii = 0; ii < files.length; ii++) {
+                rows.put(files[ii].getAbsoluteFile(), ii);
+            }
+        }
+        Integer row = rows.get(file.getAbsoluteFile());
+        return row == null ? -1 : row;
+    }
 }
 
 /**
@@ -2178,7 +3526,10 @@ class FileTreeCellRenderer extends DefaultTreeCellRenderer {
 
     private JLabel label;
 
-    FileTreeCellRenderer() {
+    private final StatusMonitor statusMonitor;
+
+    FileTreeCellRenderer(StatusMonitor statusMonitor) {
+        this.statusMonitor = statusMonitor;
         label = new JLabel();
         label.setOpaque(true);
         fileSystemView = FileSystemView.getFileSystemView();
@@ -2197,8 +3548,15 @@ class FileTreeCellRenderer extends DefaultTreeCellRenderer {
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) value;
         File file = (File) node.getUserObject();
         label.setIcon(fileSystemView.getSystemIcon(file));
-        label.setText(fileSystemView.getSystemDisplayName(file));
-        label.setToolTipText(file.getPath());
+        String name = fileSystemView.getSystemDisplayName(file);
+        StatusTree.Counts counts = file.isDirectory() ? statusMonitor.counts(file) : null;
+        if (counts == null || counts.isEmpty()) {
+            label.setText(name);
+            label.setToolTipText(file.getPath());
+        } else {
+            label.setText(name + "  " + badge(counts));
+            label.setToolTipText(file.getPath() + ": " + counts);
+        }
 
         if (selected) {
             label.setBackground(backgroundSelectionColor);
@@ -2210,4 +3568,21 @@ class FileTreeCellRenderer extends DefaultTreeCellRenderer {
 
         return label;
     }
+
+    /**
+     * E.g. "[M3 ?2 S1]" for 3 modified, 2 untracked &amp; 1 staged file, leaving out zeros.
+     */
+    static String badge(StatusTree.Counts counts) {
+        StringBuilder sb = new StringBuilder("[");
+        if (counts.modified > 0) {
+            sb.append('M').append(counts.modified);
+        }
+        if (counts.untracked > 0) {
+            sb.append(sb.length() > 1 ? " " : "").append('?').append(counts.untracked);
+        }
+        if (counts.staged > 0) {
+            sb.append(sb.length() > 1 ? " " : "").append('S').append(counts.staged);
+        }
+        return sb.append(']').toString();
+    }
 }
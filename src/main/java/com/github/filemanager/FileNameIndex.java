@@ -0,0 +1,390 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Trigram index over the file names below one root directory.
+ *
+ * <p>Every path gets an integer id; for each trigram (three consecutive lower-cased characters)
+ * of a file name the index keeps the sorted list of ids whose names contain it. A substring query
+ * intersects the lists of its trigrams and only verifies the few remaining candidates. Globs use
+ * the literal runs between their wildcards the same way. Queries shorter than three characters,
+ * and queries against whole paths, fall back to a scan in memory, which still never touches the
+ * disk.
+ *
+ * <p>Removed paths are only marked deleted, ids stay stable; {@link #save} compacts them away.
+ */
+class FileNameIndex {
+
+    private static final int MAGIC = 0x464e4958;
+    private static final int VERSION = 1;
+
+    private final Path root;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<String> paths = new ArrayList<>();
+    /**
+     * Sorted, so the paths below a directory are one range.
+     */
+    private final TreeMap<String, Integer> ids = new TreeMap<>();
+    private final BitSet deleted = new BitSet();
+    private Map<Integer, IntList> postings = new HashMap<>();
+    private volatile boolean modified;
+
+    FileNameIndex(Path root) {
+        this.root = root;
+    }
+
+    Path getRoot() {
+        return root;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether the index changed since it was last saved or loaded.
+     */
+    boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Index every path below the root.
+     */
+    void build(final JobScheduler.Job job) throws IOException {
+        final List<String> batch = new ArrayList<>();
+        Files.walkFileTree(root,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        return visit(dir);
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        return visit(file);
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    private FileVisitResult visit(Path path) {
+                        if (job != null && job.isCancelled()) {
+                            return FileVisitResult.TERMINATE;
+                        }
+                        batch.add(path.toString());
+                        if (batch.size() == 10000) {
+                            addAll(batch);
+                            batch.clear();
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+        addAll(batch);
+    }
+
+    void add(String path) {
+        addAll(Collections.singletonList(path));
+    }
+
+    void addAll(Collection<String> newPaths) {
+        lock.writeLock().lock();
+        try {
+            addAllLocked(newPaths);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addAllLocked(Collection<String> newPaths) {
+        for (String path : newPaths) {
+            if (ids.containsKey(path)) {
+                continue;
+            }
+            int id = paths.size();
+            paths.add(path);
+            ids.put(path, id);
+            String name = nameOf(path).toLowerCase(Locale.ROOT);
+            for (int ii = 0; ii + 3 <= name.length(); ii++) {
+                int trigram = trigram(name, ii);
+                IntList list = postings.get(trigram);
+                if (list == null) {
+                    list = new IntList();
+                    postings.put(trigram, list);
+                }
+                // ids only grow, so the lists stay sorted; skip repeats within one name
+                if (list.size == 0 || list.last() != id) {
+                    list.add(id);
+                }
+            }
+        }
+        modified = true;
+    }
+
+    /**
+     * Remove path and, if it was a directory, everything below it.
+     */
+    void removeTree(String path) {
+        String prefix = path.endsWith(File.separator) ? path : path + File.separator;
+        lock.writeLock().lock();
+        try {
+            Integer id = ids.remove(path);
+            if (id != null) {
+                deleted.set(id);
+            }
+            SortedMap<String, Integer> below = ids.subMap(prefix, prefix + '\uffff');
+            for (int belowId : below.values()) {
+                deleted.set(belowId);
+            }
+            below.clear();
+            modified = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Paths whose file name contains query, or matches it if it is a glob (* ? [..]). A query
+     * containing a separator is matched against the whole path instead of the name.
+     */
+    List<String> search(String query, int limit) {
+        String q = query.toLowerCase(Locale.ROOT).replace('\\', '/');
+        if (q.isEmpty()) {
+            return Collections.emptyList();
+        }
+        boolean matchPath = q.indexOf('/') >= 0;
+        boolean glob = q.indexOf('*') >= 0 || q.indexOf('?') >= 0 || q.indexOf('[') >= 0;
+        Pattern pattern = glob ? Pattern.compile(globToRegex(q)) : null;
+
+        String[] literals = glob ? q.split("\\[[^\\]]*\\]|[*?]") : new String[]{q};
+
+        List<String> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            // the trigrams are built from names, a path query has to scan
+            int[] candidates = matchPath ? null : candidates(literals);
+            int count = candidates == null ? paths.size() : candidates.length;
+            for (int ii = 0; ii < count && found.size() < limit; ii++) {
+                int id = candidates == null ? ii : candidates[ii];
+                if (deleted.get(id)) {
+                    continue;
+                }
+                String path = paths.get(id);
+                String subject = matchPath
+                        ? path.replace('\\', '/').toLowerCase(Locale.ROOT)
+                        : nameOf(path).toLowerCase(Locale.ROOT);
+                boolean matches = glob ? pattern.matcher(subject).matches() : subject.contains(q);
+                if (matches) {
+                    found.add(path);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Ids that contain every trigram of the literals, or null if no literal is long enough to
+     * narrow the search down.
+     */
+    private int[] candidates(String[] literals) {
+        List<IntList> lists = new ArrayList<>();
+        for (String literal : literals) {
+            for (int ii = 0; ii + 3 <= literal.length(); ii++) {
+                IntList list = postings.get(trigram(literal, ii));
+                if (list == null) {
+                    return new int[0];
+                }
+                lists.add(list);
+            }
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+        Collections.sort(lists,
+                new Comparator<IntList>() {
+                    public int compare(IntList a, IntList b) {
+                        return Integer.compare(a.size, b.size);
+                    }
+                });
+        int[] result = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        int length = result.length;
+        for (int ii = 1; ii < lists.size() && length > 0; ii++) {
+            length = intersect(result, length, lists.get(ii));
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Keep the first length values of result that also occur in list; returns the new length.
+     */
+    private static int intersect(int[] result, int length, IntList list) {
+        int kept = 0;
+        int jj = 0;
+        for (int ii = 0; ii < length && jj < list.size; ii++) {
+            int value = result[ii];
+            while (jj < list.size && list.values[jj] < value) {
+                jj++;
+            }
+            if (jj < list.size && list.values[jj] == value) {
+                result[kept++] = value;
+            }
+        }
+        return kept;
+    }
+
+    void save(File file) throws IOException {
+        lock.writeLock().lock();
+        try {
+            compact();
+            File temp = new File(file.getPath() + ".tmp");
+            try (DataOutputStream out =
+                         new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(root.toString());
+                out.writeInt(paths.size());
+                for (String path : paths) {
+                    out.writeUTF(path);
+                }
+                out.writeInt(postings.size());
+                for (Map.Entry<Integer, IntList> entry : postings.entrySet()) {
+                    IntList list = entry.getValue();
+                    out.writeInt(entry.getKey());
+                    out.writeInt(list.size);
+                    for (int ii = 0; ii < list.size; ii++) {
+                        out.writeInt(list.values[ii]);
+                    }
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            modified = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static FileNameIndex load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a file name index: " + file);
+            }
+            FileNameIndex index = new FileNameIndex(Paths.get(in.readUTF()));
+            int count = in.readInt();
+            for (int ii = 0; ii < count; ii++) {
+                String path = in.readUTF();
+                index.paths.add(path);
+                index.ids.put(path, ii);
+            }
+            int trigrams = in.readInt();
+            for (int ii = 0; ii < trigrams; ii++) {
+                int key = in.readInt();
+                int size = in.readInt();
+                IntList list = new IntList(size);
+                for (int jj = 0; jj < size; jj++) {
+                    list.add(in.readInt());
+                }
+                index.postings.put(key, list);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Drop deleted paths and renumber the rest. Caller holds the write lock.
+     */
+    private void compact() {
+        if (deleted.isEmpty()) {
+            return;
+        }
+        List<String> live = new ArrayList<>(ids.size());
+        for (int ii = 0; ii < paths.size(); ii++) {
+            if (!deleted.get(ii)) {
+                live.add(paths.get(ii));
+            }
+        }
+        paths.clear();
+        ids.clear();
+        deleted.clear();
+        postings = new HashMap<>();
+        addAllLocked(live);
+    }
+
+    private static String nameOf(String path) {
+        int slash = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return path.substring(slash + 1);
+    }
+
+    /**
+     * Exact for characters below 1024, other characters may collide, which only costs an extra
+     * candidate to verify.
+     */
+    private static int trigram(String s, int start) {
+        return (s.charAt(start) << 20) ^ (s.charAt(start + 1) << 10) ^ s.charAt(start + 2);
+    }
+
+    static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int ii = 0; ii < glob.length(); ii++) {
+            char c = glob.charAt(ii);
+            switch (c) {
+                case '*':
+                    regex.append(".*");
+                    break;
+                case '?':
+                    regex.append('.');
+                    break;
+                case '[':
+                    int close = glob.indexOf(']', ii + 1);
+                    if (close > ii) {
+                        regex.append('[').append(glob.substring(ii + 1, close).replace("\\", "\\\\")).append(']');
+                        ii = close;
+                    } else {
+                        regex.append("\\[");
+                    }
+                    break;
+                default:
+                    regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return regex.toString();
+    }
+}
@@ -0,0 +1,307 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * File name search over a set of chosen root directories.
+ *
+ * <p>Each root has a {@link FileNameIndex} that is saved between sessions, so searching works
+ * immediately after start-up. The saved index may be stale, so it is rebuilt once in the
+ * background; a {@link DirectoryWatcher} keeps it current after that.
+ */
+class FileSearch {
+
+    private final JobScheduler scheduler;
+    private final File directory;
+    private final Map<Path, FileNameIndex> indexes = new LinkedHashMap<>();
+    private final Map<Path, FileNameIndex> building = new HashMap<>();
+    private final Map<Path, DirectoryWatcher> watchers = new HashMap<>();
+    private boolean loaded;
+
+    /**
+     * @param directory where the roots &amp; indexes are stored
+     */
+    FileSearch(JobScheduler scheduler, File directory) {
+        this.scheduler = scheduler;
+        this.directory = directory;
+        Runtime.getRuntime().addShutdownHook(
+                new Thread("save file index") {
+                    @Override
+                    public void run() {
+                        saveModified();
+                    }
+                });
+    }
+
+    /**
+     * Load the saved roots &amp; indexes, once, and start watching the roots. Reads the
+     * indexes &amp; walks the roots, so call it in the background.
+     */
+    void load() {
+        List<Path> loadedRoots = new ArrayList<>();
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            loaded = true;
+            File rootsFile = new File(directory, "roots.txt");
+            if (!rootsFile.exists()) {
+                return;
+            }
+            try {
+                for (String line : Files.readAllLines(rootsFile.toPath(), StandardCharsets.UTF_8)) {
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    Path root = Paths.get(line);
+                    FileNameIndex index;
+                    try {
+                        index = FileNameIndex.load(indexFile(root));
+                    } catch (IOException e) {
+                        index = new FileNameIndex(root);
+                    }
+                    indexes.put(root, index);
+                    loadedRoots.add(root);
+                    rebuild(root);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        for (Path root : loadedRoots) {
+            watch(root);
+        }
+    }
+
+    synchronized List<Path> getRoots() {
+        return new ArrayList<>(indexes.keySet());
+    }
+
+    synchronized int size() {
+        int size = 0;
+        for (FileNameIndex index : indexes.values()) {
+            size += index.size();
+        }
+        return size;
+    }
+
+    synchronized boolean isBuilding() {
+        return !building.isEmpty();
+    }
+
+    /**
+     * False if some directory below a root could not be watched.
+     */
+    synchronized boolean isWatchingComplete() {
+        for (DirectoryWatcher watcher : watchers.values()) {
+            if (!watcher.isComplete()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Index root from now on. Registers a watch on every directory below it, so call it in the
+     * background.
+     */
+    void addRoot(Path root) {
+        // saving the roots before they were loaded would lose them
+        load();
+        root = root.toAbsolutePath();
+        synchronized (this) {
+            if (indexes.containsKey(root)) {
+                return;
+            }
+            indexes.put(root, new FileNameIndex(root));
+            saveRoots();
+            rebuild(root);
+        }
+        watch(root);
+    }
+
+    synchronized void removeRoot(Path root) {
+        indexes.remove(root);
+        building.remove(root);
+        DirectoryWatcher watcher = watchers.remove(root);
+        if (watcher != null) {
+            watcher.close();
+        }
+        indexFile(root).delete();
+        saveRoots();
+    }
+
+    List<String> search(String query, int limit) {
+        List<FileNameIndex> current;
+        synchronized (this) {
+            current = new ArrayList<>(indexes.values());
+        }
+        List<String> found = new ArrayList<>();
+        for (FileNameIndex index : current) {
+            found.addAll(index.search(query, limit - found.size()));
+            if (found.size() >= limit) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Index root from scratch in the background, replacing the current index when done.
+     */
+    private synchronized void rebuild(final Path root) {
+        if (building.containsKey(root)) {
+            return;
+        }
+        final FileNameIndex fresh = new FileNameIndex(root);
+        building.put(root, fresh);
+        scheduler.submit(
+                new JobScheduler.Job("Index " + root, JobScheduler.Priority.BACKGROUND, root.toFile()) {
+                    @Override
+                    protected void execute() throws Exception {
+                        try {
+                            fresh.build(this);
+                        } finally {
+                            synchronized (FileSearch.this) {
+                                building.remove(root);
+                                if (!isCancelled() && indexes.containsKey(root)) {
+                                    indexes.put(root, fresh);
+                                }
+                            }
+                        }
+                        if (!isCancelled()) {
+                            fresh.save(indexFile(root));
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Watch root, registering the whole tree without holding this object's lock.
+     */
+    private void watch(final Path root) {
+        try {
+            DirectoryWatcher watcher = new DirectoryWatcher(root,
+                    new DirectoryWatcher.Listener() {
+                        public void created(Path path) {
+                            List<String> added = new ArrayList<>();
+                            added.add(path.toString());
+                            if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                                // entries may have been created before the directory was watched
+                                try (java.util.stream.Stream<Path> stream = Files.walk(path)) {
+                                    Iterator<Path> it = stream.iterator();
+                                    while (it.hasNext()) {
+                                        added.add(it.next().toString());
+                                    }
+                                } catch (IOException | UncheckedIOException e) {
+                                    // keep what was found
+                                }
+                            }
+                            for (FileNameIndex index : indexesFor(root)) {
+                                index.addAll(added);
+                            }
+                        }
+
+                        public void deleted(Path path) {
+                            for (FileNameIndex index : indexesFor(root)) {
+                                index.removeTree(path.toString());
+                            }
+                        }
+
+                        public void modified(Path path) {
+                            // names do not change on modification
+                        }
+
+                        public void overflow(Path directory) {
+                            rebuild(root);
+                        }
+                    });
+            watcher.start();
+            synchronized (this) {
+                if (indexes.containsKey(root) && !watchers.containsKey(root)) {
+                    watchers.put(root, watcher);
+                    return;
+                }
+            }
+            // removed (or added again) while the tree was being registered
+            watcher.close();
+        } catch (IOException e) {
+            // without a watcher the index is only refreshed by rebuilds
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * The live index of root and, while a rebuild runs, the one being built.
+     */
+    private synchronized List<FileNameIndex> indexesFor(Path root) {
+        List<FileNameIndex> result = new ArrayList<>(2);
+        if (indexes.containsKey(root)) {
+            result.add(indexes.get(root));
+        }
+        if (building.containsKey(root)) {
+            result.add(building.get(root));
+        }
+        return result;
+    }
+
+    private void saveModified() {
+        List<FileNameIndex> current;
+        synchronized (this) {
+            current = new ArrayList<>(indexes.values());
+        }
+        for (FileNameIndex index : current) {
+            if (index.isModified()) {
+                try {
+                    index.save(indexFile(index.getRoot()));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void saveRoots() {
+        List<String> lines = new ArrayList<>();
+        for (Path root : indexes.keySet()) {
+            lines.add(root.toString());
+        }
+        try {
+            Files.write(new File(directory, "roots.txt").toPath(), lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private File indexFile(Path root) {
+        String name = root.getFileName() == null ? "root" : root.getFileName().toString();
+        return new File(directory, name.replaceAll("[^A-Za-z0-9._-]", "_") + "-"
+                + Integer.toHexString(root.toString().hashCode()) + ".idx");
+    }
+}
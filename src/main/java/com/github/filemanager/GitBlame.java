@@ -0,0 +1,325 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+import org.eclipse.jgit.blame.BlameGenerator;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.errors.LargeObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+/**
+ * Which commit last changed each line of a file at HEAD, without Swing.
+ *
+ * <p>Lines are attributed region by region as JGit's BlameGenerator (the engine behind
+ * BlameCommand) walks back through history, and each region is passed to a {@link Listener}
+ * straight away. Results are kept per path &amp; HEAD commit. When HEAD has moved on from a
+ * cached result, the lines that are the same in both versions keep their attribution and only
+ * the changed lines are blamed, which stops as soon as the new commits account for them instead
+ * of walking the whole history again.
+ */
+class GitBlame {
+
+    static final int CACHE_SIZE = 64;
+
+    /**
+     * Told about each run of lines as they are attributed, on the blaming thread.
+     */
+    interface Listener {
+        void blamed(Blame blame, int start, int end);
+    }
+
+    /**
+     * The attribution of every line of a file at one commit. Lines not attributed yet have a
+     * null commit.
+     */
+    static class Blame {
+        private final String path;
+        private final ObjectId head;
+        private final RawText text;
+        private final ObjectId[] commits;
+        private final String[] authors;
+        private final long[] times;
+        private volatile boolean complete;
+        private volatile ObjectId reusedFrom;
+        private volatile int recomputed;
+
+        Blame(String path, ObjectId head, RawText text) {
+            this.path = path;
+            this.head = head;
+            this.text = text;
+            int lines = text.size();
+            commits = new ObjectId[lines];
+            authors = new String[lines];
+            times = new long[lines];
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        ObjectId getHead() {
+            return head;
+        }
+
+        int getLineCount() {
+            return commits.length;
+        }
+
+        String getLine(int line) {
+            return text.getString(line);
+        }
+
+        ObjectId getCommit(int line) {
+            return commits[line];
+        }
+
+        String getAuthor(int line) {
+            return authors[line];
+        }
+
+        /**
+         * Author time in milliseconds.
+         */
+        long getTime(int line) {
+            return times[line];
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * The HEAD of the earlier result this one was built from, or null if blamed from scratch.
+         */
+        ObjectId getReusedFrom() {
+            return reusedFrom;
+        }
+
+        /**
+         * Lines blamed through history, all of them unless an earlier result was reused.
+         */
+        int getRecomputed() {
+            return recomputed;
+        }
+
+        private void set(int line, ObjectId commit, String author, long time) {
+            commits[line] = commit;
+            authors[line] = author;
+            times[line] = time;
+        }
+    }
+
+    private final Map<String, Blame> cache =
+            new LinkedHashMap<String, Blame>(CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Blame> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    /**
+     * Blame file as of HEAD, telling listener about each run of attributed lines.
+     *
+     * @throws IOException also when file is not inside a repository or not in HEAD
+     */
+    Blame blame(File file, Listener listener, JobScheduler.Job job) throws IOException {
+        File gitDir = GitSupport.findGitDir(file.getAbsoluteFile());
+        if (gitDir == null) {
+            throw new IOException("Not inside a git repository");
+        }
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).build()) {
+            String path = BatchOperation.repositoryPath(repository.getWorkTree(), file);
+            ObjectId head = repository.resolve("HEAD");
+            if (head == null) {
+                throw new IOException("Nothing committed yet");
+            }
+            Blame cached = cached(repository.getDirectory(), path, head);
+            if (cached != null) {
+                listener.blamed(cached, 0, cached.getLineCount());
+                return cached;
+            }
+            OperationEvents.Span span = OperationEvents.git("blame " + path, file);
+            try {
+                Blame blame = blame(repository, path, head, listener, job);
+                span.setEntries(blame.getRecomputed());
+                return blame;
+            } catch (IOException | RuntimeException e) {
+                span.setFailed(true);
+                throw e;
+            } finally {
+                span.end();
+            }
+        }
+    }
+
+    private Blame blame(Repository repository, String path, ObjectId head, Listener listener, JobScheduler.Job job)
+            throws IOException {
+        RawText text = read(repository, path, head);
+        Blame blame = new Blame(path, head, text);
+        int pending = blame.getLineCount();
+
+        Blame previous = previous(repository, path, head);
+        if (previous != null) {
+            blame.reusedFrom = previous.getHead();
+            pending -= reuse(previous, blame, listener);
+        }
+        blame.recomputed = pending;
+
+        if (pending > 0) {
+            try (BlameGenerator generator = new BlameGenerator(repository, path)) {
+                generator.push(null, head);
+                while (pending > 0 && generator.next()) {
+                    if (job != null && job.isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    RevCommit commit = generator.getSourceCommit();
+                    PersonIdent author = generator.getSourceAuthor();
+                    ObjectId id = commit == null ? null : commit.copy();
+                    String name = author == null ? "" : author.getName();
+                    long time = author == null ? 0 : author.getWhen().getTime();
+                    int start = generator.getResultStart();
+                    int end = generator.getResultEnd();
+                    for (int line = start; line < end; line++) {
+                        // lines reused from an earlier result stay as they were
+                        if (blame.commits[line] == null) {
+                            blame.set(line, id, name, time);
+                            pending--;
+                        }
+                    }
+                    listener.blamed(blame, start, end);
+                    if (job != null) {
+                        job.setProgress(blame.getLineCount() - pending, blame.getLineCount());
+                    }
+                }
+            }
+        }
+        blame.complete = true;
+        synchronized (cache) {
+            cache.put(key(repository.getDirectory(), path, head), blame);
+        }
+        return blame;
+    }
+
+    /**
+     * Copy the attribution of the lines previous &amp; blame have in common, returning how many.
+     */
+    private static int reuse(Blame previous, Blame blame, Listener listener) {
+        EditList edits = DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM)
+                .diff(RawTextComparator.DEFAULT, previous.text, blame.text);
+        int reused = 0;
+        int oldLine = 0;
+        int newLine = 0;
+        List<Edit> all = new ArrayList<>(edits);
+        // a sentinel edit at the end copies the unchanged tail
+        all.add(new Edit(previous.getLineCount(), previous.getLineCount(), blame.getLineCount(), blame.getLineCount()));
+        for (Edit edit : all) {
+            int start = newLine;
+            while (newLine < edit.getBeginB()) {
+                blame.set(newLine, previous.commits[oldLine], previous.authors[oldLine], previous.times[oldLine]);
+                oldLine++;
+                newLine++;
+                reused++;
+            }
+            if (newLine > start) {
+                listener.blamed(blame, start, newLine);
+            }
+            oldLine = edit.getEndA();
+            newLine = edit.getEndB();
+        }
+        return reused;
+    }
+
+    private Blame cached(File gitDir, String path, ObjectId head) {
+        synchronized (cache) {
+            return cache.get(key(gitDir, path, head));
+        }
+    }
+
+    /**
+     * The most recent complete result for path at an ancestor of head, if any.
+     */
+    private Blame previous(Repository repository, String path, ObjectId head) throws IOException {
+        List<Blame> candidates = new ArrayList<>();
+        String prefix = repository.getDirectory().getPath() + '\n' + path + '\n';
+        synchronized (cache) {
+            for (Map.Entry<String, Blame> entry : cache.entrySet()) {
+                if (entry.getKey().startsWith(prefix) && entry.getValue().isComplete()) {
+                    candidates.add(entry.getValue());
+                }
+            }
+        }
+        // access order, so the most recently used is last
+        Collections.reverse(candidates);
+        try (RevWalk walk = new RevWalk(repository)) {
+            RevCommit tip = walk.parseCommit(head);
+            for (Blame candidate : candidates) {
+                if (walk.isMergedInto(walk.parseCommit(candidate.getHead()), tip)) {
+                    return candidate;
+                }
+                walk.reset();
+            }
+        }
+        return null;
+    }
+
+    private static RawText read(Repository repository, String path, ObjectId head) throws IOException {
+        try (RevWalk walk = new RevWalk(repository)) {
+            RevCommit commit = walk.parseCommit(head);
+            try (TreeWalk tree = TreeWalk.forPath(repository, path, commit.getTree())) {
+                if (tree == null) {
+                    throw new IOException(path + " is not in HEAD");
+                }
+                byte[] bytes;
+                try {
+                    bytes = repository.open(tree.getObjectId(0)).getCachedBytes(GitDiff.BINARY_THRESHOLD);
+                } catch (LargeObjectException e) {
+                    throw new IOException(path + " is too large to blame");
+                }
+                if (RawText.isBinary(bytes)) {
+                    throw new IOException(path + " is a binary file");
+                }
+                return new RawText(bytes);
+            }
+        }
+    }
+
+    private static String key(File gitDir, String path, ObjectId head) {
+        return gitDir.getPath() + '\n' + path + '\n' + head.name();
+    }
+}
@@ -0,0 +1,265 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.NotIgnoredFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Unified diffs of a file or directory between HEAD, the index &amp; the working tree, or between
+ * two commits, written by JGit's DiffFormatter straight into a file that the preview pages
+ * through.
+ *
+ * <p>The changed paths are found first, which only compares object ids (hashing the working
+ * tree files); the patch of that set of blob ids is then formatted once and kept on disk, so
+ * looking at the same change again costs nothing. Files over {@link #BINARY_THRESHOLD} bytes
+ * are reported like binary files instead of being loaded for a line diff.
+ */
+class GitDiff {
+
+    static final int BINARY_THRESHOLD = 8 * 1024 * 1024;
+    static final long CACHE_LIMIT = 256L * 1024 * 1024;
+
+    enum Side {
+        HEAD("HEAD"),
+        INDEX("Index"),
+        WORKING_TREE("Working tree");
+
+        private final String label;
+
+        Side(String label) {
+            this.label = label;
+        }
+
+        String getLabel() {
+            return label;
+        }
+    }
+
+    private final File cacheDirectory;
+
+    GitDiff(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * The patch turning oldSide into newSide for file, or everything below it for a directory;
+     * null if nothing changed.
+     *
+     * @throws IOException also when file is not inside a git repository
+     */
+    File diff(File file, Side oldSide, Side newSide, JobScheduler.Job job) throws IOException {
+        File gitDir = GitSupport.findGitDir(file.getAbsoluteFile());
+        if (gitDir == null) {
+            throw new IOException("Not inside a git repository");
+        }
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).build();
+             ObjectReader reader = repository.newObjectReader()) {
+            String path = BatchOperation.repositoryPath(repository.getWorkTree(), file);
+            TreeFilter filter = path.equals(".") ? TreeFilter.ALL : PathFilter.create(path);
+            if (oldSide == Side.WORKING_TREE || newSide == Side.WORKING_TREE) {
+                // untracked files are shown as added, ignored ones not at all
+                NotIgnoredFilter notIgnored = new NotIgnoredFilter(oldSide == Side.WORKING_TREE ? 0 : 1);
+                filter = filter == TreeFilter.ALL ? notIgnored : AndTreeFilter.create(filter, notIgnored);
+            }
+            OperationEvents.Span span = OperationEvents.git("diff " + oldSide.getLabel() + ".." + newSide.getLabel(), file);
+            try {
+                File patch = write(repository, iterator(repository, reader, oldSide),
+                        iterator(repository, reader, newSide), filter, job);
+                span.setBytes(patch == null ? 0 : patch.length());
+                return patch;
+            } catch (IOException | RuntimeException e) {
+                span.setFailed(true);
+                throw e;
+            } finally {
+                span.end();
+            }
+        }
+    }
+
+    /**
+     * The patch between two commits of the repository containing location, or from the first
+     * parent of newCommit when oldCommit is null; null if the trees are the same.
+     */
+    File diffCommits(File location, String oldCommit, String newCommit, JobScheduler.Job job) throws IOException {
+        File gitDir = GitSupport.findGitDir(location.getAbsoluteFile());
+        if (gitDir == null) {
+            throw new IOException("Not inside a git repository");
+        }
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).build();
+             ObjectReader reader = repository.newObjectReader();
+             RevWalk walk = new RevWalk(reader)) {
+            RevCommit newer = walk.parseCommit(repository.resolve(newCommit));
+            RevCommit older = null;
+            if (oldCommit != null) {
+                older = walk.parseCommit(repository.resolve(oldCommit));
+            } else if (newer.getParentCount() > 0) {
+                older = walk.parseCommit(newer.getParent(0));
+            }
+            AbstractTreeIterator oldTree = older == null
+                    ? new EmptyTreeIterator() : new CanonicalTreeParser(null, reader, older.getTree());
+            AbstractTreeIterator newTree = new CanonicalTreeParser(null, reader, newer.getTree());
+            OperationEvents.Span span = OperationEvents.git("diff " + (older == null ? "" : older.name() + "..") + newer.name(), location);
+            try {
+                File patch = write(repository, oldTree, newTree, TreeFilter.ALL, job);
+                span.setBytes(patch == null ? 0 : patch.length());
+                return patch;
+            } catch (IOException | RuntimeException e) {
+                span.setFailed(true);
+                throw e;
+            } finally {
+                span.end();
+            }
+        }
+    }
+
+    private static AbstractTreeIterator iterator(Repository repository, ObjectReader reader, Side side)
+            throws IOException {
+        switch (side) {
+            case HEAD:
+                ObjectId head = repository.resolve("HEAD^{tree}");
+                return head == null ? new EmptyTreeIterator() : new CanonicalTreeParser(null, reader, head);
+            case INDEX:
+                return new DirCacheIterator(repository.readDirCache());
+            default:
+                return new FileTreeIterator(repository);
+        }
+    }
+
+    private File write(Repository repository, AbstractTreeIterator oldTree, AbstractTreeIterator newTree,
+                       TreeFilter filter, JobScheduler.Job job) throws IOException {
+        Files.createDirectories(cacheDirectory.toPath());
+        // the formatter that scanned the working tree is the one that can read it, so it writes
+        // to a file that is thrown away when the patch turns out to be cached
+        File partial = File.createTempFile("diff", ".part", cacheDirectory);
+        try {
+            File cached;
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(partial), 64 * 1024);
+                 DiffFormatter formatter = new DiffFormatter(out)) {
+                formatter.setRepository(repository);
+                formatter.setBinaryFileThreshold(BINARY_THRESHOLD);
+                formatter.setPathFilter(filter);
+                List<DiffEntry> entries = formatter.scan(oldTree, newTree);
+                if (entries.isEmpty()) {
+                    return null;
+                }
+                cached = new File(cacheDirectory, key(entries) + ".diff");
+                if (cached.isFile()) {
+                    cached.setLastModified(System.currentTimeMillis());
+                    return cached;
+                }
+                for (int ii = 0; ii < entries.size(); ii++) {
+                    if (job != null && job.isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    formatter.format(entries.get(ii));
+                    if (job != null) {
+                        job.setProgress(ii + 1, entries.size());
+                    }
+                }
+                formatter.flush();
+            }
+            // only complete patches are found in the cache
+            Files.move(partial.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            prune();
+            return cached;
+        } finally {
+            partial.delete();
+        }
+    }
+
+    /**
+     * Identifies a patch by its paths, modes &amp; blob ids, which is all its text depends on.
+     */
+    private static String key(List<DiffEntry> entries) {
+        StringBuilder lines = new StringBuilder();
+        for (DiffEntry entry : entries) {
+            lines.append(entry.getOldPath()).append(' ').append(entry.getOldMode()).append(' ')
+                    .append(entry.getOldId().name()).append(' ').append(entry.getNewPath()).append(' ')
+                    .append(entry.getNewMode()).append(' ').append(entry.getNewId().name()).append('\n');
+        }
+        return Hashes.sha1Hex(lines.toString());
+    }
+
+    /**
+     * Delete the least recently used complete patches while they take more than CACHE_LIMIT.
+     */
+    private void prune() {
+        // not the .part files of diffs still being written
+        File[] patches = cacheDirectory.listFiles(
+                new FilenameFilter() {
+                    public boolean accept(File directory, String name) {
+                        return name.endsWith(".diff");
+                    }
+                });
+        if (patches == null) {
+            return;
+        }
+        long total = 0;
+        for (File patch : patches) {
+            total += patch.length();
+        }
+        if (total <= CACHE_LIMIT) {
+            return;
+        }
+        Arrays.sort(patches,
+                new Comparator<File>() {
+                    public int compare(File f1, File f2) {
+                        return Long.compare(f1.lastModified(), f2.lastModified());
+                    }
+                });
+        for (int ii = 0; ii < patches.length && total > CACHE_LIMIT; ii++) {
+            long length = patches[ii].length();
+            if (patches[ii].delete()) {
+                total -= length;
+            }
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import org.eclipse.jgit.api.CloneCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.LogCommand;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.StatusCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * The git operations of the file manager on one repository, without Swing, so the same code
+ * serves the buttons and the headless LoadTest of the benchmarks module.
+ *
+ * <p>Every operation records a git event (see {@link OperationEvents}). An engine is not thread
+ * safe; open one per job &amp; close it afterwards.
+ */
+class GitEngine implements Closeable {
+
+    /**
+     * Work to do with an engine, e.g. from a button's background job.
+     */
+    interface Operation {
+        void run(GitEngine engine) throws Exception;
+    }
+
+    private final File workTree;
+    private final File gitDir;
+    private final Git git;
+
+    GitEngine(File workTree, File gitDir) throws IOException {
+        this.workTree = workTree;
+        this.gitDir = gitDir;
+        Repository repository = new FileRepositoryBuilder().setWorkTree(workTree).setGitDir(gitDir).build();
+        this.git = new Git(repository);
+    }
+
+    /**
+     * An engine on the repository containing file, or null if there is none.
+     */
+    static GitEngine open(File file) throws IOException {
+        File gitDir = GitSupport.findGitDir(file.getAbsoluteFile());
+        return gitDir == null ? null : new GitEngine(gitDir.getParentFile(), gitDir);
+    }
+
+    File getWorkTree() {
+        return workTree;
+    }
+
+    /**
+     * Added, changed &amp; removed paths, i.e. what a commit would contain.
+     */
+    Set<String> stagedFiles() throws GitAPIException {
+        return traced("status", workTree,
+                new Call<Set<String>, GitAPIException>() {
+                    public Set<String> call(OperationEvents.Span span) throws GitAPIException {
+                        Status status = git.status().call();
+                        Set<String> staged = new HashSet<>();
+                        staged.addAll(status.getAdded());
+                        staged.addAll(status.getChanged());
+                        staged.addAll(status.getRemoved());
+                        span.setEntries(staged.size());
+                        return staged;
+                    }
+                });
+    }
+
+    /**
+     * The status of the paths (files or directories, relative to the work tree) in one pass, or
+     * of the whole work tree when paths is empty.
+     */
+    Status status(final Collection<String> paths) throws GitAPIException {
+        String command = paths.isEmpty() ? "status" : "status -- " + paths.size() + " paths";
+        return traced(command, workTree,
+                new Call<Status, GitAPIException>() {
+                    public Status call(OperationEvents.Span span) throws GitAPIException {
+                        StatusCommand status = git.status();
+                        for (String path : paths) {
+                            status.addPath(path);
+                        }
+                        Status result = status.call();
+                        span.setEntries(result.getUncommittedChanges().size() + result.getUntracked().size());
+                        return result;
+                    }
+                });
+    }
+
+    /**
+     * Paths whose index entry differs from HEAD, found from the index &amp; the HEAD tree alone,
+     * without looking at the work tree.
+     */
+    Set<String> indexChanges() throws IOException {
+        return traced("diff --cached --name-only", workTree,
+                new Call<Set<String>, IOException>() {
+                    public Set<String> call(OperationEvents.Span span) throws IOException {
+                        try (TreeWalk walk = new TreeWalk(git.getRepository())) {
+                            ObjectId head = git.getRepository().resolve(Constants.HEAD + "^{tree}");
+                            if (head == null) {
+                                walk.addTree(new EmptyTreeIterator());
+                            } else {
+                                walk.addTree(head);
+                            }
+                            walk.addTree(new DirCacheIterator(git.getRepository().readDirCache()));
+                            walk.setFilter(TreeFilter.ANY_DIFF);
+                            walk.setRecursive(true);
+                            Set<String> paths = new HashSet<>();
+                            while (walk.next()) {
+                                paths.add(walk.getPathString());
+                            }
+                            span.setEntries(paths.size());
+                            return paths;
+                        }
+                    }
+                });
+    }
+
+    /**
+     * The id of the commit HEAD points to, or "" before the first commit.
+     */
+    String head() throws IOException {
+        ObjectId head = git.getRepository().resolve(Constants.HEAD);
+        return head == null ? "" : head.name();
+    }
+
+    /**
+     * Every commit reachable from any ref, newest first, as "id - [short message]".
+     */
+    List<String> log() throws IOException, GitAPIException {
+        // reads the refs, so it can fail before the walk
+        final LogCommand log = git.log().all();
+        return traced("log --all", workTree,
+                new Call<List<String>, GitAPIException>() {
+                    public List<String> call(OperationEvents.Span span) throws GitAPIException {
+                        List<String> logs = new ArrayList<>();
+                        for (RevCommit rev : log.call()) {
+                            logs.add(rev.getId().getName() + " - [" + rev.getShortMessage() + "]");
+                        }
+                        span.setEntries(logs.size());
+                        return logs;
+                    }
+                });
+    }
+
+    /**
+     * Full names of the local branches, e.g. "refs/heads/master".
+     */
+    List<String> branches() throws GitAPIException {
+        return traced("branch --list", workTree,
+                new Call<List<String>, GitAPIException>() {
+                    public List<String> call(OperationEvents.Span span) throws GitAPIException {
+                        List<String> branches = new ArrayList<>();
+                        for (Ref ref : git.branchList().call()) {
+                            branches.add(ref.getName());
+                        }
+                        span.setEntries(branches.size());
+                        return branches;
+                    }
+                });
+    }
+
+    String currentBranch() throws IOException {
+        return git.getRepository().getBranch();
+    }
+
+    void commit(final String message) throws GitAPIException {
+        traced("commit", workTree,
+                new Call<Void, GitAPIException>() {
+                    public Void call(OperationEvents.Span span) throws GitAPIException {
+                        git.commit().setMessage(message).call();
+                        return null;
+                    }
+                });
+    }
+
+    void createBranch(final String name) throws GitAPIException {
+        traced("branch " + name, workTree,
+                new Call<Void, GitAPIException>() {
+                    public Void call(OperationEvents.Span span) throws GitAPIException {
+                        git.branchCreate().setName(name).call();
+                        return null;
+                    }
+                });
+    }
+
+    void deleteBranch(final String name) throws GitAPIException {
+        traced("branch -d " + name, workTree,
+                new Call<Void, GitAPIException>() {
+                    public Void call(OperationEvents.Span span) throws GitAPIException {
+                        git.branchDelete().setBranchNames(name).call();
+                        return null;
+                    }
+                });
+    }
+
+    void renameBranch(final String oldName, final String newName) throws GitAPIException {
+        traced("branch -m " + newName, workTree,
+                new Call<Void, GitAPIException>() {
+                    public Void call(OperationEvents.Span span) throws GitAPIException {
+                        git.branchRename().setOldName(oldName).setNewName(newName).call();
+                        return null;
+                    }
+                });
+    }
+
+    void checkout(final String name) throws GitAPIException {
+        traced("checkout " + name, workTree,
+                new Call<Void, GitAPIException>() {
+                    public Void call(OperationEvents.Span span) throws GitAPIException {
+                        git.checkout().setName(name).call();
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * Merge branch into the current branch with the git executable. A merge that conflicts is
+     * aborted, leaving the work tree as it was, and reported by returning false.
+     */
+    boolean merge(String branch, JobScheduler.Job job) throws IOException, InterruptedException {
+        String path = workTree.getPath().replace(" ", "\\ ");
+        try {
+            GitSupport.runCommand(job, "cd " + path + " && git merge " + branch);
+        } catch (IOException e) {
+            // git merge exits non-zero on conflicts, MERGE_HEAD tells us
+        }
+        if (new File(gitDir, "MERGE_HEAD").exists()) {
+            GitSupport.runCommand(job, "cd " + path + " && git merge --abort");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Counts &amp; sizes of the loose and packed objects and refs, see
+     * {@link RepositoryMaintenance.Statistics}.
+     */
+    Properties statistics() throws GitAPIException {
+        return git.gc().getStatistics();
+    }
+
+    /**
+     * Pack loose objects into one pack, prune unreachable objects older than two weeks &amp; pack
+     * the refs. Returns the statistics afterwards.
+     */
+    Properties garbageCollect(final ProgressMonitor monitor) throws GitAPIException {
+        return traced("gc", workTree,
+                new Call<Properties, GitAPIException>() {
+                    public Properties call(OperationEvents.Span span) throws GitAPIException {
+                        Properties statistics = git.gc().setProgressMonitor(monitor).call();
+                        span.setEntries(new RepositoryMaintenance.Statistics(statistics).packedObjects);
+                        return statistics;
+                    }
+                });
+    }
+
+    /**
+     * Clone uri into directory, with user &amp; token for private repositories or null.
+     */
+    static void cloneRepository(String uri, File directory, String user, String token) throws GitAPIException {
+        final CloneCommand clone = Git.cloneRepository().setURI(uri).setDirectory(directory);
+        if (user != null) {
+            clone.setCredentialsProvider(new UsernamePasswordCredentialsProvider(user, token));
+        }
+        traced("clone " + uri, directory,
+                new Call<Void, GitAPIException>() {
+                    public Void call(OperationEvents.Span span) throws GitAPIException {
+                        clone.call().close();
+                        return null;
+                    }
+                });
+    }
+
+    public void close() {
+        git.getRepository().close();
+    }
+
+    /**
+     * An operation recorded as one git event, which can set the event's entries.
+     */
+    private interface Call<T, E extends Exception> {
+        T call(OperationEvents.Span span) throws E;
+    }
+
+    /**
+     * Run call as the git event command at location, failed unless it returns.
+     */
+    private static <T, E extends Exception> T traced(String command, File location, Call<T, E> call) throws E {
+        OperationEvents.Span span = OperationEvents.git(command, location);
+        boolean failed = true;
+        try {
+            T result = call.call(span);
+            failed = false;
+            return result;
+        } finally {
+            span.setFailed(failed).end();
+        }
+    }
+}
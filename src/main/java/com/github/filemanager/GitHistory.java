@@ -0,0 +1,390 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * The commits that changed a file or directory, newest first, without Swing.
+ *
+ * <p>Much like "git log --follow -- path": every commit reachable from HEAD is compared with its
+ * first parent, a merge that kept one parent's version of the path is skipped, and when the
+ * file turns out to have been added by a rename the walk goes on under the old name. {@link ChangedPathFilters} rule out most commits without reading their
+ * trees; a commit with no filter yet is diffed in full once to get one. A {@link Walk} keeps its
+ * place, so the history is read a page at a time.
+ */
+class GitHistory {
+
+    static final int PAGE_SIZE = 100;
+    /**
+     * New filters kept in memory at most before they are written out during a walk.
+     */
+    static final int SAVE_EVERY = 5000;
+
+    /**
+     * Told about each commit as it is found, on the walking thread.
+     */
+    interface Listener {
+        void found(Entry entry);
+    }
+
+    /**
+     * A commit that changed the path.
+     */
+    static final class Entry {
+        final ObjectId commit;
+        final String path;
+        /**
+         * The name before a rename, or null.
+         */
+        final String oldPath;
+        /**
+         * 'A'dded, 'M'odified, 'D'eleted or 'R'enamed.
+         */
+        final char change;
+        final String author;
+        /**
+         * Author time in milliseconds.
+         */
+        final long time;
+        final String message;
+
+        Entry(RevCommit commit, String path, String oldPath, char change) {
+            PersonIdent author = commit.getAuthorIdent();
+            this.commit = commit.copy();
+            this.path = path;
+            this.oldPath = oldPath;
+            this.change = change;
+            this.author = author.getName();
+            this.time = author.getWhen().getTime();
+            this.message = commit.getShortMessage();
+        }
+    }
+
+    private final File directory;
+    private final Map<File, ChangedPathFilters> filters = new HashMap<>();
+
+    /**
+     * Filters are kept in directory, a file per repository.
+     */
+    GitHistory(File directory) {
+        this.directory = directory;
+    }
+
+    private ChangedPathFilters filters(File gitDir) {
+        synchronized (filters) {
+            ChangedPathFilters repositoryFilters = filters.get(gitDir);
+            if (repositoryFilters == null) {
+                repositoryFilters = ChangedPathFilters.open(directory, gitDir);
+                filters.put(gitDir, repositoryFilters);
+            }
+            return repositoryFilters;
+        }
+    }
+
+    /**
+     * Start walking the history of file (or directory) from HEAD.
+     *
+     * @throws IOException also when file is not inside a repository or nothing is committed
+     */
+    Walk open(File file) throws IOException {
+        File gitDir = GitSupport.findGitDir(file.getAbsoluteFile());
+        if (gitDir == null) {
+            throw new IOException("Not inside a git repository");
+        }
+        Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).build();
+        try {
+            String path = BatchOperation.repositoryPath(repository.getWorkTree(), file);
+            if (path.equals(".")) {
+                throw new IOException("The history of the whole repository is under history");
+            }
+            ObjectId head = repository.resolve("HEAD");
+            if (head == null) {
+                throw new IOException("Nothing committed yet");
+            }
+            return new Walk(repository, filters(repository.getDirectory()), path, head, file.isDirectory());
+        } catch (IOException | RuntimeException e) {
+            repository.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The history of one path, read on demand. Methods wait for a page being read, so cancel its
+     * job before closing.
+     */
+    static class Walk implements Closeable {
+        private final Repository repository;
+        private final ChangedPathFilters filters;
+        private final RevWalk walk;
+        private final TreeWalk diff;
+        private final boolean directory;
+        private String path;
+        private boolean done;
+        private int visited;
+        private int skipped;
+        private int diffed;
+        private int found;
+
+        private Walk(Repository repository, ChangedPathFilters filters, String path, ObjectId head, boolean directory)
+                throws IOException {
+            this.repository = repository;
+            this.filters = filters;
+            this.path = path;
+            this.directory = directory;
+            walk = new RevWalk(repository);
+            walk.sort(RevSort.COMMIT_TIME_DESC);
+            walk.markStart(walk.parseCommit(head));
+            diff = new TreeWalk(repository);
+            diff.setRecursive(true);
+        }
+
+        /**
+         * The path followed, the name before the oldest rename found so far.
+         */
+        synchronized String getPath() {
+            return path;
+        }
+
+        synchronized boolean isDone() {
+            return done;
+        }
+
+        /**
+         * A summary of the work done, e.g. for a status line.
+         */
+        synchronized String getStatistics() {
+            return found + " commits, " + visited + " walked, " + skipped + " skipped by filters, "
+                    + diffed + " diffed";
+        }
+
+        /**
+         * Find up to count more commits, telling listener about each. Returns how many there
+         * were, fewer than count only at the end of history.
+         */
+        synchronized int next(int count, Listener listener, JobScheduler.Job job) throws IOException {
+            OperationEvents.Span span = OperationEvents.git("log --follow -- " + path, repository.getWorkTree());
+            int page = 0;
+            try {
+                while (page < count) {
+                    if (job != null && job.isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    RevCommit commit = walk.next();
+                    if (commit == null) {
+                        done = true;
+                        break;
+                    }
+                    visited++;
+                    Entry entry = entry(commit);
+                    if (entry != null) {
+                        found++;
+                        page++;
+                        listener.found(entry);
+                        if (job != null) {
+                            job.setProgress(page, count);
+                        }
+                    }
+                }
+                if (done || filters.getAdded() >= SAVE_EVERY) {
+                    filters.save();
+                }
+                span.setEntries(page);
+                return page;
+            } catch (IOException | RuntimeException e) {
+                span.setFailed(true);
+                throw e;
+            } finally {
+                span.end();
+            }
+        }
+
+        /**
+         * The entry for commit if it changed the path, following a rename.
+         */
+        private Entry entry(RevCommit commit) throws IOException {
+            RevCommit parent = null;
+            if (commit.getParentCount() > 0) {
+                parent = commit.getParent(0);
+                walk.parseHeaders(parent);
+            }
+            Boolean mightChange = filters.mightChange(commit, path);
+            if (mightChange == null) {
+                Set<String> changed = changedPaths(commit);
+                filters.put(commit, changed);
+                mightChange = changes(changed);
+            } else if (!mightChange) {
+                skipped++;
+                return null;
+            }
+            if (!mightChange) {
+                return null;
+            }
+            diffed++;
+            // the side branch's commits are walked too, so its changes are not shown twice
+            for (int ii = 1; ii < commit.getParentCount(); ii++) {
+                RevCommit other = commit.getParent(ii);
+                walk.parseHeaders(other);
+                reset(other, commit, AndTreeFilter.create(PathFilter.create(path), TreeFilter.ANY_DIFF));
+                if (!diff.next()) {
+                    return null;
+                }
+            }
+            reset(parent, commit, AndTreeFilter.create(PathFilter.create(path), TreeFilter.ANY_DIFF));
+            char change = 0;
+            while (diff.next()) {
+                if (directory) {
+                    change = 'M';
+                    break;
+                }
+                if (diff.getPathString().equals(path)) {
+                    change = diff.getRawMode(0) == 0 ? 'A' : diff.getRawMode(1) == 0 ? 'D' : 'M';
+                }
+            }
+            if (change == 0) {
+                // a false positive of the filter
+                return null;
+            }
+            if (change == 'A' && !directory && parent != null) {
+                String oldPath = renamedFrom(parent, commit);
+                if (oldPath != null) {
+                    Entry entry = new Entry(commit, path, oldPath, 'R');
+                    path = oldPath;
+                    return entry;
+                }
+            }
+            return new Entry(commit, path, null, change);
+        }
+
+        /**
+         * The paths commit changed against its parent. For a merge, the paths &amp; directories
+         * that differ from every parent, which {@link #entry} skips otherwise.
+         */
+        private Set<String> changedPaths(RevCommit commit) throws IOException {
+            if (commit.getParentCount() <= 1) {
+                Set<String> changed = new HashSet<>();
+                reset(commit.getParentCount() == 0 ? null : commit.getParent(0), commit, TreeFilter.ANY_DIFF);
+                while (diff.next()) {
+                    changed.add(diff.getPathString());
+                }
+                return changed;
+            }
+            Set<String> changed = null;
+            for (RevCommit parent : commit.getParents()) {
+                walk.parseHeaders(parent);
+                List<String> fromParent = new ArrayList<>();
+                reset(parent, commit, TreeFilter.ANY_DIFF);
+                while (diff.next()) {
+                    fromParent.add(diff.getPathString());
+                }
+                if (changed == null) {
+                    changed = ChangedPathFilters.withDirectories(fromParent);
+                } else {
+                    changed.retainAll(ChangedPathFilters.withDirectories(fromParent));
+                }
+            }
+            return changed;
+        }
+
+        private boolean changes(Set<String> changed) {
+            if (changed.contains(path)) {
+                return true;
+            }
+            if (directory) {
+                String prefix = path + '/';
+                for (String changedPath : changed) {
+                    if (changedPath.startsWith(prefix)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * The path that commit renamed to the followed path, if it did. Only the deleted files
+         * are candidates, as in git's --follow.
+         */
+        private String renamedFrom(RevCommit parent, RevCommit commit) throws IOException {
+            reset(parent, commit, TreeFilter.ANY_DIFF);
+            RenameDetector renames = new RenameDetector(repository);
+            for (DiffEntry entry : DiffEntry.scan(diff)) {
+                if (entry.getChangeType() == DiffEntry.ChangeType.DELETE
+                        || entry.getChangeType() == DiffEntry.ChangeType.ADD && entry.getNewPath().equals(path)) {
+                    renames.add(entry);
+                }
+            }
+            for (DiffEntry entry : renames.compute(walk.getObjectReader(), NullProgressMonitor.INSTANCE)) {
+                if (entry.getChangeType() == DiffEntry.ChangeType.RENAME && entry.getNewPath().equals(path)) {
+                    return entry.getOldPath();
+                }
+            }
+            return null;
+        }
+
+        private void reset(RevCommit parent, RevCommit commit, TreeFilter filter) throws IOException {
+            diff.reset();
+            if (parent == null) {
+                diff.addTree(new EmptyTreeIterator());
+            } else {
+                diff.addTree(parent.getTree());
+            }
+            diff.addTree(commit.getTree());
+            diff.setFilter(filter);
+        }
+
+        /**
+         * Write out the filters found so far &amp; release the repository.
+         */
+        public synchronized void close() throws IOException {
+            try {
+                filters.save();
+            } finally {
+                diff.close();
+                walk.close();
+                repository.close();
+            }
+        }
+    }
+}
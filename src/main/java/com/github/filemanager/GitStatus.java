@@ -0,0 +1,105 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.util.*;
+import org.eclipse.jgit.api.Status;
+
+/**
+ * The status of a single file as shown in the table's status column, without Swing.
+ *
+ * <p>Statuses come from a {@link StatusMonitor}; this class names them and converts JGit's
+ * status into git's two letter short format.
+ */
+final class GitStatus {
+
+    /**
+     * Not inside a git repository.
+     */
+    static final String NONE = "none";
+    /**
+     * A directory inside a git repository.
+     */
+    static final String DIRECTORY = "gitDir";
+    /**
+     * Tracked &amp; unchanged ("clean").
+     */
+    static final String CLEAN = "C";
+    static final String ERROR = "Error";
+    static final String UNTRACKED = "??";
+    static final String CONFLICTING = "UU";
+
+    private GitStatus() {
+    }
+
+    /**
+     * The short format status ("M ", " M", "AD", "??" ...) of every changed path in status, as
+     * "git status -s" prints them.
+     */
+    static Map<String, String> codes(Status status) {
+        Map<String, char[]> columns = new HashMap<>();
+        set(columns, status.getAdded(), 0, 'A');
+        set(columns, status.getChanged(), 0, 'M');
+        set(columns, status.getRemoved(), 0, 'D');
+        set(columns, status.getModified(), 1, 'M');
+        set(columns, status.getMissing(), 1, 'D');
+        Map<String, String> codes = new HashMap<>();
+        for (Map.Entry<String, char[]> entry : columns.entrySet()) {
+            codes.put(entry.getKey(), new String(entry.getValue()));
+        }
+        for (String path : status.getUntracked()) {
+            if (!codes.containsKey(path)) {
+                codes.put(path, UNTRACKED);
+            }
+        }
+        for (String path : status.getConflicting()) {
+            codes.put(path, CONFLICTING);
+        }
+        return codes;
+    }
+
+    private static void set(Map<String, char[]> columns, Set<String> paths, int column, char letter) {
+        for (String path : paths) {
+            char[] code = columns.get(path);
+            if (code == null) {
+                code = new char[] {' ', ' '};
+                columns.put(path, code);
+            }
+            code[column] = letter;
+        }
+    }
+
+    /**
+     * The {@link StatusTree} state of a file with the short format status code.
+     */
+    static int state(String code) {
+        if (code.equals(UNTRACKED)) {
+            return StatusTree.UNTRACKED;
+        } else if (code.equals(CONFLICTING)) {
+            return StatusTree.MODIFIED;
+        }
+        int state = code.charAt(0) != ' ' ? StatusTree.STAGED : 0;
+        return code.charAt(1) != ' ' ? state | StatusTree.MODIFIED : state;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Finding a file's repository &amp; running git commands in a shell, without Swing.
+ */
+final class GitSupport {
+
+    private GitSupport() {
+    }
+
+    /**
+     * findGitDir do finding the .git dir from currentFile variance.
+     * if There is .git return .git's file.
+     * else return null
+     */
+    static File findGitDir(File directory) {
+        File gitDir = new File(directory, ".git");
+        if (gitDir.exists() && gitDir.isDirectory()) {
+            return gitDir;
+        } else {
+            File parent = directory.getParentFile();
+            return parent != null ? findGitDir(parent) : null;
+        }
+    }
+
+    /**
+     * The git directory of workTree itself, not of a parent: its .git directory, or the one a .git
+     * file points to, as in linked worktrees &amp; submodules. Null if there is neither.
+     */
+    static File gitDirOf(File workTree) {
+        File dotGit = new File(workTree, ".git");
+        if (dotGit.isDirectory()) {
+            return dotGit;
+        }
+        if (!dotGit.isFile()) {
+            return null;
+        }
+        try {
+            String content = FileUtils.readFileToString(dotGit, StandardCharsets.UTF_8).trim();
+            if (!content.startsWith("gitdir:")) {
+                return null;
+            }
+            File gitDir = new File(content.substring("gitdir:".length()).trim());
+            if (!gitDir.isAbsolute()) {
+                gitDir = new File(workTree, gitDir.getPath());
+            }
+            return gitDir.isDirectory() ? gitDir : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Run a shell command to completion and return its output. Cancelling the job kills the
+     * process; a non-zero exit code is reported as an IOException carrying the output.
+     */
+    static String runCommand(JobScheduler.Job job, String cmd) throws IOException, InterruptedException {
+        OperationEvents.Span span = commandSpan(cmd);
+        try {
+            String output = runProcess(job, cmd);
+            span.setEntries(countLines(output)).setBytes(output.length());
+            return output;
+        } catch (IOException | InterruptedException e) {
+            span.setFailed(true);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * A git event for a command of the form "cd dir &amp;&amp; git ...", with the directory as its
+     * path.
+     */
+    private static OperationEvents.Span commandSpan(String cmd) {
+        int and = cmd.indexOf(" && ");
+        File location = null;
+        if (cmd.startsWith("cd ") && and > 0) {
+            location = new File(cmd.substring(3, and).replace("\\ ", " "));
+        }
+        String command = and < 0 ? cmd : cmd.substring(and + 4);
+        if (command.startsWith("git ")) {
+            command = command.substring(4);
+        }
+        return OperationEvents.git(command, location);
+    }
+
+    private static int countLines(String output) {
+        int lines = 0;
+        for (int ii = 0; ii < output.length(); ii++) {
+            if (output.charAt(ii) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    private static String runProcess(JobScheduler.Job job, String cmd) throws IOException, InterruptedException {
+        String[] command = {"/bin/sh", "-c", cmd};
+        final Process p = new ProcessBuilder(command).redirectErrorStream(true).start();
+        final StringBuilder output = new StringBuilder();
+        // read on another thread: a killed shell can leave children holding the pipe open
+        Thread reader =
+                new Thread(
+                        new Runnable() {
+                            public void run() {
+                                try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                                    String line;
+                                    while ((line = in.readLine()) != null) {
+                                        synchronized (output) {
+                                            output.append(line).append("\n");
+                                        }
+                                    }
+                                } catch (IOException e) {
+                                    // process went away, keep what was read
+                                }
+                            }
+                        },
+                        job.getName() + " output");
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            int exitCode = p.waitFor();
+            reader.join();
+            synchronized (output) {
+                if (exitCode != 0) {
+                    throw new IOException(output.toString().trim());
+                }
+                return output.toString();
+            }
+        } finally {
+            p.destroy();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Random access to the bytes of a file of any size through memory mapped windows.
+ *
+ * <p>A single mapping is limited to 2 GB, so offsets are longs and only a window around the
+ * bytes being read is mapped; reading elsewhere slides the window. Searching maps its own,
+ * larger windows that overlap by the pattern length so matches across a boundary are found.
+ */
+class HexFile implements Closeable {
+
+    private static final int WINDOW = 1024 * 1024;
+    private static final int SEARCH_WINDOW = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    HexFile(File file) throws IOException {
+        this.channel = new RandomAccessFile(file, "r").getChannel();
+        this.size = channel.size();
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Copy up to buffer.length bytes from offset, returning how many there were.
+     */
+    synchronized int read(long offset, byte[] buffer) throws IOException {
+        int length = (int) Math.max(0, Math.min(buffer.length, size - offset));
+        if (length == 0) {
+            return 0;
+        }
+        if (window == null || offset < windowStart || offset + length > windowStart + window.limit()) {
+            windowStart = offset - offset % WINDOW;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                    Math.min(2L * WINDOW, size - windowStart));
+        }
+        for (int ii = 0; ii < length; ii++) {
+            buffer[ii] = window.get((int) (offset - windowStart) + ii);
+        }
+        return length;
+    }
+
+    /**
+     * Offset of the first occurrence of pattern at or after from, or -1.
+     */
+    long find(byte[] pattern, long from, JobScheduler.Job job) throws IOException {
+        if (pattern.length == 0) {
+            return -1;
+        }
+        byte first = pattern[0];
+        for (long start = Math.max(0, from); start + pattern.length <= size; ) {
+            if (job != null && job.isCancelled()) {
+                throw new CancellationException();
+            }
+            long length = Math.min(SEARCH_WINDOW, size - start);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            int last = (int) length - pattern.length;
+            for (int ii = 0; ii <= last; ii++) {
+                if (buffer.get(ii) != first) {
+                    continue;
+                }
+                int jj = 1;
+                while (jj < pattern.length && buffer.get(ii + jj) == pattern[jj]) {
+                    jj++;
+                }
+                if (jj == pattern.length) {
+                    return start + ii;
+                }
+            }
+            if (start + length >= size) {
+                break;
+            }
+            // step back so a match straddling the two windows is seen
+            start += length - pattern.length + 1;
+            if (job != null) {
+                job.setProgress((int) (start >> 20), (int) (size >> 20));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The bytes of a search pattern: hex pairs ("DE AD be ef"), or text in double quotes.
+     */
+    static byte[] parsePattern(String pattern) {
+        String trimmed = pattern.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).getBytes(StandardCharsets.UTF_8);
+        }
+        String digits = trimmed.replaceAll("\\s+", "");
+        if (digits.startsWith("0x") || digits.startsWith("0X")) {
+            digits = digits.substring(2);
+        }
+        if (digits.isEmpty() || digits.length() % 2 != 0) {
+            throw new IllegalArgumentException("Expected hex byte pairs or \"text\": " + pattern);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(digits.length() / 2);
+        for (int ii = 0; ii < digits.length(); ii += 2) {
+            int high = Character.digit(digits.charAt(ii), 16);
+            int low = Character.digit(digits.charAt(ii + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Not a hex byte: " + digits.substring(ii, ii + 2));
+            }
+            bytes.write((high << 4) | low);
+        }
+        return bytes.toByteArray();
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
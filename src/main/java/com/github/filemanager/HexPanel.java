@@ -0,0 +1,330 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
+import javax.swing.*;
+
+/**
+ * Hex &amp; ASCII dump of the rows of a file that fit on screen, read through {@link HexFile}.
+ */
+class HexPanel extends JPanel {
+
+    private static final int BYTES_PER_ROW = 16;
+    private static final int SCROLL_RANGE = 1000000;
+
+    private final JobScheduler scheduler;
+    private final JTextArea text = new JTextArea();
+    private final JScrollBar scrollBar = new JScrollBar(JScrollBar.VERTICAL, 0, 0, 0, SCROLL_RANGE);
+    private final JTextField offsetField = new JTextField(12);
+    private final JTextField patternField = new JTextField(16);
+    private final JButton findNext = new JButton("Find next");
+    private final JLabel status = new JLabel(" ");
+
+    private File current;
+    private HexFile file;
+    private JobScheduler.Job searchJob;
+    /**
+     * Offset of the first row shown, always a multiple of BYTES_PER_ROW.
+     */
+    private long top;
+    private long selected = -1;
+    private int selectedLength;
+    private boolean adjusting;
+
+    HexPanel(JobScheduler scheduler) {
+        super(new BorderLayout(3, 3));
+        this.scheduler = scheduler;
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEADING, 3, 0));
+        controls.add(new JLabel("Offset"));
+        offsetField.setToolTipText("Decimal, or hex with a 0x prefix");
+        offsetField.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        goToOffset();
+                    }
+                });
+        controls.add(offsetField);
+        controls.add(new JLabel("Find"));
+        patternField.setToolTipText("Hex bytes (DE AD BE EF) or \"text\"");
+        patternField.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        findNext();
+                    }
+                });
+        controls.add(patternField);
+        findNext.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        findNext();
+                    }
+                });
+        controls.add(findNext);
+        controls.add(status);
+        add(controls, BorderLayout.NORTH);
+
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        text.setEditable(false);
+        add(text, BorderLayout.CENTER);
+        add(scrollBar, BorderLayout.EAST);
+
+        scrollBar.addAdjustmentListener(
+                new AdjustmentListener() {
+                    public void adjustmentValueChanged(AdjustmentEvent ae) {
+                        if (!adjusting && file != null) {
+                            showFrom(file.getSize() * scrollBar.getValue() / SCROLL_RANGE);
+                        }
+                    }
+                });
+        text.addMouseWheelListener(
+                new MouseWheelListener() {
+                    public void mouseWheelMoved(MouseWheelEvent mwe) {
+                        scrollRows(mwe.getWheelRotation() * 3);
+                    }
+                });
+        text.addComponentListener(
+                new ComponentAdapter() {
+                    @Override
+                    public void componentResized(ComponentEvent ce) {
+                        render();
+                    }
+                });
+    }
+
+    /**
+     * Show file, or clear the view when it is null or not a regular file.
+     */
+    void setFile(File newFile) {
+        close();
+        if (newFile == null || !newFile.isFile()) {
+            text.setText(newFile == null ? "" : "Not a file");
+            status.setText(" ");
+            return;
+        }
+        if (newFile instanceof ArchiveEntry) {
+            // entries are compressed, there is no random access to their bytes
+            text.setText("Inside " + ((ArchiveEntry) newFile).getArchive().getName() + ", see Preview");
+            status.setText(" ");
+            return;
+        }
+        try {
+            file = new HexFile(newFile);
+            current = newFile;
+        } catch (IOException e) {
+            text.setText(e.getMessage());
+            return;
+        }
+        showFrom(0);
+    }
+
+    private void close() {
+        if (searchJob != null) {
+            searchJob.cancel();
+            searchJob = null;
+        }
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // read-only, nothing lost
+            }
+            file = null;
+        }
+        top = 0;
+        selected = -1;
+        findNext.setEnabled(true);
+    }
+
+    private int visibleRows() {
+        int lineHeight = text.getFontMetrics(text.getFont()).getHeight();
+        return Math.max(1, text.getHeight() / lineHeight);
+    }
+
+    private void showFrom(long offset) {
+        long last = Math.max(0, file.getSize() - 1);
+        offset = Math.max(0, Math.min(offset, last));
+        top = offset - offset % BYTES_PER_ROW;
+        render();
+    }
+
+    private void scrollRows(int rows) {
+        if (file != null) {
+            showFrom(top + (long) rows * BYTES_PER_ROW);
+        }
+    }
+
+    private void goToOffset() {
+        if (file == null) {
+            return;
+        }
+        try {
+            showFrom(parseOffset(offsetField.getText()));
+        } catch (NumberFormatException e) {
+            offsetField.selectAll();
+        }
+    }
+
+    static long parseOffset(String value) {
+        String trimmed = value.trim().replace("_", "");
+        if (trimmed.startsWith("0x") || trimmed.startsWith("0X")) {
+            return Long.parseLong(trimmed.substring(2), 16);
+        }
+        return Long.parseLong(trimmed);
+    }
+
+    private void findNext() {
+        if (file == null || searchJob != null) {
+            return;
+        }
+        final byte[] pattern;
+        try {
+            pattern = HexFile.parsePattern(patternField.getText());
+        } catch (IllegalArgumentException e) {
+            status.setText(e.getMessage());
+            return;
+        }
+        final HexFile searched = file;
+        final long from = selected >= 0 ? selected + 1 : top;
+        status.setText("Searching...");
+        findNext.setEnabled(false);
+        searchJob = new JobScheduler.Job("Find bytes in " + current.getName(), JobScheduler.Priority.INTERACTIVE, current) {
+            private long found = -1;
+            private String failure;
+
+            @Override
+            protected void execute() {
+                try {
+                    found = searched.find(pattern, from, this);
+                } catch (IOException e) {
+                    failure = e.getMessage();
+                }
+            }
+
+            @Override
+            protected void finished() {
+                final JobScheduler.Job job = this;
+                // however it ended, so Find is never left disabled
+                SwingUtilities.invokeLater(
+                        new Runnable() {
+                            public void run() {
+                                if (searchJob != job) {
+                                    return;
+                                }
+                                searchJob = null;
+                                findNext.setEnabled(true);
+                                if (file != searched) {
+                                    return;
+                                }
+                                if (getState() == JobScheduler.State.CANCELLED) {
+                                    status.setText("Search cancelled");
+                                } else if (getState() == JobScheduler.State.FAILED) {
+                                    status.setText(String.valueOf(getError()));
+                                } else if (failure != null) {
+                                    status.setText(failure);
+                                } else if (found < 0) {
+                                    status.setText("Not found after 0x" + Long.toHexString(from));
+                                } else {
+                                    selected = found;
+                                    selectedLength = pattern.length;
+                                    showFrom(found - (long) BYTES_PER_ROW * (visibleRows() / 2));
+                                    status.setText("Found at 0x" + Long.toHexString(found));
+                                }
+                            }
+                        });
+            }
+        };
+        scheduler.submit(searchJob);
+    }
+
+    private void render() {
+        if (file == null) {
+            return;
+        }
+        int rows = visibleRows();
+        byte[] bytes = new byte[rows * BYTES_PER_ROW];
+        int length;
+        try {
+            length = file.read(top, bytes);
+        } catch (IOException e) {
+            text.setText(e.getMessage());
+            return;
+        }
+        StringBuilder sb = new StringBuilder(rows * 80);
+        int highlightStart = -1;
+        int highlightEnd = -1;
+        for (int row = 0; row * BYTES_PER_ROW < length; row++) {
+            if (row > 0) {
+                sb.append('\n');
+            }
+            long rowOffset = top + (long) row * BYTES_PER_ROW;
+            sb.append(String.format("%012x  ", rowOffset));
+            for (int col = 0; col < BYTES_PER_ROW; col++) {
+                int index = row * BYTES_PER_ROW + col;
+                long offset = rowOffset + col;
+                if (offset == selected) {
+                    highlightStart = sb.length();
+                }
+                if (index < length) {
+                    sb.append(Character.forDigit((bytes[index] >> 4) & 0xf, 16))
+                            .append(Character.forDigit(bytes[index] & 0xf, 16));
+                } else {
+                    sb.append("  ");
+                }
+                if (selected >= 0 && offset == selected + selectedLength - 1) {
+                    highlightEnd = sb.length();
+                }
+                sb.append(col == 7 ? "  " : " ");
+            }
+            sb.append(" |");
+            for (int col = 0; col < BYTES_PER_ROW && row * BYTES_PER_ROW + col < length; col++) {
+                int b = bytes[row * BYTES_PER_ROW + col] & 0xff;
+                sb.append(b >= 0x20 && b < 0x7f ? (char) b : '.');
+            }
+            sb.append('|');
+        }
+        text.setText(sb.toString());
+        if (highlightStart >= 0) {
+            text.select(highlightStart, highlightEnd >= 0 ? highlightEnd : highlightStart + 2);
+            text.getCaret().setSelectionVisible(true);
+        } else {
+            text.setCaretPosition(0);
+        }
+        adjusting = true;
+        try {
+            scrollBar.setValue(file.getSize() == 0 ? 0 : (int) (top * SCROLL_RANGE / file.getSize()));
+        } finally {
+            adjusting = false;
+        }
+        if (searchJob == null && selected < 0) {
+            status.setText(String.format("%d bytes (0x%x)", file.getSize(), file.getSize()));
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * The commits that changed the selected file or directory, read by {@link GitHistory} a page at
+ * a time and listed as they are found. Double clicking a commit shows its changes.
+ */
+abstract class HistoryPanel extends JPanel {
+
+    private final JobScheduler scheduler;
+    private final GitHistory history;
+    private final HistoryTableModel model = new HistoryTableModel();
+    private final JTable table = new JTable(model);
+    private final JButton more = new JButton("More");
+    private final JLabel status = new JLabel(" ");
+
+    private File file;
+    private GitHistory.Walk walk;
+    private JobScheduler.Job pageJob;
+
+    /**
+     * Entries found since the table was last told, added in one go.
+     */
+    private final List<GitHistory.Entry> arrived = new ArrayList<>();
+    private JobScheduler.Job arrivedJob;
+
+    HistoryPanel(JobScheduler scheduler, GitHistory history) {
+        super(new BorderLayout(3, 3));
+        this.scheduler = scheduler;
+        this.history = history;
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEADING, 3, 0));
+        JButton refresh = new JButton("Refresh");
+        refresh.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        refresh();
+                    }
+                });
+        controls.add(refresh);
+        more.setToolTipText("Find the next " + GitHistory.PAGE_SIZE + " commits");
+        more.setEnabled(false);
+        more.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        nextPage();
+                    }
+                });
+        controls.add(more);
+        controls.add(status);
+        add(controls, BorderLayout.NORTH);
+
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_LAST_COLUMN);
+        table.setShowGrid(false);
+        int[] widths = {80, 90, 120, 20, 200};
+        for (int ii = 0; ii < widths.length; ii++) {
+            table.getColumnModel().getColumn(ii).setPreferredWidth(widths[ii]);
+        }
+        table.addMouseListener(
+                new MouseAdapter() {
+                    @Override
+                    public void mouseClicked(MouseEvent me) {
+                        int row = table.rowAtPoint(me.getPoint());
+                        if (me.getClickCount() == 2 && row >= 0) {
+                            open(file, model.entries.get(row).commit.name());
+                        }
+                    }
+                });
+        add(new JScrollPane(table), BorderLayout.CENTER);
+    }
+
+    /**
+     * A commit was double clicked.
+     */
+    protected abstract void open(File file, String commit);
+
+    /**
+     * Show the history of file, or clear the view when it is null.
+     */
+    void setFile(File newFile) {
+        file = newFile;
+        refresh();
+    }
+
+    private void refresh() {
+        if (pageJob != null) {
+            pageJob.cancel();
+            pageJob = null;
+        }
+        close(walk);
+        walk = null;
+        model.clear();
+        more.setEnabled(false);
+        if (file == null || file instanceof ArchiveEntry) {
+            status.setText(file == null ? " " : "Not a file in a repository");
+            return;
+        }
+        nextPage();
+    }
+
+    /**
+     * Release a walk that is no longer shown, once its page (if any) has stopped.
+     */
+    private void close(final GitHistory.Walk closed) {
+        if (closed == null) {
+            return;
+        }
+        scheduler.submit(
+                new JobScheduler.Job("Close history", JobScheduler.Priority.BACKGROUND, null) {
+                    @Override
+                    protected void execute() throws IOException {
+                        closed.close();
+                    }
+                });
+    }
+
+    private void nextPage() {
+        if (pageJob != null || walk != null && walk.isDone()) {
+            return;
+        }
+        final File walked = file;
+        final GitHistory.Walk resumed = walk;
+        more.setEnabled(false);
+        status.setText("Reading the history of " + walked.getName() + "...");
+        pageJob = new JobScheduler.Job("History of " + walked.getName(), JobScheduler.Priority.INTERACTIVE, walked) {
+            private volatile GitHistory.Walk opened;
+
+            @Override
+            protected void execute() throws Exception {
+                final JobScheduler.Job job = this;
+                opened = resumed != null ? resumed : history.open(walked);
+                opened.next(GitHistory.PAGE_SIZE,
+                        new GitHistory.Listener() {
+                            public void found(GitHistory.Entry entry) {
+                                arrived(job, entry);
+                            }
+                        },
+                        this);
+            }
+
+            @Override
+            protected void finished() {
+                final JobScheduler.Job job = this;
+                SwingUtilities.invokeLater(
+                        new Runnable() {
+                            public void run() {
+                                if (pageJob != job) {
+                                    if (resumed == null) {
+                                        // replaced before it was shown
+                                        close(opened);
+                                    }
+                                    return;
+                                }
+                                pageJob = null;
+                                walk = opened;
+                                if (getState() == JobScheduler.State.FAILED) {
+                                    status.setText(getError().getMessage());
+                                } else if (walk != null) {
+                                    status.setText(walk.getStatistics()
+                                            + (walk.isDone() ? "" : ", more to find"));
+                                    more.setEnabled(!walk.isDone());
+                                }
+                            }
+                        });
+            }
+        };
+        scheduler.submit(pageJob);
+    }
+
+    /**
+     * Runs on the walking thread.
+     */
+    private void arrived(final JobScheduler.Job job, GitHistory.Entry entry) {
+        synchronized (arrived) {
+            if (arrivedJob != job) {
+                arrived.clear();
+                arrivedJob = job;
+            }
+            arrived.add(entry);
+            if (arrived.size() > 1) {
+                // already scheduled
+                return;
+            }
+        }
+        SwingUtilities.invokeLater(
+                new Runnable() {
+                    public void run() {
+                        List<GitHistory.Entry> entries;
+                        synchronized (arrived) {
+                            entries = new ArrayList<>(arrived);
+                            arrived.clear();
+                        }
+                        if (pageJob == job) {
+                            model.add(entries);
+                        }
+                    }
+                });
+    }
+
+    private static class HistoryTableModel extends AbstractTableModel {
+        private final String[] columns = {"Commit", "Date", "Author", "", "Path", "Message"};
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        private final List<GitHistory.Entry> entries = new ArrayList<>();
+
+        void clear() {
+            entries.clear();
+            fireTableDataChanged();
+        }
+
+        void add(List<GitHistory.Entry> added) {
+            if (added.isEmpty()) {
+                return;
+            }
+            int first = entries.size();
+            entries.addAll(added);
+            fireTableRowsInserted(first, entries.size() - 1);
+        }
+
+        public int getRowCount() {
+            return entries.size();
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        public Object getValueAt(int row, int column) {
+            GitHistory.Entry entry = entries.get(row);
+            switch (column) {
+                case 0:
+                    return entry.commit.abbreviate(8).name();
+                case 1:
+                    return dateFormat.format(new Date(entry.time));
+                case 2:
+                    return entry.author;
+                case 3:
+                    return String.valueOf(entry.change);
+                case 4:
+                    return entry.oldPath == null ? entry.path : entry.oldPath + " -> " + entry.path;
+                default:
+                    return entry.message;
+            }
+        }
+    }
+}
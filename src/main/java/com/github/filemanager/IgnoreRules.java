@@ -0,0 +1,76 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.jgit.ignore.IgnoreNode;
+import org.eclipse.jgit.lib.Constants;
+
+/**
+ * The .gitignore rules of one directory, linked to those of its parent.
+ */
+final class IgnoreRules {
+    final Path directory;
+    final IgnoreNode node;
+    final IgnoreRules parent;
+
+    IgnoreRules(Path directory, IgnoreNode node, IgnoreRules parent) {
+        this.directory = directory;
+        this.node = node;
+        this.parent = parent;
+    }
+
+    boolean isIgnored(Path path, boolean isDirectory) {
+        for (IgnoreRules rules = this; rules != null; rules = rules.parent) {
+            String relative = rules.directory.relativize(path).toString().replace(File.separatorChar, '/');
+            Boolean ignored = rules.node.checkIgnored(relative, isDirectory);
+            if (ignored != null) {
+                return ignored;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The rules below directory: parent plus those of its .gitignore, or parent if it has none.
+     */
+    static IgnoreRules withRulesOf(Path directory, IgnoreRules parent) {
+        Path gitignore = directory.resolve(Constants.GITIGNORE_FILENAME);
+        if (!Files.isRegularFile(gitignore)) {
+            return parent;
+        }
+        IgnoreNode node = new IgnoreNode();
+        try (InputStream in = Files.newInputStream(gitignore)) {
+            node.parse(in);
+        } catch (IOException e) {
+            return parent;
+        }
+        return new IgnoreRules(directory, node, parent);
+    }
+}
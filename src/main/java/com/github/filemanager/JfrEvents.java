@@ -0,0 +1,131 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The event types behind {@link OperationEvents}. Only loaded when the JVM has jdk.jfr.
+ */
+final class JfrEvents {
+
+    private JfrEvents() {
+    }
+
+    static OperationEvents.Span listing(File directory) {
+        return new JfrSpan(new ListingEvent(), "list", directory);
+    }
+
+    static OperationEvents.Span fileOperation(String operation, File file) {
+        return new JfrSpan(new FileOperationEvent(), operation, file);
+    }
+
+    static OperationEvents.Span git(String command, File location) {
+        return new JfrSpan(new GitOperationEvent(), command, location);
+    }
+
+    @Category("File Manager")
+    @StackTrace(false)
+    abstract static class OperationEvent extends Event {
+
+        @Label("Path")
+        String path;
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Entries")
+        @Description("Files listed, files in a batch or results of a git command")
+        long entries;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Failed")
+        boolean failed;
+    }
+
+    @Name("com.github.filemanager.Listing")
+    @Label("Directory Listing")
+    static final class ListingEvent extends OperationEvent {
+    }
+
+    @Name("com.github.filemanager.FileOperation")
+    @Label("File Operation")
+    static final class FileOperationEvent extends OperationEvent {
+    }
+
+    @Name("com.github.filemanager.GitOperation")
+    @Label("Git Operation")
+    static final class GitOperationEvent extends OperationEvent {
+    }
+
+    private static final class JfrSpan extends OperationEvents.Span {
+
+        private final OperationEvent event;
+
+        JfrSpan(OperationEvent event, String operation, File file) {
+            this.event = event;
+            if (event.isEnabled()) {
+                event.operation = operation;
+                event.path = file == null ? null : file.getPath();
+            }
+            event.begin();
+        }
+
+        @Override
+        OperationEvents.Span setEntries(long entries) {
+            event.entries = entries;
+            return this;
+        }
+
+        @Override
+        OperationEvents.Span setBytes(long bytes) {
+            event.bytes = bytes;
+            return this;
+        }
+
+        @Override
+        OperationEvents.Span setFailed(boolean failed) {
+            event.failed = failed;
+            return this;
+        }
+
+        @Override
+        void end() {
+            event.end();
+            if (event.shouldCommit()) {
+                event.commit();
+            }
+        }
+    }
+}
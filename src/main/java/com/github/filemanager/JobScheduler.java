@@ -0,0 +1,407 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue for all file &amp; git work that should not run on the EDT.
+ *
+ * <p>Jobs are started in priority order. Each device ({@link FileStore}) has its own limit on
+ * concurrently running jobs, so a slow USB disk that is busy does not hold back work on an SSD.
+ * Interactive jobs may use one slot more than the limit, so a listing is never stuck behind
+ * background hashing on the same disk. Jobs without a location (network clones etc.) share a
+ * separate pseudo device.
+ */
+class JobScheduler {
+
+    enum Priority {
+        INTERACTIVE, NORMAL, BACKGROUND
+    }
+
+    enum State {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED
+    }
+
+    /**
+     * Notified (on a worker thread) whenever a job is queued, started or finished.
+     */
+    interface Listener {
+        void jobChanged(Job job);
+    }
+
+    static final int DEFAULT_DEVICE_LIMIT = 2;
+
+    private static final String NO_DEVICE = "network";
+
+    private final ExecutorService executor;
+    private final List<Job> queued = new ArrayList<>();
+    private final List<Job> running = new ArrayList<>();
+    private final Map<Object, Integer> runningPerDevice = new HashMap<>();
+    private final Map<Object, Integer> deviceLimits = new HashMap<>();
+    private final Map<Path, Object> deviceCache =
+            new LinkedHashMap<Path, Object>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Path, Object> eldest) {
+                    return size() > 256;
+                }
+            };
+    private final List<Listener> listeners = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private int defaultDeviceLimit = DEFAULT_DEVICE_LIMIT;
+
+    JobScheduler() {
+        executor = Executors.newCachedThreadPool(
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "job-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    Job submit(Job job) {
+        job.device = deviceOf(job.location);
+        job.sequence = sequence.incrementAndGet();
+        job.scheduler = this;
+        synchronized (this) {
+            queued.add(job);
+        }
+        fireJobChanged(job);
+        dispatch();
+        return job;
+    }
+
+    synchronized void setDefaultDeviceLimit(int limit) {
+        defaultDeviceLimit = Math.max(1, limit);
+    }
+
+    /**
+     * Set how many jobs may run at once on the device holding the given file.
+     */
+    void setDeviceLimit(File location, int limit) {
+        Object device = deviceOf(location);
+        synchronized (this) {
+            deviceLimits.put(device, Math.max(1, limit));
+        }
+        dispatch();
+    }
+
+    synchronized List<Job> getJobs() {
+        List<Job> jobs = new ArrayList<>(running);
+        List<Job> waiting = new ArrayList<>(queued);
+        Collections.sort(waiting, ORDER);
+        jobs.addAll(waiting);
+        return jobs;
+    }
+
+    synchronized int getRunningCount() {
+        return running.size();
+    }
+
+    synchronized int getQueuedCount() {
+        return queued.size();
+    }
+
+    void addListener(Listener listener) {
+        synchronized (listeners) {
+            listeners.add(listener);
+        }
+    }
+
+    void removeListener(Listener listener) {
+        synchronized (listeners) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Start every queued job whose device still has a free slot, highest priority first.
+     */
+    private void dispatch() {
+        List<Job> started = new ArrayList<>();
+        synchronized (this) {
+            Collections.sort(queued, ORDER);
+            for (Iterator<Job> it = queued.iterator(); it.hasNext(); ) {
+                Job job = it.next();
+                Integer count = runningPerDevice.get(job.device);
+                int current = count == null ? 0 : count;
+                if (current < limitFor(job)) {
+                    it.remove();
+                    running.add(job);
+                    runningPerDevice.put(job.device, current + 1);
+                    job.state = State.RUNNING;
+                    started.add(job);
+                }
+            }
+        }
+        for (final Job job : started) {
+            fireJobChanged(job);
+            executor.execute(
+                    new Runnable() {
+                        public void run() {
+                            runJob(job);
+                        }
+                    });
+        }
+    }
+
+    private int limitFor(Job job) {
+        Integer limit = deviceLimits.get(job.device);
+        int base = limit == null ? defaultDeviceLimit : limit;
+        return job.priority == Priority.INTERACTIVE ? base + 1 : base;
+    }
+
+    private void runJob(Job job) {
+        synchronized (job.threadLock) {
+            job.thread = Thread.currentThread();
+        }
+        job.startNanos = System.nanoTime();
+        try {
+            if (job.cancelRequested) {
+                job.state = State.CANCELLED;
+            } else {
+                job.execute();
+                job.state = job.cancelRequested ? State.CANCELLED : State.DONE;
+            }
+        } catch (InterruptedException e) {
+            job.state = State.CANCELLED;
+        } catch (Throwable t) {
+            job.error = t;
+            job.state = job.cancelRequested ? State.CANCELLED : State.FAILED;
+        } finally {
+            // under the lock cancel() interrupts with, so no interrupt lands after it is cleared
+            // & leaks into the next job
+            synchronized (job.threadLock) {
+                job.thread = null;
+                Thread.interrupted();
+            }
+            job.endNanos = System.nanoTime();
+        }
+        synchronized (this) {
+            running.remove(job);
+            Integer count = runningPerDevice.get(job.device);
+            if (count == null || count <= 1) {
+                runningPerDevice.remove(job.device);
+            } else {
+                runningPerDevice.put(job.device, count - 1);
+            }
+        }
+        finish(job);
+        dispatch();
+    }
+
+    private void cancel(Job job) {
+        boolean wasQueued;
+        synchronized (this) {
+            job.cancelRequested = true;
+            wasQueued = queued.remove(job);
+            if (wasQueued) {
+                job.state = State.CANCELLED;
+            }
+        }
+        if (wasQueued) {
+            finish(job);
+        } else {
+            synchronized (job.threadLock) {
+                if (job.thread != null) {
+                    job.thread.interrupt();
+                }
+            }
+        }
+    }
+
+    private void finish(Job job) {
+        try {
+            job.finished();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        fireJobChanged(job);
+    }
+
+    private void fireJobChanged(Job job) {
+        List<Listener> copy;
+        synchronized (listeners) {
+            copy = new ArrayList<>(listeners);
+        }
+        for (Listener listener : copy) {
+            listener.jobChanged(job);
+        }
+    }
+
+    /**
+     * The FileStore holding the nearest existing ancestor of location.
+     */
+    private Object deviceOf(File location) {
+        if (location == null) {
+            return NO_DEVICE;
+        }
+        Path path = location.getAbsoluteFile().toPath();
+        while (path != null && !Files.exists(path)) {
+            path = path.getParent();
+        }
+        if (path == null) {
+            return NO_DEVICE;
+        }
+        Path key = Files.isDirectory(path) || path.getParent() == null ? path : path.getParent();
+        synchronized (deviceCache) {
+            Object device = deviceCache.get(key);
+            if (device != null) {
+                return device;
+            }
+        }
+        Object device;
+        try {
+            device = Files.getFileStore(key);
+        } catch (IOException | SecurityException e) {
+            device = NO_DEVICE;
+        }
+        synchronized (deviceCache) {
+            deviceCache.put(key, device);
+        }
+        return device;
+    }
+
+    private static final Comparator<Job> ORDER =
+            new Comparator<Job>() {
+                public int compare(Job a, Job b) {
+                    int byPriority = a.priority.compareTo(b.priority);
+                    return byPriority != 0 ? byPriority : Long.compare(a.sequence, b.sequence);
+                }
+            };
+
+    /**
+     * A unit of work for the scheduler. Subclasses implement {@link #execute()} and should check
+     * {@link #isCancelled()} between steps; cancelling a running job also interrupts its thread.
+     */
+    abstract static class Job {
+        private final String name;
+        private final Priority priority;
+        private final File location;
+        private volatile State state = State.QUEUED;
+        private volatile boolean cancelRequested;
+        /**
+         * The worker running the job; guarded by threadLock.
+         */
+        private Thread thread;
+        private final Object threadLock = new Object();
+        private volatile int done;
+        private volatile int total;
+        private volatile Throwable error;
+        private volatile long startNanos;
+        private volatile long endNanos;
+        private Object device;
+        private long sequence;
+        private JobScheduler scheduler;
+
+        Job(String name, Priority priority, File location) {
+            this.name = name;
+            this.priority = priority;
+            this.location = location;
+        }
+
+        protected abstract void execute() throws Exception;
+
+        /**
+         * Called on the worker thread once the job has left the scheduler, whatever its state.
+         */
+        protected void finished() {
+        }
+
+        void cancel() {
+            if (scheduler == null) {
+                cancelRequested = true;
+            } else {
+                scheduler.cancel(this);
+            }
+        }
+
+        boolean isCancelled() {
+            return cancelRequested;
+        }
+
+        void setProgress(int done, int total) {
+            this.done = done;
+            this.total = total;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Priority getPriority() {
+            return priority;
+        }
+
+        File getLocation() {
+            return location;
+        }
+
+        String getDevice() {
+            return device instanceof FileStore ? ((FileStore) device).name() : String.valueOf(device);
+        }
+
+        State getState() {
+            return state;
+        }
+
+        int getDone() {
+            return done;
+        }
+
+        int getTotal() {
+            return total;
+        }
+
+        Throwable getError() {
+            return error;
+        }
+
+        /**
+         * Run time so far (or in total) in milliseconds, 0 if not started.
+         */
+        long getElapsedMillis() {
+            long start = startNanos;
+            if (start == 0) {
+                return 0;
+            }
+            long end = endNanos == 0 ? System.nanoTime() : endNanos;
+            return (end - start) / 1000000L;
+        }
+    }
+}
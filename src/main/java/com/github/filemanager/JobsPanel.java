@@ -0,0 +1,165 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.*;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Shows the running &amp; queued jobs of a {@link JobScheduler} and lets the user cancel them.
+ */
+class JobsPanel extends JPanel {
+
+    private final JobScheduler scheduler;
+    private final JobTableModel jobTableModel = new JobTableModel();
+    private final JTable table;
+    private final Timer refreshTimer;
+
+    JobsPanel(JobScheduler scheduler) {
+        super(new BorderLayout(3, 3));
+        this.scheduler = scheduler;
+
+        table = new JTable(jobTableModel);
+        table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        JScrollPane tableScroll = new JScrollPane(table);
+        tableScroll.setPreferredSize(new Dimension(560, 200));
+        add(tableScroll, BorderLayout.CENTER);
+
+        JButton cancel = new JButton("Cancel");
+        cancel.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        cancelSelected();
+                    }
+                });
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.TRAILING));
+        buttons.add(cancel);
+        add(buttons, BorderLayout.SOUTH);
+
+        // progress changes too often to push events, so poll while visible
+        refreshTimer = new Timer(500,
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        refresh();
+                    }
+                });
+        addHierarchyListener(
+                new HierarchyListener() {
+                    public void hierarchyChanged(HierarchyEvent he) {
+                        if (isShowing()) {
+                            refresh();
+                            refreshTimer.start();
+                        } else {
+                            refreshTimer.stop();
+                        }
+                    }
+                });
+    }
+
+    private void refresh() {
+        List<JobScheduler.Job> selected = getSelectedJobs();
+        jobTableModel.setJobs(scheduler.getJobs());
+        // keep the selection across refreshes, so there is time to press cancel
+        for (JobScheduler.Job job : selected) {
+            int row = jobTableModel.indexOf(job);
+            if (row >= 0) {
+                table.addRowSelectionInterval(row, row);
+            }
+        }
+    }
+
+    private List<JobScheduler.Job> getSelectedJobs() {
+        List<JobScheduler.Job> selected = new ArrayList<>();
+        for (int row : table.getSelectedRows()) {
+            selected.add(jobTableModel.getJob(row));
+        }
+        return selected;
+    }
+
+    private void cancelSelected() {
+        for (JobScheduler.Job job : getSelectedJobs()) {
+            job.cancel();
+        }
+        refresh();
+    }
+
+    private static class JobTableModel extends AbstractTableModel {
+
+        private List<JobScheduler.Job> jobs = new ArrayList<>();
+        private String[] columns = {
+                "Job", "Priority", "State", "Progress", "Device", "Time (ms)",
+        };
+
+        void setJobs(List<JobScheduler.Job> jobs) {
+            this.jobs = jobs;
+            fireTableDataChanged();
+        }
+
+        JobScheduler.Job getJob(int row) {
+            return jobs.get(row);
+        }
+
+        int indexOf(JobScheduler.Job job) {
+            return jobs.indexOf(job);
+        }
+
+        public int getRowCount() {
+            return jobs.size();
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        public Object getValueAt(int row, int column) {
+            JobScheduler.Job job = jobs.get(row);
+            switch (column) {
+                case 0:
+                    return job.getName();
+                case 1:
+                    return job.getPriority();
+                case 2:
+                    return job.getState();
+                case 3:
+                    return job.getTotal() > 0 ? job.getDone() + " / " + job.getTotal() : "";
+                case 4:
+                    return job.getDevice();
+                case 5:
+                    return job.getElapsedMillis();
+                default:
+                    return "";
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.Point;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Back/forward list of the directories that were shown.
+ *
+ * <p>Each entry keeps what the table looked like when it was left - the listing, the scroll
+ * position &amp; the selection - so going back shows it again at once; the caller then checks
+ * the directory's modification time in the background and lists it again only if it changed.
+ * Listings are the expensive part, so only the {@link #MAX_SNAPSHOTS} entries nearest the
+ * current one keep theirs; the others fall back to listing from scratch.
+ */
+class NavigationHistory {
+
+    static final int MAX_ENTRIES = 100;
+    static final int MAX_SNAPSHOTS = 16;
+
+    static class Entry {
+        private final File directory;
+        private File[] listing;
+        private long modified;
+        private Point viewPosition;
+        private List<File> selection = Collections.emptyList();
+
+        Entry(File directory) {
+            this.directory = directory;
+        }
+
+        File getDirectory() {
+            return directory;
+        }
+
+        /**
+         * The listing when the directory was last shown, or null if it was dropped.
+         */
+        File[] getListing() {
+            return listing;
+        }
+
+        /**
+         * Modification time of the directory when the listing was taken.
+         */
+        long getModified() {
+            return modified;
+        }
+
+        Point getViewPosition() {
+            return viewPosition;
+        }
+
+        List<File> getSelection() {
+            return selection;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private int current = -1;
+
+    /**
+     * Modification time to compare a listing against. Entries of an archive change only when
+     * the archive itself is rewritten.
+     */
+    static long stamp(File directory) {
+        if (directory instanceof ArchiveEntry) {
+            return ((ArchiveEntry) directory).getArchive().lastModified();
+        }
+        return directory.lastModified();
+    }
+
+    /**
+     * Record that directory is shown with listing, taken when it had the modification time
+     * modified. Showing the current directory again only refreshes its listing; anything else
+     * becomes the new current entry and drops the forward entries.
+     */
+    void visit(File directory, File[] listing, long modified) {
+        Entry entry = getCurrent();
+        if (entry == null || !entry.directory.equals(directory)) {
+            while (entries.size() > current + 1) {
+                entries.remove(entries.size() - 1);
+            }
+            entry = new Entry(directory);
+            entries.add(entry);
+            if (entries.size() > MAX_ENTRIES) {
+                entries.remove(0);
+            }
+            current = entries.size() - 1;
+        }
+        entry.listing = listing;
+        entry.modified = modified;
+        dropSnapshots();
+    }
+
+    /**
+     * Keep the view of the current entry, to restore when coming back to it.
+     */
+    void remember(Point viewPosition, List<File> selection) {
+        Entry entry = getCurrent();
+        if (entry != null) {
+            entry.viewPosition = viewPosition;
+            entry.selection = new ArrayList<>(selection);
+        }
+    }
+
+    Entry getCurrent() {
+        return current < 0 ? null : entries.get(current);
+    }
+
+    boolean canGoBack() {
+        return current > 0;
+    }
+
+    boolean canGoForward() {
+        return current < entries.size() - 1;
+    }
+
+    Entry back() {
+        if (canGoBack()) {
+            current--;
+        }
+        return getCurrent();
+    }
+
+    Entry forward() {
+        if (canGoForward()) {
+            current++;
+        }
+        return getCurrent();
+    }
+
+    private void dropSnapshots() {
+        for (int ii = 0; ii < entries.size(); ii++) {
+            // as many on either side of the current entry
+            if (Math.abs(ii - current) > MAX_SNAPSHOTS / 2) {
+                entries.get(ii).listing = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+
+/**
+ * Java Flight Recorder events for listings, file operations &amp; git commands, so that a session
+ * recorded with -XX:StartFlightRecording shows where the time went without attaching a profiler.
+ *
+ * <p>A span is begun before the work and ended after it, carrying the path, entry count, bytes
+ * &amp; whether it failed. Compiling {@link JfrEvents} needs jdk.jfr (8u262 or later), but Java 8
+ * builds older than that can still run the jar: there every span is a no-op and
+ * {@link JfrEvents} is never loaded.
+ */
+final class OperationEvents {
+
+    static final boolean AVAILABLE = isAvailable();
+
+    private static final Span NONE = new Span();
+
+    private OperationEvents() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, OperationEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reading the entries of a directory or archive.
+     */
+    static Span listing(File directory) {
+        return AVAILABLE ? JfrEvents.listing(directory) : NONE;
+    }
+
+    /**
+     * Creating, renaming, deleting, copying or moving files, e.g. operation "Delete".
+     */
+    static Span fileOperation(String operation, File file) {
+        return AVAILABLE ? JfrEvents.fileOperation(operation, file) : NONE;
+    }
+
+    /**
+     * A git command through JGit or the git executable, e.g. command "status".
+     */
+    static Span git(String command, File location) {
+        return AVAILABLE ? JfrEvents.git(command, location) : NONE;
+    }
+
+    /**
+     * An operation being timed. Not thread safe, each span belongs to the thread that began it.
+     */
+    static class Span {
+
+        Span setEntries(long entries) {
+            return this;
+        }
+
+        Span setBytes(long bytes) {
+            return this;
+        }
+
+        Span setFailed(boolean failed) {
+            return this;
+        }
+
+        /**
+         * Stop the clock and commit the event if the recording wants it.
+         */
+        void end() {
+        }
+    }
+}
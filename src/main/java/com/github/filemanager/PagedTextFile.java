@@ -0,0 +1,328 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Line oriented, read-only access to a text file of any size.
+ *
+ * <p>Positions are byte offsets of line starts, so showing any part of the file only needs the
+ * bytes around it: reads go through a memory mapped window that moves with the reader. Line
+ * numbers come from a sparse index holding the offset of every n-th line, built by a separate
+ * pass; when the index would grow past {@link #MAX_CHECKPOINTS} every other entry is dropped and
+ * n doubles, so memory stays bounded however big the file is.
+ */
+class PagedTextFile implements Closeable {
+
+    /**
+     * Longer lines are cut into pieces of this many bytes.
+     */
+    static final int MAX_LINE = 4096;
+    static final int MAX_CHECKPOINTS = 1 << 16;
+    private static final int WINDOW = 4 * 1024 * 1024;
+    private static final int INDEX_WINDOW = 64 * 1024 * 1024;
+
+    private final File file;
+    private final FileChannel channel;
+    private final long size;
+
+    private ByteBuffer window;
+    private long windowStart = -1;
+
+    // sparse index: checkpoints[ii] is the offset of line ii * interval
+    private long[] checkpoints = new long[1024];
+    private int checkpointCount;
+    private long interval = 256;
+    private volatile long lineCount = -1;
+    private volatile long indexedBytes;
+
+    PagedTextFile(File file) throws IOException {
+        this.file = file;
+        this.channel = new RandomAccessFile(file, "r").getChannel();
+        this.size = channel.size();
+    }
+
+    /**
+     * Lines of bytes that are already in memory, e.g. the start of an entry streamed out of an
+     * archive.
+     */
+    PagedTextFile(File file, byte[] bytes) {
+        this.file = file;
+        this.channel = null;
+        this.size = bytes.length;
+        this.window = ByteBuffer.wrap(bytes);
+        this.windowStart = 0;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Total number of lines, or -1 until the index is complete.
+     */
+    long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * How far the index has got, in bytes.
+     */
+    long getIndexedBytes() {
+        return indexedBytes;
+    }
+
+    /**
+     * Crude text/binary guess: git treats a NUL in the first 8000 bytes as binary.
+     */
+    synchronized boolean isBinary() throws IOException {
+        int end = (int) Math.min(size, 8000);
+        for (int ii = 0; ii < end; ii++) {
+            if (byteAt(ii) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte byteAt(long offset) throws IOException {
+        if (window == null || offset < windowStart || offset >= windowStart + window.limit()) {
+            // align so that small moves back and forth stay inside one mapping
+            windowStart = Math.max(0, offset - WINDOW / 2);
+            window = map(windowStart, Math.min(WINDOW, size - windowStart));
+        }
+        return window.get((int) (offset - windowStart));
+    }
+
+    private ByteBuffer map(long start, long length) throws IOException {
+        if (channel == null) {
+            // in memory: a view of the bytes, which are all in the window
+            ByteBuffer view = window.duplicate();
+            ((Buffer) view).position((int) start);
+            ((Buffer) view).limit((int) (start + length));
+            return view.slice();
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    }
+
+    /**
+     * Start of the line containing offset.
+     */
+    synchronized long lineStart(long offset) throws IOException {
+        offset = Math.max(0, Math.min(offset, size));
+        long limit = Math.max(0, offset - MAX_LINE);
+        for (long ii = offset - 1; ii >= limit; ii--) {
+            if (byteAt(ii) == '\n') {
+                return ii + 1;
+            }
+        }
+        return limit == 0 ? 0 : offset;
+    }
+
+    /**
+     * Start of the line after the one starting at offset, or size if it is the last.
+     */
+    synchronized long nextLine(long offset) throws IOException {
+        long limit = Math.min(size, offset + MAX_LINE);
+        for (long ii = offset; ii < limit; ii++) {
+            if (byteAt(ii) == '\n') {
+                return ii + 1;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Start of the line before the one starting at offset.
+     */
+    synchronized long previousLine(long offset) throws IOException {
+        return offset <= 0 ? 0 : lineStart(offset - 1);
+    }
+
+    /**
+     * Up to count lines from the line starting at offset, without their line terminators.
+     */
+    synchronized List<String> readLines(long offset, int count) throws IOException {
+        List<String> lines = new ArrayList<>(count);
+        byte[] bytes = new byte[MAX_LINE];
+        while (lines.size() < count && offset < size) {
+            long next = nextLine(offset);
+            int length = (int) (next - offset);
+            for (int ii = 0; ii < length; ii++) {
+                bytes[ii] = byteAt(offset + ii);
+            }
+            while (length > 0 && (bytes[length - 1] == '\n' || bytes[length - 1] == '\r')) {
+                length--;
+            }
+            lines.add(new String(bytes, 0, length, StandardCharsets.UTF_8));
+            offset = next;
+        }
+        return lines;
+    }
+
+    /**
+     * Record line starts from the beginning of the file. Reads with its own mappings, so paging
+     * through the file is not blocked meanwhile.
+     */
+    void buildIndex(JobScheduler.Job job) throws IOException {
+        long line = 0;
+        addCheckpoint(0, 0);
+        for (long start = 0; start < size; start += INDEX_WINDOW) {
+            if (job != null && job.isCancelled()) {
+                throw new CancellationException();
+            }
+            long length = Math.min(INDEX_WINDOW, size - start);
+            ByteBuffer buffer = map(start, length);
+            for (int ii = 0; ii < length; ii++) {
+                if (buffer.get(ii) == '\n') {
+                    line++;
+                    long next = start + ii + 1;
+                    if (line % interval == 0 && next < size) {
+                        addCheckpoint(line, next);
+                    }
+                }
+            }
+            indexedBytes = start + length;
+            if (job != null) {
+                job.setProgress((int) (indexedBytes >> 20), (int) (size >> 20));
+            }
+        }
+        // a last line without a terminator still counts
+        lineCount = size > 0 && lastByteIsNotNewline() ? line + 1 : line;
+    }
+
+    private synchronized boolean lastByteIsNotNewline() throws IOException {
+        return byteAt(size - 1) != '\n';
+    }
+
+    private synchronized void addCheckpoint(long line, long offset) {
+        if (line / interval != checkpointCount) {
+            return;
+        }
+        if (checkpointCount == MAX_CHECKPOINTS) {
+            // keep every other checkpoint and space them twice as far apart
+            for (int ii = 0; ii < checkpointCount / 2; ii++) {
+                checkpoints[ii] = checkpoints[ii * 2];
+            }
+            checkpointCount /= 2;
+            interval *= 2;
+            if (line % interval != 0) {
+                return;
+            }
+        }
+        if (checkpointCount == checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+        }
+        checkpoints[checkpointCount++] = offset;
+    }
+
+    /**
+     * Offset of the start of line (0 based), clamped to the indexed part of the file.
+     */
+    long lineOffset(long line) throws IOException {
+        long offset;
+        long known;
+        synchronized (this) {
+            int checkpoint = (int) Math.min(line / interval, checkpointCount - 1);
+            if (checkpoint < 0) {
+                return 0;
+            }
+            offset = checkpoints[checkpoint];
+            known = checkpoint * interval;
+        }
+        for (; known < line && offset < size; known++) {
+            offset = afterNewline(offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Line number (0 based) of the line starting at offset, or -1 if the index has not got there.
+     */
+    long lineNumber(long offset) throws IOException {
+        if (offset > indexedBytes) {
+            return -1;
+        }
+        int checkpoint;
+        long known;
+        long position;
+        synchronized (this) {
+            int low = 0;
+            int high = checkpointCount - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (checkpoints[mid] <= offset) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            checkpoint = low;
+            known = checkpoint * interval;
+            position = checkpointCount == 0 ? 0 : checkpoints[checkpoint];
+        }
+        while (true) {
+            long next = afterNewline(position);
+            if (next > offset || next >= size) {
+                return known;
+            }
+            position = next;
+            known++;
+        }
+    }
+
+    /**
+     * Like {@link #nextLine} but only stops at a real line terminator, as the index counts.
+     */
+    private synchronized long afterNewline(long offset) throws IOException {
+        for (long ii = offset; ii < size; ii++) {
+            if (byteAt(ii) == '\n') {
+                return ii + 1;
+            }
+        }
+        return size;
+    }
+
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
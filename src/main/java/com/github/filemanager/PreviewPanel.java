@@ -0,0 +1,434 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
+
+/**
+ * Shows the lines of a text file that fit on screen, read through {@link PagedTextFile}, so
+ * files of any size open at once and use the same memory.
+ *
+ * <p>The scroll bar maps to byte offsets rather than lines, which makes jumping anywhere
+ * immediate even before the line index is built; line numbers &amp; "go to line" become exact
+ * once the background index job has passed that point.
+ */
+class PreviewPanel extends JPanel {
+
+    private static final int SCROLL_RANGE = 1000000;
+    /**
+     * How much of an entry inside an archive is streamed out to preview it.
+     */
+    private static final int ENTRY_LIMIT = 16 * 1024 * 1024;
+    private static final Highlighter.HighlightPainter ADDED =
+            new DefaultHighlighter.DefaultHighlightPainter(new Color(0xdd, 0xff, 0xdd));
+    private static final Highlighter.HighlightPainter REMOVED =
+            new DefaultHighlighter.DefaultHighlightPainter(new Color(0xff, 0xdd, 0xdd));
+    private static final Highlighter.HighlightPainter HUNK =
+            new DefaultHighlighter.DefaultHighlightPainter(new Color(0xdd, 0xee, 0xff));
+
+    private final JobScheduler scheduler;
+    private final JTextArea text = new JTextArea();
+    private final JTextArea gutter = new JTextArea();
+    private final JScrollBar scrollBar = new JScrollBar(JScrollBar.VERTICAL, 0, 0, 0, SCROLL_RANGE);
+    private final JTextField gotoLine = new JTextField(8);
+    private final JLabel status = new JLabel(" ");
+    private final Timer statusTimer;
+
+    private PagedTextFile file;
+    private JobScheduler.Job indexJob;
+    private JobScheduler.Job readJob;
+    /**
+     * Size of the file shown, more than the bytes held when only the start of an entry was read.
+     */
+    private long fullSize;
+    /**
+     * Offset of the first line shown.
+     */
+    private long top;
+    private boolean adjusting;
+    private boolean diff;
+
+    PreviewPanel(JobScheduler scheduler) {
+        super(new BorderLayout(3, 3));
+        this.scheduler = scheduler;
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEADING, 3, 0));
+        JButton start = new JButton("Start");
+        start.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        showFrom(0);
+                    }
+                });
+        controls.add(start);
+        JButton end = new JButton("End");
+        end.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        showEnd();
+                    }
+                });
+        controls.add(end);
+        controls.add(new JLabel("Line"));
+        gotoLine.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        goToLine();
+                    }
+                });
+        controls.add(gotoLine);
+        controls.add(status);
+        add(controls, BorderLayout.NORTH);
+
+        Font font = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+        text.setFont(font);
+        text.setEditable(false);
+        gutter.setFont(font);
+        gutter.setEditable(false);
+        gutter.setEnabled(false);
+        JPanel view = new JPanel(new BorderLayout());
+        view.add(gutter, BorderLayout.WEST);
+        view.add(text, BorderLayout.CENTER);
+        add(view, BorderLayout.CENTER);
+        add(scrollBar, BorderLayout.EAST);
+
+        scrollBar.addAdjustmentListener(
+                new AdjustmentListener() {
+                    public void adjustmentValueChanged(AdjustmentEvent ae) {
+                        if (!adjusting && file != null) {
+                            seek(file.getSize() * scrollBar.getValue() / SCROLL_RANGE);
+                        }
+                    }
+                });
+        text.addMouseWheelListener(
+                new MouseWheelListener() {
+                    public void mouseWheelMoved(MouseWheelEvent mwe) {
+                        scrollLines(mwe.getWheelRotation() * 3);
+                    }
+                });
+        text.addComponentListener(
+                new ComponentAdapter() {
+                    @Override
+                    public void componentResized(ComponentEvent ce) {
+                        render();
+                    }
+                });
+        bindKey("PAGE_DOWN", "pageDown", 1);
+        bindKey("PAGE_UP", "pageUp", -1);
+        bindKey("DOWN", "lineDown", 0);
+        bindKey("UP", "lineUp", 0);
+
+        statusTimer = new Timer(500,
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        render();
+                    }
+                });
+    }
+
+    private void bindKey(final String key, String name, final int pages) {
+        text.getInputMap(WHEN_FOCUSED).put(KeyStroke.getKeyStroke(key), name);
+        text.getActionMap().put(name,
+                new AbstractAction() {
+                    public void actionPerformed(ActionEvent ae) {
+                        int lines = pages == 0 ? 1 : visibleLines() - 1;
+                        scrollLines(key.endsWith("UP") ? -lines : lines);
+                    }
+                });
+    }
+
+    /**
+     * Color added, removed &amp; hunk header lines, for showing a patch.
+     */
+    void setDiff(boolean diff) {
+        this.diff = diff;
+    }
+
+    /**
+     * Show file, or clear the preview when it is null or not a regular file.
+     */
+    void setFile(File newFile) {
+        close();
+        if (newFile == null || !newFile.isFile()) {
+            showMessage(newFile == null ? "" : "Not a file");
+            return;
+        }
+        if (newFile instanceof ArchiveEntry) {
+            readEntry((ArchiveEntry) newFile);
+            return;
+        }
+        try {
+            PagedTextFile opened = new PagedTextFile(newFile);
+            open(opened, opened.getSize());
+        } catch (IOException e) {
+            showMessage(e.getMessage());
+        }
+    }
+
+    /**
+     * Inflate the start of an entry off the EDT, then page through it from memory.
+     */
+    private void readEntry(final ArchiveEntry entry) {
+        showMessage("Reading " + entry.getName() + " from " + entry.getArchive().getName() + "...");
+        readJob = new JobScheduler.Job("Read " + entry.getName(), JobScheduler.Priority.INTERACTIVE, entry.getArchive()) {
+            @Override
+            protected void execute() {
+                final JobScheduler.Job job = this;
+                byte[] bytes = null;
+                String error = null;
+                try {
+                    bytes = entry.readHead(ENTRY_LIMIT);
+                } catch (IOException e) {
+                    error = e.getMessage();
+                }
+                final byte[] read = bytes;
+                final String failure = error;
+                SwingUtilities.invokeLater(
+                        new Runnable() {
+                            public void run() {
+                                if (readJob != job) {
+                                    return;
+                                }
+                                readJob = null;
+                                if (failure != null) {
+                                    showMessage(failure);
+                                    return;
+                                }
+                                try {
+                                    open(new PagedTextFile(entry, read), entry.length());
+                                } catch (IOException e) {
+                                    showMessage(e.getMessage());
+                                }
+                            }
+                        });
+            }
+        };
+        scheduler.submit(readJob);
+    }
+
+    private void open(PagedTextFile opened, long size) throws IOException {
+        if (opened.isBinary()) {
+            opened.close();
+            showMessage("Binary file");
+            return;
+        }
+        file = opened;
+        fullSize = size;
+        final PagedTextFile indexed = file;
+        File newFile = opened.getFile();
+        indexJob = new JobScheduler.Job("Index lines of " + newFile.getName(), JobScheduler.Priority.BACKGROUND, newFile) {
+            @Override
+            protected void execute() throws Exception {
+                indexed.buildIndex(this);
+            }
+        };
+        scheduler.submit(indexJob);
+        statusTimer.start();
+        showFrom(0);
+    }
+
+    private void close() {
+        statusTimer.stop();
+        if (readJob != null) {
+            readJob.cancel();
+            readJob = null;
+        }
+        if (indexJob != null) {
+            indexJob.cancel();
+            indexJob = null;
+        }
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // read-only, nothing lost
+            }
+            file = null;
+        }
+        top = 0;
+    }
+
+    private void showMessage(String message) {
+        text.setText(message);
+        gutter.setText("");
+        status.setText(" ");
+        setScrollValue(0);
+    }
+
+    private int visibleLines() {
+        int lineHeight = text.getFontMetrics(text.getFont()).getHeight();
+        return Math.max(1, text.getHeight() / lineHeight);
+    }
+
+    private void showFrom(long offset) {
+        top = offset;
+        render();
+    }
+
+    private void seek(long offset) {
+        try {
+            top = file.lineStart(offset);
+        } catch (IOException e) {
+            top = offset;
+        }
+        render();
+    }
+
+    private void showEnd() {
+        if (file == null) {
+            return;
+        }
+        try {
+            long offset = file.getSize();
+            for (int ii = 0; ii < visibleLines() && offset > 0; ii++) {
+                offset = file.previousLine(offset);
+            }
+            showFrom(offset);
+        } catch (IOException e) {
+            showMessage(e.getMessage());
+        }
+    }
+
+    private void scrollLines(int lines) {
+        if (file == null) {
+            return;
+        }
+        try {
+            long offset = top;
+            for (int ii = 0; ii < lines && offset < file.getSize(); ii++) {
+                offset = file.nextLine(offset);
+            }
+            for (int ii = 0; ii > lines && offset > 0; ii--) {
+                offset = file.previousLine(offset);
+            }
+            showFrom(Math.min(offset, file.getSize()));
+        } catch (IOException e) {
+            showMessage(e.getMessage());
+        }
+    }
+
+    private void goToLine() {
+        if (file == null) {
+            return;
+        }
+        try {
+            long line = Long.parseLong(gotoLine.getText().trim()) - 1;
+            showFrom(file.lineOffset(Math.max(0, line)));
+        } catch (NumberFormatException e) {
+            gotoLine.selectAll();
+        } catch (IOException e) {
+            showMessage(e.getMessage());
+        }
+    }
+
+    private void render() {
+        if (file == null) {
+            statusTimer.stop();
+            return;
+        }
+        try {
+            List<String> lines = file.readLines(top, visibleLines());
+            long first = file.lineNumber(top);
+            StringBuilder sb = new StringBuilder();
+            StringBuilder numbers = new StringBuilder();
+            for (int ii = 0; ii < lines.size(); ii++) {
+                if (ii > 0) {
+                    sb.append('\n');
+                    numbers.append('\n');
+                }
+                sb.append(lines.get(ii));
+                numbers.append(first < 0 ? "?" : String.valueOf(first + 1 + ii));
+            }
+            text.setText(sb.toString());
+            text.setCaretPosition(0);
+            if (diff) {
+                highlightDiff(lines);
+            }
+            gutter.setText(numbers.toString());
+            setScrollValue(file.getSize() == 0 ? 0 : (int) (top * SCROLL_RANGE / file.getSize()));
+
+            long lineCount = file.getLineCount();
+            if (lineCount >= 0) {
+                status.setText(sizeText() + ", " + lineCount + " lines");
+                statusTimer.stop();
+            } else {
+                status.setText(sizeText() + ", indexing lines "
+                        + (file.getIndexedBytes() * 100 / Math.max(1, file.getSize())) + "%");
+            }
+        } catch (IOException e) {
+            showMessage(e.getMessage());
+        }
+    }
+
+    private void highlightDiff(List<String> lines) {
+        Highlighter highlighter = text.getHighlighter();
+        highlighter.removeAllHighlights();
+        int start = 0;
+        for (String line : lines) {
+            Highlighter.HighlightPainter painter = null;
+            if (line.startsWith("@@")) {
+                painter = HUNK;
+            } else if (line.startsWith("+") && !line.startsWith("+++")) {
+                painter = ADDED;
+            } else if (line.startsWith("-") && !line.startsWith("---")) {
+                painter = REMOVED;
+            }
+            if (painter != null) {
+                try {
+                    highlighter.addHighlight(start, start + line.length(), painter);
+                } catch (BadLocationException e) {
+                    // the text was just set from these lines
+                }
+            }
+            start += line.length() + 1;
+        }
+    }
+
+    private String sizeText() {
+        if (fullSize > file.getSize()) {
+            return "first " + file.getSize() + " of " + fullSize + " bytes";
+        }
+        return file.getSize() + " bytes";
+    }
+
+    private void setScrollValue(int value) {
+        adjusting = true;
+        try {
+            scrollBar.setValue(value);
+        } finally {
+            adjusting = false;
+        }
+    }
+}
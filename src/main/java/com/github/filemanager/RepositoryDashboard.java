@@ -0,0 +1,480 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.BranchTrackingStatus;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+/**
+ * The git repositories below a workspace directory with their branch, how far it is ahead of
+ * &amp; behind its upstream, and how many files are modified, untracked &amp; staged, without
+ * Swing.
+ *
+ * <p>Repositories are found with one fork/join task per directory, not looking inside a
+ * repository once found, and each one is read as soon as it is found. Reads run on a pool of
+ * {@link #readers()} threads on repositories opened once and kept open. Each repository's git
+ * directory is then watched, HEAD, the index &amp; the refs only, and a repository is read again
+ * a moment after they stop changing, e.g. after a commit, checkout, fetch or add. Edits in the
+ * work trees are not watched, as that would mean watching every directory of every clone: every
+ * {@link #POLL_MILLIS} the workspace is searched again, which reads every repository again and
+ * picks up the ones cloned or removed since. That also covers repositories whose watch failed.
+ */
+class RepositoryDashboard {
+
+    /**
+     * Directories below the workspace looked into for repositories.
+     */
+    static final int MAX_DEPTH = 5;
+    /**
+     * How long a repository must be quiet before it is read again.
+     */
+    static final long SETTLE_MILLIS = 500;
+    /**
+     * How often the whole workspace is searched &amp; read again.
+     */
+    static final long POLL_MILLIS = 60000;
+
+    private static final ForkJoinPool POOL =
+            new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Notified on a worker thread when a repository was found, read again or removed.
+     */
+    interface Listener {
+        void repositoryChanged(Summary summary);
+    }
+
+    /**
+     * What the dashboard shows of one repository; replaced, not changed, when read again.
+     */
+    static final class Summary {
+        final File workTree;
+        /**
+         * The branch, or the abbreviated commit of a detached HEAD; null until read.
+         */
+        final String branch;
+        /**
+         * The upstream branch, e.g. "origin/master", or null if there is none.
+         */
+        final String upstream;
+        final int ahead;
+        final int behind;
+        final StatusTree.Counts counts;
+        /**
+         * Why the repository could not be read, or null.
+         */
+        final String error;
+        final boolean removed;
+
+        Summary(File workTree, String branch, String upstream, int ahead, int behind,
+                StatusTree.Counts counts, String error, boolean removed) {
+            this.workTree = workTree;
+            this.branch = branch;
+            this.upstream = upstream;
+            this.ahead = ahead;
+            this.behind = behind;
+            this.counts = counts;
+            this.error = error;
+            this.removed = removed;
+        }
+
+        boolean isRead() {
+            return branch != null || error != null;
+        }
+    }
+
+    private final File root;
+    private final Listener listener;
+    private final ScheduledThreadPoolExecutor readers;
+    private final Map<File, Summary> summaries = new ConcurrentHashMap<>();
+    /**
+     * Open repositories by work tree, shared by every read of the same repository.
+     */
+    private final Map<File, Repository> repositories = new HashMap<>();
+    /**
+     * Work trees with a read scheduled that has not started.
+     */
+    private final Set<File> scheduled = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+    private final AtomicInteger reads = new AtomicInteger();
+    /**
+     * Watchers of the git directories by work tree, guarded by this.
+     */
+    private final Map<File, DirectoryWatcher> watchers = new HashMap<>();
+    private volatile boolean closed;
+
+    RepositoryDashboard(File root, Listener listener) {
+        this.root = root.getAbsoluteFile();
+        this.listener = listener;
+        final AtomicInteger count = new AtomicInteger();
+        readers = new ScheduledThreadPoolExecutor(readers(),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "dashboard-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * Repositories read at once, enough to overlap disk waits without thrashing the disk.
+     */
+    static int readers() {
+        return Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    }
+
+    File getRoot() {
+        return root;
+    }
+
+    /**
+     * The repositories found so far, in no particular order.
+     */
+    List<Summary> getSummaries() {
+        return new ArrayList<>(summaries.values());
+    }
+
+    /**
+     * How many times repositories were read, the first time included.
+     */
+    int getReadCount() {
+        return reads.get();
+    }
+
+    /**
+     * Find the repositories on the calling thread &amp; the shared pool, watching each one, then
+     * poll the workspace. Returns how many were found; they are still being read.
+     */
+    int start(JobScheduler.Job job) {
+        POOL.invoke(new FindTask(root, 0, job));
+        try {
+            readers.scheduleWithFixedDelay(
+                    new Runnable() {
+                        public void run() {
+                            poll();
+                        }
+                    },
+                    POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // closed meanwhile
+        }
+        return summaries.size();
+    }
+
+    /**
+     * Stop watching &amp; reading and close the repositories.
+     */
+    void close() {
+        List<DirectoryWatcher> stopped;
+        synchronized (this) {
+            closed = true;
+            stopped = new ArrayList<>(watchers.values());
+            watchers.clear();
+        }
+        for (DirectoryWatcher watcher : stopped) {
+            watcher.close();
+        }
+        readers.shutdownNow();
+        try {
+            readers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (repositories) {
+            for (Repository repository : repositories.values()) {
+                repository.close();
+            }
+            repositories.clear();
+        }
+    }
+
+    private class FindTask extends RecursiveAction {
+        private final File directory;
+        private final int depth;
+        private final JobScheduler.Job job;
+
+        FindTask(File directory, int depth, JobScheduler.Job job) {
+            this.directory = directory;
+            this.depth = depth;
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            if (closed || job != null && job.isCancelled()) {
+                throw new CancellationException();
+            }
+            // a .git file too, for linked worktrees & submodules
+            File gitDir = GitSupport.gitDirOf(directory);
+            if (gitDir != null) {
+                found(directory, gitDir);
+                return;
+            }
+            if (depth >= MAX_DEPTH) {
+                return;
+            }
+            List<FindTask> tasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath())) {
+                for (Path child : stream) {
+                    try {
+                        BasicFileAttributes attributes =
+                                Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (attributes.isDirectory()) {
+                            tasks.add(new FindTask(child.toFile(), depth + 1, job));
+                        }
+                    } catch (IOException e) {
+                        // unreadable, skipped
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // unreadable directories hold no repositories we can show
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private void found(File workTree, File gitDir) {
+        if (!summaries.containsKey(workTree)) {
+            Summary summary = new Summary(workTree, null, null, 0, 0, null, null, false);
+            if (summaries.putIfAbsent(workTree, summary) == null) {
+                listener.repositoryChanged(summary);
+                watch(workTree, gitDir);
+            }
+        }
+        schedule(workTree, 0);
+    }
+
+    /**
+     * Watch HEAD, the index &amp; the refs of a repository, not its objects, logs &amp; the like.
+     */
+    private void watch(final File workTree, File gitDir) {
+        final Path gitPath = gitDir.toPath();
+        final Path refs = gitPath.resolve(Constants.R_REFS.substring(0, Constants.R_REFS.length() - 1));
+        DirectoryWatcher started;
+        try {
+            started = new DirectoryWatcher(gitPath,
+                    new DirectoryWatcher.Listener() {
+                        public void created(Path path) {
+                            changed(path);
+                        }
+
+                        public void deleted(Path path) {
+                            changed(path);
+                        }
+
+                        public void modified(Path path) {
+                            changed(path);
+                        }
+
+                        public void overflow(Path directory) {
+                            schedule(workTree, SETTLE_MILLIS);
+                        }
+
+                        private void changed(Path path) {
+                            String relative = gitPath.relativize(path).toString().replace(File.separatorChar, '/');
+                            if (StatusMonitor.isIndexState(relative)) {
+                                schedule(workTree, SETTLE_MILLIS);
+                            }
+                        }
+                    }) {
+                @Override
+                protected boolean isWatched(Path directory) {
+                    return directory.equals(gitPath) || directory.startsWith(refs);
+                }
+            };
+            started.start();
+        } catch (IOException e) {
+            // read again by the poll only
+            return;
+        }
+        synchronized (this) {
+            if (!closed && summaries.containsKey(workTree) && !watchers.containsKey(workTree)) {
+                watchers.put(workTree, started);
+                return;
+            }
+        }
+        started.close();
+    }
+
+    private void unwatch(File workTree) {
+        DirectoryWatcher watcher;
+        synchronized (this) {
+            watcher = watchers.remove(workTree);
+        }
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * Read workTree after delay unless a read is already waiting to start.
+     */
+    private void schedule(final File workTree, long delay) {
+        if (closed || !scheduled.add(workTree)) {
+            return;
+        }
+        try {
+            readers.schedule(
+                    new Runnable() {
+                        public void run() {
+                            scheduled.remove(workTree);
+                            read(workTree);
+                        }
+                    },
+                    delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // closed meanwhile
+            scheduled.remove(workTree);
+        }
+    }
+
+    /**
+     * Search the workspace again, which reads the repositories found, and read the others, which
+     * finds them removed.
+     */
+    private void poll() {
+        try {
+            POOL.invoke(new FindTask(root, 0, null));
+        } catch (CancellationException e) {
+            // closed
+            return;
+        }
+        for (File known : summaries.keySet()) {
+            schedule(known, 0);
+        }
+    }
+
+    private void read(File workTree) {
+        if (closed) {
+            return;
+        }
+        reads.incrementAndGet();
+        File gitDir = GitSupport.gitDirOf(workTree);
+        if (gitDir == null) {
+            summaries.remove(workTree);
+            unwatch(workTree);
+            Repository repository;
+            synchronized (repositories) {
+                repository = repositories.remove(workTree);
+            }
+            if (repository != null) {
+                repository.close();
+            }
+            listener.repositoryChanged(new Summary(workTree, null, null, 0, 0, null, null, true));
+            return;
+        }
+        if (new File(gitDir, "commondir").isFile()) {
+            // the JGit used cannot read linked worktrees; better no counts than wrong ones
+            Summary summary = new Summary(workTree, null, null, 0, 0, null, "Linked worktree, not supported", false);
+            summaries.put(workTree, summary);
+            listener.repositoryChanged(summary);
+            return;
+        }
+        Repository repository;
+        try {
+            repository = repository(workTree, gitDir);
+        } catch (IOException e) {
+            Summary summary = new Summary(workTree, null, null, 0, 0, null, String.valueOf(e.getMessage()), false);
+            summaries.put(workTree, summary);
+            listener.repositoryChanged(summary);
+            return;
+        }
+        // one read of a repository at a time, so an older result never replaces a newer one
+        synchronized (repository) {
+            Summary summary = summarize(workTree, repository);
+            if (summaries.replace(workTree, summary) != null) {
+                listener.repositoryChanged(summary);
+            }
+        }
+    }
+
+    private static Summary summarize(File workTree, Repository repository) {
+        OperationEvents.Span span = OperationEvents.git("status --branch", workTree);
+        try {
+            String branch = repository.getBranch();
+            if (branch == null) {
+                branch = "(no branch)";
+            }
+            String upstream = null;
+            int ahead = 0;
+            int behind = 0;
+            String fullBranch = repository.getFullBranch();
+            if (fullBranch != null && fullBranch.startsWith(Constants.R_HEADS)) {
+                BranchTrackingStatus tracking = BranchTrackingStatus.of(repository, branch);
+                if (tracking != null) {
+                    upstream = Repository.shortenRefName(tracking.getRemoteTrackingBranch());
+                    ahead = tracking.getAheadCount();
+                    behind = tracking.getBehindCount();
+                }
+            } else if (repository.resolve(Constants.HEAD) != null) {
+                branch = repository.resolve(Constants.HEAD).abbreviate(8).name();
+            }
+            int modified = 0;
+            int untracked = 0;
+            int staged = 0;
+            for (String code : GitStatus.codes(new Git(repository).status().call()).values()) {
+                int state = GitStatus.state(code);
+                if ((state & StatusTree.MODIFIED) != 0) {
+                    modified++;
+                }
+                if ((state & StatusTree.UNTRACKED) != 0) {
+                    untracked++;
+                }
+                if ((state & StatusTree.STAGED) != 0) {
+                    staged++;
+                }
+            }
+            span.setEntries(modified + untracked + staged);
+            return new Summary(workTree, branch, upstream, ahead, behind,
+                    new StatusTree.Counts(modified, untracked, staged), null, false);
+        } catch (Exception e) {
+            span.setFailed(true);
+            return new Summary(workTree, null, null, 0, 0, null, String.valueOf(e.getMessage()), false);
+        } finally {
+            span.end();
+        }
+    }
+
+    private Repository repository(File workTree, File gitDir) throws IOException {
+        synchronized (repositories) {
+            Repository repository = repositories.get(workTree);
+            if (repository == null) {
+                repository = new FileRepositoryBuilder().setWorkTree(workTree).setGitDir(gitDir).build();
+                repositories.put(workTree, repository);
+            }
+            return repository;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ProgressMonitor;
+
+/**
+ * Housekeeping for a repository: JGit's gc packs loose objects, prunes unreachable ones &amp;
+ * packs loose refs, which keeps history, branch lists &amp; status fast as a repository ages.
+ *
+ * <p>{@link #isNeeded} follows "git gc --auto": a repository is worth the work once it has
+ * thousands of loose objects, dozens of packs or many loose refs.
+ */
+class RepositoryMaintenance {
+
+    static final long AUTO_LOOSE_OBJECTS = 6700;
+    static final long AUTO_PACK_FILES = 50;
+    static final long AUTO_LOOSE_REFS = 100;
+
+    /**
+     * What JGit reports about the objects &amp; refs of a repository.
+     */
+    static class Statistics {
+        final long looseObjects;
+        final long looseSize;
+        final long packedObjects;
+        final long packedSize;
+        final long packFiles;
+        final long looseRefs;
+        final long packedRefs;
+
+        Statistics(Properties properties) {
+            looseObjects = get(properties, "numberOfLooseObjects");
+            looseSize = get(properties, "sizeOfLooseObjects");
+            packedObjects = get(properties, "numberOfPackedObjects");
+            packedSize = get(properties, "sizeOfPackedObjects");
+            packFiles = get(properties, "numberOfPackFiles");
+            looseRefs = get(properties, "numberOfLooseRefs");
+            packedRefs = get(properties, "numberOfPackedRefs");
+        }
+
+        private static long get(Properties properties, String key) {
+            // JGit puts Long values, which getProperty does not return
+            Object value = properties.get(key);
+            return value instanceof Number ? ((Number) value).longValue() : 0;
+        }
+    }
+
+    /**
+     * The statistics before &amp; after a gc, and how long it took.
+     */
+    static class Report {
+        final File workTree;
+        final Statistics before;
+        final Statistics after;
+        final long millis;
+
+        Report(File workTree, Statistics before, Statistics after, long millis) {
+            this.workTree = workTree;
+            this.before = before;
+            this.after = after;
+            this.millis = millis;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(workTree).append('\n');
+            sb.append(String.format("%-16s %12s %12s%n", "", "before", "after"));
+            row(sb, "loose objects", before.looseObjects, after.looseObjects);
+            row(sb, "loose size", FileUtils.byteCountToDisplaySize(before.looseSize),
+                    FileUtils.byteCountToDisplaySize(after.looseSize));
+            row(sb, "packed objects", before.packedObjects, after.packedObjects);
+            row(sb, "pack files", before.packFiles, after.packFiles);
+            row(sb, "pack size", FileUtils.byteCountToDisplaySize(before.packedSize),
+                    FileUtils.byteCountToDisplaySize(after.packedSize));
+            row(sb, "loose refs", before.looseRefs, after.looseRefs);
+            row(sb, "packed refs", before.packedRefs, after.packedRefs);
+            sb.append(String.format("took %.2f s", millis / 1000.0));
+            return sb.toString();
+        }
+
+        private static void row(StringBuilder sb, String label, Object before, Object after) {
+            sb.append(String.format("%-16s %12s %12s%n", label, before, after));
+        }
+    }
+
+    private RepositoryMaintenance() {
+    }
+
+    static Statistics statistics(File workTree) throws IOException, GitAPIException {
+        try (GitEngine engine = GitEngine.open(workTree)) {
+            if (engine == null) {
+                throw new IOException("Not in a git repository: " + workTree);
+            }
+            return new Statistics(engine.statistics());
+        }
+    }
+
+    /**
+     * Whether a gc would pay off, by the thresholds of "git gc --auto".
+     */
+    static boolean isNeeded(Statistics statistics) {
+        return statistics.looseObjects >= AUTO_LOOSE_OBJECTS
+                || statistics.packFiles >= AUTO_PACK_FILES
+                || statistics.looseRefs >= AUTO_LOOSE_REFS;
+    }
+
+    /**
+     * Run gc on the repository of workTree, reporting each phase as the progress of job, which
+     * can cancel it between phases.
+     */
+    static Report run(File workTree, final JobScheduler.Job job) throws IOException, GitAPIException {
+        try (GitEngine engine = GitEngine.open(workTree)) {
+            if (engine == null) {
+                throw new IOException("Not in a git repository: " + workTree);
+            }
+            Statistics before = new Statistics(engine.statistics());
+            long start = System.nanoTime();
+            Properties after = engine.garbageCollect(
+                    new ProgressMonitor() {
+                        private int total;
+                        private int done;
+
+                        public void start(int totalTasks) {
+                        }
+
+                        public void beginTask(String title, int totalWork) {
+                            total = totalWork == UNKNOWN ? 0 : totalWork;
+                            done = 0;
+                            job.setProgress(0, total);
+                        }
+
+                        public void update(int completed) {
+                            done += completed;
+                            job.setProgress(done, total);
+                        }
+
+                        public void endTask() {
+                        }
+
+                        public boolean isCancelled() {
+                            return job.isCancelled();
+                        }
+                    });
+            return new Report(engine.getWorkTree(), before, new Statistics(after),
+                    (System.nanoTime() - start) / 1000000);
+        }
+    }
+}
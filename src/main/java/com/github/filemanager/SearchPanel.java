@@ -0,0 +1,215 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.*;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Search-as-you-type over the indexed roots of a {@link FileSearch}. Loading the saved indexes
+ * &amp; watching a new root walk whole trees, so both run as jobs.
+ */
+abstract class SearchPanel extends JPanel {
+
+    private static final int LIMIT = 1000;
+
+    private final JobScheduler scheduler;
+    private final FileSearch search;
+    private final DefaultListModel<Path> rootsModel = new DefaultListModel<>();
+    private final JList<Path> roots = new JList<>(rootsModel);
+    private final JTextField query = new JTextField(30);
+    private final DefaultListModel<String> resultsModel = new DefaultListModel<>();
+    private final JList<String> results = new JList<>(resultsModel);
+    private final JLabel status = new JLabel(" ");
+    private final Timer searchTimer;
+
+    SearchPanel(JobScheduler scheduler, FileSearch search) {
+        super(new BorderLayout(3, 3));
+        this.scheduler = scheduler;
+        this.search = search;
+
+        JPanel rootsView = new JPanel(new BorderLayout(3, 3));
+        rootsView.setBorder(BorderFactory.createTitledBorder("Indexed directories"));
+        roots.setVisibleRowCount(3);
+        rootsView.add(new JScrollPane(roots), BorderLayout.CENTER);
+        JPanel rootButtons = new JPanel(new FlowLayout(FlowLayout.LEADING, 3, 0));
+        JButton addRoot = new JButton("Add current directory");
+        addRoot.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        final File directory = getCurrentDirectory();
+                        if (directory != null) {
+                            scheduler.submit(new RootsJob("Watch " + directory, directory) {
+                                @Override
+                                protected void execute() {
+                                    SearchPanel.this.search.addRoot(directory.toPath());
+                                }
+                            });
+                        }
+                    }
+                });
+        rootButtons.add(addRoot);
+        JButton removeRoot = new JButton("Remove");
+        removeRoot.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        for (Path root : roots.getSelectedValuesList()) {
+                            SearchPanel.this.search.removeRoot(root);
+                        }
+                        refreshRoots();
+                        runSearch();
+                    }
+                });
+        rootButtons.add(removeRoot);
+        rootsView.add(rootButtons, BorderLayout.SOUTH);
+
+        JPanel queryView = new JPanel(new BorderLayout(3, 3));
+        queryView.add(rootsView, BorderLayout.NORTH);
+        queryView.add(new JLabel("Name or glob "), BorderLayout.WEST);
+        queryView.add(query, BorderLayout.CENTER);
+        add(queryView, BorderLayout.NORTH);
+
+        JScrollPane resultsScroll = new JScrollPane(results);
+        resultsScroll.setPreferredSize(new Dimension(560, 300));
+        add(resultsScroll, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+
+        // wait for a pause in typing rather than searching on every key
+        searchTimer = new Timer(150,
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        runSearch();
+                    }
+                });
+        searchTimer.setRepeats(false);
+        query.getDocument().addDocumentListener(
+                new DocumentListener() {
+                    public void insertUpdate(DocumentEvent de) {
+                        searchTimer.restart();
+                    }
+
+                    public void removeUpdate(DocumentEvent de) {
+                        searchTimer.restart();
+                    }
+
+                    public void changedUpdate(DocumentEvent de) {
+                        searchTimer.restart();
+                    }
+                });
+        query.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        searchTimer.stop();
+                        runSearch();
+                    }
+                });
+
+        results.addMouseListener(
+                new MouseAdapter() {
+                    @Override
+                    public void mouseClicked(MouseEvent me) {
+                        String selected = results.getSelectedValue();
+                        if (me.getClickCount() == 2 && selected != null) {
+                            open(new File(selected));
+                        }
+                    }
+                });
+
+        scheduler.submit(new RootsJob("Load file name indexes", null) {
+            @Override
+            protected void execute() {
+                SearchPanel.this.search.load();
+            }
+        });
+    }
+
+    /**
+     * The directory offered by "Add current directory", or null.
+     */
+    protected abstract File getCurrentDirectory();
+
+    /**
+     * Show a file that was double clicked in the results.
+     */
+    protected abstract void open(File file);
+
+    private void refreshRoots() {
+        rootsModel.clear();
+        for (Path root : search.getRoots()) {
+            rootsModel.addElement(root);
+        }
+    }
+
+    private void runSearch() {
+        long start = System.nanoTime();
+        List<String> found = search.search(query.getText(), LIMIT);
+        long micros = (System.nanoTime() - start) / 1000;
+
+        resultsModel.clear();
+        for (String path : found) {
+            resultsModel.addElement(path);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(found.size() >= LIMIT ? "first " + LIMIT : String.valueOf(found.size()))
+                .append(" matches of ").append(search.size()).append(" names in ")
+                .append(String.format("%.1f ms", micros / 1000.0));
+        if (search.isBuilding()) {
+            sb.append(" - indexing");
+        }
+        if (!search.isWatchingComplete()) {
+            sb.append(" - some directories are not watched");
+        }
+        status.setText(sb.toString());
+    }
+
+    /**
+     * Changes the roots, then shows them &amp; the results as they are afterwards, whether it
+     * worked or not.
+     */
+    private abstract class RootsJob extends JobScheduler.Job {
+
+        RootsJob(String name, File location) {
+            super(name, JobScheduler.Priority.INTERACTIVE, location);
+        }
+
+        @Override
+        protected void finished() {
+            SwingUtilities.invokeLater(
+                    new Runnable() {
+                        public void run() {
+                            refreshRoots();
+                            runSearch();
+                        }
+                    });
+        }
+    }
+}
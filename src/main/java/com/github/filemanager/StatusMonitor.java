@@ -0,0 +1,830 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+/**
+ * The git status of the files of the repositories being looked at, kept up to date from file
+ * system events instead of walking the work tree again, much like git's fsmonitor.
+ *
+ * <p>A repository is opened when a directory in it is listed, and read with one status pass
+ * when a file in it is first asked about. Lookups only answer from repositories already open,
+ * so painting rows never opens or drops one. From
+ * then on a watcher collects the paths that change, and the next question asks git about those
+ * paths only. When the index or HEAD moves (add, commit, checkout ...), the index is compared
+ * with the HEAD tree, which does not touch the work tree, and only the paths that differ there
+ * or were changed before are looked at again.
+ *
+ * <p>Statuses are saved along with the size &amp; modification time of every file when a
+ * repository is first read in a session. The next session stats the work tree against those
+ * and asks git only about files that changed in between, instead of running a full status.
+ *
+ * <p>Both the watcher and that first read are started by the background refresh, never by a
+ * lookup, so the EDT does not walk the work tree. Where the watcher could not register every
+ * directory (the OS watch limit, say), the repository gets a full status every
+ * {@link #POLL_MILLIS} instead, as changes there would otherwise go unseen.
+ */
+class StatusMonitor {
+
+    /**
+     * Repositories watched at once; the ones least recently listed are saved &amp; dropped.
+     */
+    static final int MAX_REPOSITORIES = 8;
+    /**
+     * Beyond this many changed paths, git is asked about their top directories instead.
+     */
+    static final int MAX_PATHS = 200;
+    /**
+     * How often a repository that is not completely watched gets a full status.
+     */
+    static final long POLL_MILLIS = 30000;
+
+    private static final int MAGIC = 0x47535443;
+    private static final int VERSION = 1;
+    private static final File NO_WORK_TREE = new File("");
+
+    /**
+     * Notified on a worker thread when statuses in workTree have been read again.
+     */
+    interface Listener {
+        void statusChanged(File workTree);
+    }
+
+    private final JobScheduler scheduler;
+    private final File directory;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<File, File> workTrees =
+            new LinkedHashMap<File, File>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<File, File> eldest) {
+                    return size() > 4096;
+                }
+            };
+    /**
+     * Least recently opened first.
+     */
+    private final Map<File, Repository> repositories = new LinkedHashMap<>();
+    private final ScheduledExecutorService poller =
+            Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactory() {
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "git status poll");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+
+    /**
+     * @param directory where statuses &amp; file stats are saved between sessions
+     */
+    StatusMonitor(JobScheduler scheduler, File directory) {
+        this.scheduler = scheduler;
+        this.directory = directory;
+        Runtime.getRuntime().addShutdownHook(
+                new Thread("save git status") {
+                    @Override
+                    public void run() {
+                        close();
+                    }
+                });
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Keep the statuses of the repository directory is in, as it is being listed; the one
+     * opened least recently is dropped if too many are open.
+     */
+    void open(File directory) {
+        File workTree = workTree(directory);
+        if (workTree == null) {
+            return;
+        }
+        Repository repository;
+        List<Repository> evicted = new ArrayList<>();
+        synchronized (repositories) {
+            repository = repositories.remove(workTree);
+            if (repository == null) {
+                repository = new Repository(workTree);
+            }
+            repositories.put(workTree, repository);
+            Iterator<Repository> it = repositories.values().iterator();
+            while (repositories.size() > MAX_REPOSITORIES) {
+                evicted.add(it.next());
+                it.remove();
+            }
+        }
+        for (Repository old : evicted) {
+            old.close();
+        }
+    }
+
+    /**
+     * The status of file as shown in the table (a {@link GitStatus} constant or short format
+     * code), or null while it is being read or its repository is not open; listeners are told
+     * when it is known. Does not wait for git.
+     */
+    String get(File file) {
+        boolean isDirectory = file.isDirectory();
+        File workTree = workTree(isDirectory ? file : file.getAbsoluteFile().getParentFile());
+        if (workTree == null) {
+            return GitStatus.NONE;
+        } else if (isDirectory) {
+            return GitStatus.DIRECTORY;
+        } else if (isInside(file, new File(workTree, ".git"))) {
+            // git does not report on its own files
+            return GitStatus.CLEAN;
+        }
+        Repository repository = repository(workTree);
+        if (repository == null) {
+            return null;
+        }
+        String path = BatchOperation.repositoryPath(workTree, file);
+        if (!repository.isCurrent(path)) {
+            if (repository.hasFailed()) {
+                return GitStatus.ERROR;
+            }
+            repository.schedule();
+            return null;
+        }
+        return repository.get(path);
+    }
+
+    /**
+     * Like {@link #get}, but opens the repository &amp; reads what has changed first instead of
+     * returning null.
+     */
+    String status(File file) throws IOException, GitAPIException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        File workTree = workTree(parent);
+        if (workTree != null && repository(workTree) == null) {
+            open(parent);
+        }
+        String status = get(file);
+        if (status != null) {
+            return status;
+        }
+        Repository repository = repository(workTree);
+        if (repository == null) {
+            // dropped again in between by many directories listed at once
+            return GitStatus.ERROR;
+        }
+        repository.refresh();
+        return repository.get(BatchOperation.repositoryPath(workTree, file));
+    }
+
+    /**
+     * The modified, untracked &amp; staged counts below directory, or null if it is not in an
+     * open repository or the repository has not been read yet. Does not wait for git.
+     */
+    StatusTree.Counts counts(File directory) {
+        File workTree = workTree(directory);
+        if (workTree == null || isInside(directory, new File(workTree, ".git"))) {
+            return null;
+        }
+        Repository repository = repository(workTree);
+        if (repository == null) {
+            return null;
+        } else if (!repository.loaded) {
+            repository.schedule();
+            return null;
+        }
+        return repository.tree.get(BatchOperation.repositoryPath(workTree, directory));
+    }
+
+    /**
+     * The work trees of the open repositories, most recently opened last.
+     */
+    List<File> getWorkTrees() {
+        synchronized (repositories) {
+            return new ArrayList<>(repositories.keySet());
+        }
+    }
+
+    /**
+     * Save the statuses of every repository &amp; stop watching them.
+     */
+    void close() {
+        List<Repository> closed;
+        synchronized (repositories) {
+            closed = new ArrayList<>(repositories.values());
+            repositories.clear();
+        }
+        for (Repository repository : closed) {
+            repository.close();
+        }
+    }
+
+    private File workTree(File directory) {
+        File workTree;
+        synchronized (workTrees) {
+            workTree = workTrees.get(directory);
+        }
+        if (workTree == null) {
+            File gitDir = GitSupport.findGitDir(directory.getAbsoluteFile());
+            workTree = gitDir == null ? NO_WORK_TREE : gitDir.getParentFile();
+            synchronized (workTrees) {
+                workTrees.put(directory, workTree);
+            }
+        }
+        return workTree == NO_WORK_TREE ? null : workTree;
+    }
+
+    /**
+     * The open repository of workTree, or null; does not change which are dropped first.
+     */
+    private Repository repository(File workTree) {
+        synchronized (repositories) {
+            return repositories.get(workTree);
+        }
+    }
+
+    private static boolean isInside(File file, File directory) {
+        return file.getAbsoluteFile().toPath().startsWith(directory.getAbsoluteFile().toPath());
+    }
+
+    private void fireStatusChanged(File workTree) {
+        for (Listener listener : listeners) {
+            listener.statusChanged(workTree);
+        }
+    }
+
+    private class Repository implements DirectoryWatcher.Listener {
+        final File workTree;
+        final File gitDir;
+        final StatusTree tree = new StatusTree();
+        /**
+         * Short format codes of the files that are not clean.
+         */
+        final ConcurrentSkipListMap<String, String> statuses = new ConcurrentSkipListMap<>();
+        volatile boolean loaded;
+        private final File statsFile;
+        private final File statusFile;
+        /**
+         * Guarded by this, like poll.
+         */
+        private DirectoryWatcher watcher;
+        private ScheduledFuture<?> poll;
+        /**
+         * Whether watch() was called; guarded by refreshing.
+         */
+        private boolean watching;
+        private volatile boolean closed;
+        /**
+         * Paths changed since the last refresh, relative to the work tree; guarded by this.
+         */
+        private final Set<String> pending = new HashSet<>();
+        private boolean reload;
+        private boolean indexChanged;
+        /**
+         * A .gitignore changed, so which directories are watched may have too.
+         */
+        private boolean ignoreChanged;
+        private boolean scheduled;
+        /**
+         * The first read failed; not tried again until something changes.
+         */
+        private boolean failed;
+        /**
+         * What the statuses were read against, so a later session knows if the index or HEAD
+         * moved in between; guarded by refreshing.
+         */
+        private long[] indexStamp = new long[2];
+        private String head = "";
+        private final ReentrantLock refreshing = new ReentrantLock();
+
+        Repository(File workTree) {
+            this.workTree = workTree;
+            this.gitDir = new File(workTree, ".git");
+            String key = Hashes.sha1Hex(workTree.getAbsolutePath());
+            statsFile = new File(directory, key + ".stats");
+            statusFile = new File(directory, key + ".status");
+        }
+
+        /**
+         * Watch the work tree, registering every directory git reports on, which takes a while
+         * on a large one: not .git beyond the index, HEAD &amp; refs, nested repositories or
+         * ignored directories. Runs in the first refresh, before the first read, so no change is
+         * missed in between, and again after a .gitignore changed what is ignored.
+         */
+        private void watch() {
+            final Path root = workTree.toPath();
+            final Path gitPath = gitDir.toPath();
+            final Path refs = gitPath.resolve("refs");
+            final Map<Path, IgnoreRules> rules = new HashMap<>();
+            DirectoryWatcher started = null;
+            try {
+                started = new DirectoryWatcher(root, this) {
+                    @Override
+                    protected boolean isWatched(Path directory) {
+                        if (directory.startsWith(gitPath)) {
+                            return directory.equals(gitPath) || directory.startsWith(refs);
+                        } else if (!directory.equals(root) && Files.exists(directory.resolve(".git"))) {
+                            return false;
+                        }
+                        synchronized (rules) {
+                            IgnoreRules parent = directory.equals(root) ? null : rules.get(directory.getParent());
+                            if (parent != null && parent.isIgnored(directory, true)) {
+                                return false;
+                            }
+                            rules.put(directory, IgnoreRules.withRulesOf(directory, parent));
+                            return true;
+                        }
+                    }
+                };
+                started.start();
+            } catch (IOException e) {
+                e.printStackTrace();
+                if (started != null) {
+                    started.close();
+                }
+                started = null;
+            }
+            DirectoryWatcher previous;
+            synchronized (this) {
+                if (closed) {
+                    if (started != null) {
+                        started.close();
+                    }
+                    return;
+                }
+                // the new watcher is running before the old one stops, so nothing falls between
+                previous = watcher;
+                if (poll != null) {
+                    poll.cancel(false);
+                    poll = null;
+                }
+                watcher = started;
+                if (started == null || !started.isComplete()) {
+                    // changes below the directories not watched are only seen by a full status
+                    poll = poller.scheduleWithFixedDelay(
+                            new Runnable() {
+                                public void run() {
+                                    synchronized (Repository.this) {
+                                        reload = true;
+                                    }
+                                    schedule();
+                                }
+                            },
+                            POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+            if (previous != null) {
+                previous.close();
+            }
+        }
+
+        void close() {
+            DirectoryWatcher closedWatcher;
+            synchronized (this) {
+                closed = true;
+                closedWatcher = watcher;
+                if (poll != null) {
+                    poll.cancel(false);
+                }
+            }
+            if (closedWatcher != null) {
+                closedWatcher.close();
+            }
+            // a refresh still running at exit (a first status, say) is not waited for; the file
+            // saved last still matches the stats
+            if (refreshing.tryLock()) {
+                try {
+                    if (loaded) {
+                        save();
+                    }
+                } finally {
+                    refreshing.unlock();
+                }
+            }
+        }
+
+        String get(String path) {
+            if (!loaded) {
+                return GitStatus.ERROR;
+            }
+            String code = statuses.get(path);
+            return code == null ? GitStatus.CLEAN : code;
+        }
+
+        /**
+         * Whether the status of path is known &amp; nothing has changed it since.
+         */
+        synchronized boolean isCurrent(String path) {
+            if (!loaded || reload || indexChanged) {
+                return false;
+            }
+            if (pending.isEmpty()) {
+                return true;
+            }
+            for (String prefix = path; ; prefix = prefix.substring(0, prefix.lastIndexOf('/'))) {
+                if (pending.contains(prefix)) {
+                    return false;
+                }
+                if (prefix.indexOf('/') < 0) {
+                    return true;
+                }
+            }
+        }
+
+        synchronized boolean hasFailed() {
+            return failed;
+        }
+
+        /**
+         * Refresh in the background, unless that is already queued.
+         */
+        synchronized void schedule() {
+            if (scheduled || closed || failed) {
+                return;
+            }
+            scheduled = true;
+            scheduler.submit(
+                    new JobScheduler.Job("Status " + workTree, JobScheduler.Priority.BACKGROUND, workTree) {
+                        @Override
+                        protected void execute() throws Exception {
+                            synchronized (Repository.this) {
+                                scheduled = false;
+                            }
+                            refresh();
+                        }
+
+                        @Override
+                        protected void finished() {
+                            if (getState() == JobScheduler.State.FAILED) {
+                                // a lock held by another git, say; tried again on the next change
+                                getError().printStackTrace();
+                            }
+                        }
+                    });
+        }
+
+        /**
+         * Bring the statuses up to date: a first read, a full status after lost events, or
+         * otherwise only the paths that changed.
+         */
+        void refresh() throws IOException, GitAPIException {
+            refreshing.lock();
+            try {
+                boolean all;
+                boolean index;
+                Set<String> paths;
+                boolean rewatch;
+                synchronized (this) {
+                    rewatch = ignoreChanged;
+                    ignoreChanged = false;
+                }
+                if (!watching || rewatch) {
+                    watching = true;
+                    watch();
+                }
+                synchronized (this) {
+                    if (loaded && !reload && !indexChanged && pending.isEmpty()) {
+                        return;
+                    }
+                    all = reload;
+                    index = indexChanged;
+                    paths = collapse(pending);
+                    reload = false;
+                    indexChanged = false;
+                    pending.clear();
+                }
+                try (GitEngine engine = new GitEngine(workTree, gitDir)) {
+                    if (!loaded) {
+                        load(engine);
+                    } else if (all) {
+                        scan(engine);
+                    } else {
+                        update(engine, paths, index);
+                    }
+                } catch (IOException | GitAPIException | RuntimeException e) {
+                    synchronized (this) {
+                        reload = loaded;
+                        failed = !loaded;
+                    }
+                    throw e;
+                }
+            } finally {
+                refreshing.unlock();
+            }
+            fireStatusChanged(workTree);
+        }
+
+        /**
+         * The first read in this session: from the saved statuses &amp; the files that changed
+         * since they were saved, or a full status if there are none.
+         */
+        private void load(GitEngine engine) throws IOException, GitAPIException {
+            Map<String, String> saved = null;
+            long[] savedStamp = new long[2];
+            String savedHead = null;
+            if (statusFile.isFile() && statsFile.isFile()) {
+                try (DataInputStream in =
+                             new DataInputStream(new BufferedInputStream(new FileInputStream(statusFile)))) {
+                    if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+                        savedStamp[0] = in.readLong();
+                        savedStamp[1] = in.readLong();
+                        savedHead = in.readUTF();
+                        int count = in.readInt();
+                        saved = new HashMap<>();
+                        for (int ii = 0; ii < count; ii++) {
+                            saved.put(in.readUTF(), in.readUTF());
+                        }
+                    }
+                } catch (IOException e) {
+                    saved = null;
+                }
+            }
+            Map<String, Long> stats = saved == null ? null : readStats();
+            // the stats are about to be replaced, and the statuses only go with the old ones
+            statusFile.delete();
+            Set<String> changed = new HashSet<>();
+            boolean compared = stat(stats, changed);
+            if (stats == null || !compared) {
+                scan(engine);
+            } else {
+                statuses.putAll(saved);
+                for (Map.Entry<String, String> entry : saved.entrySet()) {
+                    tree.set(entry.getKey(), GitStatus.state(entry.getValue()));
+                }
+                indexStamp = savedStamp;
+                head = savedHead;
+                boolean index = !Arrays.equals(savedStamp, indexStamp()) || !savedHead.equals(engine.head());
+                update(engine, collapse(changed), index);
+            }
+            loaded = true;
+            save();
+        }
+
+        /**
+         * A full status of the work tree.
+         */
+        private void scan(GitEngine engine) throws IOException, GitAPIException {
+            long[] stamp = indexStamp();
+            String newHead = engine.head();
+            Map<String, String> codes = GitStatus.codes(engine.status(Collections.<String>emptySet()));
+            statuses.clear();
+            tree.clear("");
+            apply(codes);
+            indexStamp = stamp;
+            head = newHead;
+        }
+
+        /**
+         * Ask git about paths (files or directories), plus, if the index or HEAD moved, the
+         * paths that differ between them or were not clean before.
+         */
+        private void update(GitEngine engine, Set<String> paths, boolean index)
+                throws IOException, GitAPIException {
+            Set<String> asked = new HashSet<>(paths);
+            long[] stamp = indexStamp;
+            String newHead = head;
+            if (index) {
+                stamp = indexStamp();
+                newHead = engine.head();
+                asked.addAll(statuses.keySet());
+                asked.addAll(engine.indexChanges());
+            }
+            if (!asked.isEmpty()) {
+                Map<String, String> codes = GitStatus.codes(engine.status(asked));
+                for (String path : asked) {
+                    statuses.remove(path);
+                    statuses.subMap(path + "/", path + "0").clear();
+                    tree.clear(path);
+                }
+                apply(codes);
+            }
+            indexStamp = stamp;
+            head = newHead;
+        }
+
+        private void apply(Map<String, String> codes) {
+            statuses.putAll(codes);
+            for (Map.Entry<String, String> entry : codes.entrySet()) {
+                tree.set(entry.getKey(), GitStatus.state(entry.getValue()));
+            }
+        }
+
+        private long[] indexStamp() {
+            File index = new File(gitDir, "index");
+            return new long[] {index.length(), index.lastModified()};
+        }
+
+        /**
+         * Record the size &amp; modification time of every file of the work tree, and add the
+         * files that differ from previous (and those no longer there) to changed. Returns false
+         * if the stats could not all be read or written.
+         */
+        private boolean stat(final Map<String, Long> previous, final Set<String> changed) {
+            final Path root = workTree.toPath();
+            File temp = new File(statsFile.getPath() + ".tmp");
+            try (final DataOutputStream out =
+                         new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                Files.walkFileTree(root,
+                        new SimpleFileVisitor<Path>() {
+                            @Override
+                            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                                // git's own files, and nested repositories, are not in this status
+                                if (!dir.equals(root) && Files.exists(dir.resolve(".git"))
+                                        || dir.equals(root.resolve(".git"))) {
+                                    return FileVisitResult.SKIP_SUBTREE;
+                                }
+                                return FileVisitResult.CONTINUE;
+                            }
+
+                            @Override
+                            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                                    throws IOException {
+                                String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+                                long stat = attrs.lastModifiedTime().toMillis() * 31 + attrs.size();
+                                out.writeUTF(path);
+                                out.writeLong(stat);
+                                if (previous != null) {
+                                    Long before = previous.remove(path);
+                                    if (before == null || before != stat) {
+                                        changed.add(path);
+                                    }
+                                }
+                                return FileVisitResult.CONTINUE;
+                            }
+
+                            @Override
+                            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                                return FileVisitResult.CONTINUE;
+                            }
+                        });
+                out.writeUTF("");
+            } catch (IOException e) {
+                temp.delete();
+                return false;
+            }
+            if (previous != null) {
+                changed.addAll(previous.keySet());
+            }
+            try {
+                Files.move(temp.toPath(), statsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                return false;
+            }
+            return true;
+        }
+
+        private Map<String, Long> readStats() {
+            Map<String, Long> stats = new HashMap<>();
+            try (DataInputStream in =
+                         new DataInputStream(new BufferedInputStream(new FileInputStream(statsFile)))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    return null;
+                }
+                for (String path = in.readUTF(); !path.isEmpty(); path = in.readUTF()) {
+                    stats.put(path, in.readLong());
+                }
+                return stats;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Write the statuses with the index &amp; HEAD they were read against, unless changes
+         * are waiting to be read; the next session then starts with a full status.
+         */
+        private void save() {
+            synchronized (this) {
+                if (!pending.isEmpty() || reload || indexChanged) {
+                    statusFile.delete();
+                    return;
+                }
+            }
+            File temp = new File(statusFile.getPath() + ".tmp");
+            try {
+                try (DataOutputStream out =
+                             new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeLong(indexStamp[0]);
+                    out.writeLong(indexStamp[1]);
+                    out.writeUTF(head);
+                    Map<String, String> snapshot = new HashMap<>(statuses);
+                    out.writeInt(snapshot.size());
+                    for (Map.Entry<String, String> entry : snapshot.entrySet()) {
+                        out.writeUTF(entry.getKey());
+                        out.writeUTF(entry.getValue());
+                    }
+                }
+                Files.move(temp.toPath(), statusFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                temp.delete();
+                statusFile.delete();
+            }
+        }
+
+        public void created(Path path) {
+            changed(path);
+        }
+
+        public void deleted(Path path) {
+            changed(path);
+        }
+
+        public void modified(Path path) {
+            changed(path);
+        }
+
+        public void overflow(Path directory) {
+            synchronized (this) {
+                reload = true;
+            }
+            schedule();
+        }
+
+        private void changed(Path path) {
+            String relative = BatchOperation.repositoryPath(workTree, path.toFile());
+            synchronized (this) {
+                failed = false;
+                if (relative.equals(".git") || relative.startsWith(".git/")) {
+                    String name = relative.substring(Math.min(relative.length(), 5));
+                    if (name.equals("info/exclude")) {
+                        reload = true;
+                    } else if (isIndexState(name)) {
+                        indexChanged = true;
+                    } else {
+                        return;
+                    }
+                } else if (relative.equals(".") || relative.equals(".gitignore")) {
+                    reload = true;
+                    ignoreChanged = true;
+                } else if (relative.endsWith("/.gitignore")) {
+                    // what is untracked below its directory may have changed
+                    pending.add(relative.substring(0, relative.lastIndexOf('/')));
+                    ignoreChanged = true;
+                } else {
+                    pending.add(relative);
+                }
+            }
+            schedule();
+        }
+    }
+
+    /**
+     * Whether a change to the file at path (relative to .git) can change what is staged.
+     */
+    static boolean isIndexState(String path) {
+        return path.equals("index") || path.equals("HEAD") || path.equals("packed-refs")
+                || path.startsWith("refs/");
+    }
+
+    /**
+     * The paths to ask git about: the paths themselves, or their top directories if there are
+     * more than {@link #MAX_PATHS}, as when a build writes its output.
+     */
+    static Set<String> collapse(Set<String> paths) {
+        if (paths.size() <= MAX_PATHS) {
+            return new HashSet<>(paths);
+        }
+        Set<String> collapsed = new HashSet<>();
+        for (String path : paths) {
+            int slash = path.indexOf('/');
+            collapsed.add(slash < 0 ? path : path.substring(0, slash));
+        }
+        return collapsed;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.util.*;
+
+/**
+ * The git state of the changed files of a work tree, rolled up per directory.
+ *
+ * <p>Every node of the path trie holds the counts of the whole subtree below it, so setting
+ * one file updates only the nodes on its path and asking for a directory is a lookup of its
+ * node, however many files are changed below it.
+ */
+class StatusTree {
+
+    static final int MODIFIED = 1;
+    static final int UNTRACKED = 2;
+    static final int STAGED = 4;
+
+    /**
+     * Files below a directory that are modified (or missing, or conflicting), untracked, or
+     * have staged changes. A file can count in both modified &amp; staged.
+     */
+    static class Counts {
+        final int modified;
+        final int untracked;
+        final int staged;
+
+        Counts(int modified, int untracked, int staged) {
+            this.modified = modified;
+            this.untracked = untracked;
+            this.staged = staged;
+        }
+
+        boolean isEmpty() {
+            return modified == 0 && untracked == 0 && staged == 0;
+        }
+
+        @Override
+        public String toString() {
+            return modified + " modified, " + untracked + " untracked, " + staged + " staged";
+        }
+    }
+
+    private static class Node {
+        final Node parent;
+        final String name;
+        Map<String, Node> children;
+        /**
+         * The state of this path if it is a changed file, otherwise 0.
+         */
+        int state;
+        int modified;
+        int untracked;
+        int staged;
+
+        Node(Node parent, String name) {
+            this.parent = parent;
+            this.name = name;
+        }
+
+        void add(int mask, int sign) {
+            for (Node node = this; node != null; node = node.parent) {
+                if ((mask & MODIFIED) != 0) {
+                    node.modified += sign;
+                }
+                if ((mask & UNTRACKED) != 0) {
+                    node.untracked += sign;
+                }
+                if ((mask & STAGED) != 0) {
+                    node.staged += sign;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return modified == 0 && untracked == 0 && staged == 0;
+        }
+    }
+
+    private final Node root = new Node(null, "");
+
+    /**
+     * Set the state of the file at path ('/' separated, relative to the work tree), 0 when it is
+     * clean.
+     */
+    synchronized void set(String path, int state) {
+        Node node = find(path, state != 0);
+        if (node == null || node.state == state) {
+            return;
+        }
+        node.add(node.state, -1);
+        node.add(state, 1);
+        node.state = state;
+        prune(node);
+    }
+
+    /**
+     * Forget every file at or below path, e.g. before asking git about it again.
+     */
+    synchronized void clear(String path) {
+        Node node = find(path, false);
+        if (node == null || node == root) {
+            if (node == root) {
+                root.children = null;
+                root.state = 0;
+                root.modified = root.untracked = root.staged = 0;
+            }
+            return;
+        }
+        Counts counts = new Counts(node.modified, node.untracked, node.staged);
+        for (Node ancestor = node.parent; ancestor != null; ancestor = ancestor.parent) {
+            ancestor.modified -= counts.modified;
+            ancestor.untracked -= counts.untracked;
+            ancestor.staged -= counts.staged;
+        }
+        node.parent.children.remove(node.name);
+        prune(node.parent);
+    }
+
+    /**
+     * The counts below the directory at path, "" for the work tree itself.
+     */
+    synchronized Counts get(String path) {
+        Node node = find(path, false);
+        return node == null ? new Counts(0, 0, 0) : new Counts(node.modified, node.untracked, node.staged);
+    }
+
+    private Node find(String path, boolean create) {
+        Node node = root;
+        if (path.isEmpty() || path.equals(".")) {
+            return node;
+        }
+        for (String name : path.split("/")) {
+            Node child = node.children == null ? null : node.children.get(name);
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                if (node.children == null) {
+                    node.children = new HashMap<>();
+                }
+                child = new Node(node, name);
+                node.children.put(name, child);
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Drop nodes that no longer count anything, so the trie only holds changed paths.
+     */
+    private static void prune(Node node) {
+        while (node.parent != null && node.isEmpty() && node.state == 0
+                && (node.children == null || node.children.isEmpty())) {
+            node.parent.children.remove(node.name);
+            node = node.parent;
+        }
+    }
+}
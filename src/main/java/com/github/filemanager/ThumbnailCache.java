@@ -0,0 +1,308 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Small previews of image files, decoded in the background.
+ *
+ * <p>Images are never decoded at full resolution: the reader is asked to subsample rows &amp;
+ * columns so it produces something close to the thumbnail size, which is then scaled to fit.
+ * Thumbnails are kept in memory up to {@link #MEMORY_LIMIT} bytes (least recently used go first)
+ * and written to a disk cache keyed by path &amp; modification time, so a folder seen before
+ * does not have to be decoded again. The disk cache is pruned to {@link #DISK_LIMIT} bytes,
+ * least recently used first.
+ */
+class ThumbnailCache {
+
+    static final int SIZE = 128;
+    static final long MEMORY_LIMIT = 64L * 1024 * 1024;
+    static final long DISK_LIMIT = 128L * 1024 * 1024;
+    /**
+     * The disk cache is checked against its limit after this many thumbnails were written.
+     */
+    private static final int PRUNE_INTERVAL = 100;
+
+    /**
+     * Notified on a worker thread when a requested thumbnail is ready (or failed).
+     */
+    interface Listener {
+        void thumbnailLoaded(File file);
+    }
+
+    private static final Set<String> SUFFIXES = new HashSet<>();
+
+    static {
+        for (String suffix : ImageIO.getReaderFileSuffixes()) {
+            SUFFIXES.add(suffix.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private final File directory;
+    private final Map<String, BufferedImage> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+    /**
+     * Files that could not be decoded, so they are not tried again and again.
+     */
+    private final Set<String> failed = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Set<String> pending = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final LinkedBlockingDeque<Runnable> queue =
+            new LinkedBlockingDeque<Runnable>() {
+                @Override
+                public boolean offer(Runnable runnable) {
+                    // newest requests are the cells on screen now
+                    return super.offerFirst(runnable);
+                }
+            };
+    private final ThreadPoolExecutor pool;
+    private final AtomicInteger written = new AtomicInteger();
+
+    ThumbnailCache(File directory) {
+        this.directory = directory;
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        final AtomicInteger count = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue,
+                new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "thumbnail-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }
+                });
+    }
+
+    static boolean isImage(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && SUFFIXES.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static String key(File file) {
+        return file.getAbsolutePath() + '@' + file.lastModified();
+    }
+
+    /**
+     * The thumbnail if it is in memory, otherwise null.
+     */
+    BufferedImage get(File file) {
+        synchronized (memory) {
+            return memory.get(key(file));
+        }
+    }
+
+    boolean hasFailed(File file) {
+        return failed.contains(key(file));
+    }
+
+    /**
+     * Load the thumbnail of file from disk or by decoding it, unless that is under way.
+     */
+    void request(final File file, final Listener listener) {
+        final String key = key(file);
+        if (failed.contains(key) || !pending.add(key)) {
+            return;
+        }
+        pool.execute(new Request(file, key, listener));
+    }
+
+    /**
+     * Drop requests that have not started, e.g. when another directory is shown.
+     */
+    void cancelPending() {
+        List<Runnable> dropped = new ArrayList<>();
+        queue.drainTo(dropped);
+        // the keys of dropped requests stay in pending otherwise; running ones keep theirs
+        for (Runnable runnable : dropped) {
+            pending.remove(((Request) runnable).key);
+        }
+    }
+
+    private void remember(String key, BufferedImage image) {
+        synchronized (memory) {
+            BufferedImage previous = memory.put(key, image);
+            if (previous != null) {
+                memoryBytes -= bytes(previous);
+            }
+            memoryBytes += bytes(image);
+            Iterator<BufferedImage> it = memory.values().iterator();
+            while (memoryBytes > MEMORY_LIMIT && it.hasNext()) {
+                memoryBytes -= bytes(it.next());
+                it.remove();
+            }
+        }
+    }
+
+    private static long bytes(BufferedImage image) {
+        return 4L * image.getWidth() * image.getHeight();
+    }
+
+    private BufferedImage load(File file, String key) {
+        File cached = new File(directory, Hashes.sha1Hex(key) + ".jpg");
+        try {
+            if (cached.isFile()) {
+                BufferedImage image = ImageIO.read(cached);
+                if (image != null) {
+                    cached.setLastModified(System.currentTimeMillis());
+                    return image;
+                }
+            }
+            BufferedImage image = decode(file);
+            if (image != null) {
+                ImageIO.write(image, "jpg", cached);
+                if (written.incrementAndGet() % PRUNE_INTERVAL == 0) {
+                    prune();
+                }
+            }
+            return image;
+        } catch (IOException | RuntimeException e) {
+            // unsupported variants, truncated files, a read-only cache ...
+            return null;
+        }
+    }
+
+    /**
+     * Delete the least recently used thumbnails while the disk cache holds more than DISK_LIMIT.
+     */
+    private synchronized void prune() {
+        File[] thumbnails = directory.listFiles();
+        if (thumbnails == null) {
+            return;
+        }
+        long total = 0;
+        for (File thumbnail : thumbnails) {
+            total += thumbnail.length();
+        }
+        if (total <= DISK_LIMIT) {
+            return;
+        }
+        Arrays.sort(thumbnails,
+                new Comparator<File>() {
+                    public int compare(File f1, File f2) {
+                        return Long.compare(f1.lastModified(), f2.lastModified());
+                    }
+                });
+        for (int ii = 0; ii < thumbnails.length && total > DISK_LIMIT; ii++) {
+            long length = thumbnails[ii].length();
+            if (thumbnails[ii].delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    /**
+     * Decode with subsampling so that the image read is at most about twice the thumbnail size.
+     */
+    static BufferedImage decode(File file) throws IOException {
+        if (file instanceof ArchiveEntry) {
+            try (InputStream entry = ((ArchiveEntry) file).openStream()) {
+                return decode(ImageIO.createImageInputStream(entry));
+            }
+        }
+        return decode(ImageIO.createImageInputStream(file));
+    }
+
+    private static BufferedImage decode(ImageInputStream input) throws IOException {
+        try (ImageInputStream in = input) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int step = Math.max(1, Math.max(width, height) / (2 * SIZE));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return scale(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source) {
+        double factor = Math.min(1.0, (double) SIZE / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * factor));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setColor(java.awt.Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * A queued request, which knows its key so it can be dropped again.
+     */
+    private final class Request implements Runnable {
+        private final File file;
+        private final String key;
+        private final Listener listener;
+
+        Request(File file, String key, Listener listener) {
+            this.file = file;
+            this.key = key;
+            this.listener = listener;
+        }
+
+        public void run() {
+            try {
+                BufferedImage image = load(file, key);
+                if (image == null) {
+                    failed.add(key);
+                } else {
+                    remember(key, image);
+                }
+            } finally {
+                pending.remove(key);
+            }
+            listener.thumbnailLoaded(file);
+        }
+    }
+}
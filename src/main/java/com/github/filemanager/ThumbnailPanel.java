@@ -0,0 +1,136 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.image.BufferedImage;
+import java.awt.event.*;
+import java.io.File;
+import javax.swing.*;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import javax.swing.filechooser.FileSystemView;
+
+/**
+ * The files of a directory as a grid of thumbnails, an alternative to the table.
+ *
+ * <p>Cells have a fixed size, so the list only paints (and so only asks for the thumbnails of)
+ * the cells in view.
+ */
+abstract class ThumbnailPanel extends JPanel {
+
+    private final ThumbnailCache thumbnails;
+    private final DefaultListModel<File> model = new DefaultListModel<>();
+    private final JList<File> list = new JList<>(model);
+    private final FileSystemView fileSystemView = FileSystemView.getFileSystemView();
+
+    ThumbnailPanel(ThumbnailCache thumbnails) {
+        super(new BorderLayout());
+        this.thumbnails = thumbnails;
+
+        list.setLayoutOrientation(JList.HORIZONTAL_WRAP);
+        list.setVisibleRowCount(-1);
+        list.setFixedCellWidth(ThumbnailCache.SIZE + 24);
+        list.setFixedCellHeight(ThumbnailCache.SIZE + 28);
+        list.setCellRenderer(new ThumbnailRenderer());
+        list.addListSelectionListener(
+                new ListSelectionListener() {
+                    public void valueChanged(ListSelectionEvent lse) {
+                        File selected = list.getSelectedValue();
+                        if (!lse.getValueIsAdjusting() && selected != null) {
+                            select(selected);
+                        }
+                    }
+                });
+        list.addMouseListener(
+                new MouseAdapter() {
+                    @Override
+                    public void mouseClicked(MouseEvent me) {
+                        File selected = list.getSelectedValue();
+                        if (me.getClickCount() == 2 && selected != null) {
+                            open(selected);
+                        }
+                    }
+                });
+        add(new JScrollPane(list), BorderLayout.CENTER);
+    }
+
+    /**
+     * A file was selected.
+     */
+    protected abstract void select(File file);
+
+    /**
+     * A file was double clicked.
+     */
+    protected abstract void open(File file);
+
+    void setFiles(File[] files) {
+        thumbnails.cancelPending();
+        model.clear();
+        for (File file : files) {
+            model.addElement(file);
+        }
+    }
+
+    private class ThumbnailRenderer extends DefaultListCellRenderer {
+
+        ThumbnailRenderer() {
+            setHorizontalAlignment(CENTER);
+            setVerticalTextPosition(BOTTOM);
+            setHorizontalTextPosition(CENTER);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(
+                JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            final File file = (File) value;
+            setText(fileSystemView.getSystemDisplayName(file));
+            setToolTipText(file.getPath());
+            Icon icon = fileSystemView.getSystemIcon(file);
+            if (ThumbnailCache.isImage(file)) {
+                BufferedImage image = thumbnails.get(file);
+                if (image != null) {
+                    icon = new ImageIcon(image);
+                } else if (!thumbnails.hasFailed(file)) {
+                    thumbnails.request(file,
+                            new ThumbnailCache.Listener() {
+                                public void thumbnailLoaded(File loaded) {
+                                    SwingUtilities.invokeLater(
+                                            new Runnable() {
+                                                public void run() {
+                                                    ThumbnailPanel.this.list.repaint();
+                                                }
+                                            });
+                                }
+                            });
+                }
+            }
+            setIcon(icon);
+            return this;
+        }
+    }
+}
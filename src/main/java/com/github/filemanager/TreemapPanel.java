@@ -0,0 +1,441 @@
+/*
+The MIT License
+
+Copyright (c) 2015-2023 Valentyn Kolesnikov (https://github.com/javadev/file-manager)
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package com.github.filemanager;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import javax.swing.*;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Disk usage of a directory tree as a squarified treemap: every directory is a box holding its
+ * children, with areas proportional to size.
+ *
+ * <p>The layout is redone while {@link DiskUsage} is still scanning, so the top levels show
+ * roughly at once and fill in as deeper directories are counted. The map is drawn into an
+ * off-screen image that is only redrawn when sizes or the panel size changed; hovering just
+ * paints an outline over it. Double click zooms into a directory, Up zooms out.
+ */
+class TreemapPanel extends JPanel {
+
+    /**
+     * Boxes smaller than this are not subdivided.
+     */
+    private static final int MIN_SIDE = 6;
+    private static final int HEADER = 14;
+    private static final int PADDING = 2;
+
+    private final JobScheduler scheduler;
+    private final MapView view = new MapView();
+    private final JLabel status = new JLabel(" ");
+    private final JButton up = new JButton("Up");
+    private final Timer refresh;
+
+    private DiskUsage usage;
+    private JobScheduler.Job scanJob;
+    /**
+     * The node filling the view, the scan root unless zoomed in.
+     */
+    private DiskUsage.Node shown;
+
+    private static class Box {
+        final DiskUsage.Node node;
+        final Rectangle bounds;
+        final int depth;
+
+        Box(DiskUsage.Node node, Rectangle bounds, int depth) {
+            this.node = node;
+            this.bounds = bounds;
+            this.depth = depth;
+        }
+    }
+
+    TreemapPanel(JobScheduler scheduler) {
+        super(new BorderLayout(3, 3));
+        this.scheduler = scheduler;
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEADING, 3, 0));
+        up.setEnabled(false);
+        up.addActionListener(
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        if (shown != null && shown.getParent() != null) {
+                            zoom(shown.getParent());
+                        }
+                    }
+                });
+        controls.add(up);
+        controls.add(status);
+        add(controls, BorderLayout.NORTH);
+        add(view, BorderLayout.CENTER);
+
+        refresh = new Timer(300,
+                new ActionListener() {
+                    public void actionPerformed(ActionEvent ae) {
+                        if (usage != null && usage.getVersion() != view.renderedVersion) {
+                            view.invalidateImage();
+                        }
+                        if (usage == null || usage.isComplete()) {
+                            refresh.stop();
+                        }
+                        updateStatus();
+                    }
+                });
+    }
+
+    /**
+     * Scan directory in the background and show its treemap as it fills in.
+     */
+    void setDirectory(File directory) {
+        if (scanJob != null) {
+            scanJob.cancel();
+        }
+        final DiskUsage scanned = new DiskUsage(directory);
+        usage = scanned;
+        shown = scanned.getRoot();
+        view.hovered = null;
+        view.invalidateImage();
+        scanJob = new JobScheduler.Job("Disk usage of " + directory.getPath(), JobScheduler.Priority.NORMAL, directory) {
+            @Override
+            protected void execute() {
+                scanned.scan(this);
+            }
+
+            @Override
+            protected void finished() {
+                final JobScheduler.Job job = this;
+                // a cancelled or failed scan never completes, so the timer cannot wait for that
+                SwingUtilities.invokeLater(
+                        new Runnable() {
+                            public void run() {
+                                if (scanJob != job) {
+                                    return;
+                                }
+                                refresh.stop();
+                                view.invalidateImage();
+                                updateStatus();
+                            }
+                        });
+            }
+        };
+        scheduler.submit(scanJob);
+        refresh.start();
+        updateStatus();
+    }
+
+    private void zoom(DiskUsage.Node node) {
+        shown = node;
+        up.setEnabled(node.getParent() != null);
+        view.hovered = null;
+        view.invalidateImage();
+        updateStatus();
+    }
+
+    private void updateStatus() {
+        if (usage == null) {
+            return;
+        }
+        DiskUsage.Node hovered = view.hovered;
+        if (hovered != null) {
+            status.setText(describe(hovered));
+        } else if (usage.isComplete()) {
+            status.setText(describe(shown));
+        } else {
+            JobScheduler.State state = scanJob.getState();
+            boolean running = state == JobScheduler.State.QUEUED || state == JobScheduler.State.RUNNING;
+            status.setText((running ? "Scanning... " : "Scan " + state.toString().toLowerCase(Locale.ROOT) + ", ")
+                    + usage.getDirectoryCount() + " directories, "
+                    + FileUtils.byteCountToDisplaySize(usage.getRoot().getSize()));
+        }
+    }
+
+    private String describe(DiskUsage.Node node) {
+        long total = Math.max(1, shown.getSize());
+        String name = node.getFile() != null ? node.getFile().getPath() : node.getName();
+        return String.format(Locale.ROOT, "%s  %s (%.1f%%)", name,
+                FileUtils.byteCountToDisplaySize(node.getSize()), node.getSize() * 100.0 / total);
+    }
+
+    private class MapView extends JComponent {
+        private BufferedImage image;
+        private int renderedVersion = -1;
+        private final List<Box> boxes = new ArrayList<>();
+        private DiskUsage.Node hovered;
+        private Rectangle hoveredBounds;
+        private Point mouse;
+
+        MapView() {
+            setPreferredSize(new Dimension(400, 300));
+            addMouseMotionListener(
+                    new MouseMotionAdapter() {
+                        @Override
+                        public void mouseMoved(MouseEvent me) {
+                            hover(me.getPoint());
+                        }
+                    });
+            addMouseListener(
+                    new MouseAdapter() {
+                        @Override
+                        public void mouseClicked(MouseEvent me) {
+                            Box box = boxAt(me.getPoint());
+                            if (me.getClickCount() == 2 && box != null && box.node.isDirectory()
+                                    && box.node != shown) {
+                                zoom(box.node);
+                            }
+                        }
+
+                        @Override
+                        public void mouseExited(MouseEvent me) {
+                            hover(null);
+                        }
+                    });
+        }
+
+        void invalidateImage() {
+            image = null;
+            repaint();
+        }
+
+        private Box boxAt(Point point) {
+            if (point == null) {
+                return null;
+            }
+            // children come after their parents, so the last hit is the innermost
+            for (int ii = boxes.size() - 1; ii >= 0; ii--) {
+                if (boxes.get(ii).bounds.contains(point)) {
+                    return boxes.get(ii);
+                }
+            }
+            return null;
+        }
+
+        private void hover(Point point) {
+            mouse = point;
+            Box box = boxAt(point);
+            DiskUsage.Node node = box == null ? null : box.node;
+            if (node == hovered) {
+                return;
+            }
+            if (hoveredBounds != null) {
+                repaint(hoveredBounds);
+            }
+            hovered = node;
+            hoveredBounds = box == null ? null : box.bounds;
+            if (hoveredBounds != null) {
+                repaint(hoveredBounds);
+            }
+            updateStatus();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            if (shown == null || getWidth() <= 0 || getHeight() <= 0) {
+                return;
+            }
+            if (image == null || image.getWidth() != getWidth() || image.getHeight() != getHeight()) {
+                render();
+            }
+            g.drawImage(image, 0, 0, null);
+            if (hoveredBounds != null) {
+                g.setColor(Color.YELLOW);
+                Rectangle r = hoveredBounds;
+                g.drawRect(r.x, r.y, r.width - 1, r.height - 1);
+                g.drawRect(r.x + 1, r.y + 1, r.width - 3, r.height - 3);
+            }
+        }
+
+        private void render() {
+            renderedVersion = usage.getVersion();
+            boxes.clear();
+            layout(shown, new Rectangle(0, 0, getWidth(), getHeight()), 0);
+            image = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setFont(getFont().deriveFont(10f));
+                for (Box box : boxes) {
+                    draw(g, box);
+                }
+            } finally {
+                g.dispose();
+            }
+            // the box under the mouse may have moved
+            Box box = boxAt(mouse);
+            hovered = box == null ? null : box.node;
+            hoveredBounds = box == null ? null : box.bounds;
+        }
+
+        private void layout(DiskUsage.Node node, Rectangle bounds, int depth) {
+            boxes.add(new Box(node, bounds, depth));
+            DiskUsage.Node[] children = node.getChildren();
+            if (children.length == 0 || bounds.width < 2 * MIN_SIDE || bounds.height < 2 * MIN_SIDE) {
+                return;
+            }
+            int header = bounds.height > 3 * HEADER ? HEADER : 0;
+            Rectangle inner = new Rectangle(bounds.x + PADDING, bounds.y + PADDING + header,
+                    bounds.width - 2 * PADDING, bounds.height - 2 * PADDING - header);
+            // sizes still change while scanning, so sort & lay out one consistent snapshot
+            final long[] sizes = new long[children.length];
+            Integer[] order = new Integer[children.length];
+            long total = 0;
+            for (int ii = 0; ii < children.length; ii++) {
+                sizes[ii] = children[ii].getSize();
+                order[ii] = ii;
+                total += sizes[ii];
+            }
+            if (total == 0) {
+                return;
+            }
+            Arrays.sort(order,
+                    new Comparator<Integer>() {
+                        public int compare(Integer i1, Integer i2) {
+                            return Long.compare(sizes[i2], sizes[i1]);
+                        }
+                    });
+            int count = 0;
+            while (count < order.length && sizes[order[count]] > 0) {
+                count++;
+            }
+            DiskUsage.Node[] sorted = new DiskUsage.Node[count];
+            double[] areas = new double[count];
+            double scale = (double) inner.width * inner.height / total;
+            for (int ii = 0; ii < count; ii++) {
+                sorted[ii] = children[order[ii]];
+                areas[ii] = sizes[order[ii]] * scale;
+            }
+            squarify(sorted, areas, inner, depth + 1);
+        }
+
+        /**
+         * Lay out items (largest first) in rows along the shorter side of the area, adding items
+         * to a row while that improves its worst aspect ratio.
+         */
+        private void squarify(DiskUsage.Node[] nodes, double[] areas, Rectangle area, int depth) {
+            double x = area.x;
+            double y = area.y;
+            double width = area.width;
+            double height = area.height;
+            int start = 0;
+            while (start < nodes.length && width >= 1 && height >= 1) {
+                double side = Math.min(width, height);
+                int end = start + 1;
+                double rowArea = areas[start];
+                double worst = worst(areas, start, end, rowArea, side);
+                while (end < nodes.length) {
+                    double nextWorst = worst(areas, start, end + 1, rowArea + areas[end], side);
+                    if (nextWorst > worst) {
+                        break;
+                    }
+                    rowArea += areas[end];
+                    worst = nextWorst;
+                    end++;
+                }
+                double thickness = Math.min(rowArea / side, Math.max(width, height));
+                double offset = 0;
+                for (int ii = start; ii < end; ii++) {
+                    double length = areas[ii] / thickness;
+                    Rectangle bounds;
+                    if (width >= height) {
+                        // a column on the left
+                        bounds = edges(x, y + offset, x + thickness, y + offset + length);
+                    } else {
+                        // a row along the top
+                        bounds = edges(x + offset, y, x + offset + length, y + thickness);
+                    }
+                    offset += length;
+                    if (bounds.width > 0 && bounds.height > 0) {
+                        layout(nodes[ii], bounds, depth);
+                    }
+                }
+                if (width >= height) {
+                    x += thickness;
+                    width -= thickness;
+                } else {
+                    y += thickness;
+                    height -= thickness;
+                }
+                start = end;
+            }
+        }
+
+        private double worst(double[] areas, int start, int end, double rowArea, double side) {
+            double largest = areas[start];
+            double smallest = areas[end - 1];
+            double sideSquared = side * side;
+            double rowSquared = rowArea * rowArea;
+            return Math.max(sideSquared * largest / rowSquared, rowSquared / (sideSquared * smallest));
+        }
+
+        /**
+         * Round edges rather than sizes, so neighbouring boxes neither overlap nor leave gaps.
+         */
+        private Rectangle edges(double x1, double y1, double x2, double y2) {
+            int left = (int) Math.round(x1);
+            int top = (int) Math.round(y1);
+            return new Rectangle(left, top, (int) Math.round(x2) - left, (int) Math.round(y2) - top);
+        }
+
+        private void draw(Graphics2D g, Box box) {
+            Rectangle r = box.bounds;
+            DiskUsage.Node node = box.node;
+            if (node.isDirectory()) {
+                int shade = Math.max(120, 235 - 12 * box.depth);
+                g.setColor(new Color(shade, shade, shade));
+            } else if (node.getFile() == null) {
+                g.setColor(Color.LIGHT_GRAY);
+            } else {
+                g.setColor(colorOf(node.getName()));
+            }
+            g.fillRect(r.x, r.y, r.width, r.height);
+            g.setColor(Color.DARK_GRAY);
+            g.drawRect(r.x, r.y, r.width - 1, r.height - 1);
+            boolean labelled = node.isDirectory()
+                    ? r.height > 3 * HEADER && node.getChildren().length > 0
+                    : r.height > HEADER;
+            if (labelled && r.width > 30) {
+                Shape clip = g.getClip();
+                g.clipRect(r.x + 2, r.y, r.width - 4, HEADER);
+                g.setColor(Color.BLACK);
+                g.drawString(node.getName(), r.x + 3, r.y + HEADER - 3);
+                g.setClip(clip);
+            }
+        }
+
+        /**
+         * Files of the same type share a colour.
+         */
+        private Color colorOf(String name) {
+            int dot = name.lastIndexOf('.');
+            String type = dot > 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+            float hue = (type.hashCode() & 0xffff) / (float) 0x10000;
+            return Color.getHSBColor(hue, 0.35f, 0.95f);
+        }
+    }
+}